@@ -0,0 +1,256 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.protobuf.Timestamp;
+import io.spine.client.ActorRequestFactory;
+import io.spine.client.Query;
+import io.spine.client.QueryResponse;
+import io.spine.client.Subscription;
+import io.spine.client.SubscriptionId;
+import io.spine.client.Topic;
+import io.spine.core.UserId;
+import io.spine.protobuf.AnyPacker;
+import io.spine.web.WebQuery;
+import io.spine.web.metrics.Histogram;
+import io.spine.web.metrics.InMemoryWebMetrics;
+import io.spine.web.query.QueryProcessingResult;
+import io.spine.web.query.service.AsyncQueryService;
+import io.spine.web.storage.RealtimeStorage.ChildListener;
+import io.spine.web.storage.RealtimeStorage.Registration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.spine.web.firebase.FirebaseMetricNames.WRITE;
+import static io.spine.web.firebase.FirebaseMetricNames.WRITE_FAILED;
+import static io.spine.web.firebase.FirebaseMetricNames.WRITE_REJECTED;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * Measures the bridges running on the {@link InMemoryRealtimeStorage} with the injected
+ * database latency.
+ *
+ * <p>The {@link #query()} benchmark measures the time the query bridge takes to respond.
+ * The {@link #keepUp()} benchmark measures the time from keeping up the subscription until
+ * the changed entry is observed by a listener of the subscription node, i.e. the time it takes
+ * the change to reach a client.
+ *
+ * <p>The latency percentiles of the database writes are collected by the metrics of the write
+ * scheduler and logged once the trial is over.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(MICROSECONDS)
+public class FirebaseBridgesBenchmark {
+
+    /**
+     * The minimum latency of a database operation in milliseconds.
+     */
+    @Param({"0", "20"})
+    public long latencyMillis;
+
+    /**
+     * The maximum random addition to the latency of a database operation in milliseconds.
+     */
+    @Param({"0", "100"})
+    public long jitterMillis;
+
+    /**
+     * The number of the messages in a query response.
+     */
+    @Param({"10", "1000"})
+    public int messageCount;
+
+    private final AtomicInteger version = new AtomicInteger();
+
+    private InMemoryRealtimeStorage storage;
+    private InMemoryWebMetrics metrics;
+    private FirebaseWriteScheduler scheduler;
+    private FirebaseQueryBridge queryBridge;
+    private FirebaseSubscriptionBridge subscriptionBridge;
+    private WebQuery webQuery;
+    private Subscription subscription;
+    private Registration registration;
+
+    /**
+     * The future completed once the subscription node changes.
+     */
+    private volatile CompletableFuture<Void> nextChange = new CompletableFuture<>();
+
+    @Setup
+    public void setUp() throws InterruptedException {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .setLatency(latencyMillis, jitterMillis, MILLISECONDS)
+                                         .build();
+        metrics = new InMemoryWebMetrics();
+        scheduler = FirebaseWriteScheduler.newBuilder()
+                                          .setMetrics(metrics)
+                                          .build();
+        AsyncQueryService queryService = query -> completedFuture(response());
+        queryBridge = FirebaseQueryBridge.newBuilder()
+                                         .setStorage(storage)
+                                         .setQueryService(queryService)
+                                         .setWriteScheduler(scheduler)
+                                         .build();
+        subscriptionBridge = FirebaseSubscriptionBridge.newBuilder()
+                                                       .setStorage(storage)
+                                                       .setQueryService(queryService)
+                                                       .setWriteScheduler(scheduler)
+                                                       .setMaxShadowedSubscriptions(1)
+                                                       .build();
+        UserId actor = UserId.newBuilder()
+                             .setValue("benchmark-user@example.com")
+                             .build();
+        ActorRequestFactory requestFactory = ActorRequestFactory.newBuilder()
+                                                                .setActor(actor)
+                                                                .build();
+        Query query = requestFactory.query()
+                                    .all(Timestamp.class);
+        webQuery = WebQuery.newBuilder()
+                           .setQuery(query)
+                           .build();
+        Topic topic = requestFactory.topic()
+                                    .allOf(Timestamp.class);
+        String path = FirebaseDatabasePath.allocateForTopic(topic)
+                                          .toString();
+        SubscriptionId id = SubscriptionId.newBuilder()
+                                          .setValue(path)
+                                          .build();
+        subscription = Subscription.newBuilder()
+                                   .setId(id)
+                                   .setTopic(topic)
+                                   .build();
+        // The node is populated before listening to it, so that the benchmark observes only
+        // the changes made by keeping up the subscription.
+        subscriptionBridge.keepUp(subscription);
+        while (!storage.read(path)
+                       .isPresent()) {
+            Thread.sleep(10);
+        }
+        CompletableFuture<Void> synced = nextChange;
+        registration = storage.addChildListener(path, new ChangeListener());
+        synced.join();
+    }
+
+    @TearDown
+    public void tearDown() {
+        metrics.histogram(WRITE)
+               .ifPresent(FirebaseBridgesBenchmark::logWriteLatency);
+        log().info("Failed writes: {}, rejected writes: {}.",
+                   metrics.counter(WRITE_FAILED), metrics.counter(WRITE_REJECTED));
+        registration.cancel();
+        queryBridge.shutdown();
+        subscriptionBridge.shutdown();
+        scheduler.shutdown();
+        storage.shutdown();
+    }
+
+    private static void logWriteLatency(Histogram writes) {
+        log().info("Database writes: {}, p50 {} ms, p99 {} ms, max {} ms.",
+                   writes.count(),
+                   NANOSECONDS.toMillis(writes.percentileNanos(50)),
+                   NANOSECONDS.toMillis(writes.percentileNanos(99)),
+                   NANOSECONDS.toMillis(writes.maxNanos()));
+    }
+
+    @Benchmark
+    public QueryProcessingResult query() {
+        return queryBridge.sendAsync(webQuery)
+                          .join();
+    }
+
+    @Benchmark
+    public void keepUp() throws Exception {
+        CompletableFuture<Void> change = new CompletableFuture<>();
+        nextChange = change;
+        subscriptionBridge.keepUp(subscription);
+        change.get(1, MINUTES);
+    }
+
+    /**
+     * Creates a query response in which a single message changes upon each call.
+     */
+    private QueryResponse response() {
+        int changed = version.incrementAndGet();
+        QueryResponse.Builder builder = QueryResponse.newBuilder();
+        for (int i = 0; i < messageCount; i++) {
+            Timestamp message = Timestamp.newBuilder()
+                                         .setSeconds(i)
+                                         .setNanos(i == 0 ? changed : 0)
+                                         .build();
+            builder.addMessages(AnyPacker.pack(message));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Completes the {@linkplain #nextChange pending change} once the subscription node
+     * is synced or changed.
+     */
+    private final class ChangeListener implements ChildListener {
+
+        @Override
+        public void onChildAdded(String key, Object value) {
+            nextChange.complete(null);
+        }
+
+        @Override
+        public void onChildChanged(String key, Object value) {
+            nextChange.complete(null);
+        }
+
+        @Override
+        public void onChildRemoved(String key) {
+            nextChange.complete(null);
+        }
+
+        @Override
+        public void onSynced() {
+            nextChange.complete(null);
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(FirebaseBridgesBenchmark.class);
+    }
+}
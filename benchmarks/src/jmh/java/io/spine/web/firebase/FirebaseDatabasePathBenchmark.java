@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.protobuf.Timestamp;
+import io.spine.client.ActorRequestFactory;
+import io.spine.client.Query;
+import io.spine.client.Topic;
+import io.spine.core.TenantId;
+import io.spine.core.UserId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures the allocation of the database paths for queries and topics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+public class FirebaseDatabasePathBenchmark {
+
+    private Query query;
+    private Topic topic;
+
+    @Setup
+    public void setUp() {
+        UserId actor = UserId.newBuilder()
+                             .setValue("benchmark-user@example.com")
+                             .build();
+        TenantId tenant = TenantId.newBuilder()
+                                  .setValue("benchmark.tenant")
+                                  .build();
+        ActorRequestFactory requestFactory = ActorRequestFactory.newBuilder()
+                                                                .setActor(actor)
+                                                                .setTenantId(tenant)
+                                                                .build();
+        query = requestFactory.query()
+                              .all(Timestamp.class);
+        topic = requestFactory.topic()
+                              .allOf(Timestamp.class);
+    }
+
+    @Benchmark
+    public FirebaseDatabasePath allocateForQuery() {
+        return FirebaseDatabasePath.allocateForQuery(query);
+    }
+
+    @Benchmark
+    public FirebaseDatabasePath allocateForTopic() {
+        return FirebaseDatabasePath.allocateForTopic(topic);
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.collect.ImmutableList;
+import com.google.firebase.database.InternalHelpers;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.snapshot.NodeUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.spine.web.firebase.FirebasePushKeys.newChildKey;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures the computation of the difference between the subscription state in Spine and
+ * the subscription state in Firebase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+public class FirebaseSubscriptionDiffBenchmark {
+
+    /**
+     * The number of the entries in the subscription.
+     */
+    @Param({"10", "1000", "10000"})
+    public int entryCount;
+
+    /**
+     * The share of the entries which have changed since the last update.
+     */
+    @Param({"0.0", "0.1", "1.0"})
+    public double changeRatio;
+
+    private List<String> newEntries;
+    private Iterable<MutableData> firebaseEntries;
+
+    @Setup
+    public void setUp() {
+        int changedCount = (int) (entryCount * changeRatio);
+        Map<String, Object> existing = new LinkedHashMap<>(entryCount);
+        List<String> updated = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            existing.put(newChildKey(), entry(i, "initial"));
+            updated.add(entry(i, i < changedCount ? "changed" : "initial"));
+        }
+        MutableData root = InternalHelpers.createMutableData(NodeUtilities.NodeFromJSON(existing));
+        firebaseEntries = ImmutableList.copyOf(root.getChildren());
+        newEntries = updated;
+    }
+
+    @Benchmark
+    public FirebaseSubscriptionDiff computeDiff() {
+        return FirebaseSubscriptionDiff.computeDiff(newEntries, firebaseEntries);
+    }
+
+    @Benchmark
+    public FirebaseSubscriptionDiff computeChanges() {
+        return FirebaseSubscriptionDiff.computeChanges(newEntries, firebaseEntries);
+    }
+
+    private static String entry(int id, String state) {
+        return "{\"id\":\"" + id + "\",\"state\":\"" + state + "\",\"number\":" + id + '}';
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.parser;
+
+import com.google.common.base.Strings;
+import com.google.protobuf.ListValue;
+import com.google.protobuf.Value;
+import io.spine.json.Json;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.util.Base64;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures the parsing of the HTTP request bodies into messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+public class HttpMessagesBenchmark {
+
+    private static final String CONTENT_TYPE = "Content-Type";
+    private static final String JSON_TYPE = "application/json";
+    private static final String PROTOBUF_TYPE = "application/x-protobuf";
+    private static final int VALUE_LENGTH = 32;
+
+    /**
+     * The number of the values in the parsed list.
+     */
+    @Param({"1", "100", "10000"})
+    public int payloadSize;
+
+    private HttpServletRequest jsonRequest;
+    private HttpServletRequest base64Request;
+
+    @Setup
+    public void setUp() {
+        ListValue.Builder payload = ListValue.newBuilder();
+        String value = Strings.repeat("v", VALUE_LENGTH);
+        for (int i = 0; i < payloadSize; i++) {
+            payload.addValues(Value.newBuilder()
+                                   .setStringValue(value + i));
+        }
+        ListValue message = payload.build();
+        jsonRequest = request(JSON_TYPE, Json.toCompactJson(message));
+        base64Request = request(PROTOBUF_TYPE, Base64.getEncoder()
+                                                      .encodeToString(message.toByteArray()));
+    }
+
+    @Benchmark
+    public Optional<ListValue> parseJson() throws IOException {
+        return HttpMessages.parse(jsonRequest, ListValue.class);
+    }
+
+    @Benchmark
+    public Optional<ListValue> parseBase64() throws IOException {
+        return HttpMessages.parse(base64Request, ListValue.class);
+    }
+
+    /**
+     * Creates a request which provides only the content type, the body and its length.
+     */
+    private static HttpServletRequest request(String contentType, String body) {
+        return new StubRequest(contentType, body);
+    }
+
+    /**
+     * A request which provides only the content type, the body and its length.
+     *
+     * <p>The methods called by the parser are plain overrides, so that, unlike a mock or
+     * a dynamic proxy, the request adds no reflective dispatch to the measured code. The rest of
+     * the methods are delegated to a request which fails on any call.
+     */
+    private static final class StubRequest extends HttpServletRequestWrapper {
+
+        private final String contentType;
+        private final String body;
+        private final long contentLength;
+
+        private StubRequest(String contentType, String body) {
+            super(unsupportedRequest());
+            this.contentType = contentType;
+            this.body = body;
+            this.contentLength = body.getBytes(UTF_8).length;
+        }
+
+        private static HttpServletRequest unsupportedRequest() {
+            Object request = Proxy.newProxyInstance(
+                    HttpServletRequest.class.getClassLoader(),
+                    new Class<?>[]{HttpServletRequest.class},
+                    (proxy, method, args) -> {
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+            return (HttpServletRequest) request;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return CONTENT_TYPE.equalsIgnoreCase(name)
+                   ? contentType
+                   : null;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return contentLength;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new StringReader(body));
+        }
+    }
+}
@@ -27,6 +27,8 @@ import {HttpClient} from './http-client';
 import {FirebaseClient} from './firebase-client';
 import {ActorRequestFactory} from './actor-request-factory';
 import {FirebaseSubscriptionService} from './firebase-subscription-service';
+import {SseClient} from './sse-client';
+import {WebSocketEndpoint} from './websocket-endpoint';
 import {
   Subscription as SpineSubscription,
   SubscriptionId
@@ -190,7 +192,7 @@ class Fetch {
  *
  * Backend client defines operations that client is able to perform (`.fetchAll(...)`,
  * `.sendCommand(...)`, etc.), also providing factory methods for creating Backend Client
- * instances (`.usingFirebase(...)`).
+ * instances (`.usingFirebase(...)`, `.usingServerSentEvents(...)`).
  *
  * @abstract
  */
@@ -331,13 +333,30 @@ export class BackendClient {
    * @param {!firebase.app.App} withFirebaseStorage
    *        a Firebase Application that will be used to retrieve data from
    * @param {!string} forActor an id of the user interacting with Spine
+   * @param {?boolean} sendingBinary whether to send the requests as raw message bytes instead of
+   *                                 Base64-encoded strings; `false` if not set
+   * @param {?boolean} batchingRequests whether to send the requests issued in the same tick as
+   *                                    a single batch request; `false` if not set
+   * @param {?number} maxBatchSize the maximum number of the requests in a single batch request,
+   *                               which must not exceed the limit of the server; `100` if not set
+   * @param {?string} atWebSocket the URL of the WebSocket endpoint; if set, all the requests are
+   *                              sent over a single WebSocket connection instead of HTTP
    * @return {BackendClient} a new backend client instance which will send the requests on behalf
    *                          of the provided actor to the provided endpoint, retrieving the data
    *                          from the provided Firebase storage
    */
-  static usingFirebase({atEndpoint: endpointUrl, withFirebaseStorage: firebaseApp, forActor: actor}) {
-    const httpClient = new HttpClient(endpointUrl);
-    const endpoint = new HttpEndpoint(httpClient);
+  static usingFirebase({
+                         atEndpoint: endpointUrl,
+                         withFirebaseStorage: firebaseApp,
+                         forActor: actor,
+                         sendingBinary: binary = false,
+                         batchingRequests: batching = false,
+                         maxBatchSize,
+                         atWebSocket: webSocketUrl
+                       }) {
+    const endpoint = BackendClient._endpoint({
+      endpointUrl, binary, batching, maxBatchSize, webSocketUrl
+    });
     const firebaseClient = new FirebaseClient(firebaseApp);
     const requestFactory = new ActorRequestFactory(actor);
     const subscriptionService = new FirebaseSubscriptionService(endpoint);
@@ -345,6 +364,68 @@ export class BackendClient {
     return new FirebaseBackendClient(endpoint, firebaseClient, requestFactory, subscriptionService);
   }
 
+  /**
+   * A static factory method that creates a new `BackendClient` instance receiving
+   * the subscription updates over Server-Sent Events.
+   *
+   * The backend is expected to serve the subscriptions with the `SseSubscriptionBridge` and
+   * to stream them with the `SubscriptionStreamServlet`. No Firebase app is required.
+   *
+   * The queries are only supported if the backend inlines the query results into the responses.
+   *
+   * @param {!string} atEndpoint a Spine web backend endpoint URL
+   * @param {!string} atStreamUrl the URL of the subscription stream servlet
+   * @param {!string} forActor an id of the user interacting with Spine
+   * @param {?boolean} sendingBinary whether to send the requests as raw message bytes instead of
+   *                                 Base64-encoded strings; `false` if not set
+   * @param {?boolean} batchingRequests whether to send the requests issued in the same tick as
+   *                                    a single batch request; `false` if not set
+   * @param {?number} maxBatchSize the maximum number of the requests in a single batch request,
+   *                               which must not exceed the limit of the server; `100` if not set
+   * @param {?string} atWebSocket the URL of the WebSocket endpoint; if set, all the requests are
+   *                              sent over a single WebSocket connection instead of HTTP
+   * @return {BackendClient} a new backend client instance which will send the requests on behalf
+   *                          of the provided actor to the provided endpoint, receiving
+   *                          the subscription updates from the provided stream URL
+   */
+  static usingServerSentEvents({
+                                 atEndpoint: endpointUrl,
+                                 atStreamUrl: streamUrl,
+                                 forActor: actor,
+                                 sendingBinary: binary = false,
+                                 batchingRequests: batching = false,
+                                 maxBatchSize,
+                                 atWebSocket: webSocketUrl
+                               }) {
+    const endpoint = BackendClient._endpoint({
+      endpointUrl, binary, batching, maxBatchSize, webSocketUrl
+    });
+    const sseClient = new SseClient(streamUrl);
+    const requestFactory = new ActorRequestFactory(actor);
+    const subscriptionService = new FirebaseSubscriptionService(endpoint);
+
+    return new SseBackendClient(endpoint, sseClient, requestFactory, subscriptionService);
+  }
+
+  /**
+   * Creates the endpoint to send the requests to.
+   *
+   * @param {!string} endpointUrl a Spine web backend endpoint URL
+   * @param {!boolean} binary whether to send the HTTP requests as raw message bytes
+   * @param {!boolean} batching whether to batch the HTTP requests issued in the same tick
+   * @param {?number} maxBatchSize the maximum number of the requests in a single batch request
+   * @param {?string} webSocketUrl the URL of the WebSocket endpoint, if any
+   * @return {Endpoint} the WebSocket endpoint if its URL is set, the HTTP endpoint otherwise
+   * @private
+   */
+  static _endpoint({endpointUrl, binary, batching, maxBatchSize, webSocketUrl}) {
+    if (webSocketUrl) {
+      return new WebSocketEndpoint(webSocketUrl);
+    }
+    const httpClient = new HttpClient(endpointUrl, {binary});
+    return new HttpEndpoint(httpClient, {batching, maxBatchSize});
+  }
+
   /**
    * Creates a new Fetch object specifying the target of fetch and its parameters.
    *
@@ -426,20 +507,31 @@ class FirebaseFetch extends Fetch {
       let receivedCount = 0;
       let promisedCount = null;
       let dbSubscription = null;
+      let removeOnRead = false;
 
       const query = this._query.raw();
       this._backend._endpoint.query(query, QUERY_STRATEGY.oneByOne)
-        .then(({path, count}) => {
+        .then(response => {
+          if (response.inlined) {
+            this._emitInlined(response, observer);
+            return null;
+          }
+          let {path, count} = response;
           if (typeof count === 'undefined') {
             count = 0;
           } else if (isNaN(count)) {
             throw EndpointError.serverError('Unexpected format of `count`');
           }
           promisedCount = parseInt(count);
+          removeOnRead = !!response.removeOnRead;
           return path;
         })
         .then(path => {
+          if (path === null) {
+            return;
+          }
           if (receivedCount === promisedCount) {
+            this._acknowledge(path, removeOnRead);
             FirebaseFetch._complete(observer);
           }
           dbSubscription = this._backend._firebase.onChildAdded(path, value => {
@@ -448,6 +540,7 @@ class FirebaseFetch extends Fetch {
             receivedCount++;
             if (receivedCount === promisedCount) {
               FirebaseFetch._complete(observer, dbSubscription);
+              this._acknowledge(path, removeOnRead);
             }
           });
         })
@@ -462,6 +555,48 @@ class FirebaseFetch extends Fetch {
     });
   }
 
+  /**
+   * Acknowledges the receipt of all the query results stored under the given path.
+   *
+   * If the server has requested so, the results are removed from Firebase.
+   *
+   * @param {!string} path the path to the query results
+   * @param {!boolean} removeOnRead whether the results should be removed
+   * @private
+   */
+  _acknowledge(path, removeOnRead) {
+    if (removeOnRead) {
+      this._backend._firebase.remove(path);
+    }
+  }
+
+  /**
+   * Emits the query results inlined into the server response and completes the observer.
+   *
+   * The inlined results are not read from Firebase.
+   *
+   * @param {!Object} response the server response containing the inlined results
+   * @param {!Observer} observer an observer that resolves query values
+   * @private
+   */
+  _emitInlined(response, observer) {
+    this._inlinedMessages(response)
+      .forEach(message => observer.next(message));
+    FirebaseFetch._complete(observer);
+  }
+
+  /**
+   * Converts the query results inlined into the server response.
+   *
+   * @param {!Object} response the server response containing the inlined results
+   * @return {Object[]} the messages of the queried type
+   * @private
+   */
+  _inlinedMessages(response) {
+    const values = response.inlinedMessages || [];
+    return values.map(value => this._query.convert(JSON.parse(value)));
+  }
+
   /**
    * A method completing an observer unsubscribing the Firebase subscriptions
    *
@@ -486,13 +621,20 @@ class FirebaseFetch extends Fetch {
     return new Promise((resolve, reject) => {
       const query = this._query.raw();
       this._backend._endpoint.query(query, QUERY_STRATEGY.allAtOnce)
-        .then(({path}) => this._backend._firebase.getValues(path, values => {
-          let messages = values.map(value => {
-            const message = this._query.convert(value);
-            return message;
+        .then(response => {
+          if (response.inlined) {
+            resolve(this._inlinedMessages(response));
+            return;
+          }
+          this._backend._firebase.getValues(response.path, values => {
+            let messages = values.map(value => {
+              const message = this._query.convert(value);
+              return message;
+            });
+            this._acknowledge(response.path, !!response.removeOnRead);
+            resolve(messages);
           });
-          resolve(messages);
-        }))
+        })
         .catch(error => reject(error));
     });
   }
@@ -551,7 +693,7 @@ class EntitySubscription extends Subscription {
 class FirebaseBackendClient extends BackendClient {
 
   /**
-   * @param {!HttpEndpoint} endpoint the server endpoint to execute queries and commands
+   * @param {!Endpoint} endpoint the server endpoint to execute queries and commands
    * @param {!FirebaseClient} firebaseClient the client to read the query results from
    * @param {!ActorRequestFactory} actorRequestFactory a factory to instantiate the actor requests with
    * @param {!FirebaseSubscriptionService} subscriptionService a service handling the subscriptions
@@ -657,3 +799,149 @@ class FirebaseBackendClient extends BackendClient {
  */
 FirebaseBackendClient.Fetch = FirebaseFetch;
 
+/**
+ * Fetch implementation for the `SseBackendClient`.
+ *
+ * The query results are expected to be inlined into the server responses, since there is no
+ * storage to read them from.
+ *
+ * @see Fetch
+ * @see BackendClient#fetchAll()
+ */
+class SseFetch extends Fetch {
+
+  /**
+   * @param {!TypedQuery} query a typed query which contains runtime information about the queried entity type
+   * @param {!SseBackendClient} backend an SSE backend client used to execute requests
+   */
+  constructor({of: query, using: backend}) {
+    super({of: query, using: backend});
+  }
+
+  /**
+   * @inheritDoc
+   */
+  oneByOne() {
+    return new Observable(observer => {
+      this._fetch(QUERY_STRATEGY.oneByOne)
+        .then(messages => {
+          messages.forEach(message => observer.next(message));
+          observer.complete();
+        })
+        .catch(error => observer.error(error));
+    });
+  }
+
+  /**
+   * @inheritDoc
+   */
+  atOnce() {
+    return this._fetch(QUERY_STRATEGY.allAtOnce);
+  }
+
+  /**
+   * Executes the query and converts the results inlined into the server response.
+   *
+   * @param {!string} strategy the query strategy
+   * @return {Promise<Object[]>} a promise resolving an array of entities matching query,
+   *                              that be rejected with an `EndpointError`
+   * @private
+   */
+  _fetch(strategy) {
+    const query = this._query.raw();
+    return this._backend._endpoint.query(query, strategy)
+      .then(response => {
+        if (!response.inlined) {
+          throw EndpointError.serverError('The query results are not inlined into the response');
+        }
+        const values = response.inlinedMessages || [];
+        return values.map(value => this._query.convert(JSON.parse(value)));
+      });
+  }
+}
+
+/**
+ * An implementation of a client connecting to the application backend receiving
+ * the subscription updates over Server-Sent Events.
+ *
+ * Exposes the same subscription observables as the `FirebaseBackendClient` does.
+ */
+class SseBackendClient extends BackendClient {
+
+  /**
+   * @param {!Endpoint} endpoint the server endpoint to execute queries and commands
+   * @param {!SseClient} sseClient the client to receive the subscription updates with
+   * @param {!ActorRequestFactory} actorRequestFactory a factory to instantiate the actor requests with
+   * @param {!FirebaseSubscriptionService} subscriptionService a service handling the subscriptions
+   */
+  constructor(endpoint, sseClient, actorRequestFactory, subscriptionService) {
+    super(endpoint, actorRequestFactory);
+    this._sse = sseClient;
+    this._subscriptionService = subscriptionService;
+    this._subscriptionService.run();
+  }
+
+  /**
+   * @inheritDoc
+   * @return {BackendClient.Fetch<T>}
+   * @template <T>
+   */
+  _fetchOf(query) {
+    // noinspection JSValidateTypes A static member class type is not resolved properly.
+    return new SseBackendClient.Fetch({of: query, using: this});
+  }
+
+  /**
+   * @inheritDoc
+   *
+   * The event stream is opened as soon as the subscription is created. The observables should
+   * be subscribed to right away in order to receive the entities which already exist.
+   */
+  _subscribeToTopic(topic) {
+    return new Promise((resolve, reject) => {
+      const spineTopic = topic.raw();
+      this._endpoint.subscribeTo(spineTopic)
+        .then(subscription => {
+          const id = subscription.id.value;
+          const observers = {add: null, change: null, remove: null};
+          const dispatch = (observer, value) => {
+            if (observer) {
+              observer.next(topic.convert(value));
+            }
+          };
+          const stream = this._sse.stream(id, {
+            added: value => dispatch(observers.add, value),
+            changed: value => dispatch(observers.change, value),
+            removed: value => dispatch(observers.remove, value),
+            error: err => [observers.add, observers.change, observers.remove]
+              .filter(observer => observer)
+              .forEach(observer => observer.error(err))
+          });
+          const add = new Observable(observer => {
+            observers.add = observer;
+          });
+          const change = new Observable(observer => {
+            observers.change = observer;
+          });
+          const remove = new Observable(observer => {
+            observers.remove = observer;
+          });
+          const subscriptionProto = FirebaseBackendClient.subscriptionProto(id, topic);
+          const entitySubscription = new EntitySubscription({
+            unsubscribedBy: () => stream.unsubscribe(),
+            withObservables: {add, change, remove},
+            forSubscription: subscriptionProto
+          });
+          resolve(entitySubscription.toObject());
+          this._subscriptionService.add(entitySubscription);
+        })
+        .catch(reject);
+    });
+  }
+}
+
+/**
+ * @inheritDoc
+ * @type FetchClass
+ */
+SseBackendClient.Fetch = SseFetch;
@@ -81,8 +81,7 @@ export class FirebaseClient {
   _subscribeToChildEvent(childEvent, path, dataCallback) {
     const dbRef = this._firebaseApp.database().ref(path);
     const callback = dbRef.on(childEvent, response => {
-      const msgJson = response.val();
-      const message = JSON.parse(msgJson);
+      const message = FirebaseClient._parseEntry(response.val());
       dataCallback(message);
     });
     return new Subscription(() => {
@@ -104,9 +103,36 @@ export class FirebaseClient {
       if (data == null) {
         return dataCallback([]);
       }
-      const objectStrings = Object.values(data);
-      const items = objectStrings.map(item => JSON.parse(item));
+      const entries = Object.values(data);
+      const items = entries.map(FirebaseClient._parseEntry);
       dataCallback(items);
     });
   }
+
+  /**
+   * Removes the node under the provided path.
+   *
+   * Failures of the removal are ignored, since the node is eventually removed by the server.
+   *
+   * @param {!string} path the path to the node to remove
+   */
+  remove(path) {
+    this._firebaseApp.database().ref(path).remove()
+      .catch(() => {});
+  }
+
+  /**
+   * Parses the value of a stored entry.
+   *
+   * An entry is either a JSON string or an object holding such a string in the `data` property
+   * along with the digests of the entry, which are ignored.
+   *
+   * @param {!(string|Object)} value the stored entry value
+   * @return {Object} the parsed entry
+   * @private
+   */
+  static _parseEntry(value) {
+    const json = typeof value === 'string' ? value : value.data;
+    return JSON.parse(json);
+  }
 }
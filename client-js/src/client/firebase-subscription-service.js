@@ -20,9 +20,15 @@
 
 import {Subscription} from 'spine-web-client-proto/spine/client/subscription_pb';
 import {Duration} from './time-utils';
+import {EndpointError} from './http-endpoint';
 
 const SUBSCRIPTION_KEEP_UP_INTERVAL = new Duration({seconds: 10});
 
+/**
+ * The HTTP status codes meaning that the server does not serve the batch keep up requests.
+ */
+const BATCH_UNAVAILABLE_STATUSES = [404, 405];
+
 /**
  * A service that manages the subscriptions periodically sending requests to keep them running.
  */
@@ -41,6 +47,13 @@ export class FirebaseSubscriptionService {
      * @private
      */
     this._endpoint = endpoint;
+    /**
+     * `false` if the server turned out not to serve the batch keep up requests
+     *
+     * @type {boolean}
+     * @private
+     */
+    this._batchKeepUp = true;
   }
 
   /**
@@ -69,7 +82,13 @@ export class FirebaseSubscriptionService {
     }, SUBSCRIPTION_KEEP_UP_INTERVAL.inMs());
   }
 
+  /**
+   * Cancels the closed subscriptions and keeps up the rest of them.
+   *
+   * @private
+   */
   _keepUpSubscriptions() {
+    const openSubscriptions = [];
     this._subscriptions.forEach(subscription => {
       const spineSubscription = subscription.internal();
       if (subscription.closed) {
@@ -77,9 +96,54 @@ export class FirebaseSubscriptionService {
           this._removeSubscription(subscription);
         });
       } else {
-        this._endpoint.keepUpSubscription(spineSubscription);
+        openSubscriptions.push(spineSubscription);
       }
     });
+    if (openSubscriptions.length > 0) {
+      this._keepUp(openSubscriptions);
+    }
+  }
+
+  /**
+   * Keeps up the given subscriptions with a single request.
+   *
+   * <p>If the server does not serve the batch keep up requests, falls back to a request per
+   * subscription for this and all the subsequent keep ups.
+   *
+   * @param {!spine.client.Subscription[]} subscriptions the subscriptions to keep up
+   * @private
+   */
+  _keepUp(subscriptions) {
+    if (!this._batchKeepUp) {
+      this._keepUpOneByOne(subscriptions);
+      return;
+    }
+    this._endpoint.keepUpSubscriptions(subscriptions).catch(error => {
+      if (FirebaseSubscriptionService._batchUnavailable(error)) {
+        this._batchKeepUp = false;
+        this._keepUpOneByOne(subscriptions);
+      }
+    });
+  }
+
+  /**
+   * @param {!spine.client.Subscription[]} subscriptions the subscriptions to keep up
+   * @private
+   */
+  _keepUpOneByOne(subscriptions) {
+    subscriptions.forEach(subscription => this._endpoint.keepUpSubscription(subscription));
+  }
+
+  /**
+   * @param {*} error the error of the batch keep up request
+   * @return {boolean} `true` if the server does not serve the batch keep up requests
+   * @private
+   */
+  static _batchUnavailable(error) {
+    return error instanceof EndpointError
+      && error.isClient()
+      && !!error.reason()
+      && BATCH_UNAVAILABLE_STATUSES.includes(error.reason().status);
   }
 
   /**
@@ -27,6 +27,40 @@
  */
 import fetch from 'isomorphic-fetch';
 
+/**
+ * The content type of the Base64-encoded message bytes.
+ */
+const BASE64_CONTENT_TYPE = 'application/x-protobuf';
+
+/**
+ * The content type of the raw message bytes.
+ */
+const BINARY_CONTENT_TYPE = 'application/protobuf';
+
+/**
+ * The HTTP status codes of the responses to the requests rejected by the overloaded server.
+ *
+ * Such requests are retried by the client if the server specifies the `Retry-After` header.
+ */
+const RETRIABLE_STATUSES = [429, 503];
+
+/**
+ * The response header which specifies the delay before the rejected request may be retried.
+ *
+ * The server sets the header only for the requests rejected before they are processed, so that
+ * retrying such a request never duplicates a command.
+ */
+const RETRY_AFTER_HEADER = 'Retry-After';
+
+/**
+ * The upper bound of the random delay in milliseconds added to the first retry of a request.
+ *
+ * The bound doubles with each subsequent retry. The random delay spreads the retries of
+ * the clients rejected at the same time, so that they do not overload the server again all at
+ * once when the `Retry-After` delay elapses.
+ */
+const RETRY_JITTER_MILLIS = 1000;
+
 /**
  * The HTTP client which performs the connection to the application server.
  */
@@ -37,32 +71,92 @@ export class HttpClient {
    *
    * @param {!string} appBaseUrl an application base URL (the protocol and the domain name) represented as
    *                            a string
+   * @param {?boolean} binary whether to send the messages as raw bytes instead of
+   *                          a Base64-encoded string by default; `false` if not set
+   * @param {?number} maxRetries how many times a request rejected by the overloaded server
+   *                             is retried; `3` if not set
    */
-  constructor(appBaseUrl) {
+  constructor(appBaseUrl, {binary = false, maxRetries = 3} = {}) {
     this._appBaseUrl = appBaseUrl;
+    this._binary = binary;
+    this._maxRetries = maxRetries;
   }
 
   /**
    * Sends the given message to the given endpoint.
    *
-   * The message is sent as in form of a Base64-encoded byte string.
+   * The message is sent as in form of a Base64-encoded byte string or, if the `binary` option
+   * is set, as the raw message bytes in an `ArrayBuffer`. The raw bytes are parsed by the server
+   * without the intermediate string representation.
+   *
+   * If the server rejects the message as overloaded (`429` or `503` status code) and specifies
+   * the `Retry-After` response header, the message is sent again after the delay specified by
+   * the header plus a random delay, which grows with each retry. A rejection without the header is returned as is, since the message might have
+   * been processed by the server. Once the retries are exhausted, the last response is returned.
    *
    * @param {!string} endpoint a endpoint to send the message to
    * @param {!TypedMessage} message a message to send, as a {@link TypedMessage}
+   * @param {?boolean} binary whether to send the message as raw bytes; if not set,
+   *                          the client default is used
    * @return {Promise<Response>}
    */
-  postMessage(endpoint, message) {
-    const messageString = message.toBase64();
+  postMessage(endpoint, message, {binary = this._binary} = {}) {
+    const body = binary ? message.toArrayBuffer() : message.toBase64();
+    const contentType = binary ? BINARY_CONTENT_TYPE : BASE64_CONTENT_TYPE;
     const path = endpoint.startsWith('/') ? endpoint : '/' + endpoint;
     const url = this._appBaseUrl + path;
     const request = {
       method: 'POST',
-      body: messageString,
+      body: body,
       headers: {
-        'Content-Type': 'application/x-protobuf'
+        'Content-Type': contentType
       },
       mode: 'cors'
     };
-    return fetch(url, request);
+    return this._fetchWithRetries(url, request, 0);
+  }
+
+  /**
+   * Fetches the given request retrying it while the server is overloaded.
+   *
+   * @param {!string} url the URL to fetch
+   * @param {!Object} request the request options
+   * @param {!number} attempt the number of the retries already performed
+   * @return {Promise<Response>}
+   * @private
+   */
+  _fetchWithRetries(url, request, attempt) {
+    return fetch(url, request).then(response => {
+      if (!RETRIABLE_STATUSES.includes(response.status) || attempt >= this._maxRetries) {
+        return response;
+      }
+      const delay = HttpClient._retryDelay(response, attempt);
+      if (delay === null) {
+        return response;
+      }
+      return new Promise(resolve => setTimeout(resolve, delay))
+        .then(() => this._fetchWithRetries(url, request, attempt + 1));
+    });
+  }
+
+  /**
+   * Obtains the delay before retrying the rejected request.
+   *
+   * The delay is the one specified by the server plus a random jitter of up to
+   * `RETRY_JITTER_MILLIS * 2^attempt` milliseconds.
+   *
+   * @param {!Response} response the response rejecting the request
+   * @param {!number} attempt the number of the retries already performed
+   * @return {?number} the delay in milliseconds or `null` if the server does not allow
+   *                   retrying the request
+   * @private
+   */
+  static _retryDelay(response, attempt) {
+    const retryAfter = Number.parseInt(response.headers.get(RETRY_AFTER_HEADER), 10);
+    if (Number.isFinite(retryAfter) && retryAfter >= 0) {
+      const jitter = Math.random() * RETRY_JITTER_MILLIS * Math.pow(2, attempt);
+      return retryAfter * 1000 + Math.round(jitter);
+    }
+    return null;
   }
 }
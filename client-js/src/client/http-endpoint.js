@@ -20,6 +20,20 @@
 
 import {Type, TypedMessage} from './typed-message';
 import {WebQuery} from 'spine-web-client-proto/spine/web/web_query_pb';
+import {SubscriptionBatch} from 'spine-web-client-proto/spine/web/subscription_batch_pb';
+import {
+  WebRequest,
+  WebRequestBatch
+} from 'spine-web-client-proto/spine/web/web_request_batch_pb';
+
+/**
+ * The default maximum number of the requests sent in a single batch request.
+ *
+ * Matches the default limit of the server `BatchServlet`.
+ *
+ * @type {number}
+ */
+const DEFAULT_MAX_BATCH_SIZE = 100;
 
 /**
  * An error which occurred when sending off a request to Spine server endpoint.
@@ -78,7 +92,7 @@ export class EndpointError {
   }
 }
 
-class Endpoint {
+export class Endpoint {
 
   /**
    * Sends off a command to the endpoint.
@@ -129,6 +143,21 @@ class Endpoint {
     return this._keepUp(typedSubscription);
   }
 
+  /**
+   * Sends off a single request to keep many subscriptions, stopping them from being closed
+   * by server.
+   *
+   * @param {!spine.client.Subscription[]} subscriptions subscriptions that should be kept open
+   * @return {Promise<Object>} a promise of a successful server response, rejected if
+   *                           an error occurs
+   */
+  keepUpSubscriptions(subscriptions) {
+    const batch = new SubscriptionBatch();
+    batch.setSubscriptionList(subscriptions);
+    const typedBatch = new TypedMessage(batch, Type.SUBSCRIPTION_BATCH);
+    return this._keepUpAll(typedBatch);
+  }
+
   /**
    * Sends off a request to cancel an existing subscription.
    *
@@ -201,6 +230,17 @@ class Endpoint {
     throw new Error('Not implemented in abstract base.');
   }
 
+  /**
+   * @param {!TypedMessage<SubscriptionBatch>} subscriptions subscriptions to keep alive
+   * @return {Promise<Object>} a promise of a successful server response, rejected if
+   *                           an error occurs
+   * @protected
+   * @abstract
+   */
+  _keepUpAll(subscriptions) {
+    throw new Error('Not implemented in abstract base.');
+  }
+
   /**
    * @param {!TypedMessage<spine.client.Subscription>} subscription a subscription to be canceled
    * @return {Promise<Object>} a promise of a successful server response, rejected if
@@ -216,15 +256,36 @@ class Endpoint {
 /**
  * Spine HTTP endpoint which is used to send off Commands and Queries using
  * the provided HTTP client.
+ *
+ * If the batching is enabled, the commands, queries and subscription requests issued in the same
+ * tick are sent to the server in a single request to the `/batch` endpoint. A request issued
+ * alone is sent to its dedicated endpoint as usual. If more requests are issued in the same tick
+ * than the server accepts in a single batch, they are split into several batch requests.
  */
 export class HttpEndpoint extends Endpoint {
 
   /**
    * @param {!HttpClient} httpClient a client sending requests to server
+   * @param {?boolean} batching whether to coalesce the requests issued in the same tick into
+   *                            a single batch request; `false` if not set
+   * @param {?number} maxBatchSize the maximum number of the requests in a single batch request,
+   *                               which must not exceed the limit of the server; `100` if not set
    */
-  constructor(httpClient) {
+  constructor(httpClient, {batching = false, maxBatchSize = DEFAULT_MAX_BATCH_SIZE} = {}) {
     super();
+    if (!(maxBatchSize > 0)) {
+      throw new Error(`Max batch size must be positive, got ${maxBatchSize}.`);
+    }
     this._httpClient = httpClient;
+    this._batching = batching;
+    this._maxBatchSize = maxBatchSize;
+    /**
+     * The requests waiting to be sent in a batch or `null` if no batch is being collected.
+     *
+     * @type {?Object[]}
+     * @private
+     */
+    this._pending = null;
   }
 
   /**
@@ -236,9 +297,7 @@ export class HttpEndpoint extends Endpoint {
    * @protected
    */
   _executeCommand(command) {
-    return this._httpClient
-      .postMessage('/command', command)
-      .then(HttpEndpoint._jsonOrRejection);
+    return this._send('/command', command, (request, message) => request.setCommand(message));
   }
 
   /**
@@ -251,9 +310,7 @@ export class HttpEndpoint extends Endpoint {
    * @protected
    */
   _performQuery(webQuery) {
-    return this._httpClient
-      .postMessage('/query', webQuery)
-      .then(HttpEndpoint._jsonOrRejection);
+    return this._send('/query', webQuery, (request, message) => request.setQuery(message));
   }
 
   /**
@@ -265,9 +322,8 @@ export class HttpEndpoint extends Endpoint {
    * @protected
    */
   _subscribeTo(topic) {
-    return this._httpClient
-      .postMessage('/subscription/create', topic)
-      .then(HttpEndpoint._jsonOrRejection);
+    return this._send('/subscription/create', topic,
+      (request, message) => request.setSubscribe(message));
   }
 
   /**
@@ -280,17 +336,142 @@ export class HttpEndpoint extends Endpoint {
    * @protected
    */
   _keepUp(subscription) {
-    return this._httpClient
-      .postMessage('/subscription/keep-up', subscription)
-      .then(HttpEndpoint._jsonOrRejection);
+    return this._send('/subscription/keep-up', subscription,
+      (request, message) => request.setKeepUp(message));
+  }
+
+  /**
+   * Sends off a request to keep up many subscriptions at once.
+   *
+   * If there are more subscriptions than the maximum batch size, they are kept up with several
+   * requests.
+   *
+   * @param {!TypedMessage<SubscriptionBatch>} subscriptions subscriptions that are prevented
+   *                                                         from being closed by server
+   * @return {Promise<Response>} a promise of a successful server response JSON data, rejected if
+   *                             the client response is not 2xx
+   * @protected
+   */
+  _keepUpAll(subscriptions) {
+    const all = subscriptions.message.getSubscriptionList();
+    if (all.length <= this._maxBatchSize) {
+      return this._post('/subscription/keep-up-batch', subscriptions);
+    }
+    const keptUp = [];
+    for (let start = 0; start < all.length; start += this._maxBatchSize) {
+      const batch = new SubscriptionBatch();
+      batch.setSubscriptionList(all.slice(start, start + this._maxBatchSize));
+      keptUp.push(this._post('/subscription/keep-up-batch',
+        new TypedMessage(batch, Type.SUBSCRIPTION_BATCH)));
+    }
+    return Promise.all(keptUp);
   }
 
   _cancel(subscription) {
+    return this._send('/subscription/cancel', subscription,
+      (request, message) => request.setCancel(message));
+  }
+
+  /**
+   * Sends the given message to the given endpoint or, if the batching is enabled, adds it to
+   * the batch of the current tick.
+   *
+   * @param {!string} path the dedicated endpoint of the message
+   * @param {!TypedMessage} message the message to send
+   * @param {!function(WebRequest, Message)} toRequest a function setting the message to
+   *                                                   a batched `WebRequest`
+   * @return {Promise<Object>} a promise of a successful server response JSON data, rejected if
+   *                           the response is not 2xx
+   * @private
+   */
+  _send(path, message, toRequest) {
+    if (!this._batching) {
+      return this._post(path, message);
+    }
+    return new Promise((resolve, reject) => {
+      if (this._pending === null) {
+        this._pending = [];
+        Promise.resolve().then(() => this._flush());
+      }
+      this._pending.push({path, message, toRequest, resolve, reject});
+    });
+  }
+
+  /**
+   * Sends the requests collected during the current tick.
+   *
+   * The requests are sent in the batches of at most the maximum batch size.
+   *
+   * @private
+   */
+  _flush() {
+    const pending = this._pending;
+    this._pending = null;
+    for (let start = 0; start < pending.length; start += this._maxBatchSize) {
+      this._flushChunk(pending.slice(start, start + this._maxBatchSize));
+    }
+  }
+
+  /**
+   * Sends the given requests in a single batch request or, if there is only one of them, to its
+   * dedicated endpoint.
+   *
+   * @param {!Object[]} pending the requests to send
+   * @private
+   */
+  _flushChunk(pending) {
+    if (pending.length === 1) {
+      const single = pending[0];
+      this._post(single.path, single.message)
+        .then(single.resolve, single.reject);
+      return;
+    }
+    const batch = new WebRequestBatch();
+    pending.forEach(operation => {
+      const request = new WebRequest();
+      operation.toRequest(request, operation.message.message);
+      batch.addRequest(request);
+    });
+    this._post('/batch', new TypedMessage(batch, Type.WEB_REQUEST_BATCH))
+      .then(response => {
+        const results = response.results || [];
+        pending.forEach((operation, index) => HttpEndpoint._settle(operation, results[index]));
+      })
+      .catch(error => pending.forEach(operation => operation.reject(error)));
+  }
+
+  /**
+   * @param {!string} path an endpoint to send the message to
+   * @param {!TypedMessage} message a message to send
+   * @return {Promise<Object>} a promise of a successful server response JSON data, rejected if
+   *                           the response is not 2xx
+   * @private
+   */
+  _post(path, message) {
     return this._httpClient
-      .postMessage('/subscription/cancel', subscription)
+      .postMessage(path, message)
       .then(HttpEndpoint._jsonOrRejection);
   }
 
+  /**
+   * Resolves or rejects the batched request with its result.
+   *
+   * @param {!Object} operation the batched request
+   * @param {?Object} result the result of the request containing its HTTP `status` and `body`
+   * @private
+   */
+  static _settle(operation, result) {
+    if (!result) {
+      operation.reject(EndpointError.serverError(result));
+    } else if (200 <= result.status && result.status < 300) {
+      operation.resolve(result.body);
+    } else if (400 <= result.status && result.status < 500) {
+      operation.reject(EndpointError.clientError(result));
+    } else {
+      operation.reject(EndpointError.serverError(result));
+    }
+  }
+
   /**
    * Retrieves the response JSON data if the response was successful, returning a rejection otherwise
    *
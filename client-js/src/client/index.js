@@ -21,6 +21,7 @@
 import {Type, TypedMessage, TypeUrl} from './typed-message';
 import {ActorRequestFactory} from './actor-request-factory';
 import {FirebaseClient} from './firebase-client';
+import {SseClient} from './sse-client';
 import {HttpClient} from './http-client';
 import {BackendClient} from './backend-client';
 
@@ -29,12 +30,13 @@ import {BackendClient} from './backend-client';
  *
  * This object is exported from the artifact built by webpack.
  *
- * @type {{BackendClient: BackendClient, HttpClient: HttpClient, FirebaseClient: FirebaseClient, ActorRequestFactory: ActorRequestFactory}}
+ * @type {{BackendClient: BackendClient, HttpClient: HttpClient, FirebaseClient: FirebaseClient, SseClient: SseClient, ActorRequestFactory: ActorRequestFactory}}
  */
 export const client = {
   BackendClient,
   HttpClient,
   FirebaseClient,
+  SseClient,
   ActorRequestFactory,
   TypeUrl,
   TypedMessage,
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+"use strict";
+
+import {Subscription} from './observable';
+
+/**
+ * The `readyState` of an `EventSource` which does not reconnect anymore.
+ *
+ * The `EventSource.CLOSED` constant is not used, since the `EventSource` may be not defined
+ * outside of the browser.
+ */
+const EVENT_SOURCE_CLOSED = 2;
+
+/**
+ * @typedef {Object} EntryCallbacks
+ *
+ * @property {!consumerCallback<Object>} added a callback receiving an added entity
+ * @property {!consumerCallback<Object>} changed a callback receiving a changed entity
+ * @property {!consumerCallback<Object>} removed a callback receiving a removed entity
+ * @property {?consumerCallback<Error>} error a callback receiving an error once the stream
+ *                                            is closed by the server and is not reconnected
+ */
+
+/**
+ * The client of the subscription event streams served by the `SubscriptionStreamServlet`.
+ *
+ * Each stream is read with a browser `EventSource`, which reconnects the stream automatically.
+ * The server sends the whole subscription state upon each connection. The client remembers
+ * the entries it has received and reports only the differences from the last known state,
+ * including the entries removed while the stream was disconnected.
+ *
+ * If the stream cannot be reconnected, e.g. the subscription has expired or the server has
+ * reached the limit of the open streams, the `error` callback is notified.
+ */
+export class SseClient {
+
+  /**
+   * Creates a new SseClient.
+   *
+   * @param {!string} streamUrl the URL of the subscription stream servlet
+   * @param {?function(string): EventSource} eventSourceFactory
+   *        a factory of the event sources by the stream URL; the browser `EventSource` is used
+   *        if not set
+   */
+  constructor(streamUrl, eventSourceFactory = url => new EventSource(url)) {
+    this._streamUrl = streamUrl;
+    this._eventSourceFactory = eventSourceFactory;
+  }
+
+  /**
+   * Opens the event stream of the subscription with the given ID.
+   *
+   * @param {!string} subscriptionId the value of the subscription ID
+   * @param {!EntryCallbacks} callbacks the callbacks receiving the parsed entities
+   *
+   * @return {Subscription} a Subscription that closes the stream once unsubscribed
+   */
+  stream(subscriptionId, callbacks) {
+    const separator = this._streamUrl.indexOf('?') === -1 ? '?' : '&';
+    const url = `${this._streamUrl}${separator}subscription=${encodeURIComponent(subscriptionId)}`;
+    const source = this._eventSourceFactory(url);
+    const state = new StreamState(callbacks);
+    source.addEventListener('open', () => state.reset());
+    source.addEventListener('added', event => state.put(SseClient._parse(event)));
+    source.addEventListener('changed', event => state.put(SseClient._parse(event)));
+    source.addEventListener('removed', event => state.remove(SseClient._parse(event).key));
+    source.addEventListener('synced', () => state.synced());
+    source.addEventListener('error', () => {
+      // The `EventSource` also reports the lost connections which are reconnected.
+      if (source.readyState === EVENT_SOURCE_CLOSED && callbacks.error) {
+        callbacks.error(new Error(`The stream of subscription ${subscriptionId} is closed.`));
+      }
+    });
+    return new Subscription(() => source.close());
+  }
+
+  /**
+   * Parses the data of a stream event.
+   *
+   * @param {!MessageEvent} event the stream event
+   * @return {{key: string, data: ?Object}} the key of the entry and the entity, if any
+   * @private
+   */
+  static _parse(event) {
+    return JSON.parse(event.data);
+  }
+}
+
+/**
+ * The last known state of a subscription, as received over its event stream.
+ */
+class StreamState {
+
+  /**
+   * @param {!EntryCallbacks} callbacks the callbacks receiving the parsed entities
+   */
+  constructor(callbacks) {
+    this._callbacks = callbacks;
+    /**
+     * The JSON of the known entities by the keys of their entries.
+     *
+     * @type {Map<string, string>}
+     * @private
+     */
+    this._entries = new Map();
+    /**
+     * The keys of the entries which are not yet received since the stream was reconnected.
+     *
+     * @type {?Set<string>}
+     * @private
+     */
+    this._unconfirmed = null;
+  }
+
+  /**
+   * Starts receiving the whole state anew.
+   */
+  reset() {
+    this._unconfirmed = new Set(this._entries.keys());
+  }
+
+  /**
+   * Stores the received entry, reporting it as added or changed if it is not known yet.
+   *
+   * @param {!string} key the key of the entry
+   * @param {!Object} data the entity
+   */
+  put({key, data}) {
+    const json = JSON.stringify(data);
+    const known = this._entries.get(key);
+    this._entries.set(key, json);
+    if (this._unconfirmed) {
+      this._unconfirmed.delete(key);
+    }
+    if (typeof known === 'undefined') {
+      this._callbacks.added(data);
+    } else if (known !== json) {
+      this._callbacks.changed(data);
+    }
+  }
+
+  /**
+   * Forgets the entry, reporting its last known entity as removed.
+   *
+   * @param {!string} key the key of the entry
+   */
+  remove(key) {
+    const known = this._entries.get(key);
+    if (typeof known !== 'undefined') {
+      this._entries.delete(key);
+      this._callbacks.removed(JSON.parse(known));
+    }
+  }
+
+  /**
+   * Removes the entries which are known but were not received since the stream was
+   * reconnected.
+   */
+  synced() {
+    if (this._unconfirmed) {
+      this._unconfirmed.forEach(key => this.remove(key));
+      this._unconfirmed = null;
+    }
+  }
+}
@@ -33,6 +33,8 @@ import {
   UInt64Value,
 } from 'spine-web-client-proto/google/protobuf/wrappers_pb';
 import {WebQuery} from 'spine-web-client-proto/spine/web/web_query_pb';
+import {SubscriptionBatch} from 'spine-web-client-proto/spine/web/subscription_batch_pb';
+import {WebRequestBatch} from 'spine-web-client-proto/spine/web/web_request_batch_pb';
 import {Subscription, Topic} from 'spine-web-client-proto/spine/client/subscription_pb';
 import {Command} from 'spine-web-client-proto/spine/core/command_pb';
 
@@ -143,6 +145,8 @@ Type.FLOAT = Type.of(FloatValue, 'type.googleapis.com/proto.google.protobuf.Floa
 
 // SPINE WEB
 Type.WEB_QUERY = Type.of(WebQuery, 'type.spine.io/spine.web.WebQuery');
+Type.SUBSCRIPTION_BATCH = Type.of(SubscriptionBatch, 'type.spine.io/spine.web.SubscriptionBatch');
+Type.WEB_REQUEST_BATCH = Type.of(WebRequestBatch, 'type.spine.io/spine.web.WebRequestBatch');
 
 // SPINE CLIENT
 Type.SUBSCRIPTION = Type.of(Subscription, 'type.spine.io/spine.client.Subscription');
@@ -182,6 +186,16 @@ export class TypedMessage {
     return base64.fromByteArray(bytes);
   }
 
+  /**
+   * Converts this message into its binary representation.
+   *
+   * @return {ArrayBuffer} the buffer containing the message bytes
+   */
+  toArrayBuffer() {
+    const bytes = this.message.serializeBinary();
+    return bytes.buffer.slice(bytes.byteOffset, bytes.byteOffset + bytes.byteLength);
+  }
+
   /**
    * Creates a new `TypedMessage` wrapping a string.
    *
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+"use strict";
+
+import {Endpoint, EndpointError} from './http-endpoint';
+import {WebRequest} from 'spine-web-client-proto/spine/web/web_request_batch_pb';
+import {
+  WebSocketRequest,
+  WebSocketResponse
+} from 'spine-web-client-proto/spine/web/web_socket_pb';
+
+/**
+ * The default time to wait for a response to a request, in milliseconds.
+ *
+ * Matches the default asynchronous processing timeout of the server.
+ */
+const DEFAULT_REQUEST_TIMEOUT_MILLIS = 30000;
+
+/**
+ * Spine WebSocket endpoint which is used to send off Commands, Queries and subscription requests
+ * over a single connection served by the `WebSocketEndpoint` on the server.
+ *
+ * Each request is sent as a binary `WebSocketRequest` frame with a correlation ID unique within
+ * the connection. The server responds with a binary `WebSocketResponse` frame bearing the same ID,
+ * thus the responses may arrive in any order.
+ *
+ * The connection is opened upon the first request. If the connection is closed, the requests
+ * waiting for their responses are rejected and the next request opens a new connection.
+ *
+ * A request which is not responded within the request timeout is rejected, so that a response
+ * lost by the server does not leave the request pending forever.
+ */
+export class WebSocketEndpoint extends Endpoint {
+
+  /**
+   * @param {!string} url the URL of the WebSocket endpoint, e.g. `wss://example.org/ws`
+   * @param {?function(string): WebSocket} webSocketFactory
+   *        a factory of the connections by the endpoint URL; the browser `WebSocket` is used
+   *        if not set
+   * @param {?number} requestTimeoutMillis
+   *        the time to wait for a response to each request; `30` seconds if not set
+   */
+  constructor(url, {
+    webSocketFactory = endpointUrl => new WebSocket(endpointUrl),
+    requestTimeoutMillis = DEFAULT_REQUEST_TIMEOUT_MILLIS
+  } = {}) {
+    super();
+    this._url = url;
+    this._webSocketFactory = webSocketFactory;
+    this._requestTimeoutMillis = requestTimeoutMillis;
+    /**
+     * The promise of the open connection or `null` if the connection is not opened yet.
+     *
+     * @type {?Promise<WebSocket>}
+     * @private
+     */
+    this._connection = null;
+    /**
+     * The requests waiting for their responses by the correlation IDs.
+     *
+     * @type {Map<string, {resolve: function, reject: function}>}
+     * @private
+     */
+    this._pending = new Map();
+    this._lastCorrelationId = 0;
+  }
+
+  /**
+   * @inheritDoc
+   */
+  _executeCommand(command) {
+    return this._send(request => request.setCommand(command.message));
+  }
+
+  /**
+   * @inheritDoc
+   */
+  _performQuery(webQuery) {
+    return this._send(request => request.setQuery(webQuery.message));
+  }
+
+  /**
+   * @inheritDoc
+   */
+  _subscribeTo(topic) {
+    return this._send(request => request.setSubscribe(topic.message));
+  }
+
+  /**
+   * @inheritDoc
+   */
+  _keepUp(subscription) {
+    return this._send(request => request.setKeepUp(subscription.message));
+  }
+
+  /**
+   * Keeps up each of the subscriptions with a separate frame over the same connection.
+   *
+   * @inheritDoc
+   */
+  _keepUpAll(subscriptions) {
+    const keptUp = subscriptions.message.getSubscriptionList()
+      .map(subscription => this._send(request => request.setKeepUp(subscription)));
+    return Promise.all(keptUp);
+  }
+
+  /**
+   * @inheritDoc
+   */
+  _cancel(subscription) {
+    return this._send(request => request.setCancel(subscription.message));
+  }
+
+  /**
+   * Sends a request frame and waits for the response frame with the same correlation ID.
+   *
+   * @param {!function(WebRequest)} toRequest a function setting the message to the request
+   * @return {Promise<Object>} a promise of a successful server response JSON data, rejected if
+   *                           the response status is not 2xx, the connection is lost or
+   *                           the response does not arrive in time
+   * @private
+   */
+  _send(toRequest) {
+    return this._connected().then(socket => new Promise((resolve, reject) => {
+      const request = new WebRequest();
+      toRequest(request);
+      const correlationId = `${++this._lastCorrelationId}`;
+      const frame = new WebSocketRequest();
+      frame.setCorrelationId(correlationId);
+      frame.setRequest(request);
+      const timeout = setTimeout(() => {
+        this._pending.delete(correlationId);
+        reject(EndpointError.serverError('The WebSocket request has timed out'));
+      }, this._requestTimeoutMillis);
+      this._pending.set(correlationId, {
+        resolve: value => {
+          clearTimeout(timeout);
+          resolve(value);
+        },
+        reject: error => {
+          clearTimeout(timeout);
+          reject(error);
+        }
+      });
+      socket.send(frame.serializeBinary());
+    }));
+  }
+
+  /**
+   * Obtains the open connection, opening it if necessary.
+   *
+   * @return {Promise<WebSocket>} a promise of the open connection
+   * @private
+   */
+  _connected() {
+    if (this._connection === null) {
+      this._connection = new Promise((resolve, reject) => {
+        const socket = this._webSocketFactory(this._url);
+        socket.binaryType = 'arraybuffer';
+        socket.onopen = () => resolve(socket);
+        socket.onmessage = event => this._receive(event.data);
+        socket.onclose = () => {
+          const error = EndpointError.serverError('The WebSocket connection is closed');
+          this._connection = null;
+          reject(error);
+          this._pending.forEach(operation => operation.reject(error));
+          this._pending.clear();
+        };
+      });
+    }
+    return this._connection;
+  }
+
+  /**
+   * Settles the request the received response frame corresponds to.
+   *
+   * @param {!ArrayBuffer} data the content of the response frame
+   * @private
+   */
+  _receive(data) {
+    const response = WebSocketResponse.deserializeBinary(new Uint8Array(data));
+    const correlationId = response.getCorrelationId();
+    const operation = this._pending.get(correlationId);
+    if (!operation) {
+      return;
+    }
+    this._pending.delete(correlationId);
+    const status = response.getStatus();
+    const body = response.getBody();
+    if (200 <= status && status < 300) {
+      operation.resolve(body ? JSON.parse(body) : null);
+    } else if (400 <= status && status < 500) {
+      operation.reject(EndpointError.clientError({status, body}));
+    } else {
+      operation.reject(EndpointError.serverError({status, body}));
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import assert from 'assert';
+
+import {HttpEndpoint} from '../../src/client/http-endpoint';
+import {Subscription, Topic} from '../../proto/test/js/spine/client/subscription_pb';
+
+/**
+ * An `HttpClient` stand-in which records the posted messages and responds to them successfully.
+ */
+class FakeHttpClient {
+
+  constructor() {
+    this.posted = [];
+  }
+
+  postMessage(path, message) {
+    this.posted.push({path, message: message.message});
+    const body = path === '/batch'
+      ? {results: message.message.getRequestList().map(() => ({status: 200, body: {}}))}
+      : {};
+    return Promise.resolve({status: 200, json: () => Promise.resolve(body)});
+  }
+}
+
+describe('HttpEndpoint', () => {
+
+  let httpClient;
+
+  beforeEach(() => {
+    httpClient = new FakeHttpClient();
+  });
+
+  function subscribeTimes(endpoint, times) {
+    const subscriptions = [];
+    for (let i = 0; i < times; i++) {
+      subscriptions.push(endpoint.subscribeTo(new Topic()));
+    }
+    return Promise.all(subscriptions);
+  }
+
+  it('coalesces the requests issued in the same tick into a single batch', () => {
+    const endpoint = new HttpEndpoint(httpClient, {batching: true});
+    return subscribeTimes(endpoint, 3)
+      .then(results => {
+        assert.equal(results.length, 3);
+        assert.equal(httpClient.posted.length, 1);
+        assert.equal(httpClient.posted[0].path, '/batch');
+        assert.equal(httpClient.posted[0].message.getRequestList().length, 3);
+      });
+  });
+
+  it('sends a single request to its dedicated endpoint', () => {
+    const endpoint = new HttpEndpoint(httpClient, {batching: true});
+    return subscribeTimes(endpoint, 1)
+      .then(() => {
+        assert.equal(httpClient.posted.length, 1);
+        assert.equal(httpClient.posted[0].path, '/subscription/create');
+      });
+  });
+
+  it('splits the requests exceeding the max batch size into several batches', () => {
+    const endpoint = new HttpEndpoint(httpClient, {batching: true, maxBatchSize: 2});
+    return subscribeTimes(endpoint, 5)
+      .then(results => {
+        assert.equal(results.length, 5);
+        const paths = httpClient.posted.map(posted => posted.path);
+        assert.deepEqual(paths, ['/batch', '/batch', '/subscription/create']);
+        assert.equal(httpClient.posted[0].message.getRequestList().length, 2);
+        assert.equal(httpClient.posted[1].message.getRequestList().length, 2);
+      });
+  });
+
+  it('keeps up the subscriptions exceeding the max batch size with several requests', () => {
+    const endpoint = new HttpEndpoint(httpClient, {maxBatchSize: 2});
+    const subscriptions = [new Subscription(), new Subscription(), new Subscription()];
+    return endpoint.keepUpSubscriptions(subscriptions)
+      .then(() => {
+        const sizes = httpClient.posted.map(posted => posted.message.getSubscriptionList().length);
+        assert.deepEqual(sizes, [2, 1]);
+      });
+  });
+
+  it('rejects a non-positive max batch size', () => {
+    assert.throws(() => new HttpEndpoint(httpClient, {batching: true, maxBatchSize: 0}));
+  });
+});
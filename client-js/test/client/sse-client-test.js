@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import assert from 'assert';
+
+import {SseClient} from '../../src/client/sse-client';
+
+/**
+ * An `EventSource` stand-in which dispatches the events on demand.
+ */
+class FakeEventSource {
+
+  constructor(url) {
+    this.url = url;
+    this.closed = false;
+    this.readyState = 0;
+    this._listeners = {};
+  }
+
+  addEventListener(type, listener) {
+    this._listeners[type] = listener;
+  }
+
+  close() {
+    this.closed = true;
+  }
+
+  emit(type, data) {
+    const event = typeof data === 'undefined' ? {} : {data: JSON.stringify(data)};
+    this._listeners[type](event);
+  }
+}
+
+describe('SseClient', () => {
+
+  let source;
+  let received;
+  let errors;
+  let subscription;
+
+  beforeEach(() => {
+    received = [];
+    errors = [];
+    const client = new SseClient('https://example.org/stream', url => {
+      source = new FakeEventSource(url);
+      return source;
+    });
+    subscription = client.stream('tenant/actor/id', {
+      added: value => received.push(['added', value.name]),
+      changed: value => received.push(['changed', value.name]),
+      removed: value => received.push(['removed', value.name]),
+      error: err => errors.push(err)
+    });
+  });
+
+  it('opens the stream of the subscription', () => {
+    assert.equal(source.url, 'https://example.org/stream?subscription=tenant%2Factor%2Fid');
+    subscription.unsubscribe();
+    assert.ok(source.closed);
+  });
+
+  it('reports the entries as they change', () => {
+    source.emit('open');
+    source.emit('added', {key: 'a', data: {name: 'first'}});
+    source.emit('synced', {});
+    source.emit('changed', {key: 'a', data: {name: 'second'}});
+    source.emit('removed', {key: 'a'});
+
+    assert.deepEqual(received, [['added', 'first'], ['changed', 'second'], ['removed', 'second']]);
+  });
+
+  it('reports only the differences upon reconnection', () => {
+    source.emit('open');
+    source.emit('added', {key: 'a', data: {name: 'kept'}});
+    source.emit('added', {key: 'b', data: {name: 'changed'}});
+    source.emit('added', {key: 'c', data: {name: 'gone'}});
+    source.emit('synced', {});
+    received = [];
+
+    source.emit('open');
+    source.emit('added', {key: 'a', data: {name: 'kept'}});
+    source.emit('added', {key: 'b', data: {name: 'renamed'}});
+    source.emit('added', {key: 'd', data: {name: 'new'}});
+    source.emit('synced', {});
+
+    assert.deepEqual(received, [['changed', 'renamed'], ['added', 'new'], ['removed', 'gone']]);
+  });
+
+  it('reports an error only once the stream is not reconnected', () => {
+    source.emit('error');
+    assert.equal(errors.length, 0);
+
+    source.readyState = 2;
+    source.emit('error');
+    assert.equal(errors.length, 1);
+  });
+});
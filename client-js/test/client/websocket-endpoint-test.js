@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import assert from 'assert';
+
+import {WebSocketEndpoint} from '../../src/client/websocket-endpoint';
+import {EndpointError} from '../../src/client/http-endpoint';
+import {Topic} from '../../proto/test/js/spine/client/subscription_pb';
+import {
+  WebSocketRequest,
+  WebSocketResponse
+} from 'spine-web-client-proto/spine/web/web_socket_pb';
+
+/**
+ * A `WebSocket` stand-in which records the sent frames and receives the frames on demand.
+ */
+class FakeWebSocket {
+
+  constructor(url) {
+    this.url = url;
+    this.sent = [];
+    setTimeout(() => this.onopen());
+  }
+
+  send(data) {
+    this.sent.push(WebSocketRequest.deserializeBinary(data));
+  }
+
+  respond(correlationId, status, body) {
+    const response = new WebSocketResponse();
+    response.setCorrelationId(correlationId);
+    response.setStatus(status);
+    response.setBody(body);
+    const bytes = response.serializeBinary();
+    this.onmessage({data: bytes.buffer.slice(bytes.byteOffset, bytes.byteOffset + bytes.length)});
+  }
+
+  close() {
+    this.onclose();
+  }
+}
+
+describe('WebSocketEndpoint', () => {
+
+  let socket;
+  let endpoint;
+
+  beforeEach(() => {
+    socket = null;
+    endpoint = new WebSocketEndpoint('wss://example.org/ws', {
+      webSocketFactory: url => {
+        socket = new FakeWebSocket(url);
+        return socket;
+      }
+    });
+  });
+
+  function nextTick() {
+    return new Promise(resolve => setTimeout(resolve));
+  }
+
+  it('matches the responses with the requests by the correlation IDs', () => {
+    const first = endpoint.subscribeTo(new Topic());
+    const second = endpoint.subscribeTo(new Topic());
+    return nextTick()
+      .then(() => {
+        assert.equal(socket.sent.length, 2);
+        const [firstId, secondId] = socket.sent.map(frame => frame.getCorrelationId());
+        assert.notEqual(firstId, secondId);
+        socket.respond(secondId, 200, '{"id":"second"}');
+        socket.respond(firstId, 200, '{"id":"first"}');
+        return Promise.all([first, second]);
+      })
+      .then(([firstResult, secondResult]) => {
+        assert.equal(firstResult.id, 'first');
+        assert.equal(secondResult.id, 'second');
+      });
+  });
+
+  it('rejects the pending requests once the connection is closed', () => {
+    const subscribed = endpoint.subscribeTo(new Topic());
+    return nextTick()
+      .then(() => {
+        socket.close();
+        return subscribed;
+      })
+      .then(
+        () => assert.fail('The request should be rejected.'),
+        error => assert.ok(error instanceof EndpointError)
+      );
+  });
+
+  it('rejects the requests which are not responded in time', () => {
+    endpoint = new WebSocketEndpoint('wss://example.org/ws', {
+      webSocketFactory: url => new FakeWebSocket(url),
+      requestTimeoutMillis: 10
+    });
+    return endpoint.subscribeTo(new Topic())
+      .then(
+        () => assert.fail('The request should be rejected.'),
+        error => assert.ok(error instanceof EndpointError)
+      );
+  });
+});
@@ -21,17 +21,32 @@
 package io.spine.web.firebase;
 
 import com.google.common.base.Joiner;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.UnsignedBytes;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
+import com.google.protobuf.Message;
+import io.spine.client.CompositeColumnFilter;
+import io.spine.client.EntityFilters;
+import io.spine.client.EntityIdFilter;
 import io.spine.client.Query;
 import io.spine.client.QueryId;
+import io.spine.client.Target;
+import io.spine.client.Topic;
+import io.spine.client.TopicVBuilder;
+import io.spine.core.ActorContext;
 import io.spine.core.TenantId;
 import io.spine.core.UserId;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static io.spine.web.firebase.MessageDigests.serializeDeterministically;
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.toList;
 
 /**
  * A path in a Firebase Realtime Database.
@@ -47,6 +62,7 @@ final class FirebaseDatabasePath {
     private static final String SUBSTITUTION_SYMBOL = "-";
     private static final String PATH_DELIMITER = "/";
     private static final String DEFAULT_TENANT = "common";
+    private static final HashFunction TOPIC_HASH = Hashing.sha256();
 
     private final String path;
 
@@ -66,14 +82,53 @@ final class FirebaseDatabasePath {
         return new FirebaseDatabasePath(path);
     }
 
+    /**
+     * Creates an instance of {@code FirebaseDatabasePath} which points to a database node storing
+     * the subscription state for the given {@link Topic}.
+     *
+     * <p>The path does not depend on the topic ID. Thus, the topics with the same target and
+     * field mask, requested by the same actor within the same tenant, share a single path.
+     *
+     * @param topic the topic to host the subscription state of
+     * @return new {@code FirebaseDatabasePath}
+     */
+    static FirebaseDatabasePath allocateForTopic(Topic topic) {
+        String path = constructPath(topic.getContext(), topicKey(topic));
+        return new FirebaseDatabasePath(path);
+    }
+
     static FirebaseDatabasePath fromString(String string) {
         return new FirebaseDatabasePath(string);
     }
 
+    /**
+     * Checks if this path points to a node which may be allocated for the actor of the given
+     * context.
+     *
+     * <p>Such a node is a direct child of the node of the tenant and the actor of the context.
+     *
+     * @param context the context of the actor to check the node against
+     * @return {@code true} if the node belongs to the actor, {@code false} otherwise
+     */
+    boolean isAllocatedFor(ActorContext context) {
+        String parent = constructPath(context, "");
+        String prefix = parent.isEmpty()
+                        ? parent
+                        : parent + PATH_DELIMITER;
+        if (!path.startsWith(prefix)) {
+            return false;
+        }
+        String nodeId = path.substring(prefix.length());
+        return !nodeId.isEmpty() && !nodeId.contains(PATH_DELIMITER);
+    }
+
     private static String constructPath(Query query) {
-        String tenantId = tenantIdAsString(query);
-        String actor = actorAsString(query);
-        String queryId = queryIdAsString(query);
+        return constructPath(query.getContext(), queryIdAsString(query));
+    }
+
+    private static String constructPath(ActorContext context, String nodeId) {
+        String tenantId = tenantIdAsString(context);
+        String actor = actorAsString(context);
         Collection<String> pathElements = newArrayList();
         if (!tenantId.isEmpty()) {
             pathElements.add(escaped(tenantId));
@@ -81,8 +136,8 @@ final class FirebaseDatabasePath {
         if (!actor.isEmpty()) {
             pathElements.add(escaped(actor));
         }
-        if (!queryId.isEmpty()) {
-            pathElements.add(escaped(queryId));
+        if (!nodeId.isEmpty()) {
+            pathElements.add(escaped(nodeId));
         }
         String path = Joiner.on(PATH_DELIMITER)
                             .join(pathElements);
@@ -90,8 +145,8 @@ final class FirebaseDatabasePath {
     }
 
     @SuppressWarnings("UnnecessaryDefault")
-    private static String tenantIdAsString(Query query) {
-        TenantId tenantId = query.getContext().getTenantId();
+    private static String tenantIdAsString(ActorContext context) {
+        TenantId tenantId = context.getTenantId();
         TenantId.KindCase kind = tenantId.getKindCase();
         switch (kind) {
             case EMAIL:
@@ -108,8 +163,8 @@ final class FirebaseDatabasePath {
         }
     }
 
-    private static String actorAsString(Query query) {
-        UserId actor = query.getContext().getActor();
+    private static String actorAsString(ActorContext context) {
+        UserId actor = context.getActor();
         String result = actor.getValue();
         return result;
     }
@@ -120,6 +175,66 @@ final class FirebaseDatabasePath {
         return result;
     }
 
+    /**
+     * Obtains a key of the given topic, which is the same for the topics with the same target
+     * and field mask.
+     *
+     * <p>The order of the entity IDs and the column filters of the target does not affect
+     * the key.
+     */
+    private static String topicKey(Topic topic) {
+        Topic normalized = TopicVBuilder.newBuilder()
+                                        .setTarget(normalized(topic.getTarget()))
+                                        .setFieldMask(topic.getFieldMask())
+                                        .build();
+        byte[] bytes = serializeDeterministically(normalized);
+        String result = TOPIC_HASH.hashBytes(bytes)
+                                  .toString();
+        return result;
+    }
+
+    /**
+     * Sorts the repeated filters of the given target, so that the equivalent targets are equal.
+     */
+    private static Target normalized(Target target) {
+        if (!target.hasFilters()) {
+            return target;
+        }
+        EntityFilters filters = target.getFilters();
+        EntityFilters.Builder normalizedFilters = filters.toBuilder();
+        if (filters.hasIdFilter()) {
+            EntityIdFilter idFilter = filters.getIdFilter();
+            EntityIdFilter sortedIds = idFilter.toBuilder()
+                                               .clearIds()
+                                               .addAllIds(sorted(idFilter.getIdsList()))
+                                               .build();
+            normalizedFilters.setIdFilter(sortedIds);
+        }
+        List<CompositeColumnFilter> columnFilters =
+                filters.getFilterList()
+                       .stream()
+                       .map(filter -> filter.toBuilder()
+                                            .clearFilter()
+                                            .addAllFilter(sorted(filter.getFilterList()))
+                                            .build())
+                       .collect(toList());
+        normalizedFilters.clearFilter()
+                         .addAllFilter(sorted(columnFilters));
+        return target.toBuilder()
+                     .setFilters(normalizedFilters)
+                     .build();
+    }
+
+    /**
+     * Sorts the given messages by their deterministically serialized bytes.
+     */
+    private static <M extends Message> List<M> sorted(List<M> messages) {
+        return messages.stream()
+                       .sorted(comparing(MessageDigests::serializeDeterministically,
+                                         UnsignedBytes.lexicographicalComparator()))
+                       .collect(toList());
+    }
+
     private static String escaped(String dirty) {
         return ILLEGAL_DATABASE_PATH_SYMBOL.matcher(dirty)
                                            .replaceAll(SUBSTITUTION_SYMBOL);
@@ -142,4 +257,21 @@ final class FirebaseDatabasePath {
     public String toString() {
         return path;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FirebaseDatabasePath other = (FirebaseDatabasePath) o;
+        return path.equals(other.path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
 }
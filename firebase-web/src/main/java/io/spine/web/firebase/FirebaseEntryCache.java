@@ -0,0 +1,132 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.protobuf.Any;
+import com.google.protobuf.Message;
+import io.spine.protobuf.AnyPacker;
+import io.spine.web.firebase.FirebaseSubscriptionEntries.UpToDateEntry;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A bounded cache of the {@linkplain UpToDateEntry subscription entries} by the packed entity
+ * states they are created from.
+ *
+ * <p>Most of the entities written upon a subscription keep up are the same as upon the previous
+ * one. The cache allows to reuse the JSON and the digests of such entities instead of unpacking
+ * and printing them again. An unchanged entity then costs a hash lookup.
+ *
+ * <p>The entries are keyed by the {@link Any} itself, i.e. by its type URL and value bytes.
+ * Thus, a changed state never hits a stale entry. The equal states with the map fields ordered
+ * differently may be packed into different bytes; such states merely miss the cache.
+ *
+ * <p>The cache is bounded by the total length of the cached data rather than by the number of
+ * the entries, so that a few large entity states do not take as much memory as a lot of
+ * small ones. The data of an entry consists of its key, i.e. the serialized {@code Any}, its
+ * JSON and its digests. The entries do not {@linkplain UpToDateEntry#fromMessage keep} their
+ * JSON parsed, so the length of the data approximates the memory the entries take.
+ */
+final class FirebaseEntryCache {
+
+    private static final FirebaseEntryCache DISABLED = new FirebaseEntryCache();
+
+    /**
+     * The entries by the packed entity states or {@code null} if the cache is disabled.
+     */
+    @Nullable
+    private final Cache<Any, UpToDateEntry> entries;
+
+    private FirebaseEntryCache(long maximumDataLength) {
+        this.entries = CacheBuilder.newBuilder()
+                                   .maximumWeight(maximumDataLength)
+                                   .weigher(FirebaseEntryCache::dataLength)
+                                   .build();
+    }
+
+    private FirebaseEntryCache() {
+        this.entries = null;
+    }
+
+    /**
+     * Creates a new instance keeping the entries with at most the given total length of
+     * the data.
+     */
+    static FirebaseEntryCache withMaximumDataLength(long maximumDataLength) {
+        checkArgument(maximumDataLength > 0, "The length of cached data must be positive.");
+        return new FirebaseEntryCache(maximumDataLength);
+    }
+
+    /**
+     * Obtains the instance which keeps no entries.
+     *
+     * <p>With such an instance, each entity state is unpacked and serialized anew.
+     */
+    static FirebaseEntryCache disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Obtains the entry of the given packed entity state.
+     *
+     * <p>The entry is taken from the cache if the same state was seen before. Otherwise,
+     * the state is unpacked and serialized, and the resulting entry is cached.
+     */
+    UpToDateEntry entryOf(Any packedState) {
+        if (entries == null) {
+            return newEntry(packedState);
+        }
+        UpToDateEntry cached = entries.getIfPresent(packedState);
+        if (cached != null) {
+            return cached;
+        }
+        UpToDateEntry entry = newEntry(packedState);
+        entries.put(packedState, entry);
+        return entry;
+    }
+
+    /**
+     * Obtains the length of the data of the cache entry.
+     *
+     * <p>The length is the sum of the size of the serialized key in bytes and the length of
+     * the JSON and the digests of the entry in characters.
+     */
+    private static int dataLength(Any packedState, UpToDateEntry entry) {
+        return packedState.getSerializedSize()
+               + entry.data()
+                      .length()
+               + length(entry.hash())
+               + length(entry.idHash());
+    }
+
+    private static int length(@Nullable String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static UpToDateEntry newEntry(Any packedState) {
+        Message state = AnyPacker.unpack(packedState);
+        return UpToDateEntry.fromMessage(state);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+/**
+ * The names of the metrics reported by the Firebase components.
+ *
+ * <p>The metrics are reported to the {@link io.spine.web.metrics.WebMetrics WebMetrics}
+ * {@linkplain FirebaseWriteScheduler.Builder#setMetrics configured} for
+ * the {@link FirebaseWriteScheduler}.
+ */
+public final class FirebaseMetricNames {
+
+    /**
+     * The timer of mapping the query response messages to JSON.
+     */
+    public static final String JSON_MAPPING = "firebase.json.mapping";
+
+    /**
+     * The timer of computing the diff of a subscription update to the stored data.
+     */
+    public static final String SUBSCRIPTION_DIFF = "firebase.subscription.diff";
+
+    /**
+     * The timer of a write awaiting to be started.
+     */
+    public static final String WRITE_QUEUED = "firebase.write.queued";
+
+    /**
+     * The timer of a write, from its start to its completion, failure or timeout.
+     *
+     * <p>A write which has timed out still occupies its place in the window of the writes in
+     * flight until the database completes it.
+     */
+    public static final String WRITE = "firebase.write";
+
+    /**
+     * The counter of the writes which failed or timed out.
+     */
+    public static final String WRITE_FAILED = "firebase.write.failed";
+
+    /**
+     * The counter of the writes rejected as exceeding the pending writes limit.
+     */
+    public static final String WRITE_REJECTED = "firebase.write.rejected";
+
+    /**
+     * The counter of the serialization tasks rejected as exceeding the serialization queue limit.
+     */
+    public static final String SERIALIZATION_REJECTED = "firebase.serialization.rejected";
+
+    /**
+     * The gauge of the number of the writes awaiting to be started.
+     */
+    public static final String PENDING_WRITES = "firebase.write.pending";
+
+    /**
+     * The gauge of the number of the writes in flight.
+     */
+    public static final String IN_FLIGHT_WRITES = "firebase.write.in-flight";
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private FirebaseMetricNames() {
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.firebase.database.utilities.Clock;
+import com.google.firebase.database.utilities.DefaultClock;
+import com.google.firebase.database.utilities.OffsetClock;
+
+import static com.google.firebase.database.utilities.PushIdGenerator.generatePushChildName;
+
+/**
+ * A generator of the Firebase push keys.
+ *
+ * <p>The generated keys are the same as the ones produced by {@code DatabaseReference.push()}.
+ * In particular, the keys generated later are lexicographically greater than the keys
+ * generated earlier. Thus, the children added under such keys are ordered chronologically.
+ */
+final class FirebasePushKeys {
+
+    private static final Clock CLOCK = new OffsetClock(new DefaultClock(), 0);
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private FirebasePushKeys() {
+    }
+
+    /**
+     * Generates a new unique child key.
+     */
+    static String newChildKey() {
+        return generatePushChildName(CLOCK.millis());
+    }
+}
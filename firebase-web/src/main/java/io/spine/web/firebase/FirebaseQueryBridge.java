@@ -20,6 +20,8 @@
 
 package io.spine.web.firebase;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.firebase.database.FirebaseDatabase;
 import io.spine.client.Query;
 import io.spine.client.QueryResponse;
@@ -28,11 +30,26 @@ import io.spine.web.WebQuery;
 import io.spine.web.query.QueryBridge;
 import io.spine.web.query.QueryProcessingResult;
 import io.spine.web.query.service.AsyncQueryService;
+import io.spine.web.storage.RealtimeStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.time.Clock;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static io.spine.web.firebase.FirebaseQueryRecord.mapMessagesToJson;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
 
 /**
  * An implementation of {@link QueryBridge} based on the Firebase Realtime Database.
@@ -52,18 +69,73 @@ import static com.google.common.base.Preconditions.checkState;
  * the {@link #send(WebQuery)} method exits, the records may or may not be in
  * the database yet.
  *
+ * <p>The bridge may be {@linkplain Builder#setInlineThreshold configured} to inline small query
+ * results into the {@link QueryProcessingResult} itself. Such results are not written to
+ * the database at all, which saves the client a database round trip.
+ *
+ * <p>By default, the query results stay in the database forever. If the bridge is given
+ * a {@linkplain Builder#setResultRetention(long, TimeUnit) result retention}, the results older
+ * than the retention period are removed by a background sweeper. Call {@link #shutdown()} to stop
+ * the sweeper. The bridge may also {@linkplain Builder#setRemoveOnRead(boolean) instruct}
+ * the client to remove the results as soon as it has read them.
+ *
+ * <p>The bridge writes to the {@linkplain Builder#setDatabase(FirebaseDatabase) Firebase Realtime
+ * Database}, or to any other {@linkplain Builder#setStorage(RealtimeStorage) storage}, such as
+ * the {@link InMemoryRealtimeStorage}.
+ *
  * @author Dmytro Dashenkov
  */
 public final class FirebaseQueryBridge implements QueryBridge {
 
     private final AsyncQueryService queryService;
-    private final FirebaseDatabase database;
+    private final RealtimeStorage storage;
     private final long writeAwaitSeconds;
+    private final int writeBatchSize;
+    private final FirebaseWriteScheduler writeScheduler;
+    private final int inlineThreshold;
+    private final int inlineMaxLength;
+    private final boolean removeOnRead;
+
+    /**
+     * The retention policy of the query results or {@code null} if the results never expire.
+     */
+    @Nullable
+    private final FirebaseQueryRetention retention;
+
+    /**
+     * The executor sweeping the expired query results or {@code null} if the results never
+     * expire.
+     */
+    @Nullable
+    private final ScheduledExecutorService sweeper;
 
     private FirebaseQueryBridge(Builder builder) {
         this.queryService = builder.queryService;
-        this.database = builder.database;
+        this.storage = builder.storage;
         this.writeAwaitSeconds = builder.writeAwaitSeconds;
+        this.writeBatchSize = builder.writeBatchSize;
+        this.writeScheduler = builder.writeScheduler;
+        this.inlineThreshold = builder.inlineThreshold;
+        this.inlineMaxLength = builder.inlineMaxLength;
+        this.removeOnRead = builder.removeOnRead;
+        if (builder.retentionMillis > 0) {
+            this.retention = new FirebaseQueryRetention(storage, writeScheduler,
+                                                        builder.retentionMillis, MILLISECONDS,
+                                                        builder.sweepBatchSize,
+                                                        builder.clock);
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(
+                    new ThreadFactoryBuilder().setNameFormat("firebase-query-sweeper-%d")
+                                              .setDaemon(true)
+                                              .build()
+            );
+            sweeper.scheduleWithFixedDelay(this::sweepSafely,
+                                           builder.retentionMillis,
+                                           builder.retentionMillis,
+                                           MILLISECONDS);
+        } else {
+            this.retention = null;
+            this.sweeper = null;
+        }
     }
 
     /**
@@ -77,22 +149,137 @@ public final class FirebaseQueryBridge implements QueryBridge {
      */
     @Override
     public QueryProcessingResult send(WebQuery webQuery) {
+        return sendAsync(webQuery).join();
+    }
+
+    /**
+     * Sends the given {@link Query} to the {@code QueryService} and
+     * stores the query response into the database.
+     *
+     * <p>The result is available as soon as the query response is received. The database writes
+     * are not awaited.
+     *
+     * <p>If the query response is small enough, it is not stored into the database, but is
+     * inlined into the result instead.
+     *
+     * @param webQuery the query to send
+     * @return the future path in the database or the future inlined response
+     */
+    @Override
+    public CompletableFuture<QueryProcessingResult> sendAsync(WebQuery webQuery) {
+        CompletableFuture<QueryResponse> queryResponse = queryService.execute(webQuery.getQuery());
+        if (inlineThreshold == 0) {
+            return store(webQuery, queryResponse);
+        }
+        CompletableFuture<QueryProcessingResult> result = queryResponse.thenComposeAsync(
+                response -> inlineOrStore(webQuery, response),
+                writeScheduler.serializationExecutor()
+        );
+        return result;
+    }
+
+    /**
+     * Inlines the given query response into a {@link QueryProcessingResult} if the response
+     * does not exceed the configured thresholds, or stores it into the database otherwise.
+     *
+     * <p>A response which exceeds the length threshold is stored with the messages mapped to
+     * JSON upon the check, so that the messages are mapped only once.
+     *
+     * @return the inlined result or the future path in the database
+     */
+    private CompletableFuture<QueryProcessingResult> inlineOrStore(WebQuery webQuery,
+                                                                   QueryResponse response) {
+        if (response.getMessagesCount() > inlineThreshold) {
+            return store(webQuery, completedFuture(response));
+        }
+        List<String> jsonMessages = mapMessagesToJson(response).collect(toList());
+        int length = jsonMessages.stream()
+                                 .mapToInt(String::length)
+                                 .sum();
+        if (length > inlineMaxLength) {
+            FirebaseQueryRecord record = new FirebaseQueryRecord(webQuery.getQuery(), response,
+                                                                 jsonMessages,
+                                                                 writeAwaitSeconds,
+                                                                 writeBatchSize,
+                                                                 writeScheduler);
+            return store(webQuery, record);
+        }
+        return completedFuture(FirebaseQueryProcessingResult.inlined(jsonMessages));
+    }
+
+    /**
+     * Stores the given query response into the database.
+     *
+     * @return the future path in the database
+     */
+    private CompletableFuture<QueryProcessingResult>
+    store(WebQuery webQuery, CompletionStage<QueryResponse> queryResponse) {
         Query query = webQuery.getQuery();
-        CompletableFuture<QueryResponse> queryResponse = queryService.execute(query);
         FirebaseQueryRecord record = new FirebaseQueryRecord(query, queryResponse,
-                                                             writeAwaitSeconds);
+                                                             writeAwaitSeconds,
+                                                             writeBatchSize,
+                                                             writeScheduler);
+        return store(webQuery, record);
+    }
 
+    /**
+     * Stores the given record into the database.
+     *
+     * @return the future path in the database
+     */
+    private CompletableFuture<QueryProcessingResult>
+    store(WebQuery webQuery, FirebaseQueryRecord record) {
+        if (retention != null) {
+            retention.register(record.path());
+        }
         if (webQuery.getDeliveredTransactionally()) {
-            record.storeTransactionallyTo(database);
+            record.storeTransactionallyTo(storage);
         } else {
-            record.storeTo(database);
+            record.storeTo(storage);
         }
 
-        QueryProcessingResult result =
-                new FirebaseQueryProcessingResult(record.path(), record.getCount());
+        CompletableFuture<QueryProcessingResult> result =
+                record.count()
+                      .<QueryProcessingResult>thenApply(
+                              count -> new FirebaseQueryProcessingResult(record.path(), count,
+                                                                         removeOnRead)
+                      )
+                      .toCompletableFuture();
         return result;
     }
 
+    /**
+     * Removes the query results which are older than the retention period.
+     *
+     * <p>Does nothing if the query results never expire.
+     */
+    @VisibleForTesting
+    void sweepExpired() {
+        if (retention != null) {
+            retention.sweepExpired();
+        }
+    }
+
+    private void sweepSafely() {
+        try {
+            sweepExpired();
+        } catch (RuntimeException e) {
+            // An exception would cancel the subsequent sweeps.
+            log().error("Failed to sweep the expired query results.", e);
+        }
+    }
+
+    /**
+     * Stops the sweeper of the expired query results.
+     *
+     * <p>Does nothing if the query results never expire.
+     */
+    public void shutdown() {
+        if (sweeper != null) {
+            sweeper.shutdown();
+        }
+    }
+
     /**
      * Creates a new instance of {@code Builder} for {@code FirebaseQueryBridge} instances.
      *
@@ -112,9 +299,32 @@ public final class FirebaseQueryBridge implements QueryBridge {
          */
         private static final long DEFAULT_WRITE_AWAIT_SECONDS = 60L;
 
+        /**
+         * The default number of records written in a single database update.
+         */
+        private static final int DEFAULT_WRITE_BATCH_SIZE = 1;
+
+        /**
+         * The default maximum total length of the JSON representations of inlined messages.
+         */
+        private static final int DEFAULT_INLINE_MAX_LENGTH = 64 * 1024;
+
+        /**
+         * The default maximum number of expired query results removed in a single write.
+         */
+        private static final int DEFAULT_SWEEP_BATCH_SIZE = 500;
+
         private AsyncQueryService queryService;
-        private FirebaseDatabase database;
+        private RealtimeStorage storage;
         private long writeAwaitSeconds = DEFAULT_WRITE_AWAIT_SECONDS;
+        private int writeBatchSize = DEFAULT_WRITE_BATCH_SIZE;
+        private FirebaseWriteScheduler writeScheduler = FirebaseWriteScheduler.defaultInstance();
+        private int inlineThreshold;
+        private int inlineMaxLength = DEFAULT_INLINE_MAX_LENGTH;
+        private long retentionMillis;
+        private int sweepBatchSize = DEFAULT_SWEEP_BATCH_SIZE;
+        private boolean removeOnRead;
+        private Clock clock = Clock.systemUTC();
 
         /**
          * Prevents local instantiation.
@@ -128,8 +338,43 @@ public final class FirebaseQueryBridge implements QueryBridge {
             return this;
         }
 
+        /**
+         * Sets the {@code QueryService} to read the entity states from.
+         *
+         * <p>Use this method to connect the bridge to a {@linkplain AsyncQueryService#remote
+         * remote} service or to put a {@linkplain io.spine.web.query.service.CachingQueryService
+         * cache} in front of the service.
+         */
+        public Builder setQueryService(AsyncQueryService service) {
+            this.queryService = checkNotNull(service);
+            return this;
+        }
+
+        /**
+         * Sets the Firebase database to store the data into.
+         *
+         * <p>This is a shorthand for
+         * {@code setStorage(FirebaseRealtimeStorage.newInstance(database))}.
+         *
+         * <p>Either the database or the {@linkplain #setStorage(RealtimeStorage) storage} must
+         * be set.
+         */
         public Builder setDatabase(FirebaseDatabase database) {
-            this.database = checkNotNull(database);
+            checkNotNull(database);
+            return setStorage(FirebaseRealtimeStorage.newInstance(database));
+        }
+
+        /**
+         * Sets the storage to store the data into.
+         *
+         * <p>Use this method to run the bridge on a backend other than the Firebase Realtime
+         * Database, e.g. on the {@link InMemoryRealtimeStorage}.
+         *
+         * <p>Either the storage or the {@linkplain #setDatabase(FirebaseDatabase) database} must
+         * be set.
+         */
+        public Builder setStorage(RealtimeStorage storage) {
+            this.storage = checkNotNull(storage);
             return this;
         }
 
@@ -145,6 +390,122 @@ public final class FirebaseQueryBridge implements QueryBridge {
             return this;
         }
 
+        /**
+         * Sets the number of records written in a single database update when the query
+         * response is not delivered transactionally.
+         *
+         * <p>The records of a batch are written as a single multi-path update, which saves
+         * the database round trips for big query responses. The client still receives
+         * the records one by one.
+         *
+         * <p>The default value is {@code 1}, i.e. each record is written separately.
+         *
+         * @param writeBatchSize the positive number of records in a single write
+         */
+        public Builder setWriteBatchSize(int writeBatchSize) {
+            checkArgument(writeBatchSize > 0, "Write batch size must be positive.");
+            this.writeBatchSize = writeBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the scheduler of the database writes.
+         *
+         * <p>By default, the {@linkplain FirebaseWriteScheduler#defaultInstance() shared
+         * scheduler} is used.
+         */
+        public Builder setWriteScheduler(FirebaseWriteScheduler writeScheduler) {
+            this.writeScheduler = checkNotNull(writeScheduler);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of messages in a query response which is inlined into
+         * the query processing result instead of being written to the database.
+         *
+         * <p>The inlined response is sent to the client directly in the HTTP response. This
+         * saves a database write and a database read for small responses, e.g. for fetching
+         * a single entity by ID.
+         *
+         * <p>The default value is {@code 0}, i.e. the responses are never inlined.
+         *
+         * @param inlineThreshold the non-negative maximum number of the inlined messages
+         * @see #setInlineMaxLength(int)
+         */
+        public Builder setInlineThreshold(int inlineThreshold) {
+            checkArgument(inlineThreshold >= 0, "Inline threshold must not be negative.");
+            this.inlineThreshold = inlineThreshold;
+            return this;
+        }
+
+        /**
+         * Sets the maximum total length of the JSON representations of the messages in
+         * an inlined query response.
+         *
+         * <p>The responses which do not exceed the {@linkplain #setInlineThreshold(int) inline
+         * threshold} but exceed this length are written to the database as usual.
+         *
+         * <p>The default value is {@code 65536} characters.
+         *
+         * @param inlineMaxLength the positive maximum length of the inlined messages
+         */
+        public Builder setInlineMaxLength(int inlineMaxLength) {
+            checkArgument(inlineMaxLength > 0, "Inline max length must be positive.");
+            this.inlineMaxLength = inlineMaxLength;
+            return this;
+        }
+
+        /**
+         * Sets the period during which the query results are kept in the database.
+         *
+         * <p>The creation time of each query result node is recorded in the database. The expired
+         * results are swept in the background with the period equal to the retention period.
+         * Thus, a query result is removed in at most two retention periods.
+         *
+         * <p>The retention period should be long enough for the clients to read the results.
+         *
+         * <p>By default, the query results are never removed.
+         */
+        public Builder setResultRetention(long retention, TimeUnit unit) {
+            checkNotNull(unit);
+            long millis = unit.toMillis(retention);
+            checkArgument(millis > 0, "Query result retention must be at least one millisecond.");
+            this.retentionMillis = millis;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of expired query results removed in a single write.
+         *
+         * <p>The default value is {@code 500}.
+         */
+        public Builder setSweepBatchSize(int sweepBatchSize) {
+            checkArgument(sweepBatchSize > 0, "Sweep batch size must be positive.");
+            this.sweepBatchSize = sweepBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets whether the client should remove the query results from the database once it has
+         * read them.
+         *
+         * <p>The removal requires the client to have the write access to the query result nodes.
+         * The results which are never read are still removed upon
+         * the {@linkplain #setResultRetention(long, TimeUnit) retention} expiry, if configured.
+         *
+         * <p>By default, the client does not remove the query results.
+         */
+        public Builder setRemoveOnRead(boolean removeOnRead) {
+            this.removeOnRead = removeOnRead;
+            return this;
+        }
+
+        @VisibleForTesting
+        Builder setClock(Clock clock) {
+            this.clock = checkNotNull(clock);
+            return this;
+        }
+
         /**
          * Creates a new instance of {@code FirebaseQueryBridge}.
          *
@@ -152,8 +513,18 @@ public final class FirebaseQueryBridge implements QueryBridge {
          */
         public FirebaseQueryBridge build() {
             checkState(queryService != null, "Query Service is not set.");
-            checkState(database != null, "FirebaseDatabase is not set.");
+            checkState(storage != null, "Neither FirebaseDatabase nor storage is set.");
             return new FirebaseQueryBridge(this);
         }
     }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(FirebaseQueryBridge.class);
+    }
 }
@@ -24,6 +24,7 @@ import io.spine.web.query.QueryProcessingResult;
 
 import javax.servlet.ServletResponse;
 import java.io.IOException;
+import java.util.List;
 
 import static com.google.common.net.MediaType.JSON_UTF_8;
 import static io.spine.json.Json.toCompactJson;
@@ -31,8 +32,8 @@ import static io.spine.json.Json.toCompactJson;
 /**
  * A result of a query processed by a {@link FirebaseQueryBridge}.
  *
- * <p>This result represents a database path to the requested data.
- * See {@link FirebaseQueryBridge} for more details.
+ * <p>This result represents a database path to the requested data or, if the requested data
+ * is small enough, the data itself. See {@link FirebaseQueryBridge} for more details.
  *
  * @author Dmytro Dashenkov
  */
@@ -40,24 +41,45 @@ final class FirebaseQueryProcessingResult implements QueryProcessingResult {
 
     private static final String JSON_MIME_TYPE = JSON_UTF_8.toString();
 
-    private final FirebaseDatabasePath path;
-    private final long count;
+    private final FirebaseQueryResponse queryResponse;
 
     FirebaseQueryProcessingResult(FirebaseDatabasePath path, long count) {
-        this.path = path;
-        this.count = count;
+        this(path, count, false);
+    }
+
+    FirebaseQueryProcessingResult(FirebaseDatabasePath path, long count, boolean removeOnRead) {
+        this(FirebaseQueryResponseVBuilder.newBuilder()
+                                          .setPath(path.toString())
+                                          .setCount(count)
+                                          .setRemoveOnRead(removeOnRead)
+                                          .build());
+    }
+
+    private FirebaseQueryProcessingResult(FirebaseQueryResponse queryResponse) {
+        this.queryResponse = queryResponse;
     }
 
     /**
-     * {@inheritDoc}
+     * Creates a result which carries the requested data itself instead of a database path.
+     *
+     * @param jsonMessages the JSON representations of the requested entity states
+     * @return new {@code FirebaseQueryProcessingResult}
      */
-    @Override
-    public void writeTo(ServletResponse response) throws IOException {
+    static FirebaseQueryProcessingResult inlined(List<String> jsonMessages) {
         FirebaseQueryResponse queryResponse =
                 FirebaseQueryResponseVBuilder.newBuilder()
-                                             .setPath(path.toString())
-                                             .setCount(count)
+                                             .setCount(jsonMessages.size())
+                                             .setInlined(true)
+                                             .addAllInlinedMessages(jsonMessages)
                                              .build();
+        return new FirebaseQueryProcessingResult(queryResponse);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writeTo(ServletResponse response) throws IOException {
         response.getWriter().append(toCompactJson(queryResponse));
         response.setContentType(JSON_MIME_TYPE);
     }
@@ -20,30 +20,33 @@
 
 package io.spine.web.firebase;
 
-import com.google.api.core.ApiFuture;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
 import com.google.protobuf.Message;
 import io.spine.client.Query;
 import io.spine.client.QueryResponse;
 import io.spine.json.Json;
 import io.spine.protobuf.AnyPacker;
+import io.spine.web.storage.RealtimeStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeoutException;
-import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
-import static java.util.concurrent.TimeUnit.SECONDS;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.Lists.partition;
+import static io.spine.web.firebase.FirebaseMetricNames.JSON_MAPPING;
+import static io.spine.web.firebase.FirebasePushKeys.newChildKey;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static java.util.stream.Collectors.toList;
 
 /**
- * A record which can be stored into a {@link FirebaseDatabase}.
+ * A record which can be stored into a {@link RealtimeStorage}.
  *
  * <p>A single record represents a {@linkplain QueryResponse response to a single query}.
  *
@@ -54,13 +57,51 @@ final class FirebaseQueryRecord {
     private final FirebaseDatabasePath path;
     private final CompletionStage<QueryResponse> queryResponse;
     private final long writeAwaitSeconds;
+    private final int writeBatchSize;
+    private final FirebaseWriteScheduler scheduler;
+
+    /**
+     * The JSON representations of the response messages or {@code null} if the messages are
+     * yet to be mapped to JSON.
+     */
+    @Nullable
+    private final List<String> mappedJson;
 
     FirebaseQueryRecord(Query query,
                         CompletionStage<QueryResponse> queryResponse,
-                        long writeAwaitSeconds) {
+                        long writeAwaitSeconds,
+                        int writeBatchSize,
+                        FirebaseWriteScheduler scheduler) {
+        this(query, queryResponse, null, writeAwaitSeconds, writeBatchSize, scheduler);
+    }
+
+    /**
+     * Creates a record of the query response whose messages are already mapped to JSON.
+     *
+     * @param mappedJson the JSON representations of the response messages
+     */
+    FirebaseQueryRecord(Query query,
+                        QueryResponse queryResponse,
+                        List<String> mappedJson,
+                        long writeAwaitSeconds,
+                        int writeBatchSize,
+                        FirebaseWriteScheduler scheduler) {
+        this(query, completedFuture(queryResponse), checkNotNull(mappedJson),
+             writeAwaitSeconds, writeBatchSize, scheduler);
+    }
+
+    private FirebaseQueryRecord(Query query,
+                                CompletionStage<QueryResponse> queryResponse,
+                                @Nullable List<String> mappedJson,
+                                long writeAwaitSeconds,
+                                int writeBatchSize,
+                                FirebaseWriteScheduler scheduler) {
         this.path = FirebaseDatabasePath.allocateForQuery(query);
         this.queryResponse = queryResponse;
+        this.mappedJson = mappedJson;
         this.writeAwaitSeconds = writeAwaitSeconds;
+        this.writeBatchSize = writeBatchSize;
+        this.scheduler = scheduler;
     }
 
     /**
@@ -71,92 +112,129 @@ final class FirebaseQueryRecord {
     }
 
     /**
-     * Writes this record to the given {@link FirebaseDatabase}.
+     * Writes this record to the given {@link RealtimeStorage}.
      *
      * @see FirebaseQueryBridge FirebaseQueryBridge for the detailed storage protocol
      */
-    void storeTo(FirebaseDatabase database) {
-        DatabaseReference reference = path().reference(database);
-        flushTo(reference);
+    void storeTo(RealtimeStorage storage) {
+        flushTo(storage);
     }
 
     /**
-     * Writes this record to the given {@link FirebaseDatabase} in a single transaction
+     * Writes this record to the given {@link RealtimeStorage} in a single transaction
      * (i.e. in a single batch).
      *
      * <p>Receiving data from Spine and writing it to database are both performed asynchronously.
      */
-    void storeTransactionallyTo(FirebaseDatabase database) {
-        DatabaseReference reference = path().reference(database);
-        flushTransactionallyTo(reference);
+    void storeTransactionallyTo(RealtimeStorage storage) {
+        flushTransactionallyTo(storage);
     }
 
     /**
-     * Synchronously retrieves a count of records that will be supplied to the client.
+     * Retrieves a count of records that will be supplied to the client.
      *
-     * @return an integer number of records
+     * @return the future number of records
      */
-    long getCount() {
-        CountConsumer countConsumer = new CountConsumer();
-        queryResponse.thenAccept(countConsumer);
-        return countConsumer.getValue();
+    CompletionStage<Long> count() {
+        return queryResponse.thenApply(response -> (long) response.getMessagesCount());
     }
 
     /**
-     * A consumer that counts the number of messages in {@link QueryResponse Query Response}.
+     * Flushes the array response of the query to the Firebase asynchronously,
+     * adding array items to storage one by one.
+     *
+     * <p>If the write batch size is greater than one, the items are added in batches of that
+     * size, each batch being a single multi-path update.
+     *
+     * <p>Suitable for big queries, spanning thousands and millions of items.
      */
-    private static class CountConsumer implements Consumer<QueryResponse> {
-
-        private long value;
-
-        @Override
-        public void accept(QueryResponse response) {
-            this.value = response.getMessagesCount();
-        }
-
-        /**
-         * @return the count of messages in the consumed response
-         */
-        public long getValue() {
-            return value;
+    private void flushTo(RealtimeStorage storage) {
+        if (writeBatchSize > 1) {
+            flushInBatchesTo(storage);
+        } else {
+            queryResponse.thenAcceptAsync(
+                    response -> toJson(response).forEach(
+                            json -> write(() -> addTo(storage, json))
+                    ),
+                    scheduler.serializationExecutor()
+            ).whenComplete(FirebaseQueryRecord::logFailure);
         }
     }
 
     /**
      * Flushes the array response of the query to the Firebase asynchronously,
-     * adding array items to storage one by one.
+     * adding array items to storage in batches.
      *
-     * <p>Suitable for big queries, spanning thousands and millions of items.
+     * <p>The client still receives the items one by one, since each child of a multi-path
+     * update is reported to the database listeners separately.
      */
-    private void flushTo(DatabaseReference reference) {
-        queryResponse.thenAcceptAsync(
-                response -> mapMessagesToJson(response).map(json -> addTo(reference, json))
-                                                       .forEach(this::mute)
-        );
+    private void flushInBatchesTo(RealtimeStorage storage) {
+        queryResponse.thenAcceptAsync(response -> {
+            List<String> jsonItems = toJson(response);
+            partition(jsonItems, writeBatchSize)
+                    .forEach(batch -> write(() -> addAllTo(storage, batch)));
+        }, scheduler.serializationExecutor())
+                     .whenComplete(FirebaseQueryRecord::logFailure);
     }
 
     /**
-     * Adds the value to the referenced Firebase array path.
+     * Adds the value to the Firebase array at the path of this record.
      *
-     * @param reference a Firebase array reference which can be appended an object.
-     * @param item      a String value to add to an Array inside of Firebase
+     * @param storage the storage to add the value to
+     * @param item    a String value to add to an Array inside of Firebase
      * @return a {@code Future} of an item being added
      */
-    private static ApiFuture<Void> addTo(DatabaseReference reference, String item) {
-        return reference.push()
-                        .setValueAsync(item);
+    private CompletableFuture<Void> addTo(RealtimeStorage storage, String item) {
+        return storage.push(path.toString(), item);
+    }
+
+    /**
+     * Adds the values to the Firebase array at the path of this record in a single multi-path
+     * update.
+     *
+     * <p>The children keys are generated in the same way as {@link RealtimeStorage#push}
+     * does, so that the items are ordered in the same way.
+     *
+     * @param storage the storage to add the values to
+     * @param items   String values to add to an Array inside of Firebase
+     * @return a {@code Future} of the items being added
+     */
+    private CompletableFuture<Void> addAllTo(RealtimeStorage storage, List<String> items) {
+        Map<String, Object> children = new LinkedHashMap<>(items.size());
+        items.forEach(item -> children.put(newChildKey(), item));
+        return storage.update(path.toString(), children);
     }
 
     /**
      * Flushes the array response of the query to the Firebase asynchronously but in one go.
      */
-    private void flushTransactionallyTo(DatabaseReference reference) {
-        queryResponse.thenAccept(
+    private void flushTransactionallyTo(RealtimeStorage storage) {
+        queryResponse.thenAcceptAsync(
                 response -> {
-                    List<String> jsonItems = mapMessagesToJson(response).collect(toList());
-                    mute(reference.setValueAsync(jsonItems));
-                }
-        );
+                    List<String> jsonItems = toJson(response);
+                    write(() -> storage.set(path.toString(), jsonItems));
+                },
+                scheduler.serializationExecutor()
+        ).whenComplete(FirebaseQueryRecord::logFailure);
+    }
+
+    /**
+     * Maps the response messages to JSON reporting the mapping time to the scheduler metrics.
+     *
+     * <p>If the messages are already mapped, returns the mapped messages.
+     *
+     * @param response Spines response to a query
+     * @return the messages represented by JSON strings
+     */
+    private List<String> toJson(QueryResponse response) {
+        if (mappedJson != null) {
+            return mappedJson;
+        }
+        long start = System.nanoTime();
+        List<String> jsonItems = mapMessagesToJson(response).collect(toList());
+        scheduler.metrics()
+                 .recordSince(JSON_MAPPING, start);
+        return jsonItems;
     }
 
     /**
@@ -166,24 +244,28 @@ final class FirebaseQueryRecord {
      * @return a stream of messages represented by JSON strings
      */
     @SuppressWarnings("RedundantTypeArguments") // AnyPacker::unpack type cannot be inferred.
-    private static Stream<String> mapMessagesToJson(QueryResponse response) {
+    static Stream<String> mapMessagesToJson(QueryResponse response) {
         return response.getMessagesList()
-                       .parallelStream()
-                       .unordered()
+                       .stream()
                        .map(AnyPacker::<Message>unpack)
                        .map(Json::toCompactJson);
     }
 
     /**
-     * Awaits the given {@link Future} and catches all the exceptions.
+     * Schedules the given write awaiting it for no longer than the configured amount of time.
      *
-     * <p>The encountered exceptions are logged and never thrown.
+     * <p>The write failures are logged and never thrown.
+     */
+    private void write(Supplier<CompletableFuture<Void>> operation) {
+        scheduler.write(operation, writeAwaitSeconds);
+    }
+
+    /**
+     * Logs the failure to prepare the record for writing, if any.
      */
-    private void mute(Future<?> future) {
-        try {
-            future.get(writeAwaitSeconds, SECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            log().error(e.getMessage());
+    private static void logFailure(Void result, @Nullable Throwable error) {
+        if (error != null) {
+            log().error("Query response was not written to the Firebase.", error);
         }
     }
 
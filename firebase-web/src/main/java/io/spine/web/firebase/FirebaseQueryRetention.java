@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.collect.ImmutableMap;
+import io.spine.web.storage.RealtimeStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A retention policy of the query result nodes.
+ *
+ * <p>Each {@linkplain #register(FirebaseDatabasePath) registered} query result node is recorded
+ * under the {@linkplain #INDEX_NODE index node} along with its creation time. The results which
+ * are older than the retention period are {@linkplain #sweepExpired() swept} in batches, each
+ * batch being a single multi-path update, which removes both the result nodes and their index
+ * records.
+ *
+ * <p>Since the index is stored in the database, the results are swept regardless of the bridge
+ * instance which has created them. It is recommended to declare
+ * {@code ".indexOn": ["created"]} for the index node in the database rules, so that the expired
+ * results are selected on the database side.
+ */
+final class FirebaseQueryRetention {
+
+    /**
+     * The database node which holds the creation times of the query result nodes.
+     */
+    static final String INDEX_NODE = "query-results-index";
+
+    static final String PATH_PROPERTY = "path";
+    static final String CREATED_PROPERTY = "created";
+
+    private final RealtimeStorage storage;
+    private final FirebaseWriteScheduler scheduler;
+    private final long retentionMillis;
+    private final int sweepBatchSize;
+    private final Clock clock;
+
+    FirebaseQueryRetention(RealtimeStorage storage,
+                           FirebaseWriteScheduler scheduler,
+                           long retention,
+                           TimeUnit unit,
+                           int sweepBatchSize,
+                           Clock clock) {
+        checkArgument(retention > 0, "Query result retention must be positive.");
+        checkArgument(sweepBatchSize > 0, "Sweep batch size must be positive.");
+        this.storage = storage;
+        this.scheduler = scheduler;
+        this.retentionMillis = unit.toMillis(retention);
+        this.sweepBatchSize = sweepBatchSize;
+        this.clock = clock;
+    }
+
+    /**
+     * Records the creation time of the query result node at the given path.
+     *
+     * @return a future which is completed when the index record is written
+     */
+    CompletableFuture<Void> register(FirebaseDatabasePath path) {
+        Map<String, Object> record = ImmutableMap.of(PATH_PROPERTY, path.toString(),
+                                                     CREATED_PROPERTY, clock.millis());
+        return scheduler.write(() -> storage.push(INDEX_NODE, record));
+    }
+
+    /**
+     * Removes the query result nodes which are older than the retention period.
+     *
+     * <p>The expired nodes are read from the index and removed asynchronously. If a batch is
+     * full, the next batch is swept as soon as the previous one is removed.
+     */
+    void sweepExpired() {
+        long createdBefore = clock.millis() - retentionMillis;
+        storage.selectOrderedBy(INDEX_NODE, CREATED_PROPERTY, createdBefore, sweepBatchSize)
+               .whenComplete((expired, error) -> {
+                   if (error != null) {
+                       log().error("Failed to read the expired query results.", error);
+                   } else {
+                       remove(expired);
+                   }
+               });
+    }
+
+    /**
+     * Removes the query result nodes listed in the given index records along with
+     * the records themselves.
+     */
+    private void remove(Map<String, Object> expired) {
+        Map<String, Object> removals = new HashMap<>();
+        int count = 0;
+        for (Map.Entry<String, Object> record : expired.entrySet()) {
+            Object value = record.getValue();
+            Object path = value instanceof Map
+                          ? ((Map<?, ?>) value).get(PATH_PROPERTY)
+                          : null;
+            if (path instanceof String) {
+                removals.put((String) path, null);
+            }
+            removals.put(INDEX_NODE + '/' + record.getKey(), null);
+            count++;
+        }
+        if (count == 0) {
+            return;
+        }
+        log().debug("Removing {} expired query results.", count);
+        boolean moreExpired = count == sweepBatchSize;
+        scheduler.write(() -> storage.update("", removals))
+                 .thenRun(() -> {
+                     if (moreExpired) {
+                         sweepExpired();
+                     }
+                 });
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(FirebaseQueryRetention.class);
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+import com.google.firebase.database.ValueEventListener;
+import io.spine.web.storage.RealtimeStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static com.google.firebase.database.Transaction.success;
+
+/**
+ * The {@link RealtimeStorage} backed by a {@link FirebaseDatabase}.
+ *
+ * <p>Each operation is delegated to the respective operation of
+ * a {@link DatabaseReference}. The {@link ApiFuture}s of the database are adapted to
+ * the {@link CompletableFuture}s of the storage.
+ */
+public final class FirebaseRealtimeStorage implements RealtimeStorage {
+
+    private final FirebaseDatabase database;
+
+    private FirebaseRealtimeStorage(FirebaseDatabase database) {
+        this.database = checkNotNull(database);
+    }
+
+    /**
+     * Creates a storage which delegates to the given {@link FirebaseDatabase}.
+     *
+     * @param database the database to store the nodes into
+     * @return new {@code RealtimeStorage}
+     */
+    public static RealtimeStorage newInstance(FirebaseDatabase database) {
+        return new FirebaseRealtimeStorage(database);
+    }
+
+    @Override
+    public CompletableFuture<Void> push(String path, Object value) {
+        return toCompletable(reference(path).push()
+                                            .setValueAsync(value));
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String path, @Nullable Object value) {
+        return toCompletable(reference(path).setValueAsync(value));
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String path, Map<String, Object> children) {
+        return toCompletable(reference(path).updateChildrenAsync(children));
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(String path) {
+        return toCompletable(reference(path).removeValueAsync());
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>>
+    transaction(String path, Function<Map<String, Object>, Map<String, Object>> update) {
+        CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        reference(path).runTransaction(new Transaction.Handler() {
+            @Override
+            public Transaction.Result doTransaction(MutableData currentData) {
+                Map<String, Object> children = new LinkedHashMap<>();
+                for (MutableData child : currentData.getChildren()) {
+                    children.put(child.getKey(), child.getValue());
+                }
+                update.apply(children)
+                      .forEach((key, value) -> currentData.child(key)
+                                                          .setValue(value));
+                return success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error,
+                                   boolean committed,
+                                   @Nullable DataSnapshot currentData) {
+                if (committed && currentData != null) {
+                    result.complete(children(currentData));
+                } else {
+                    result.completeExceptionally(
+                            failure(error, "The transaction was not committed.")
+                    );
+                }
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> selectOrderedBy(String path,
+                                                                  String property,
+                                                                  double maxValue,
+                                                                  int limit) {
+        CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        reference(path).orderByChild(property)
+                       .endAt(maxValue)
+                       .limitToFirst(limit)
+                       .addListenerForSingleValueEvent(new ValueEventListener() {
+                           @Override
+                           public void onDataChange(DataSnapshot snapshot) {
+                               result.complete(children(snapshot));
+                           }
+
+                           @Override
+                           public void onCancelled(DatabaseError error) {
+                               result.completeExceptionally(
+                                       failure(error, "The read was cancelled.")
+                               );
+                           }
+                       });
+        return result;
+    }
+
+    @Override
+    public Registration addChildListener(String path, ChildListener listener) {
+        DatabaseReference reference = reference(path);
+        ChildEventListener firebaseListener = reference.addChildEventListener(
+                new ChildEventListener() {
+                    @Override
+                    public void onChildAdded(DataSnapshot snapshot,
+                                             @Nullable String previousChildName) {
+                        listener.onChildAdded(snapshot.getKey(), snapshot.getValue());
+                    }
+
+                    @Override
+                    public void onChildChanged(DataSnapshot snapshot,
+                                               @Nullable String previousChildName) {
+                        listener.onChildChanged(snapshot.getKey(), snapshot.getValue());
+                    }
+
+                    @Override
+                    public void onChildRemoved(DataSnapshot snapshot) {
+                        listener.onChildRemoved(snapshot.getKey());
+                    }
+
+                    @Override
+                    public void onChildMoved(DataSnapshot snapshot,
+                                             @Nullable String previousChildName) {
+                        // The order of the children is not tracked.
+                    }
+
+                    @Override
+                    public void onCancelled(DatabaseError error) {
+                        log().error("Listening to the children of {} was cancelled: {}",
+                                    path, error.getMessage());
+                    }
+                });
+        // The value events are raised after the child events for the same data.
+        ValueEventListener syncListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                listener.onSynced();
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                // The cancellation is reported by the child listener.
+            }
+        };
+        reference.addListenerForSingleValueEvent(syncListener);
+        return () -> {
+            reference.removeEventListener(syncListener);
+            reference.removeEventListener(firebaseListener);
+        };
+    }
+
+    /**
+     * Adapts the given database future to a {@code CompletableFuture}.
+     *
+     * <p>The result is completed in the thread which completes the database future.
+     */
+    private static <T> CompletableFuture<T> toCompletable(ApiFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ApiFutures.addCallback(future, new ApiFutureCallback<T>() {
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+        }, directExecutor());
+        return result;
+    }
+
+    private DatabaseReference reference(String path) {
+        return path.isEmpty()
+               ? database.getReference()
+               : database.getReference(path);
+    }
+
+    private static Map<String, Object> children(DataSnapshot node) {
+        Map<String, Object> children = new LinkedHashMap<>();
+        for (DataSnapshot child : node.getChildren()) {
+            children.put(child.getKey(), child.getValue());
+        }
+        return children;
+    }
+
+    private static Exception failure(@Nullable DatabaseError error, String defaultMessage) {
+        return error != null
+               ? error.toException()
+               : new IllegalStateException(defaultMessage);
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(FirebaseRealtimeStorage.class);
+    }
+}
@@ -20,29 +20,58 @@
 
 package io.spine.web.firebase;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.firebase.database.FirebaseDatabase;
+import io.grpc.stub.StreamObserver;
 import io.spine.client.Query;
 import io.spine.client.QueryResponse;
 import io.spine.client.QueryVBuilder;
 import io.spine.client.Subscription;
 import io.spine.client.SubscriptionId;
 import io.spine.client.SubscriptionIdVBuilder;
+import io.spine.client.SubscriptionUpdate;
 import io.spine.client.SubscriptionVBuilder;
 import io.spine.client.Topic;
 import io.spine.client.grpc.QueryServiceGrpc;
+import io.spine.client.grpc.SubscriptionServiceGrpc.SubscriptionServiceImplBase;
+import io.spine.core.Response;
+import io.spine.core.Status;
+import io.spine.web.command.FutureObserver;
 import io.spine.web.query.service.AsyncQueryService;
+import io.spine.web.storage.RealtimeStorage;
 import io.spine.web.subscription.SubscriptionBridge;
 import io.spine.web.subscription.result.SubscribeResult;
 import io.spine.web.subscription.result.SubscriptionCancelResult;
 import io.spine.web.subscription.result.SubscriptionKeepUpResult;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static io.spine.client.Queries.generateId;
 import static io.spine.core.Responses.statusOk;
 import static io.spine.web.firebase.FirebaseDatabasePath.allocateForQuery;
+import static io.spine.web.firebase.FirebaseDatabasePath.allocateForTopic;
+import static io.spine.web.firebase.FirebaseDatabasePath.fromString;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * An implementation of {@link SubscriptionBridge} based on the Firebase Realtime Database.
@@ -51,31 +80,310 @@ import static io.spine.web.firebase.FirebaseDatabasePath.allocateForQuery;
  * {@link #keepUp(Subscription) keep up} the created {@link Subscription subscription},
  * and {@link #cancel(Subscription) cancel} the created subscription.
  *
+ * <p>By default, the bridge re-reads the whole subscription state from the {@code QueryService}
+ * upon each keep up and writes the difference to the database.
+ *
+ * <p>If a {@link Builder#setSubscriptionService(SubscriptionServiceImplBase) SubscriptionService}
+ * is set, the bridge works in the push mode. In this mode, the bridge subscribes to the entity
+ * changes in Spine and writes only the changed entities to the database as soon as they arrive.
+ * Keeping up a subscription then requires no queries. The entities which are deleted in Spine
+ * are not pushed, thus the whole state of such a subscription is re-read periodically, with
+ * the {@linkplain Builder#setRefreshInterval(long, TimeUnit) refresh interval}.
+ *
+ * <p>If the bridge is built with {@link Builder#setShareSubscriptions(boolean) shared
+ * subscriptions}, the subscriptions to the same topic target and field mask made by the same
+ * actor within the same tenant share a single database node. Such a node is populated once for
+ * all its subscribers and is removed when the last of them cancels the subscription. Instead of
+ * being re-read upon each keep up, a shared node is refreshed in background, once per
+ * the {@linkplain Builder#setRefreshInterval(long, TimeUnit) refresh interval}.
+ *
+ * <p>If the bridge is built with {@link Builder#setMaxShadowedSubscriptions(long) shadowed
+ * subscriptions}, the bridge keeps a copy of the last written state of each subscription node
+ * in memory. The updates are then diffed against the copy and written without reading the node
+ * from the database.
+ *
+ * <p>The bridge keeps the JSON of the recently written entity states in memory, so that
+ * the entities which have not changed since the previous keep up are not serialized again.
+ * See {@link Builder#setMaxCachedDataLength(long)}.
+ *
+ * <p>The writes to a single subscription node are performed one after another, in the order
+ * they are issued. Thus, the entity changes pushed to a new subscription node are written after
+ * its initial state.
+ *
+ * <p>Cancelling a subscription removes its database node. If the bridge is built with
+ * a {@link Builder#setSubscriptionLease(long, TimeUnit) subscription lease}, the subscriptions
+ * which are not kept up during the lease are cancelled by a background sweeper. Keeping up
+ * such a subscription afterwards restores its node. Call {@link #shutdown()} to stop
+ * the sweeper and the background refreshes.
+ *
+ * <p>The bridge writes to the {@linkplain Builder#setDatabase(FirebaseDatabase) Firebase Realtime
+ * Database}, or to any other {@linkplain Builder#setStorage(RealtimeStorage) storage}, such as
+ * the {@link InMemoryRealtimeStorage}.
+ *
  * @author Mykhailo Drachuk
  */
 public final class FirebaseSubscriptionBridge implements SubscriptionBridge {
 
+    private static final long DEFAULT_PULL_REFRESH_INTERVAL_NANOS = SECONDS.toNanos(10);
+    private static final long DEFAULT_PUSH_REFRESH_INTERVAL_NANOS = MINUTES.toNanos(1);
+
     private final AsyncQueryService queryService;
-    private final FirebaseDatabase database;
+    private final RealtimeStorage storage;
+    private final FirebaseWriteScheduler writeScheduler;
+    @Nullable
+    private final SubscriptionServiceImplBase subscriptionService;
+
+    /**
+     * The feeds of the nodes which are updated in background by the paths of the nodes.
+     */
+    private final Map<FirebaseDatabasePath, FirebaseSubscriptionFeed> feeds =
+            new ConcurrentHashMap<>();
+
+    private final FirebaseSubscriptionQueues queues = new FirebaseSubscriptionQueues();
+
+    /**
+     * The lock guarding the creation, restoration and disposal of the subscription nodes.
+     *
+     * <p>The writes of a node are enqueued under this lock. Thus, the removal of an expired node
+     * and the restoration of the node are written in the same order they are decided in.
+     */
+    private final Object lifecycleLock = new Object();
+
+    /**
+     * The shared subscription nodes or {@code null} if the subscriptions are not shared.
+     */
+    @Nullable
+    private final FirebaseSubscriptionNodes sharedNodes;
+
+    private final FirebaseSubscriptionShadows shadows;
+    private final FirebaseEntryCache entryCache;
+
+    /**
+     * The leases of the subscription nodes or {@code null} if the subscriptions never expire.
+     */
+    @Nullable
+    private final FirebaseSubscriptionLeases leases;
+
+    /**
+     * The executor sweeping the expired subscriptions and refreshing the subscription nodes or
+     * {@code null} if there are no background tasks in the bridge.
+     */
+    @Nullable
+    private final ScheduledExecutorService timer;
+    private final int sweepBatchSize;
+    private final long refreshIntervalNanos;
 
     private FirebaseSubscriptionBridge(FirebaseSubscriptionBridge.Builder builder) {
         this.queryService = builder.queryService;
-        this.database = builder.database;
+        this.storage = builder.storage;
+        this.writeScheduler = builder.writeScheduler;
+        this.subscriptionService = builder.subscriptionService;
+        this.sharedNodes = builder.shareSubscriptions
+                           ? new FirebaseSubscriptionNodes()
+                           : null;
+        this.shadows = builder.maxShadowedSubscriptions > 0
+                       ? FirebaseSubscriptionShadows.withMaximumSize(
+                               builder.maxShadowedSubscriptions)
+                       : FirebaseSubscriptionShadows.disabled();
+        this.entryCache = builder.maxCachedDataLength > 0
+                          ? FirebaseEntryCache.withMaximumDataLength(builder.maxCachedDataLength)
+                          : FirebaseEntryCache.disabled();
+        this.sweepBatchSize = builder.sweepBatchSize;
+        this.refreshIntervalNanos = builder.refreshIntervalNanos > 0
+                                    ? builder.refreshIntervalNanos
+                                    : defaultRefreshInterval(subscriptionService != null);
+        boolean expiring = builder.leaseDurationNanos > 0;
+        boolean refreshing = subscriptionService != null || sharedNodes != null;
+        this.timer = expiring || refreshing
+                     ? Executors.newSingleThreadScheduledExecutor(
+                             new ThreadFactoryBuilder()
+                                     .setNameFormat("firebase-subscription-timer-%d")
+                                     .setDaemon(true)
+                                     .build())
+                     : null;
+        if (expiring) {
+            this.leases = new FirebaseSubscriptionLeases(builder.leaseDurationNanos, NANOSECONDS,
+                                                         builder.ticker);
+            checkNotNull(timer).scheduleWithFixedDelay(this::sweepSafely,
+                                                       builder.leaseDurationNanos,
+                                                       builder.leaseDurationNanos,
+                                                       NANOSECONDS);
+        } else {
+            this.leases = null;
+        }
+    }
+
+    private static long defaultRefreshInterval(boolean pushMode) {
+        return pushMode
+               ? DEFAULT_PUSH_REFRESH_INTERVAL_NANOS
+               : DEFAULT_PULL_REFRESH_INTERVAL_NANOS;
     }
 
     @Override
     public SubscribeResult subscribe(Topic topic) {
         Query query = newQueryForTopic(topic);
-        CompletableFuture<QueryResponse> queryResponse = queryService.execute(query);
-        FirebaseDatabasePath path = allocateForQuery(query);
-        FirebaseSubscriptionRecord record = 
-                new FirebaseSubscriptionRecord(path, queryResponse);
-        record.storeAsInitial(database);
-        SubscriptionId id = newSubscriptionId(record.path());
+        FirebaseDatabasePath path = sharedNodes != null
+                                    ? allocateForTopic(topic)
+                                    : allocateForQuery(query);
+        synchronized (lifecycleLock) {
+            boolean firstSubscriber = sharedNodes == null
+                                      || sharedNodes.acquire(path, subscriberOf(topic));
+            if (leases != null) {
+                leases.grant(path);
+            }
+            if (firstSubscriber) {
+                // A shared node may still contain the data of the former subscribers.
+                populate(topic, query, path, sharedNodes != null);
+            }
+        }
+        SubscriptionId id = newSubscriptionId(path);
         Subscription subscription = newSubscription(id, topic);
         return new FirebaseSubscribeResult(subscription);
     }
 
+    /**
+     * Writes the subscription state to the given path and starts updating the node in background
+     * if the node is shared or the bridge works in the push mode.
+     *
+     * @param topic         the topic of the subscription
+     * @param query         the query reading the subscription state
+     * @param path          the path of the subscription node
+     * @param matchExisting whether the node may already contain data, thus the entries must be
+     *                      matched to the stored ones
+     */
+    private void populate(Topic topic,
+                          Query query,
+                          FirebaseDatabasePath path,
+                          boolean matchExisting) {
+        if (subscriptionService == null) {
+            queues.enqueue(path, () -> store(query, path, matchExisting));
+            if (sharedNodes != null) {
+                scheduleRefresh(topic, path, newFeed(path));
+            }
+            return;
+        }
+        FirebaseSubscriptionFeed feed = newFeed(path);
+        // The state is read after the subscription to the changes is made, so that no changes
+        // are missed. The pushed changes are enqueued after the state, so that the state does
+        // not overwrite them.
+        CompletableFuture<Void> listening = new CompletableFuture<>();
+        queues.enqueue(path, () -> listening.thenCompose(ready -> store(query, path, true)));
+        pushChanges(subscriptionService, topic, path, feed, listening);
+        scheduleRefresh(topic, path, feed);
+    }
+
+    /**
+     * Creates a new feed of the node at the given path closing the previous one, if any.
+     */
+    private FirebaseSubscriptionFeed newFeed(FirebaseDatabasePath path) {
+        FirebaseSubscriptionFeed feed = new FirebaseSubscriptionFeed();
+        FirebaseSubscriptionFeed previous = feeds.put(path, feed);
+        if (previous != null) {
+            close(previous);
+        }
+        return feed;
+    }
+
+    /**
+     * Reads the subscription state with the given query and writes it to the given path.
+     *
+     * @return a future completed when the state is written
+     */
+    private CompletableFuture<Void> store(Query query,
+                                          FirebaseDatabasePath path,
+                                          boolean matchExisting) {
+        CompletableFuture<QueryResponse> queryResponse = queryService.execute(query);
+        FirebaseSubscriptionRecord record =
+                new FirebaseSubscriptionRecord(path, queryResponse, writeScheduler, shadows,
+                                               entryCache);
+        return matchExisting
+               ? record.storeAsUpdate(storage)
+               : record.storeAsInitial(storage);
+    }
+
+    /**
+     * Enqueues the full refresh of the subscription state at the given path.
+     *
+     * @return a future completed when the state is written
+     */
+    private CompletableFuture<Void> refresh(Topic topic, FirebaseDatabasePath path) {
+        Query query = newQueryForTopic(topic);
+        return queues.enqueue(path, () -> store(query, path, true));
+    }
+
+    /**
+     * Schedules the periodic full refresh of the subscription state at the given path.
+     */
+    private void scheduleRefresh(Topic topic,
+                                 FirebaseDatabasePath path,
+                                 FirebaseSubscriptionFeed feed) {
+        checkNotNull(timer);
+        Runnable refresh = () -> {
+            try {
+                feed.refresh(() -> refresh(topic, path));
+            } catch (RuntimeException e) {
+                // An exception would cancel the subsequent refreshes.
+                log().error(format("Failed to refresh the subscription node %s.", path), e);
+            }
+        };
+        feed.setSchedule(timer.scheduleWithFixedDelay(refresh,
+                                                      refreshIntervalNanos,
+                                                      refreshIntervalNanos,
+                                                      NANOSECONDS));
+    }
+
+    /**
+     * Subscribes to the changes of the entities matching the given topic and writes them to
+     * the given path as they arrive.
+     *
+     * @param service   the service to subscribe to the changes with
+     * @param topic     the topic of the subscription
+     * @param path      the path of the subscription node
+     * @param feed      the feed of the node to attach the subscription to
+     * @param listening the future to complete when the subscription is activated or has failed
+     */
+    private void pushChanges(SubscriptionServiceImplBase service,
+                             Topic topic,
+                             FirebaseDatabasePath path,
+                             FirebaseSubscriptionFeed feed,
+                             CompletableFuture<Void> listening) {
+        FutureObserver<Subscription> observer = FutureObserver.create();
+        service.subscribe(topic, observer);
+        observer.toFuture()
+                .thenAccept(spineSubscription -> {
+                    checkState(spineSubscription != null,
+                               "SubscriptionService returned no subscription.");
+                    if (!feed.attach(spineSubscription)) {
+                        // The node has been disposed while subscribing.
+                        cancelSpineSubscription(service, spineSubscription);
+                        return;
+                    }
+                    StreamObserver<SubscriptionUpdate> updateObserver =
+                            new FirebaseSubscriptionUpdateObserver(path, storage,
+                                                                   writeScheduler, shadows,
+                                                                   entryCache, queues);
+                    service.activate(spineSubscription, updateObserver);
+                })
+                .whenComplete((result, error) -> {
+                    if (error != null) {
+                        log().error(format("Failed to subscribe to the entity changes " +
+                                           "for the subscription node %s.", path), error);
+                    }
+                    listening.complete(null);
+                });
+    }
+
+    /**
+     * Obtains the ID of the subscriber of a shared node.
+     *
+     * <p>All the subscribers of a shared node receive the same subscription ID, which is
+     * the path of the node. The subscribers are told apart by the IDs of their topics.
+     */
+    private static String subscriberOf(Topic topic) {
+        return topic.getId()
+                    .getValue();
+    }
+
     private static Query newQueryForTopic(Topic topic) {
         return QueryVBuilder.newBuilder()
                             .setId(generateId())
@@ -98,24 +406,235 @@ public final class FirebaseSubscriptionBridge implements SubscriptionBridge {
                                      .build();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>If the subscription node is updated in background, i.e. it is shared or the bridge
+     * works in the push mode, no action is required. Otherwise, the subscription state is
+     * re-read from the {@code QueryService} and the changes are written to the database.
+     *
+     * <p>If the subscription has expired, its node is restored. If the subscription node is
+     * shared, the subscriber is registered anew, as the registrations of all the subscribers
+     * of an expired node are dropped.
+     *
+     * <p>The subscription whose ID does not point to a node which the bridge may allocate for
+     * the subscription topic is not kept up. See {@link #cancel(Subscription)}.
+     */
     @Override
     public SubscriptionKeepUpResult keepUp(Subscription subscription) {
-        Topic topic = subscription.getTopic();
-        Query query = newQueryForTopic(topic);
-        CompletableFuture<QueryResponse> queryResponse = queryService.execute(query);
         SubscriptionId id = subscription.getId();
-        FirebaseDatabasePath path = FirebaseDatabasePath.fromString(id.getValue());
-        FirebaseSubscriptionRecord record = 
-                new FirebaseSubscriptionRecord(path, queryResponse);
-        record.storeAsUpdate(database);
+        FirebaseDatabasePath path = fromString(id.getValue());
+        Topic topic = subscription.getTopic();
+        if (!isAllocatedFor(path, topic)) {
+            return new FirebaseSubscriptionKeepUpResult(foreignSubscription(id));
+        }
+        boolean expired = leases != null && !leases.renew(path);
+        if (expired || sharedNodes != null) {
+            restore(topic, path);
+            return new FirebaseSubscriptionKeepUpResult(statusOk());
+        }
+        if (!feeds.containsKey(path)) {
+            refresh(topic, path);
+        }
         return new FirebaseSubscriptionKeepUpResult(statusOk());
     }
 
+    /**
+     * Restores the node of an expired subscription.
+     *
+     * <p>If the node is shared, registers the subscriber of the node. The node is then populated
+     * only for the first of its subscribers to restore it.
+     *
+     * <p>The node may still be being removed, thus the entries are matched to the stored ones.
+     * The removal is enqueued before the restoration, thus it does not remove the restored
+     * entries.
+     */
+    private void restore(Topic topic, FirebaseDatabasePath path) {
+        synchronized (lifecycleLock) {
+            if (leases != null) {
+                leases.grant(path);
+            }
+            boolean restored = sharedNodes == null
+                               || sharedNodes.acquire(path, subscriberOf(topic));
+            if (restored) {
+                populate(topic, newQueryForTopic(topic), path, true);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Removes the subscription node from the database and releases the server-side resources
+     * of the subscription.
+     *
+     * <p>If the subscription node is shared, the node is released only when the last of its
+     * subscribers cancels the subscription. The repeated cancellations of the same subscription
+     * and the cancellations of the subscriptions unknown to the bridge leave a shared node
+     * intact.
+     *
+     * <p>The ID of the subscription is supplied by the client, thus it is checked to point to
+     * a node which the bridge may allocate for the subscription topic. A shared node must be
+     * the node of the topic. Otherwise, the node must belong to the tenant and the actor of
+     * the topic. A subscription failing the check, e.g. one with an empty ID, is responded with
+     * an error and no node is touched.
+     */
     @Override
     public SubscriptionCancelResult cancel(Subscription subscription) {
+        SubscriptionId id = subscription.getId();
+        FirebaseDatabasePath path = fromString(id.getValue());
+        Topic topic = subscription.getTopic();
+        if (!isAllocatedFor(path, topic)) {
+            return new FirebaseSubscriptionCancelResult(foreignSubscription(id));
+        }
+        String subscriber = subscriberOf(topic);
+        synchronized (lifecycleLock) {
+            if (sharedNodes != null && !sharedNodes.release(path, subscriber)) {
+                return new FirebaseSubscriptionCancelResult(statusOk());
+            }
+            if (leases != null) {
+                leases.release(path);
+            }
+            dispose(path);
+            queues.enqueue(path,
+                           () -> writeScheduler.write(() -> storage.remove(path.toString())));
+        }
         return new FirebaseSubscriptionCancelResult(statusOk());
     }
 
+    /**
+     * Checks if the node at the given path may be allocated for the given topic.
+     */
+    private boolean isAllocatedFor(FirebaseDatabasePath path, Topic topic) {
+        return sharedNodes != null
+               ? path.equals(allocateForTopic(topic))
+               : path.isAllocatedFor(topic.getContext());
+    }
+
+    private static Status foreignSubscription(SubscriptionId id) {
+        io.spine.base.Error error =
+                io.spine.base.Error.newBuilder()
+                                   .setType(IllegalArgumentException.class.getCanonicalName())
+                                   .setMessage(format("Subscription %s does not match its topic.",
+                                                      id.getValue()))
+                                   .build();
+        return Status.newBuilder()
+                     .setError(error)
+                     .build();
+    }
+
+    /**
+     * Checks if the subscription with the given ID is active, i.e. its node is not released.
+     *
+     * <p>The subscriptions are tracked by their {@linkplain Builder#setSubscriptionLease leases}.
+     * If the bridge is built without a lease, any subscription is considered active, since
+     * the bridge does not track the subscriptions which are never released.
+     *
+     * @param id the ID of the subscription
+     * @return {@code true} if the subscription is active, {@code false} if it has expired, has
+     *         been cancelled or has never been created
+     */
+    public boolean isActive(SubscriptionId id) {
+        checkNotNull(id);
+        return leases == null || leases.isLeased(fromString(id.getValue()));
+    }
+
+    /**
+     * Releases the server-side resources of the subscription node at the given path.
+     */
+    private void dispose(FirebaseDatabasePath path) {
+        FirebaseSubscriptionFeed feed = feeds.remove(path);
+        if (feed != null) {
+            close(feed);
+        }
+        if (sharedNodes != null) {
+            sharedNodes.dispose(path);
+        }
+        shadows.invalidate(path);
+    }
+
+    /**
+     * Cancels the subscriptions whose leases have expired.
+     *
+     * <p>The nodes of the expired subscriptions are removed in batches, each batch being
+     * a single database write.
+     *
+     * <p>A batch is taken and enqueued for removal atomically with respect to
+     * the {@linkplain #keepUp(Subscription) restoration} of the nodes. Thus, a node restored
+     * after its lease is taken is written after the removal.
+     */
+    @VisibleForTesting
+    void sweepExpired() {
+        if (leases == null) {
+            return;
+        }
+        int swept;
+        do {
+            swept = sweepBatch();
+        } while (swept == sweepBatchSize);
+    }
+
+    /**
+     * Enqueues the removal of a single batch of the expired subscription nodes.
+     *
+     * @return the number of the removed nodes
+     */
+    private int sweepBatch() {
+        checkNotNull(leases);
+        synchronized (lifecycleLock) {
+            List<FirebaseDatabasePath> expired = leases.takeExpired(sweepBatchSize);
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            Map<String, Object> removals = new HashMap<>(expired.size());
+            for (FirebaseDatabasePath path : expired) {
+                dispose(path);
+                removals.put(path.toString(), null);
+            }
+            queues.enqueue(expired,
+                           () -> writeScheduler.write(() -> storage.update("", removals)));
+            log().debug("Removing {} expired subscription nodes.", removals.size());
+            return expired.size();
+        }
+    }
+
+    /**
+     * Stops the given feed and cancels its Spine subscription.
+     */
+    private void close(FirebaseSubscriptionFeed feed) {
+        Optional<Subscription> spineSubscription = feed.close();
+        if (subscriptionService != null && spineSubscription.isPresent()) {
+            cancelSpineSubscription(subscriptionService, spineSubscription.get());
+        }
+    }
+
+    private static void cancelSpineSubscription(SubscriptionServiceImplBase service,
+                                                Subscription spineSubscription) {
+        FutureObserver<Response> observer = FutureObserver.create();
+        service.cancel(spineSubscription, observer);
+    }
+
+    private void sweepSafely() {
+        try {
+            sweepExpired();
+        } catch (RuntimeException e) {
+            // An exception would cancel the subsequent sweeps.
+            log().error("Failed to sweep the expired subscriptions.", e);
+        }
+    }
+
+    /**
+     * Stops the sweeper of the expired subscriptions and the background refreshes of
+     * the subscription nodes.
+     *
+     * <p>Does nothing if there are no such background tasks.
+     */
+    public void shutdown() {
+        if (timer != null) {
+            timer.shutdown();
+        }
+    }
+
     /**
      * Creates a new instance of {@code Builder} for {@code FirebaseQueryBridge} instances.
      *
@@ -130,11 +649,21 @@ public final class FirebaseSubscriptionBridge implements SubscriptionBridge {
      */
     public static final class Builder {
 
-        /**
-         * The default amount of seconds to wait for a single record to be written.
-         */
+        private static final int DEFAULT_SWEEP_BATCH_SIZE = 500;
+        private static final long DEFAULT_MAX_CACHED_DATA_LENGTH = 10_000_000;
+
         private AsyncQueryService queryService;
-        private FirebaseDatabase database;
+        private RealtimeStorage storage;
+        private FirebaseWriteScheduler writeScheduler = FirebaseWriteScheduler.defaultInstance();
+        @Nullable
+        private SubscriptionServiceImplBase subscriptionService;
+        private boolean shareSubscriptions;
+        private long maxShadowedSubscriptions;
+        private long maxCachedDataLength = DEFAULT_MAX_CACHED_DATA_LENGTH;
+        private long leaseDurationNanos;
+        private int sweepBatchSize = DEFAULT_SWEEP_BATCH_SIZE;
+        private long refreshIntervalNanos;
+        private Ticker ticker = Ticker.systemTicker();
 
         /**
          * Prevents local instantiation.
@@ -149,8 +678,180 @@ public final class FirebaseSubscriptionBridge implements SubscriptionBridge {
             return this;
         }
 
+        /**
+         * Sets the {@code QueryService} to read the entity states from.
+         *
+         * <p>Use this method to connect the bridge to a {@linkplain AsyncQueryService#remote
+         * remote} service or to put a {@linkplain io.spine.web.query.service.CachingQueryService
+         * cache} in front of the service.
+         */
+        public Builder setQueryService(AsyncQueryService service) {
+            this.queryService = checkNotNull(service);
+            return this;
+        }
+
+        /**
+         * Sets the Firebase database to store the data into.
+         *
+         * <p>This is a shorthand for
+         * {@code setStorage(FirebaseRealtimeStorage.newInstance(database))}.
+         *
+         * <p>Either the database or the {@linkplain #setStorage(RealtimeStorage) storage} must
+         * be set.
+         */
         public Builder setDatabase(FirebaseDatabase database) {
-            this.database = checkNotNull(database);
+            checkNotNull(database);
+            return setStorage(FirebaseRealtimeStorage.newInstance(database));
+        }
+
+        /**
+         * Sets the storage to store the data into.
+         *
+         * <p>Use this method to run the bridge on a backend other than the Firebase Realtime
+         * Database, e.g. on the {@link InMemoryRealtimeStorage}.
+         *
+         * <p>Either the storage or the {@linkplain #setDatabase(FirebaseDatabase) database} must
+         * be set.
+         */
+        public Builder setStorage(RealtimeStorage storage) {
+            this.storage = checkNotNull(storage);
+            return this;
+        }
+
+        /**
+         * Sets the scheduler of the database writes.
+         *
+         * <p>By default, the {@linkplain FirebaseWriteScheduler#defaultInstance() shared
+         * scheduler} is used.
+         */
+        public Builder setWriteScheduler(FirebaseWriteScheduler writeScheduler) {
+            this.writeScheduler = checkNotNull(writeScheduler);
+            return this;
+        }
+
+        /**
+         * Sets the {@code SubscriptionService} to receive the entity changes from.
+         *
+         * <p>If set, the built bridge pushes the entity changes to the database as they happen
+         * instead of re-reading the whole subscription state upon each keep up.
+         *
+         * <p>The service should serve the same bounded contexts as the query service.
+         */
+        public Builder setSubscriptionService(SubscriptionServiceImplBase service) {
+            this.subscriptionService = checkNotNull(service);
+            return this;
+        }
+
+        /**
+         * Sets whether the subscriptions to identical topics should share a database node.
+         *
+         * <p>The topics are identical if they have the same target and field mask and are
+         * requested by the same actor within the same tenant.
+         *
+         * <p>The default value is {@code false}. If enabled, all the subscription requests
+         * for the shared nodes, including the keep up and cancel requests, should be processed
+         * by the same bridge instance.
+         */
+        public Builder setShareSubscriptions(boolean shareSubscriptions) {
+            this.shareSubscriptions = shareSubscriptions;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of subscriptions whose state is kept in memory.
+         *
+         * <p>The updates of a shadowed subscription are diffed against its in-memory state and
+         * written as plain multi-path updates. Other subscriptions are updated in transactions,
+         * which download and parse the whole subscription node on each update.
+         *
+         * <p>The default value is {@code 0}, i.e. the state is not kept. If enabled, all
+         * the requests for a subscription should be processed by the same bridge instance.
+         * Otherwise, the in-memory state may become outdated.
+         */
+        public Builder setMaxShadowedSubscriptions(long maxShadowedSubscriptions) {
+            checkArgument(maxShadowedSubscriptions >= 0,
+                          "The number of shadowed subscriptions must not be negative.");
+            this.maxShadowedSubscriptions = maxShadowedSubscriptions;
+            return this;
+        }
+
+        /**
+         * Sets the maximum total length of the serialized entity states kept in memory.
+         *
+         * <p>An entity state which is the same as the one written before is not serialized again.
+         * Instead, its JSON is taken from memory. As most of the entities do not change between
+         * the keep up requests, this spares most of the serialization work of a keep up.
+         *
+         * <p>The states are matched by their binary representation, thus the cache never yields
+         * an outdated state.
+         *
+         * <p>The length of a cached state is the size of its binary representation plus
+         * the length of its JSON and its digests. The least recently used states are evicted
+         * once the total length is exceeded.
+         *
+         * <p>The default value is {@code 10000000}. The value of {@code 0} disables the cache.
+         */
+        public Builder setMaxCachedDataLength(long maxCachedDataLength) {
+            checkArgument(maxCachedDataLength >= 0,
+                          "The length of cached data must not be negative.");
+            this.maxCachedDataLength = maxCachedDataLength;
+            return this;
+        }
+
+        /**
+         * Sets the duration of a subscription lease.
+         *
+         * <p>A subscription which is not kept up during the lease is cancelled. The expired
+         * subscriptions are swept in the background with the period equal to the lease
+         * duration. Thus, an abandoned subscription node is removed in at most two lease
+         * durations.
+         *
+         * <p>The lease should be several times longer than the interval between the keep up
+         * requests, which is 10 seconds for the JavaScript client.
+         *
+         * <p>By default, the subscriptions never expire. If enabled, all the requests for
+         * a subscription should be processed by the same bridge instance.
+         */
+        public Builder setSubscriptionLease(long duration, TimeUnit unit) {
+            checkArgument(duration > 0, "Subscription lease duration must be positive.");
+            checkNotNull(unit);
+            this.leaseDurationNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of expired subscription nodes removed in a single write.
+         *
+         * <p>The default value is {@code 500}.
+         */
+        public Builder setSweepBatchSize(int sweepBatchSize) {
+            checkArgument(sweepBatchSize > 0, "Sweep batch size must be positive.");
+            this.sweepBatchSize = sweepBatchSize;
+            return this;
+        }
+
+        /**
+         * Sets the interval of the full state refresh of the subscriptions which are updated
+         * in background.
+         *
+         * <p>In the push mode, the periodic refresh removes the entities which are deleted in
+         * Spine from the subscription nodes. The default value for this mode is 1 minute.
+         *
+         * <p>Otherwise, only the {@linkplain #setShareSubscriptions(boolean) shared} nodes are
+         * refreshed in background. The refresh is then the only source of updates of a shared
+         * node. The default value for this mode is 10 seconds, which is the interval between
+         * the keep up requests of the JavaScript client.
+         */
+        public Builder setRefreshInterval(long interval, TimeUnit unit) {
+            checkArgument(interval > 0, "Refresh interval must be positive.");
+            checkNotNull(unit);
+            this.refreshIntervalNanos = unit.toNanos(interval);
+            return this;
+        }
+
+        @VisibleForTesting
+        Builder setTicker(Ticker ticker) {
+            this.ticker = checkNotNull(ticker);
             return this;
         }
 
@@ -162,9 +863,19 @@ public final class FirebaseSubscriptionBridge implements SubscriptionBridge {
         public FirebaseSubscriptionBridge build() {
             checkState(queryService != null,
                        "Query Service is not set to FirebaseSubscriptionBridge.");
-            checkState(database != null,
-                       "FirebaseDatabase is not set to to FirebaseSubscriptionBridge.");
+            checkState(storage != null,
+                       "Neither FirebaseDatabase nor storage is set to the bridge.");
             return new FirebaseSubscriptionBridge(this);
         }
     }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(FirebaseSubscriptionBridge.class);
+    }
 }
@@ -35,6 +35,7 @@ import java.util.stream.StreamSupport;
 import static io.spine.web.firebase.FirebaseSubscriptionEntries.Entry.Operation.ADD;
 import static io.spine.web.firebase.FirebaseSubscriptionEntries.Entry.Operation.CHANGE;
 import static io.spine.web.firebase.FirebaseSubscriptionEntries.Entry.Operation.REMOVE;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.stream.Collectors.toList;
 
@@ -80,16 +81,71 @@ final class FirebaseSubscriptionDiff {
      */
     static FirebaseSubscriptionDiff computeDiff(List<String> newEntries,
                                                 Iterable<MutableData> firebaseEntries) {
-        List<ExistingEntry> existingEntries = existingEntries(firebaseEntries);
-        FirebaseSubscriptionEntriesMatcher matcher = 
-                new FirebaseSubscriptionEntriesMatcher(existingEntries);
-        List<Entry> entryUpdates = matcher.match(upToDateEntries(newEntries));
+        return computeDiff(upToDateEntries(newEntries), existingEntries(firebaseEntries));
+    }
+
+    /**
+     * Compares the actual state represented by {@code newEntries} to the already read entries
+     * of the Firebase database.
+     *
+     * @param newEntries      the entries retrieved from Spine
+     * @param existingEntries the entries stored in Firebase
+     * @return a diff between Spine and Firebase data states
+     * @see #computeDiff(List, Iterable)
+     */
+    static FirebaseSubscriptionDiff computeDiff(List<UpToDateEntry> newEntries,
+                                                List<ExistingEntry> existingEntries) {
+        List<Entry> entryUpdates = match(newEntries, existingEntries);
         return new FirebaseSubscriptionDiff(entriesToAdd(entryUpdates),
                                             entriesToChange(entryUpdates),
                                             entriesToRemove(entryUpdates));
     }
 
-    private static List<ExistingEntry> existingEntries(Iterable<MutableData> entries) {
+    /**
+     * Compares the changed entities represented by {@code changedEntries} to the state of
+     * the Firebase database represented by a a list of {@link DataSnapshot data snapshots}.
+     *
+     * <p>Unlike {@link #computeDiff(List, Iterable) computeDiff}, treats the given entries as
+     * a part of the actual state. Thus, the Firebase entries that do not match any of
+     * the changed entries are left intact, and the resulting diff never contains removals.
+     *
+     * @param changedEntries  a list of JSON serialized entries which have changed in Spine
+     * @param firebaseEntries a list of Firebase {@code DataSnapshot}s to match new data to
+     * @return a diff adding and changing the given entries in Firebase
+     */
+    static FirebaseSubscriptionDiff computeChanges(List<String> changedEntries,
+                                                   Iterable<MutableData> firebaseEntries) {
+        return computeChanges(upToDateEntries(changedEntries), existingEntries(firebaseEntries));
+    }
+
+    /**
+     * Compares the changed entities represented by {@code changedEntries} to the already read
+     * entries of the Firebase database.
+     *
+     * @param changedEntries  the entries which have changed in Spine
+     * @param existingEntries the entries stored in Firebase
+     * @return a diff adding and changing the given entries in Firebase
+     * @see #computeChanges(List, Iterable)
+     */
+    static FirebaseSubscriptionDiff computeChanges(List<UpToDateEntry> changedEntries,
+                                                   List<ExistingEntry> existingEntries) {
+        List<Entry> entryUpdates = match(changedEntries, existingEntries);
+        return new FirebaseSubscriptionDiff(entriesToAdd(entryUpdates),
+                                            entriesToChange(entryUpdates),
+                                            emptyList());
+    }
+
+    private static List<Entry> match(List<UpToDateEntry> newEntries,
+                                     List<ExistingEntry> existingEntries) {
+        FirebaseSubscriptionEntriesMatcher matcher =
+                new FirebaseSubscriptionEntriesMatcher(existingEntries);
+        return matcher.match(newEntries);
+    }
+
+    /**
+     * Parses the entries stored in the Firebase.
+     */
+    static List<ExistingEntry> existingEntries(Iterable<MutableData> entries) {
         return StreamSupport.stream(entries.spliterator(), true)
                             .map(ExistingEntry::fromFirebaseData)
                             .collect(toList());
@@ -111,14 +167,14 @@ final class FirebaseSubscriptionDiff {
     private static List<ChangedRecord> entriesToChange(List<Entry> entries) {
         return entries.stream()
                       .filter(entry -> entry.operation() == CHANGE)
-                      .map(entry -> new ChangedRecord(entry.key(), entry.data()))
+                      .map(entry -> new ChangedRecord(entry.key(), entry.value()))
                       .collect(toList());
     }
 
     private static List<AddedRecord> entriesToAdd(List<Entry> entries) {
         return entries.stream()
                       .filter(entry -> entry.operation() == ADD)
-                      .map(entry -> new AddedRecord(entry.data()))
+                      .map(entry -> new AddedRecord(entry.value()))
                       .collect(toList());
     }
 }
@@ -22,17 +22,64 @@ package io.spine.web.firebase;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableMap;
+import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.MutableData;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import io.spine.json.Json;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Map;
+
+import static com.google.common.base.Suppliers.memoize;
+import static io.spine.web.firebase.MessageDigests.digest;
 
 /**
  * Data classes for processing of entries retrieved from both Spine and Firebase storage.
  *
+ * <p>An entry is stored to Firebase as an object holding the JSON of the entity along with
+ * the {@linkplain MessageDigests#digest digests} of the entity and its ID:
+ * <pre>
+ *     {
+ *         "data": "{\"id\":{\"value\":\"42\"},\"name\":\"...\"}",
+ *         "hash": "Jq3uY0xY3Uy0vNEgTqXh9w",
+ *         "id": "f0mXb8h6p5kQj1k6K2N7aA"
+ *     }
+ * </pre>
+ *
+ * <p>Such entries are matched and compared by the digests, without parsing their JSON.
+ * The entries stored as plain JSON strings are still supported and are matched by their
+ * parsed JSON.
+ *
  * @author Mykhailo Drachuk
  */
 final class FirebaseSubscriptionEntries {
 
+    /**
+     * The name of the stored entry property holding the entity JSON.
+     */
+    static final String DATA_PROPERTY = "data";
+
+    /**
+     * The name of the stored entry property holding the digest of the entity.
+     */
+    static final String HASH_PROPERTY = "hash";
+
+    /**
+     * The name of the stored entry property holding the digest of the entity ID.
+     */
+    static final String ID_PROPERTY = "id";
+
+    /**
+     * The mapper used to parse the entries.
+     *
+     * <p>The mapper is thread-safe once configured, thus it is shared by all the entries.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
     /**
      * An empty constructor preventing instantiation.
      */
@@ -46,22 +93,55 @@ final class FirebaseSubscriptionEntries {
     static class UpToDateEntry {
 
         private final String data;
-        private final JsonNode json;
-        private final JsonNode id;
-        private final boolean containsId;
+        private final Supplier<JsonNode> json;
+        @Nullable
+        private final String hash;
+        @Nullable
+        private final String idHash;
 
+        /**
+         * Creates an entry from the JSON serialized entity.
+         *
+         * <p>Such an entry has no digests and is matched by its parsed JSON.
+         */
         UpToDateEntry(String data) {
+            this(data, memoize(() -> toJson(data)), null, null);
+        }
+
+        private UpToDateEntry(String data,
+                              Supplier<JsonNode> json,
+                              @Nullable String hash,
+                              @Nullable String idHash) {
             this.data = data;
-            this.json = toJson(data);
-            this.id = this.json.get("id");
-            this.containsId = id != null;
+            this.json = json;
+            this.hash = hash;
+            this.idHash = idHash;
+        }
+
+        /**
+         * Creates an entry from the entity state, computing the digests of the state and its ID.
+         *
+         * <p>Such an entry does not keep its JSON parsed, since it may be
+         * {@linkplain FirebaseEntryCache cached} for a long time. The entry is matched by its
+         * digests, thus its JSON is parsed only while the node contains the entries stored
+         * without the digests.
+         */
+        static UpToDateEntry fromMessage(Message message) {
+            String data = Json.toCompactJson(message);
+            String hash = digest(message);
+            String idHash = idDigest(message);
+            return new UpToDateEntry(data, () -> toJson(data), hash, idHash);
         }
 
         /**
          * JSON data of this entry.
+         *
+         * <p>The data of an entry created from the JSON string is parsed upon the first call.
+         * The data of an entry {@linkplain #fromMessage created from a message} is parsed upon
+         * each call.
          */
         JsonNode json() {
-            return json;
+            return json.get();
         }
 
         /**
@@ -71,19 +151,55 @@ final class FirebaseSubscriptionEntries {
             return data;
         }
 
+        /**
+         * The value to store to Firebase.
+         *
+         * @return an object with the entity JSON and its digests or the plain JSON if the entry
+         *         has no digests
+         */
+        Object value() {
+            return hashed()
+                   ? storedValue(data, hash, idHash)
+                   : data;
+        }
+
+        /**
+         * @return {@code true} if the entry has the digests, {@code false} otherwise
+         */
+        boolean hashed() {
+            return hash != null;
+        }
+
+        /**
+         * The digest of the entity or {@code null} if the entry has no digests.
+         */
+        @Nullable
+        String hash() {
+            return hash;
+        }
+
+        /**
+         * The digest of the entity ID or {@code null} if the entry has no digests or
+         * the entity has no ID.
+         */
+        @Nullable
+        String idHash() {
+            return idHash;
+        }
+
         /**
          * @return {@code true} if the entity contains an {@code "id"} field,
          *                      {@code false} otherwise
          */
         boolean containsId() {
-            return containsId;
+            return id() != null;
         }
 
         /**
          * A {@link JsonNode} representation of the entities {@code "id"} field.
          */
         JsonNode id() {
-            return id;
+            return json().get("id");
         }
     }
 
@@ -94,28 +210,56 @@ final class FirebaseSubscriptionEntries {
 
         private final String key;
         private final String data;
-        private final JsonNode json;
-        private final JsonNode id;
-        private final boolean containsId;
+        private final Supplier<JsonNode> json;
+        @Nullable
+        private final String hash;
+        @Nullable
+        private final String idHash;
 
-        private ExistingEntry(String key, String data) {
+        private ExistingEntry(String key,
+                              String data,
+                              @Nullable String hash,
+                              @Nullable String idHash) {
             this.key = key;
             this.data = data;
-            this.json = toJson(data);
-            this.id = this.json.get("id");
-            this.containsId = id != null;
+            this.json = memoize(() -> toJson(data));
+            this.hash = hash;
+            this.idHash = idHash;
         }
 
         static ExistingEntry fromFirebaseData(MutableData snapshot) {
-            String value = (String) snapshot.getValue();
-            return new ExistingEntry(snapshot.getKey(), value);
+            return of(snapshot.getKey(), snapshot.getValue());
+        }
+
+        static ExistingEntry fromSnapshot(DataSnapshot snapshot) {
+            return of(snapshot.getKey(), snapshot.getValue());
+        }
+
+        /**
+         * Creates an entry which is known to be stored under the given key.
+         *
+         * @param key   the Firebase key of the entry relative to the subscription root
+         * @param value the stored value, either a JSON string or an object with the JSON and
+         *              its digests
+         */
+        static ExistingEntry of(String key, Object value) {
+            if (value instanceof Map) {
+                Map<?, ?> properties = (Map<?, ?>) value;
+                return new ExistingEntry(key,
+                                         (String) properties.get(DATA_PROPERTY),
+                                         (String) properties.get(HASH_PROPERTY),
+                                         (String) properties.get(ID_PROPERTY));
+            }
+            return new ExistingEntry(key, (String) value, null, null);
         }
 
         /**
          * JSON data of this entry.
+         *
+         * <p>The data is parsed upon the first call.
          */
         JsonNode json() {
-            return json;
+            return json.get();
         }
 
         /**
@@ -133,10 +277,42 @@ final class FirebaseSubscriptionEntries {
         }
 
         /**
-         * Checks if this entries {@code "id"} field matches the provided one.
+         * @return {@code true} if the entry is stored with the digests, {@code false} otherwise
+         */
+        boolean hashed() {
+            return hash != null;
+        }
+
+        /**
+         * The digest of the entity or {@code null} if the entry is stored without digests.
+         */
+        @Nullable
+        String hash() {
+            return hash;
+        }
+
+        /**
+         * The digest of the entity ID or {@code null} if the entry is stored without digests or
+         * the entity has no ID.
+         */
+        @Nullable
+        String idHash() {
+            return idHash;
+        }
+
+        /**
+         * @return {@code true} if the entity contains an {@code "id"} field,
+         *                      {@code false} otherwise
+         */
+        boolean containsId() {
+            return id() != null;
+        }
+
+        /**
+         * A {@link JsonNode} representation of the entities {@code "id"} field.
          */
-        boolean idEquals(JsonNode id) {
-            return containsId && this.id.equals(id);
+        JsonNode id() {
+            return json().get("id");
         }
     }
 
@@ -150,17 +326,21 @@ final class FirebaseSubscriptionEntries {
 
         private final String key;
         private final String data;
+        private final Object value;
         private final Operation operation;
 
         Entry(String key, String data, Operation operation) {
-            this.key = key;
-            this.data = data;
-            this.operation = operation;
+            this(key, data, data, operation);
         }
 
         Entry(String data, Operation operation) {
-            this.key = null;
+            this(null, data, data, operation);
+        }
+
+        Entry(@Nullable String key, String data, Object value, Operation operation) {
+            this.key = key;
             this.data = data;
+            this.value = value;
             this.operation = operation;
         }
 
@@ -171,6 +351,13 @@ final class FirebaseSubscriptionEntries {
             return data;
         }
 
+        /**
+         * The value to store to Firebase.
+         */
+        Object value() {
+            return value;
+        }
+
         /**
          * A Firebase key of an entity relative to the subscription root.
          */
@@ -186,10 +373,46 @@ final class FirebaseSubscriptionEntries {
         }
     }
 
+    private static Map<String, Object> storedValue(String data,
+                                                   String hash,
+                                                   @Nullable String idHash) {
+        ImmutableMap.Builder<String, Object> value = ImmutableMap.builder();
+        value.put(DATA_PROPERTY, data)
+             .put(HASH_PROPERTY, hash);
+        if (idHash != null) {
+            value.put(ID_PROPERTY, idHash);
+        }
+        return value.build();
+    }
+
+    /**
+     * Computes the digest of the {@code id} field of the given message.
+     *
+     * @return the digest of the ID or {@code null} if the message has no {@code id} field or
+     *         the field is not set
+     */
+    @Nullable
+    private static String idDigest(Message message) {
+        FieldDescriptor idField = message.getDescriptorForType()
+                                         .findFieldByName("id");
+        if (idField == null) {
+            return null;
+        }
+        boolean idSet = idField.isRepeated()
+                        ? message.getRepeatedFieldCount(idField) > 0
+                        : message.hasField(idField);
+        if (!idSet) {
+            return null;
+        }
+        Message id = message.newBuilderForType()
+                            .setField(idField, message.getField(idField))
+                            .build();
+        return digest(id);
+    }
+
     private static JsonNode toJson(String jsonString) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readTree(jsonString);
+            return MAPPER.readTree(jsonString);
         } catch (IOException e) {
             throw new RuntimeException("Could not parse JSON.", e);
         }
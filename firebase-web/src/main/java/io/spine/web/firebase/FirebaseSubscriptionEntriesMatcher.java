@@ -22,12 +22,19 @@ package io.spine.web.firebase;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import io.spine.web.firebase.FirebaseSubscriptionEntries.Entry;
+import io.spine.web.firebase.FirebaseSubscriptionEntries.Entry.Operation;
 import io.spine.web.firebase.FirebaseSubscriptionEntries.ExistingEntry;
 import io.spine.web.firebase.FirebaseSubscriptionEntries.UpToDateEntry;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static io.spine.web.firebase.FirebaseSubscriptionEntries.Entry.Operation.ADD;
 import static io.spine.web.firebase.FirebaseSubscriptionEntries.Entry.Operation.CHANGE;
@@ -39,14 +46,70 @@ import static java.util.stream.Stream.concat;
 /**
  * A matcher of the up-to-date subscription state to the one stored in one Firebase database.
  *
+ * <p>The existing entries are indexed upon the matcher creation: the entries which contain
+ * an {@code "id"} field are indexed by the ID, the rest are indexed by their whole content.
+ * Thus, matching a single {@link UpToDateEntry} is a hash lookup, and matching the whole
+ * subscription state takes time linear to the number of entries.
+ *
+ * <p>The entries which are stored with the digests are indexed and compared by the digests,
+ * so their JSON is never parsed. The entries stored as plain JSON are indexed by the parsed
+ * JSON. An up-to-date entry with the digests is matched by the JSON only if it does not match
+ * any of the entries by the digests and there are entries stored as plain JSON. Such an entry
+ * is rewritten with the digests even if its data has not changed, so that it is matched by
+ * the digests from then on.
+ *
+ * <p>If several existing entries share the same index key, they are matched in the order
+ * they were passed to the matcher.
+ *
  * @author Mykhailo Drachuk
  */
 final class FirebaseSubscriptionEntriesMatcher {
 
-    private final List<ExistingEntry> unmatchedEntries;
+    private final List<ExistingEntry> existingEntries;
+    private final Map<String, Deque<ExistingEntry>> entriesByIdHash = new HashMap<>();
+    private final Map<String, Deque<ExistingEntry>> entriesByHash = new HashMap<>();
+    private final Map<JsonNode, Deque<ExistingEntry>> entriesById = new HashMap<>();
+    private final Map<JsonNode, Deque<ExistingEntry>> entriesByContent = new HashMap<>();
+    private final boolean containsPlainEntries;
+    private final Set<ExistingEntry> matchedEntries =
+            Collections.newSetFromMap(new IdentityHashMap<>());
 
     FirebaseSubscriptionEntriesMatcher(List<ExistingEntry> entries) {
-        this.unmatchedEntries = new ArrayList<>(entries);
+        this.existingEntries = entries;
+        boolean plainEntries = false;
+        for (ExistingEntry entry : entries) {
+            if (entry.hashed()) {
+                indexByDigests(entry);
+            } else {
+                plainEntries = true;
+                indexByJson(entry);
+            }
+        }
+        this.containsPlainEntries = plainEntries;
+    }
+
+    private void indexByDigests(ExistingEntry entry) {
+        String idHash = entry.idHash();
+        if (idHash != null) {
+            index(entriesByIdHash, idHash, entry);
+        } else {
+            index(entriesByHash, entry.hash(), entry);
+        }
+    }
+
+    private void indexByJson(ExistingEntry entry) {
+        if (entry.containsId()) {
+            index(entriesById, entry.id(), entry);
+        } else {
+            index(entriesByContent, entry.json(), entry);
+        }
+    }
+
+    private static <K> void index(Map<K, Deque<ExistingEntry>> index,
+                                  K key,
+                                  ExistingEntry entry) {
+        index.computeIfAbsent(key, k -> new ArrayDeque<>())
+             .addLast(entry);
     }
 
     /**
@@ -66,45 +129,96 @@ final class FirebaseSubscriptionEntriesMatcher {
     }
 
     private Entry match(UpToDateEntry entry) {
+        if (entry.hashed()) {
+            Optional<Entry> matchedByDigests = matchByDigests(entry);
+            if (matchedByDigests.isPresent()) {
+                return matchedByDigests.get();
+            }
+            if (!containsPlainEntries) {
+                return added(entry);
+            }
+        }
         return entry.containsId() ? matchById(entry) : shallowMatch(entry);
     }
 
+    private Optional<Entry> matchByDigests(UpToDateEntry entry) {
+        String idHash = entry.idHash();
+        if (idHash == null) {
+            return takeFirst(entriesByHash, entry.hash())
+                    .map(matchingEntry -> matched(matchingEntry, entry, PASS));
+        }
+        return takeFirst(entriesByIdHash, idHash)
+                .map(matchingEntry -> {
+                    boolean unchanged = entry.hash()
+                                             .equals(matchingEntry.hash());
+                    return matched(matchingEntry, entry, unchanged ? PASS : CHANGE);
+                });
+    }
+
     private Entry matchById(UpToDateEntry entry) {
-        Optional<ExistingEntry> optionalMatchingEntry =
-                unmatchedEntries.stream()
-                                .filter(existing -> existing.idEquals(entry.id()))
-                                .findFirst();
-        if (optionalMatchingEntry.isPresent()) {
-            ExistingEntry matchingEntry = optionalMatchingEntry.get();
-            unmatchedEntries.remove(matchingEntry);
-            JsonNode matchingJson = matchingEntry.json();
-            if (matchingJson.equals(entry.json())) {
-                return new Entry(matchingEntry.key(), entry.data(), PASS);
-            } else {
-                return new Entry(matchingEntry.key(), entry.data(), CHANGE);
-            }
+        Optional<ExistingEntry> optionalMatchingEntry = takeFirst(entriesById, entry.id());
+        if (!optionalMatchingEntry.isPresent()) {
+            return added(entry);
+        }
+        ExistingEntry matchingEntry = optionalMatchingEntry.get();
+        JsonNode matchingJson = matchingEntry.json();
+        if (matchingJson.equals(entry.json())) {
+            return matched(matchingEntry, entry, unchanged(matchingEntry, entry));
         } else {
-            return new Entry(entry.data(), ADD);
+            return matched(matchingEntry, entry, CHANGE);
         }
     }
 
     private Entry shallowMatch(UpToDateEntry entry) {
-        Optional<ExistingEntry> optionalMatchingEntry =
-                unmatchedEntries.stream()
-                                .filter(existing -> entry.json()
-                                                         .equals(existing.json()))
-                                .findFirst();
-        if (optionalMatchingEntry.isPresent()) {
-            ExistingEntry matchingEntry = optionalMatchingEntry.get();
-            unmatchedEntries.remove(matchingEntry);
-            return new Entry(matchingEntry.key(), entry.data(), PASS);
+        Optional<ExistingEntry> optionalMatchingEntry = takeFirst(entriesByContent, entry.json());
+        if (!optionalMatchingEntry.isPresent()) {
+            return added(entry);
+        }
+        ExistingEntry matchingEntry = optionalMatchingEntry.get();
+        return matched(matchingEntry, entry, unchanged(matchingEntry, entry));
+    }
+
+    /**
+     * Obtains the operation for the entry whose data equals to the data of the matching entry.
+     *
+     * <p>An entry stored as plain JSON is {@linkplain Operation#CHANGE changed} to the value
+     * with the digests if the up-to-date entry has them. Otherwise, the entry is
+     * {@linkplain Operation#PASS passed}.
+     */
+    private static Operation unchanged(ExistingEntry matchingEntry, UpToDateEntry entry) {
+        boolean legacy = entry.hashed() && !matchingEntry.hashed();
+        return legacy ? CHANGE : PASS;
+    }
+
+    private static Entry added(UpToDateEntry entry) {
+        return new Entry(null, entry.data(), entry.value(), ADD);
+    }
+
+    private static Entry matched(ExistingEntry matchingEntry,
+                                 UpToDateEntry entry,
+                                 Operation operation) {
+        return new Entry(matchingEntry.key(), entry.data(), entry.value(), operation);
+    }
+
+    /**
+     * Retrieves and removes the first not yet matched entry stored under the given key.
+     *
+     * @return the matching entry or {@code Optional.empty()} if there is no such entry
+     */
+    private <K> Optional<ExistingEntry> takeFirst(Map<K, Deque<ExistingEntry>> index, K key) {
+        Deque<ExistingEntry> candidates = index.get(key);
+        if (candidates == null || candidates.isEmpty()) {
+            return Optional.empty();
         }
-        return new Entry(entry.data(), ADD);
+        ExistingEntry entry = candidates.pollFirst();
+        matchedEntries.add(entry);
+        return Optional.of(entry);
     }
 
     private List<Entry> unmatched() {
-        return this.unmatchedEntries
+        return this.existingEntries
                 .stream()
+                .filter(existing -> !matchedEntries.contains(existing))
                 .map(existing -> new Entry(existing.key(), existing.data(), REMOVE))
                 .collect(toList());
     }
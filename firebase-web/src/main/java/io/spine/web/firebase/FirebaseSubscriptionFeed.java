@@ -0,0 +1,124 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import io.spine.client.Subscription;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * The background sources of the updates of a single subscription node.
+ *
+ * <p>A feed consists of:
+ * <ul>
+ *     <li>the periodic full refresh of the node state;
+ *     <li>in the push mode, the Spine subscription pushing the entity changes to the node.
+ * </ul>
+ *
+ * <p>A refresh is skipped if the previous refresh of the node is not completed yet, so that
+ * the refreshes of a slow node do not pile up.
+ *
+ * <p>Once {@linkplain #close() closed}, the feed does not refresh the node and rejects
+ * the Spine subscription which is {@linkplain #attach(Subscription) attached} late.
+ */
+final class FirebaseSubscriptionFeed {
+
+    @Nullable
+    private ScheduledFuture<?> schedule;
+    @Nullable
+    private CompletableFuture<?> lastRefresh;
+    @Nullable
+    private Subscription spineSubscription;
+    private boolean closed;
+
+    /**
+     * Sets the schedule of the periodic refresh of the node.
+     *
+     * <p>If the feed is already closed, the schedule is cancelled.
+     */
+    synchronized void setSchedule(ScheduledFuture<?> schedule) {
+        checkState(this.schedule == null, "The refresh is already scheduled.");
+        this.schedule = schedule;
+        if (closed) {
+            schedule.cancel(false);
+        }
+    }
+
+    /**
+     * Starts a refresh of the node unless the previous refresh is still in progress or the feed
+     * is closed.
+     *
+     * @param refresh the operation starting the refresh and returning a future completed when
+     *                the refresh is completed
+     */
+    void refresh(Supplier<? extends CompletableFuture<?>> refresh) {
+        CompletableFuture<Void> refreshed = new CompletableFuture<>();
+        synchronized (this) {
+            if (closed || (lastRefresh != null && !lastRefresh.isDone())) {
+                return;
+            }
+            lastRefresh = refreshed;
+        }
+        try {
+            refresh.get()
+                   .whenComplete((result, error) -> refreshed.complete(null));
+        } catch (RuntimeException e) {
+            refreshed.complete(null);
+            throw e;
+        }
+    }
+
+    /**
+     * Attaches the Spine subscription pushing the changes to the node.
+     *
+     * @return {@code true} if the subscription is attached, {@code false} if the feed is
+     *         closed and the subscription should be cancelled right away
+     */
+    synchronized boolean attach(Subscription spineSubscription) {
+        if (closed) {
+            return false;
+        }
+        this.spineSubscription = spineSubscription;
+        return true;
+    }
+
+    /**
+     * Stops the refreshes of the node.
+     *
+     * @return the attached Spine subscription to cancel or {@code Optional.empty()} if there is
+     *         no such subscription
+     */
+    synchronized Optional<Subscription> close() {
+        closed = true;
+        if (schedule != null) {
+            schedule.cancel(false);
+        }
+        Optional<Subscription> result = Optional.ofNullable(spineSubscription);
+        spineSubscription = null;
+        return result;
+    }
+}
@@ -28,6 +28,7 @@ import io.spine.web.subscription.result.SubscriptionKeepUpResult;
 import javax.servlet.ServletResponse;
 import java.io.IOException;
 
+import static io.spine.core.Status.StatusCase.OK;
 import static io.spine.json.Json.toCompactJson;
 
 /**
@@ -52,6 +53,17 @@ class FirebaseSubscriptionKeepUpResult implements SubscriptionKeepUpResult {
                                .build();
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Returns {@code true} if the status of the response is {@code OK}.
+     */
+    @Override
+    public boolean isSuccessful() {
+        return response.getStatus()
+                       .getStatusCase() == OK;
+    }
+
     @Override
     public void writeTo(ServletResponse response) throws IOException {
         response.getWriter()
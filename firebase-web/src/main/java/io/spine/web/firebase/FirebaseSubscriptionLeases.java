@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.base.Ticker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A registry of the leases of the subscription nodes.
+ *
+ * <p>A lease is {@linkplain #grant(FirebaseDatabasePath) granted} upon subscription and
+ * {@linkplain #renew(FirebaseDatabasePath) renewed} upon each keep up. The nodes whose leases
+ * are not renewed in time are {@linkplain #takeExpired(int) taken} by the sweeper to be removed.
+ */
+final class FirebaseSubscriptionLeases {
+
+    private final long durationNanos;
+    private final Ticker ticker;
+
+    /**
+     * The lease expiration times in terms of the {@link #ticker} by the node paths.
+     */
+    private final Map<FirebaseDatabasePath, Long> expirations = new ConcurrentHashMap<>();
+
+    FirebaseSubscriptionLeases(long duration, TimeUnit unit, Ticker ticker) {
+        checkArgument(duration > 0, "Subscription lease duration must be positive.");
+        this.durationNanos = unit.toNanos(duration);
+        this.ticker = ticker;
+    }
+
+    /**
+     * Grants a new lease for the node at the given path.
+     *
+     * <p>If the node already has a lease, the lease is renewed.
+     */
+    void grant(FirebaseDatabasePath path) {
+        expirations.put(path, newExpiration());
+    }
+
+    /**
+     * Renews the lease of the node at the given path.
+     *
+     * <p>The lease which has expired but has not been taken by the sweeper yet is renewed as well.
+     *
+     * @return {@code true} if the lease is renewed, {@code false} if there is no lease for
+     *         the node, i.e. the node has been disposed
+     */
+    boolean renew(FirebaseDatabasePath path) {
+        Long renewed = expirations.computeIfPresent(path, (p, expiration) -> newExpiration());
+        return renewed != null;
+    }
+
+    /**
+     * Checks if the node at the given path has a lease, even if an expired one.
+     */
+    boolean isLeased(FirebaseDatabasePath path) {
+        return expirations.containsKey(path);
+    }
+
+    /**
+     * Removes the lease of the node at the given path.
+     */
+    void release(FirebaseDatabasePath path) {
+        expirations.remove(path);
+    }
+
+    /**
+     * Removes and returns the expired leases.
+     *
+     * @param limit the maximum number of leases to take
+     * @return the paths of the nodes whose leases have expired
+     */
+    List<FirebaseDatabasePath> takeExpired(int limit) {
+        long now = ticker.read();
+        List<FirebaseDatabasePath> expired = new ArrayList<>();
+        for (Map.Entry<FirebaseDatabasePath, Long> lease : expirations.entrySet()) {
+            if (expired.size() >= limit) {
+                break;
+            }
+            Long expiration = lease.getValue();
+            FirebaseDatabasePath path = lease.getKey();
+            boolean hasExpired = now - expiration >= 0;
+            // The lease is not taken if it was renewed concurrently.
+            if (hasExpired && expirations.remove(path, expiration)) {
+                expired.add(path);
+            }
+        }
+        return expired;
+    }
+
+    private long newExpiration() {
+        return ticker.read() + durationNanos;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A registry of the subscription nodes shared by several subscribers.
+ *
+ * <p>Each node tracks its subscribers. A node is created upon the first
+ * {@linkplain #acquire(FirebaseDatabasePath, String) acquisition} and is removed when the last
+ * subscriber {@linkplain #release(FirebaseDatabasePath, String) releases} it.
+ *
+ * <p>A subscriber is identified by the ID of the topic it has subscribed to. Acquiring or
+ * releasing a node several times on behalf of the same subscriber has the same effect as doing
+ * it once. Thus, a duplicate or retried cancellation does not remove the node from under
+ * the other subscribers.
+ */
+final class FirebaseSubscriptionNodes {
+
+    private final Map<FirebaseDatabasePath, Set<String>> nodes = new HashMap<>();
+
+    /**
+     * Registers a subscriber of the node at the given path.
+     *
+     * @param path       the path of the node
+     * @param subscriber the ID of the subscriber
+     * @return {@code true} if the node is created, i.e. it should be populated with data,
+     *         {@code false} if the node already exists
+     */
+    synchronized boolean acquire(FirebaseDatabasePath path, String subscriber) {
+        Set<String> subscribers = nodes.get(path);
+        boolean created = subscribers == null;
+        if (created) {
+            subscribers = new HashSet<>();
+            nodes.put(path, subscribers);
+        }
+        subscribers.add(subscriber);
+        return created;
+    }
+
+    /**
+     * Unregisters a subscriber of the node at the given path.
+     *
+     * @param path       the path of the node
+     * @param subscriber the ID of the subscriber
+     * @return {@code true} if the subscriber was the last one and the node should be disposed,
+     *         {@code false} if the node has other subscribers or if the node or the subscriber
+     *         is not known
+     */
+    synchronized boolean release(FirebaseDatabasePath path, String subscriber) {
+        Set<String> subscribers = nodes.get(path);
+        if (subscribers == null || !subscribers.remove(subscriber)) {
+            return false;
+        }
+        if (!subscribers.isEmpty()) {
+            return false;
+        }
+        nodes.remove(path);
+        return true;
+    }
+
+    /**
+     * Unregisters all the subscribers of the node at the given path.
+     */
+    synchronized void dispose(FirebaseDatabasePath path) {
+        nodes.remove(path);
+    }
+}
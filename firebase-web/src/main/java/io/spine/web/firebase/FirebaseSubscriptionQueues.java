@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import static java.util.concurrent.CompletableFuture.allOf;
+
+/**
+ * The queues of the writes to the subscription nodes.
+ *
+ * <p>The writes to the same node are performed one after another, in the order they are
+ * {@linkplain #enqueue(FirebaseDatabasePath, Supplier) enqueued}. Each write is started only
+ * when the previous write to the node is completed, successfully or not.
+ *
+ * <p>The writes to different nodes are independent.
+ */
+final class FirebaseSubscriptionQueues {
+
+    /**
+     * The last enqueued writes by the paths of the nodes.
+     *
+     * <p>A write is removed once it is completed, unless another write to the node is enqueued
+     * after it.
+     */
+    private final Map<FirebaseDatabasePath, CompletableFuture<Void>> tails = new HashMap<>();
+
+    /**
+     * Enqueues a write to the node at the given path.
+     *
+     * @param path  the path of the node
+     * @param write the operation starting the write and returning a future completed when
+     *              the write is completed
+     * @return a future completed when the write is completed
+     */
+    CompletableFuture<Void> enqueue(FirebaseDatabasePath path,
+                                    Supplier<? extends CompletionStage<?>> write) {
+        return enqueue(ImmutableList.of(path), write);
+    }
+
+    /**
+     * Enqueues a write to several nodes at once.
+     *
+     * <p>The write is started when the previous writes to all the given nodes are completed.
+     * The subsequent writes to any of the nodes are started after this write is completed.
+     *
+     * @param paths the paths of the nodes
+     * @param write the operation starting the write and returning a future completed when
+     *              the write is completed
+     * @return a future completed when the write is completed
+     */
+    CompletableFuture<Void> enqueue(Collection<FirebaseDatabasePath> paths,
+                                    Supplier<? extends CompletionStage<?>> write) {
+        CompletableFuture<Void> completed = new CompletableFuture<>();
+        CompletableFuture<?>[] previous;
+        synchronized (this) {
+            previous = paths.stream()
+                            .map(tails::get)
+                            .filter(Objects::nonNull)
+                            .toArray(CompletableFuture[]::new);
+            paths.forEach(path -> tails.put(path, completed));
+        }
+        // The write is started outside the lock, as it may be started in the calling thread.
+        allOf(previous).handle((result, error) -> null)
+                       .thenCompose(ready -> write.get())
+                       .whenComplete((result, error) -> {
+                           release(paths, completed);
+                           if (error == null) {
+                               completed.complete(null);
+                           } else {
+                               completed.completeExceptionally(error);
+                           }
+                       });
+        return completed;
+    }
+
+    private synchronized void release(Collection<FirebaseDatabasePath> paths,
+                                      CompletableFuture<Void> write) {
+        paths.forEach(path -> tails.remove(path, write));
+    }
+}
@@ -20,49 +20,78 @@
 
 package io.spine.web.firebase;
 
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.MutableData;
-import com.google.firebase.database.Transaction;
-import com.google.firebase.database.utilities.Clock;
-import com.google.firebase.database.utilities.DefaultClock;
-import com.google.firebase.database.utilities.OffsetClock;
-import com.google.protobuf.Message;
 import io.spine.client.QueryResponse;
-import io.spine.json.Json;
-import io.spine.protobuf.AnyPacker;
+import io.spine.web.firebase.FirebaseSubscriptionEntries.ExistingEntry;
+import io.spine.web.firebase.FirebaseSubscriptionEntries.UpToDateEntry;
+import io.spine.web.firebase.FirebaseSubscriptionShadows.Shadow;
+import io.spine.web.storage.RealtimeStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Stream;
 
-import static com.google.firebase.database.Transaction.success;
-import static com.google.firebase.database.utilities.PushIdGenerator.generatePushChildName;
+import static io.spine.web.firebase.FirebaseMetricNames.JSON_MAPPING;
+import static io.spine.web.firebase.FirebaseMetricNames.SUBSCRIPTION_DIFF;
+import static io.spine.web.firebase.FirebasePushKeys.newChildKey;
+import static io.spine.web.firebase.FirebaseSubscriptionDiff.computeChanges;
 import static io.spine.web.firebase.FirebaseSubscriptionDiff.computeDiff;
+import static io.spine.web.firebase.FirebaseSubscriptionShadows.disabled;
 import static java.util.stream.Collectors.toList;
 
 /**
- * A subscription record that gets stored into a {@link FirebaseDatabase}.
+ * A subscription record that gets stored into a {@link RealtimeStorage}.
  *
  * <p>Supports both an initial store and consequent updates of the stored data.
  *
+ * <p>The updates are diffed against the {@linkplain FirebaseSubscriptionShadows shadow} of
+ * the stored data and written as multi-path updates if the shadow is available. Otherwise,
+ * the updates are written in transactions reading the stored data.
+ *
+ * <p>The JSON mapping and the diff computation times are reported to
+ * the {@linkplain FirebaseWriteScheduler#metrics() metrics} of the write scheduler.
+ *
  * @author Mykhailo Drachuk
  */
 final class FirebaseSubscriptionRecord {
 
-    private static final Clock CLOCK = new OffsetClock(new DefaultClock(), 0);
-
     private final FirebaseDatabasePath path;
     private final CompletionStage<QueryResponse> queryResponse;
+    private final FirebaseWriteScheduler scheduler;
+    private final FirebaseSubscriptionShadows shadows;
+    private final FirebaseEntryCache entryCache;
+
+    FirebaseSubscriptionRecord(FirebaseDatabasePath path,
+                               CompletionStage<QueryResponse> queryResponse,
+                               FirebaseWriteScheduler scheduler) {
+        this(path, queryResponse, scheduler, disabled());
+    }
+
+    FirebaseSubscriptionRecord(FirebaseDatabasePath path,
+                               CompletionStage<QueryResponse> queryResponse,
+                               FirebaseWriteScheduler scheduler,
+                               FirebaseSubscriptionShadows shadows) {
+        this(path, queryResponse, scheduler, shadows, FirebaseEntryCache.disabled());
+    }
 
     FirebaseSubscriptionRecord(FirebaseDatabasePath path,
-                               CompletionStage<QueryResponse> queryResponse) {
+                               CompletionStage<QueryResponse> queryResponse,
+                               FirebaseWriteScheduler scheduler,
+                               FirebaseSubscriptionShadows shadows,
+                               FirebaseEntryCache entryCache) {
         this.path = path;
         this.queryResponse = queryResponse;
+        this.scheduler = scheduler;
+        this.shadows = shadows;
+        this.entryCache = entryCache;
     }
 
     /**
@@ -73,128 +102,286 @@ final class FirebaseSubscriptionRecord {
     }
 
     /**
-     * Writes this record to the given {@link FirebaseDatabase} as initial data, without checking
+     * Writes this record to the given {@link RealtimeStorage} as initial data, without checking
      * what is already stored in database at given location.
+     *
+     * @return a future completed when the record is written
      */
-    void storeAsInitial(FirebaseDatabase database) {
-        DatabaseReference reference = path().reference(database);
-        flushNewTo(reference);
+    CompletableFuture<Void> storeAsInitial(RealtimeStorage storage) {
+        return flushNewTo(storage);
     }
 
     /**
      * Flushes an array response of the query to the Firebase asynchronously,
      * adding array items to storage in a transaction.
      */
-    private void flushNewTo(DatabaseReference reference) {
-        queryResponse.thenAcceptAsync(response -> {
-            List<String> newEntries = mapMessagesToJson(response).collect(toList());
-            reference.runTransaction(new SubscriptionUpdateTransactionHandler() {
-                @Override
-                public Transaction.Result doTransaction(MutableData currentData) {
-                    addEntriesToData(currentData, newEntries);
-                    return success(currentData);
-                }
-            });
-        });
+    private CompletableFuture<Void> flushNewTo(RealtimeStorage storage) {
+        return flushTo(newEntries -> scheduler.write(
+                () -> runTransaction(storage, children -> newChildren(newEntries))
+        ));
     }
 
     /**
-     * Adds the provided entries as children to the provided mutable record.
+     * Converts the provided entries to the new children of the subscription node.
      *
-     * @param currentData an instance of mutable data of existing subscription state
-     * @param entries     new subscription entries to be added to Firebase
+     * @param entries new subscription entries to be added to Firebase
+     * @return the entry values by the new keys
      */
-    private static void addEntriesToData(MutableData currentData, Iterable<String> entries) {
-        entries.forEach(entry -> currentData.child(newChildKey())
-                                            .setValue(entry));
+    private static Map<String, Object> newChildren(Iterable<UpToDateEntry> entries) {
+        Map<String, Object> children = new HashMap<>();
+        entries.forEach(entry -> children.put(newChildKey(), entry.value()));
+        return children;
     }
 
-    private static String newChildKey() {
-        return generatePushChildName(CLOCK.millis());
+    /**
+     * Stores the data to the Firebase, updating only the data that has changed.
+     *
+     * @return a future completed when the record is written
+     */
+    CompletableFuture<Void> storeAsUpdate(RealtimeStorage storage) {
+        return flushDiffTo(storage);
     }
 
     /**
-     * Stores the data to the Firebase, updating only the data that has changed.
+     * Flushes an array response of the query to the Firebase asynchronously,
+     * adding, removing and updating items already present in storage.
      */
-    void storeAsUpdate(FirebaseDatabase database) {
-        DatabaseReference reference = path().reference(database);
-        flushDiffTo(reference);
+    private CompletableFuture<Void> flushDiffTo(RealtimeStorage storage) {
+        return flushDiffTo(storage, (newEntries, existingEntries) ->
+                computeDiff(newEntries, existingEntries));
+    }
+
+    /**
+     * Stores the data to the Firebase as a set of changed entities.
+     *
+     * <p>The stored entries are matched to the ones already present in the database. The matching
+     * entries are updated and the rest are added. The entries which are present in the database
+     * but absent in this record are left intact.
+     *
+     * @return a future completed when the record is written
+     */
+    CompletableFuture<Void> storeAsChanges(RealtimeStorage storage) {
+        return flushChangesTo(storage);
     }
 
     /**
      * Flushes an array response of the query to the Firebase asynchronously,
-     * adding, removing and updating items already present in storage in a transaction.
-     */
-    private void flushDiffTo(DatabaseReference reference) {
-        queryResponse.thenAcceptAsync(response -> {
-            List<String> newEntries = mapMessagesToJson(response).collect(toList());
-            reference.runTransaction(new SubscriptionUpdateTransactionHandler() {
-                @Override
-                public Transaction.Result doTransaction(MutableData currentData) {
-                    Iterable<MutableData> children = currentData.getChildren();
-                    FirebaseSubscriptionDiff diff = computeDiff(newEntries, children);
-                    updateWithDiff(currentData, diff);
-                    return success(currentData);
-                }
-            });
+     * adding and updating items already present in storage.
+     */
+    private CompletableFuture<Void> flushChangesTo(RealtimeStorage storage) {
+        return flushDiffTo(storage, (changedEntries, existingEntries) ->
+                computeChanges(changedEntries, existingEntries));
+    }
+
+    /**
+     * Flushes an array response of the query to the Firebase asynchronously, writing the diff
+     * computed by the given function.
+     *
+     * <p>The diff is computed against the shadow of the stored data and written as
+     * a multi-path update if the shadow is available. Otherwise, the diff is computed and
+     * written in a transaction.
+     *
+     * @param storage      the storage to write the data to
+     * @param diffFunction a function computing the diff of the new entries to
+     *                     the existing ones
+     */
+    private CompletableFuture<Void>
+    flushDiffTo(RealtimeStorage storage,
+                BiFunction<List<UpToDateEntry>, List<ExistingEntry>,
+                           FirebaseSubscriptionDiff> diffFunction) {
+        return flushTo(newEntries -> {
+            Optional<CompletableFuture<Void>> shadowWrite =
+                    writeAgainstShadow(storage, newEntries, diffFunction);
+            if (shadowWrite.isPresent()) {
+                return shadowWrite.get();
+            }
+            Function<Map<String, Object>, Map<String, Object>> transaction = children -> {
+                List<ExistingEntry> existingEntries = Shadow.of(children)
+                                                            .entries();
+                FirebaseSubscriptionDiff diff = diff(diffFunction, newEntries, existingEntries);
+                return childrenUpdate(diff);
+            };
+            return scheduler.write(() -> runTransaction(storage, transaction));
         });
     }
 
     /**
-     * Updates the provided MutableData with provided subscription diff.
+     * Computes the diff against the shadow of the stored data and schedules its write as
+     * a multi-path update.
      *
-     * @param currentData an instance of mutable data of existing subscription state
-     * @param diff        a diff between updated and existing subscription states
+     * <p>The shadow is replaced with the new state right away, so that the subsequent updates
+     * are diffed against it. If the write fails, the shadow is dropped.
+     *
+     * @return a future completed when the write is completed or {@code Optional.empty()} if
+     *         there is no shadow to compute the diff against and the transaction should be used
+     *         instead
      */
-    private static void updateWithDiff(MutableData currentData, FirebaseSubscriptionDiff diff) {
+    private Optional<CompletableFuture<Void>>
+    writeAgainstShadow(RealtimeStorage storage,
+                       List<UpToDateEntry> newEntries,
+                       BiFunction<List<UpToDateEntry>, List<ExistingEntry>,
+                                  FirebaseSubscriptionDiff> diffFunction) {
+        Optional<Shadow> shadow = shadows.get(path);
+        if (!shadow.isPresent()) {
+            return Optional.empty();
+        }
+        Shadow base = shadow.get();
+        FirebaseSubscriptionDiff diff = diff(diffFunction, newEntries, base.entries());
+        Map<String, Object> update = childrenUpdate(diff);
+        Shadow next = base.apply(update);
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        boolean advanced = shadows.advance(path, base, next, () -> {
+            if (update.isEmpty()) {
+                written.complete(null);
+                return;
+            }
+            scheduler.write(() -> storage.update(path.toString(), update))
+                     .whenComplete((result, error) -> {
+                         if (error != null) {
+                             shadows.invalidate(path);
+                             written.completeExceptionally(error);
+                         } else {
+                             written.complete(null);
+                         }
+                     });
+        });
+        return advanced
+               ? Optional.of(written)
+               : Optional.empty();
+    }
+
+    /**
+     * Computes the diff with the given function reporting the computation time to
+     * the scheduler metrics.
+     */
+    private FirebaseSubscriptionDiff diff(BiFunction<List<UpToDateEntry>, List<ExistingEntry>,
+                                                     FirebaseSubscriptionDiff> diffFunction,
+                                          List<UpToDateEntry> newEntries,
+                                          List<ExistingEntry> existingEntries) {
+        long start = System.nanoTime();
+        FirebaseSubscriptionDiff diff = diffFunction.apply(newEntries, existingEntries);
+        scheduler.metrics()
+                 .recordSince(SUBSCRIPTION_DIFF, start);
+        return diff;
+    }
+
+    /**
+     * Converts the given diff to a multi-path update of the subscription node children.
+     *
+     * <p>The removed entries are mapped to {@code null} values. The added entries are assigned
+     * new keys.
+     */
+    private static Map<String, Object> childrenUpdate(FirebaseSubscriptionDiff diff) {
+        Map<String, Object> update = new HashMap<>();
         diff.changed()
-            .forEach(record -> currentData.child(record.key())
-                                          .setValue(record.data()));
+            .forEach(record -> update.put(record.key(), record.value()));
         diff.removed()
-            .forEach(record -> currentData.child(record.key())
-                                          .setValue(null));
+            .forEach(record -> update.put(record.key(), null));
         diff.added()
-            .forEach(record -> currentData.child(newChildKey())
-                                          .setValue(record.data()));
+            .forEach(record -> update.put(newChildKey(), record.value()));
+        return update;
     }
 
     /**
-     * Creates a stream of response messages, mapping each each response message to JSON.
+     * Serializes the query response and writes it to the Firebase with the given write.
      *
-     * @param response Spines response to a query
-     * @return a stream of messages represented by JSON strings
+     * <p>Both the serialization and the write are performed by the {@link FirebaseWriteScheduler}.
+     *
+     * <p>The failures of the query and of the serialization are logged. The write failures are
+     * logged by the scheduler.
+     *
+     * @param write the function starting the write of the given entries and returning a future
+     *              completed when the write is completed
+     * @return a future completed when the entries are written
      */
-    @SuppressWarnings("RedundantTypeArguments") // AnyPacker::unpack type cannot be inferred.
-    private static Stream<String> mapMessagesToJson(QueryResponse response) {
-        return response.getMessagesList()
-                       .parallelStream()
-                       .unordered()
-                       .map(AnyPacker::<Message>unpack)
-                       .map(Json::toCompactJson);
+    private CompletableFuture<Void>
+    flushTo(Function<List<UpToDateEntry>, CompletableFuture<Void>> write) {
+        CompletableFuture<List<UpToDateEntry>> entries =
+                queryResponse.thenApplyAsync(this::toEntries, scheduler.serializationExecutor())
+                             .toCompletableFuture();
+        entries.whenComplete((result, error) -> {
+            if (error != null) {
+                log().error("Subscription update was not written to the Firebase.", error);
+            }
+        });
+        return entries.thenCompose(write);
+    }
+
+    /**
+     * Maps the query response to the entries reporting the mapping time to the scheduler
+     * metrics.
+     */
+    private List<UpToDateEntry> toEntries(QueryResponse response) {
+        long start = System.nanoTime();
+        List<UpToDateEntry> entries = mapMessagesToEntries(response).collect(toList());
+        scheduler.metrics()
+                 .recordSince(JSON_MAPPING, start);
+        return entries;
     }
 
     /**
-     * An abstract base for a subscription transaction handler.
+     * Runs the given update of the subscription node children in a transaction.
+     *
+     * <p>Reports the transaction to the {@linkplain FirebaseSubscriptionShadows shadows}, so
+     * that the committed data becomes the new shadow of the subscription node.
      *
-     * <p>Logs an error in case it occurs, leaving the {@link #doTransaction(MutableData)}
-     * to actual implementors.
+     * <p>A transaction which is not committed is logged and does not fail the returned future.
+     *
+     * @param storage the storage to run the transaction on
+     * @param update  the function computing the update of the existing children
+     * @return a future completed when the transaction is completed
      */
-    private abstract static class SubscriptionUpdateTransactionHandler
-            implements Transaction.Handler {
+    private CompletableFuture<Void> runTransaction(RealtimeStorage storage,
+                                                   Function<Map<String, Object>,
+                                                            Map<String, Object>> update) {
+        shadows.transactionStarted(path);
+        return storage.transaction(path.toString(), update)
+                      .handle(this::completeTransaction);
+    }
 
-        @Override
-        public void onComplete(DatabaseError error, boolean committed,
-                               DataSnapshot currentData) {
-            if (!committed) {
-                log().error("Subscription update was not committed to the Firebase.");
-                if (error != null) {
-                    log().error(error.getMessage());
-                }
+    /**
+     * Reports the completed transaction to the {@linkplain FirebaseSubscriptionShadows shadows}.
+     *
+     * @param committed the children committed by the transaction or {@code null} if
+     *                  the transaction failed
+     * @param error     the failure of the transaction or {@code null} if it is committed
+     * @return {@code null} always
+     */
+    @Nullable
+    private Void completeTransaction(@Nullable Map<String, Object> committed,
+                                     @Nullable Throwable error) {
+        if (error != null || committed == null) {
+            log().error("Subscription update was not committed to the Firebase.", error);
+            shadows.transactionCompleted(path, null);
+            return null;
+        }
+        Shadow committedShadow = null;
+        try {
+            if (shadows.enabled()) {
+                committedShadow = Shadow.of(committed);
             }
+        } finally {
+            shadows.transactionCompleted(path, committedShadow);
         }
+        return null;
+    }
+
+    /**
+     * Creates a stream of response messages, mapping each response message to an entry
+     * holding its JSON and digests.
+     *
+     * <p>The entries of the messages seen before are taken from the {@linkplain FirebaseEntryCache
+     * entry cache}.
+     *
+     * @param response Spines response to a query
+     * @return a stream of entries to store
+     */
+    private Stream<UpToDateEntry> mapMessagesToEntries(QueryResponse response) {
+        return response.getMessagesList()
+                       .stream()
+                       .map(entryCache::entryOf);
     }
 
-    @SuppressWarnings("MethodOnlyUsedFromInnerClass") // A log method is placed in the outer class.
     private static Logger log() {
         return LogSingleton.INSTANCE.value;
     }
@@ -38,17 +38,19 @@ final class FirebaseSubscriptionRecords {
      */
     static class AddedRecord {
 
-        private final String data;
+        private final Object value;
 
-        AddedRecord(String data) {
-            this.data = data;
+        AddedRecord(Object value) {
+            this.value = value;
         }
 
         /**
-         * JSON serialized entity data.
+         * The entity data to store.
+         *
+         * @see FirebaseSubscriptionEntries.UpToDateEntry#value()
          */
-        String data() {
-            return data;
+        Object value() {
+            return value;
         }
     }
 
@@ -77,11 +79,11 @@ final class FirebaseSubscriptionRecords {
     static class ChangedRecord {
 
         private final String key;
-        private final String data;
+        private final Object value;
 
-        ChangedRecord(String key, String data) {
+        ChangedRecord(String key, Object value) {
             this.key = key;
-            this.data = data;
+            this.value = value;
         }
 
         /**
@@ -92,10 +94,12 @@ final class FirebaseSubscriptionRecords {
         }
 
         /**
-         * JSON serialized entity data.
+         * The entity data to store.
+         *
+         * @see FirebaseSubscriptionEntries.UpToDateEntry#value()
          */
-        String data() {
-            return data;
+        Object value() {
+            return value;
         }
     }
 }
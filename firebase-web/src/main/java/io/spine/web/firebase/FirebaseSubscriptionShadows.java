@@ -0,0 +1,261 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.firebase.database.DataSnapshot;
+import io.spine.web.firebase.FirebaseSubscriptionEntries.ExistingEntry;
+
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.MINUTES;
+
+/**
+ * An in-memory copy of the subscription states last committed to the database.
+ *
+ * <p>A subscription update is diffed against the {@linkplain Shadow shadow} of its node and
+ * applied as a plain multi-path update, instead of downloading and re-parsing the whole node in
+ * a transaction. The transaction is only used when there is no shadow for the node.
+ *
+ * <p>A shadow is dropped when:
+ * <ul>
+ *     <li>a write made against it fails;
+ *     <li>a transaction is started on the node, as the transaction result is not known until it
+ *         completes;
+ *     <li>it is evicted by the size limit or expires.
+ * </ul>
+ *
+ * <p>A committed transaction re-creates the shadow from its result, unless other transactions
+ * on the same node are still in progress.
+ *
+ * <p>The shadows assume that the subscription nodes are written only by this process.
+ */
+final class FirebaseSubscriptionShadows {
+
+    /**
+     * The number of minutes after which a shadow which was not updated is dropped.
+     *
+     * <p>The expiration bounds the time during which a shadow may stay out of sync with
+     * the database if the node is modified externally.
+     */
+    private static final long EXPIRATION_MINUTES = 10;
+
+    private static final FirebaseSubscriptionShadows DISABLED = new FirebaseSubscriptionShadows();
+
+    /**
+     * The shadows by the paths of the subscription nodes or {@code null} if the shadows are
+     * disabled.
+     */
+    @Nullable
+    private final Cache<FirebaseDatabasePath, Shadow> shadows;
+
+    /**
+     * The number of transactions in progress by the paths of the subscription nodes.
+     */
+    private final Map<FirebaseDatabasePath, Integer> transactions = new HashMap<>();
+
+    private FirebaseSubscriptionShadows(long maximumSize) {
+        this.shadows = CacheBuilder.newBuilder()
+                                   .maximumSize(maximumSize)
+                                   .expireAfterWrite(EXPIRATION_MINUTES, MINUTES)
+                                   .build();
+    }
+
+    private FirebaseSubscriptionShadows() {
+        this.shadows = null;
+    }
+
+    /**
+     * Creates a new instance keeping the shadows of at most the given number of subscriptions.
+     */
+    static FirebaseSubscriptionShadows withMaximumSize(long maximumSize) {
+        checkArgument(maximumSize > 0, "The number of shadowed subscriptions must be positive.");
+        return new FirebaseSubscriptionShadows(maximumSize);
+    }
+
+    /**
+     * Obtains the instance which keeps no shadows.
+     *
+     * <p>With such an instance, all the subscription updates are written in transactions.
+     */
+    static FirebaseSubscriptionShadows disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * Checks if this instance keeps the shadows.
+     */
+    boolean enabled() {
+        return shadows != null;
+    }
+
+    /**
+     * Obtains the shadow of the node at the given path.
+     *
+     * @return the shadow or {@code Optional.empty()} if the node state is not known
+     */
+    synchronized Optional<Shadow> get(FirebaseDatabasePath path) {
+        if (shadows == null || transactions.containsKey(path)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(shadows.getIfPresent(path));
+    }
+
+    /**
+     * Replaces the shadow of the node at the given path and starts the write which brings
+     * the node to the new state.
+     *
+     * <p>The write is started while holding the lock, so that the writes to the same node are
+     * started in the order of the shadow states they lead to.
+     *
+     * @param path     the path of the node
+     * @param expected the shadow the new state is computed from
+     * @param next     the new state of the node
+     * @param write    the write bringing the node to the new state
+     * @return {@code true} if the shadow is replaced and the write is started, {@code false} if
+     *         the shadow has changed since it was {@linkplain #get(FirebaseDatabasePath)
+     *         obtained}
+     */
+    synchronized boolean advance(FirebaseDatabasePath path,
+                                 Shadow expected,
+                                 Shadow next,
+                                 Runnable write) {
+        if (!get(path).filter(current -> current == expected)
+                      .isPresent()) {
+            return false;
+        }
+        shadows.put(path, next);
+        write.run();
+        return true;
+    }
+
+    /**
+     * Drops the shadow of the node at the given path.
+     */
+    synchronized void invalidate(FirebaseDatabasePath path) {
+        if (shadows != null) {
+            shadows.invalidate(path);
+        }
+    }
+
+    /**
+     * Marks the start of a transaction on the node at the given path.
+     *
+     * <p>The shadow of the node is dropped until all the transactions on the node complete.
+     */
+    synchronized void transactionStarted(FirebaseDatabasePath path) {
+        if (shadows == null) {
+            return;
+        }
+        transactions.merge(path, 1, Integer::sum);
+        shadows.invalidate(path);
+    }
+
+    /**
+     * Marks the completion of a transaction on the node at the given path.
+     *
+     * @param path      the path of the node
+     * @param committed the node state committed by the transaction or {@code null} if
+     *                  the transaction failed
+     */
+    synchronized void transactionCompleted(FirebaseDatabasePath path,
+                                           @Nullable Shadow committed) {
+        if (shadows == null) {
+            return;
+        }
+        Integer remaining = transactions.merge(path, -1, Integer::sum);
+        if (remaining != null && remaining > 0) {
+            return;
+        }
+        transactions.remove(path);
+        if (committed != null) {
+            shadows.put(path, committed);
+        }
+    }
+
+    /**
+     * An immutable state of a subscription node.
+     */
+    static final class Shadow {
+
+        private final Map<String, ExistingEntry> entries;
+
+        private Shadow(Map<String, ExistingEntry> entries) {
+            this.entries = entries;
+        }
+
+        /**
+         * Creates a shadow of the node stored in the given snapshot.
+         */
+        static Shadow of(DataSnapshot node) {
+            Map<String, ExistingEntry> entries = new LinkedHashMap<>();
+            for (DataSnapshot child : node.getChildren()) {
+                entries.put(child.getKey(), ExistingEntry.fromSnapshot(child));
+            }
+            return new Shadow(entries);
+        }
+
+        /**
+         * Creates a shadow of the node with the given children.
+         *
+         * @param children the stored entry values by their keys
+         */
+        static Shadow of(Map<String, ?> children) {
+            Map<String, ExistingEntry> entries = new LinkedHashMap<>();
+            children.forEach((key, value) -> entries.put(key, ExistingEntry.of(key, value)));
+            return new Shadow(entries);
+        }
+
+        /**
+         * Obtains the entries of the node.
+         */
+        List<ExistingEntry> entries() {
+            return ImmutableList.copyOf(entries.values());
+        }
+
+        /**
+         * Creates a new shadow with the given children update applied.
+         *
+         * @param update the stored entry values by their keys; the {@code null} values denote
+         *               the removed entries
+         * @return the state of the node after the update
+         */
+        Shadow apply(Map<String, ?> update) {
+            Map<String, ExistingEntry> updated = new LinkedHashMap<>(entries);
+            update.forEach((key, value) -> {
+                if (value == null) {
+                    updated.remove(key);
+                } else {
+                    updated.put(key, ExistingEntry.of(key, value));
+                }
+            });
+            return new Shadow(updated);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import io.grpc.stub.StreamObserver;
+import io.spine.client.QueryResponse;
+import io.spine.client.QueryResponseVBuilder;
+import io.spine.client.SubscriptionUpdate;
+import io.spine.web.storage.RealtimeStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * A {@link StreamObserver} of the {@link SubscriptionUpdate subscription updates} which writes
+ * the updated entities to a subscription record in a {@link RealtimeStorage}.
+ *
+ * <p>Only the entities which are present in an update are written to the database. Other
+ * entities stored under the subscription path are left intact.
+ *
+ * <p>The changes are written through the {@linkplain FirebaseSubscriptionQueues queue} of
+ * the subscription node, i.e. after the writes to the node which are already enqueued, such as
+ * the initial state of the node.
+ */
+final class FirebaseSubscriptionUpdateObserver implements StreamObserver<SubscriptionUpdate> {
+
+    private final FirebaseDatabasePath path;
+    private final RealtimeStorage storage;
+    private final FirebaseWriteScheduler writeScheduler;
+    private final FirebaseSubscriptionShadows shadows;
+    private final FirebaseEntryCache entryCache;
+    private final FirebaseSubscriptionQueues queues;
+
+    FirebaseSubscriptionUpdateObserver(FirebaseDatabasePath path,
+                                       RealtimeStorage storage,
+                                       FirebaseWriteScheduler writeScheduler,
+                                       FirebaseSubscriptionShadows shadows,
+                                       FirebaseEntryCache entryCache,
+                                       FirebaseSubscriptionQueues queues) {
+        this.path = path;
+        this.storage = storage;
+        this.writeScheduler = writeScheduler;
+        this.shadows = shadows;
+        this.entryCache = entryCache;
+        this.queues = queues;
+    }
+
+    @Override
+    public void onNext(SubscriptionUpdate update) {
+        QueryResponse changes = QueryResponseVBuilder.newBuilder()
+                                                     .setResponse(update.getResponse())
+                                                     .addAllMessages(update.getUpdatesList())
+                                                     .build();
+        FirebaseSubscriptionRecord record =
+                new FirebaseSubscriptionRecord(path, completedFuture(changes), writeScheduler,
+                                               shadows, entryCache);
+        queues.enqueue(path, () -> record.storeAsChanges(storage));
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log().error("Subscription update stream for " + path + " failed.", t);
+    }
+
+    @Override
+    public void onCompleted() {
+        log().debug("Subscription update stream for {} completed.", path);
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value =
+                LoggerFactory.getLogger(FirebaseSubscriptionUpdateObserver.class);
+    }
+}
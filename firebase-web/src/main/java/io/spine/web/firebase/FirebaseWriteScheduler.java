@@ -0,0 +1,460 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.spine.web.metrics.WebMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.spine.web.firebase.FirebaseMetricNames.IN_FLIGHT_WRITES;
+import static io.spine.web.firebase.FirebaseMetricNames.PENDING_WRITES;
+import static io.spine.web.firebase.FirebaseMetricNames.SERIALIZATION_REJECTED;
+import static io.spine.web.firebase.FirebaseMetricNames.WRITE;
+import static io.spine.web.firebase.FirebaseMetricNames.WRITE_FAILED;
+import static io.spine.web.firebase.FirebaseMetricNames.WRITE_QUEUED;
+import static io.spine.web.firebase.FirebaseMetricNames.WRITE_REJECTED;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A scheduler of the Firebase database writes.
+ *
+ * <p>The scheduler isolates the Firebase I/O from the rest of the application. It uses:
+ * <ol>
+ *     <li>a dedicated pool for serializing the query responses into JSON;
+ *     <li>a dedicated pool for handling the write completions;
+ *     <li>a bounded window of the writes which are in flight simultaneously.
+ * </ol>
+ *
+ * <p>No thread is blocked while awaiting a write. When a write completes or fails, the next
+ * pending write is started. A write which times out is reported as failed to its caller, but
+ * keeps its place in the window of the writes in flight until the database completes it. Thus,
+ * the window never admits more writes than the database is actually performing.
+ *
+ * <p>Both the serialization queue and the pending writes queue are bounded. The tasks exceeding
+ * the limits are rejected. The rejected tasks are logged and never performed.
+ *
+ * <p>The threads of the scheduler are daemon threads. Call {@link #shutdown()} to release them
+ * explicitly.
+ *
+ * <p>The scheduler reports the write times, the failed and rejected writes, and the sizes of
+ * the write queues to the {@linkplain Builder#setMetrics configured} {@link WebMetrics}.
+ * The components writing through the scheduler report their metrics there as well.
+ */
+public final class FirebaseWriteScheduler {
+
+    private final ThreadPoolExecutor serializationExecutor;
+    private final ScheduledExecutorService completionExecutor;
+    private final Semaphore inFlightWrites;
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingWritesCount = new AtomicInteger();
+    private final int maxPendingWrites;
+    private final long writeTimeoutSeconds;
+    private final int maxInFlightWrites;
+    private final WebMetrics metrics;
+
+    private FirebaseWriteScheduler(Builder builder) {
+        this.serializationExecutor = new ThreadPoolExecutor(
+                builder.serializationThreads, builder.serializationThreads,
+                0L, SECONDS,
+                new ArrayBlockingQueue<>(builder.maxQueuedSerializations),
+                daemonThreads("firebase-serialization-%d"),
+                this::rejectSerialization
+        );
+        ScheduledThreadPoolExecutor completionExecutor = new ScheduledThreadPoolExecutor(
+                builder.completionThreads,
+                daemonThreads("firebase-write-completion-%d")
+        );
+        completionExecutor.setRemoveOnCancelPolicy(true);
+        this.completionExecutor = completionExecutor;
+        this.inFlightWrites = new Semaphore(builder.maxInFlightWrites);
+        this.maxPendingWrites = builder.maxPendingWrites;
+        this.writeTimeoutSeconds = builder.writeTimeoutSeconds;
+        this.maxInFlightWrites = builder.maxInFlightWrites;
+        this.metrics = builder.metrics;
+        metrics.registerGauge(PENDING_WRITES, pendingWritesCount::get);
+        metrics.registerGauge(IN_FLIGHT_WRITES,
+                              () -> maxInFlightWrites - inFlightWrites.availablePermits());
+    }
+
+    /**
+     * Rejects a serialization task which does not fit the queue.
+     *
+     * <p>The serialization tasks are run as the asynchronous stages of the query responses.
+     * The thrown exception completes such a stage exceptionally, thus it is also reported by
+     * the component which has scheduled the task.
+     */
+    private void rejectSerialization(Runnable task, ThreadPoolExecutor executor) {
+        metrics.increment(SERIALIZATION_REJECTED);
+        String message = executor.isShutdown()
+                         ? "Firebase serialization rejected: the scheduler is shut down."
+                         : format("Firebase serialization rejected: %d tasks are already queued.",
+                                  executor.getQueue()
+                                          .size());
+        log().warn(message);
+        throw new RejectedExecutionException(message);
+    }
+
+    private static ThreadFactory daemonThreads(String nameFormat) {
+        return new ThreadFactoryBuilder().setNameFormat(nameFormat)
+                                         .setDaemon(true)
+                                         .build();
+    }
+
+    /**
+     * Obtains the scheduler used by the bridges which are not given a scheduler explicitly.
+     *
+     * <p>The instance is shared across all such bridges and is created with
+     * the {@linkplain Builder default settings}.
+     */
+    public static FirebaseWriteScheduler defaultInstance() {
+        return DefaultInstance.INSTANCE.value;
+    }
+
+    /**
+     * Obtains the executor to serialize the data to be written to the database.
+     *
+     * <p>The executor rejects the tasks when its queue is full. A rejection is logged and
+     * reported to the metrics, and fails the stage which was to be run by the executor.
+     */
+    Executor serializationExecutor() {
+        return serializationExecutor;
+    }
+
+    /**
+     * Obtains the metrics to report the writes and their preparation to.
+     */
+    WebMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Checks if the pending writes queue is full.
+     *
+     * <p>While the scheduler is saturated, the new writes are rejected. Use this method as
+     * an {@linkplain io.spine.web.AdmissionController.Builder#addSaturationCheck saturation
+     * check} to reject the web requests before they produce the writes.
+     *
+     * @return {@code true} if the new writes would be rejected, {@code false} otherwise
+     */
+    public boolean isSaturated() {
+        return pendingWritesCount.get() >= maxPendingWrites;
+    }
+
+    /**
+     * Schedules a database write with the default timeout.
+     *
+     * @see #write(Supplier, long)
+     */
+    CompletableFuture<Void> write(Supplier<? extends CompletionStage<?>> operation) {
+        return write(operation, writeTimeoutSeconds);
+    }
+
+    /**
+     * Schedules a database write.
+     *
+     * <p>The given operation is started as soon as the number of the writes in flight allows.
+     * This may happen in the calling thread. Failures of the operation are logged.
+     *
+     * @param operation      the operation starting the write
+     * @param timeoutSeconds the number of seconds after which the write is considered failed
+     * @return a future which is completed when the write is completed, failed, timed out or
+     *         rejected
+     */
+    CompletableFuture<Void> write(Supplier<? extends CompletionStage<?>> operation,
+                                  long timeoutSeconds) {
+        PendingWrite write = new PendingWrite(operation, timeoutSeconds);
+        if (pendingWritesCount.incrementAndGet() > maxPendingWrites) {
+            pendingWritesCount.decrementAndGet();
+            metrics.increment(WRITE_REJECTED);
+            String message = format("Firebase write rejected: %d writes are already pending.",
+                                    maxPendingWrites);
+            fail(write, new RejectedExecutionException(message));
+            return write.result;
+        }
+        pendingWrites.add(write);
+        startPending();
+        return write.result;
+    }
+
+    private void startPending() {
+        while (!pendingWrites.isEmpty() && inFlightWrites.tryAcquire()) {
+            PendingWrite next = pendingWrites.poll();
+            if (next == null) {
+                inFlightWrites.release();
+                return;
+            }
+            pendingWritesCount.decrementAndGet();
+            metrics.recordSince(WRITE_QUEUED, next.createdNanos);
+            start(next);
+        }
+    }
+
+    /**
+     * Starts the given write.
+     *
+     * <p>The write holds an in-flight permit until the database completes or fails it.
+     * The timeout completes only the result of the write.
+     */
+    private void start(PendingWrite write) {
+        AtomicBoolean finished = new AtomicBoolean();
+        write.startedNanos = System.nanoTime();
+        try {
+            write.timeout = completionExecutor.schedule(
+                    () -> finish(write, finished, new TimeoutException(
+                            format("Firebase write did not complete in %d seconds.",
+                                   write.timeoutSeconds))),
+                    write.timeoutSeconds, SECONDS
+            );
+            CompletionStage<?> future = write.operation.get();
+            future.whenCompleteAsync((result, error) -> {
+                releasePermit();
+                finish(write, finished, error);
+            }, completionExecutor);
+        } catch (RuntimeException e) {
+            releasePermit();
+            finish(write, finished, e);
+        }
+    }
+
+    /**
+     * Releases the in-flight permit of a write and starts the next pending write.
+     */
+    private void releasePermit() {
+        inFlightWrites.release();
+        startPending();
+    }
+
+    /**
+     * Completes the result of the given write unless it is already completed.
+     */
+    private void finish(PendingWrite write, AtomicBoolean finished, @Nullable Throwable error) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        if (write.timeout != null) {
+            write.timeout.cancel(false);
+        }
+        metrics.recordSince(WRITE, write.startedNanos);
+        if (error == null) {
+            write.result.complete(null);
+        } else {
+            metrics.increment(WRITE_FAILED);
+            fail(write, error);
+        }
+    }
+
+    private static void fail(PendingWrite write, Throwable error) {
+        log().error("Firebase write failed.", error);
+        write.result.completeExceptionally(error);
+    }
+
+    /**
+     * Stops accepting new tasks and releases the threads of this scheduler.
+     *
+     * <p>The writes which are already started are not awaited.
+     */
+    public void shutdown() {
+        serializationExecutor.shutdown();
+        completionExecutor.shutdown();
+    }
+
+    /**
+     * Creates a new instance of {@code Builder} for {@code FirebaseWriteScheduler} instances.
+     *
+     * @return new instance of {@code Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * A write which waits to be started.
+     */
+    private static final class PendingWrite {
+
+        private final Supplier<? extends CompletionStage<?>> operation;
+        private final long timeoutSeconds;
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private final long createdNanos = System.nanoTime();
+        private volatile long startedNanos;
+        @Nullable
+        private volatile ScheduledFuture<?> timeout;
+
+        private PendingWrite(Supplier<? extends CompletionStage<?>> operation,
+                             long timeoutSeconds) {
+            this.operation = operation;
+            this.timeoutSeconds = timeoutSeconds;
+        }
+    }
+
+    /**
+     * A builder for the {@code FirebaseWriteScheduler} instances.
+     */
+    public static final class Builder {
+
+        private static final int DEFAULT_COMPLETION_THREADS = 2;
+        private static final int DEFAULT_MAX_IN_FLIGHT_WRITES = 128;
+        private static final int DEFAULT_MAX_QUEUED_SERIALIZATIONS = 1024;
+        private static final int DEFAULT_MAX_PENDING_WRITES = 100_000;
+        private static final long DEFAULT_WRITE_TIMEOUT_SECONDS = 60L;
+
+        private int serializationThreads = Runtime.getRuntime()
+                                                  .availableProcessors();
+        private int completionThreads = DEFAULT_COMPLETION_THREADS;
+        private int maxInFlightWrites = DEFAULT_MAX_IN_FLIGHT_WRITES;
+        private int maxQueuedSerializations = DEFAULT_MAX_QUEUED_SERIALIZATIONS;
+        private int maxPendingWrites = DEFAULT_MAX_PENDING_WRITES;
+        private long writeTimeoutSeconds = DEFAULT_WRITE_TIMEOUT_SECONDS;
+        private WebMetrics metrics = WebMetrics.noOp();
+
+        /**
+         * Prevents local instantiation.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Sets the number of threads serializing the data to be written.
+         *
+         * <p>The default value is the number of available processors.
+         */
+        public Builder setSerializationThreads(int serializationThreads) {
+            checkArgument(serializationThreads > 0);
+            this.serializationThreads = serializationThreads;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads handling the write completions.
+         *
+         * <p>The default value is {@code 2}.
+         */
+        public Builder setCompletionThreads(int completionThreads) {
+            checkArgument(completionThreads > 0);
+            this.completionThreads = completionThreads;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of writes performed simultaneously.
+         *
+         * <p>The default value is {@code 128}.
+         */
+        public Builder setMaxInFlightWrites(int maxInFlightWrites) {
+            checkArgument(maxInFlightWrites > 0);
+            this.maxInFlightWrites = maxInFlightWrites;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of serialization tasks awaiting a free thread.
+         *
+         * <p>The default value is {@code 1024}.
+         */
+        public Builder setMaxQueuedSerializations(int maxQueuedSerializations) {
+            checkArgument(maxQueuedSerializations > 0);
+            this.maxQueuedSerializations = maxQueuedSerializations;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of writes awaiting to be started.
+         *
+         * <p>The default value is {@code 100 000}.
+         */
+        public Builder setMaxPendingWrites(int maxPendingWrites) {
+            checkArgument(maxPendingWrites > 0);
+            this.maxPendingWrites = maxPendingWrites;
+            return this;
+        }
+
+        /**
+         * Sets the default amount of seconds after which a write is considered failed.
+         *
+         * <p>The default value is {@code 60} seconds.
+         */
+        public Builder setWriteTimeoutSeconds(long writeTimeoutSeconds) {
+            checkArgument(writeTimeoutSeconds > 0);
+            this.writeTimeoutSeconds = writeTimeoutSeconds;
+            return this;
+        }
+
+        /**
+         * Sets the metrics to report the writes to.
+         *
+         * <p>The metrics are named after the {@link FirebaseMetricNames} constants.
+         *
+         * <p>By default, the metrics are {@linkplain WebMetrics#noOp() discarded}.
+         */
+        public Builder setMetrics(WebMetrics metrics) {
+            this.metrics = checkNotNull(metrics);
+            return this;
+        }
+
+        /**
+         * Creates a new instance of {@code FirebaseWriteScheduler}.
+         *
+         * @return new instance of {@code FirebaseWriteScheduler}
+         */
+        public FirebaseWriteScheduler build() {
+            return new FirebaseWriteScheduler(this);
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(FirebaseWriteScheduler.class);
+    }
+
+    private enum DefaultInstance {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final FirebaseWriteScheduler value = newBuilder().build();
+    }
+}
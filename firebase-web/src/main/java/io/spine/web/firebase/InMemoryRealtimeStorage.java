@@ -0,0 +1,781 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.spine.web.storage.RealtimeStorage;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.spine.web.firebase.FirebasePushKeys.newChildKey;
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * The {@link RealtimeStorage} which keeps the data in memory.
+ *
+ * <p>The storage allows to run the bridges in the same process with the transport which
+ * delivers the data to the clients, avoiding the Firebase write quotas and round trips.
+ * The transport {@linkplain #addChildListener listens} to the nodes written by the bridges.
+ * Since the data is never persisted, the clients must re-subscribe once the process restarts.
+ *
+ * <p>The storage is also a stand-in for the Firebase database, which allows to test and
+ * load-test the bridges without a network connection. It follows the Firebase semantics of
+ * the stored values: the lists are stored as maps, the empty maps are not stored, and
+ * the integral numbers are stored as {@code Long}s.
+ *
+ * <p>Each operation is applied after a configurable {@linkplain Builder#setLatency latency}
+ * with a random jitter, and may be configured to {@linkplain Builder#setFailureRate fail} with
+ * the given probability. The operations are applied in the order they are issued, as if they
+ * were sent through a single connection. Thus, a slow operation delays the operations issued
+ * after it.
+ *
+ * <p>The operations are applied and the {@linkplain ChildListener listeners} are notified in
+ * the background daemon threads. Call {@link #shutdown()} to release them explicitly.
+ */
+public final class InMemoryRealtimeStorage implements RealtimeStorage {
+
+    /**
+     * The number of times a transaction is retried before it fails.
+     *
+     * <p>Matches the number of the retries made by the Firebase client.
+     */
+    private static final int MAX_TRANSACTION_RETRIES = 25;
+
+    private static final Splitter PATH_SPLITTER = Splitter.on('/')
+                                                          .omitEmptyStrings();
+
+    /**
+     * The root node.
+     *
+     * <p>The inner nodes are sorted maps. The leaf nodes are strings, numbers, and booleans.
+     */
+    private final Map<String, Object> root = new TreeMap<>();
+    private final List<ListenerRegistration> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Operation, OperationProfile> profiles;
+    private final Random random;
+
+    /**
+     * The operations awaiting their latency to elapse, in the order they were issued.
+     */
+    private final Queue<PendingOperation> pending = new ArrayDeque<>();
+    private long lastDueNanos = System.nanoTime();
+
+    private final ScheduledExecutorService operationExecutor;
+    private final ExecutorService listenerExecutor;
+
+    private InMemoryRealtimeStorage(Builder builder) {
+        this.profiles = new EnumMap<>(builder.profiles);
+        this.random = builder.random;
+        this.operationExecutor = Executors.newSingleThreadScheduledExecutor(
+                daemonThreads("in-memory-storage-%d")
+        );
+        this.listenerExecutor = Executors.newSingleThreadExecutor(
+                daemonThreads("in-memory-storage-listener-%d")
+        );
+    }
+
+    private static ThreadFactory daemonThreads(String nameFormat) {
+        return new ThreadFactoryBuilder().setNameFormat(nameFormat)
+                                         .setDaemon(true)
+                                         .build();
+    }
+
+    @Override
+    public CompletableFuture<Void> push(String path, Object value) {
+        checkNotNull(value);
+        String key = newChildKey();
+        return submit(Operation.PUSH, () -> {
+            write(path, node -> put(node, path(path, key), value));
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String path, @Nullable Object value) {
+        return submit(Operation.SET, () -> {
+            write(path, node -> put(node, path, value));
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> update(String path, Map<String, Object> children) {
+        Map<String, Object> update = new HashMap<>(children);
+        return submit(Operation.UPDATE, () -> {
+            write(path, node -> update.forEach(
+                    (child, value) -> put(node, path(path, child), value)
+            ));
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> remove(String path) {
+        return submit(Operation.REMOVE, () -> {
+            write(path, node -> put(node, path, null));
+            return null;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>As the Firebase client does, the storage computes the update against the snapshot of
+     * the children taken at the moment the transaction is issued. Thus, the writes issued before
+     * the transaction but not yet applied are not visible to the update function. Once
+     * the transaction is applied, the update is committed only if the children still match
+     * the snapshot. Otherwise, the transaction is retried with the current children, taking one
+     * more latency of the {@linkplain Operation#TRANSACTION transaction} operation. After
+     * {@value #MAX_TRANSACTION_RETRIES} retries, the transaction fails.
+     */
+    @Override
+    public CompletableFuture<Map<String, Object>>
+    transaction(String path, Function<Map<String, Object>, Map<String, Object>> update) {
+        checkNotNull(update);
+        return runTransaction(path, update, 0);
+    }
+
+    private CompletableFuture<Map<String, Object>>
+    runTransaction(String path,
+                   Function<Map<String, Object>, Map<String, Object>> update,
+                   int retries) {
+        Map<String, Object> snapshot;
+        Map<String, Object> current;
+        synchronized (root) {
+            snapshot = children(root, path);
+            current = children(root, path);
+        }
+        Map<String, Object> changes;
+        try {
+            changes = new HashMap<>(update.apply(current));
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        CompletableFuture<Optional<Map<String, Object>>> attempt =
+                submit(Operation.TRANSACTION, () -> commit(path, snapshot, changes));
+        return attempt.thenCompose(committed -> {
+            if (committed.isPresent()) {
+                return CompletableFuture.completedFuture(committed.get());
+            }
+            if (retries >= MAX_TRANSACTION_RETRIES) {
+                return failed(new IllegalStateException(
+                        format("The transaction at `%s` was not committed after %d retries.",
+                               path, retries)
+                ));
+            }
+            return runTransaction(path, update, retries + 1);
+        });
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable error) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        result.completeExceptionally(error);
+        return result;
+    }
+
+    /**
+     * Applies the changes computed by a transaction if the children of the node still match
+     * the snapshot the changes are computed against.
+     *
+     * @return the committed children or {@code Optional.empty()} if the children have changed
+     */
+    private Optional<Map<String, Object>> commit(String path,
+                                                 Map<String, Object> snapshot,
+                                                 Map<String, Object> changes) {
+        synchronized (root) {
+            if (!snapshot.equals(children(root, path))) {
+                return Optional.empty();
+            }
+            write(path, node -> changes.forEach(
+                    (child, value) -> put(node, path(path, child), value)
+            ));
+            return Optional.of(children(root, path));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Object>> selectOrderedBy(String path,
+                                                                  String property,
+                                                                  double maxValue,
+                                                                  int limit) {
+        checkNotNull(property);
+        checkArgument(limit > 0, "The limit must be positive.");
+        return submit(Operation.SELECT, () -> {
+            Map<String, Object> children;
+            synchronized (root) {
+                children = children(root, path);
+            }
+            Map<String, Object> selected = new LinkedHashMap<>();
+            children.entrySet()
+                    .stream()
+                    .filter(child -> orderValue(child.getValue(), property) <= maxValue)
+                    .sorted(Comparator.comparingDouble(
+                            (Map.Entry<String, Object> child) ->
+                                    orderValue(child.getValue(), property)))
+                    .limit(limit)
+                    .forEach(child -> selected.put(child.getKey(), child.getValue()));
+            return selected;
+        });
+    }
+
+    /**
+     * Obtains the value of the property of the given node to order the nodes by.
+     *
+     * @return the numeric value of the property or the negative infinity if the node has no
+     *         such numeric property
+     */
+    private static double orderValue(Object node, String property) {
+        if (node instanceof Map) {
+            Object value = ((Map<?, ?>) node).get(property);
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+        }
+        return Double.NEGATIVE_INFINITY;
+    }
+
+    @Override
+    public Registration addChildListener(String path, ChildListener listener) {
+        checkNotNull(listener);
+        ListenerRegistration registration = new ListenerRegistration(segments(path), listener);
+        synchronized (root) {
+            Map<String, Object> existing = children(root, path);
+            listeners.add(registration);
+            listenerExecutor.execute(() -> registration.sync(existing));
+        }
+        return registration;
+    }
+
+    /**
+     * Obtains the value of the node at the given path as it is stored at the moment.
+     *
+     * <p>The operations which are issued but not yet applied are not taken into account.
+     *
+     * @return a copy of the node value or {@code Optional.empty()} if there is no such node
+     */
+    public Optional<Object> read(String path) {
+        synchronized (root) {
+            return Optional.ofNullable(copy(get(root, segments(path))));
+        }
+    }
+
+    /**
+     * Stops applying the operations and notifying the listeners.
+     *
+     * <p>The operations which are not yet applied are never completed.
+     */
+    public void shutdown() {
+        operationExecutor.shutdownNow();
+        listenerExecutor.shutdown();
+    }
+
+    /**
+     * Schedules the given action to be performed after the latency of the given operation.
+     */
+    private <T> CompletableFuture<T> submit(Operation operation, Supplier<T> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        OperationProfile profile = profiles.get(operation);
+        synchronized (pending) {
+            long dueNanos = Math.max(lastDueNanos, System.nanoTime() + profile.delayNanos(random));
+            lastDueNanos = dueNanos;
+            boolean failed = profile.fails(random);
+            pending.add(new PendingOperation(dueNanos, () -> {
+                if (failed) {
+                    result.completeExceptionally(new InjectedFailure(operation));
+                    return;
+                }
+                try {
+                    result.complete(action.get());
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            }));
+            operationExecutor.schedule(this::applyDue,
+                                       dueNanos - System.nanoTime(), NANOSECONDS);
+        }
+        return result;
+    }
+
+    /**
+     * Applies the pending operations whose latency has elapsed.
+     *
+     * <p>Called in the single operation thread, thus the operations are applied sequentially.
+     */
+    private void applyDue() {
+        while (true) {
+            PendingOperation next;
+            synchronized (pending) {
+                next = pending.peek();
+                if (next == null || next.dueNanos - System.nanoTime() > 0) {
+                    return;
+                }
+                pending.poll();
+            }
+            next.action.run();
+        }
+    }
+
+    /**
+     * Modifies the data and notifies the listeners affected by the change.
+     *
+     * @param path  the path of the modified node
+     * @param write the modification of the root node
+     */
+    private void write(String path, WriteOperation write) {
+        List<String> written = segments(path);
+        synchronized (root) {
+            List<ListenerRegistration> affected = new ArrayList<>();
+            List<Map<String, Object>> before = new ArrayList<>();
+            for (ListenerRegistration listener : listeners) {
+                if (listener.affectedBy(written)) {
+                    affected.add(listener);
+                    before.add(children(root, listener.path));
+                }
+            }
+            write.apply(root);
+            for (int i = 0; i < affected.size(); i++) {
+                ListenerRegistration listener = affected.get(i);
+                Map<String, Object> previous = before.get(i);
+                Map<String, Object> current = children(root, listener.path);
+                listenerExecutor.execute(() -> listener.notify(previous, current));
+            }
+        }
+    }
+
+    /**
+     * Puts the given value to the given path relative to the given node.
+     *
+     * <p>Removes the node if the value is {@code null} or an empty map. The inner nodes left
+     * with no children are removed as well.
+     */
+    private static void put(Map<String, Object> node, String path, @Nullable Object value) {
+        List<String> segments = segments(path);
+        Object normalized = normalize(value);
+        if (segments.isEmpty()) {
+            node.clear();
+            if (normalized instanceof Map) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> children = (Map<String, Object>) normalized;
+                node.putAll(children);
+            }
+            return;
+        }
+        put(node, segments, normalized);
+    }
+
+    private static void put(Map<String, Object> node,
+                            List<String> segments,
+                            @Nullable Object value) {
+        String key = segments.get(0);
+        if (segments.size() == 1) {
+            if (value == null) {
+                node.remove(key);
+            } else {
+                node.put(key, value);
+            }
+            return;
+        }
+        Object child = node.get(key);
+        if (!(child instanceof Map)) {
+            if (value == null) {
+                return;
+            }
+            child = new TreeMap<String, Object>();
+            node.put(key, child);
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Object> childNode = (Map<String, Object>) child;
+        put(childNode, segments.subList(1, segments.size()), value);
+        if (childNode.isEmpty()) {
+            node.remove(key);
+        }
+    }
+
+    @Nullable
+    private static Object get(Map<String, Object> node, List<String> segments) {
+        Object current = node;
+        for (String segment : segments) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            current = ((Map<?, ?>) current).get(segment);
+        }
+        return current;
+    }
+
+    /**
+     * Obtains the copies of the children of the node at the given path.
+     */
+    private static Map<String, Object> children(Map<String, Object> node, String path) {
+        return children(node, segments(path));
+    }
+
+    private static Map<String, Object> children(Map<String, Object> node,
+                                                List<String> segments) {
+        Object value = get(node, segments);
+        Map<String, Object> children = new LinkedHashMap<>();
+        if (value instanceof Map) {
+            ((Map<?, ?>) value).forEach((key, child) -> children.put((String) key, copy(child)));
+        }
+        return children;
+    }
+
+    /**
+     * Converts the given value to the stored representation.
+     *
+     * @return the stored value or {@code null} if the value denotes the node absence
+     */
+    @Nullable
+    private static Object normalize(@Nullable Object value) {
+        if (value == null || value instanceof String || value instanceof Boolean
+                || value instanceof Long || value instanceof Double) {
+            return value;
+        }
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Number) value).doubleValue();
+        }
+        if (value instanceof Map) {
+            Map<String, Object> node = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((key, child) -> {
+                Object normalized = normalize(child);
+                if (normalized != null) {
+                    node.put(String.valueOf(key), normalized);
+                }
+            });
+            return node.isEmpty() ? null : node;
+        }
+        if (value instanceof List) {
+            Map<String, Object> node = new TreeMap<>();
+            List<?> elements = (List<?>) value;
+            for (int i = 0; i < elements.size(); i++) {
+                Object normalized = normalize(elements.get(i));
+                if (normalized != null) {
+                    node.put(String.valueOf(i), normalized);
+                }
+            }
+            return node.isEmpty() ? null : node;
+        }
+        throw new IllegalArgumentException(
+                format("Values of type %s cannot be stored.", value.getClass()
+                                                                   .getName())
+        );
+    }
+
+    /**
+     * Creates a deep copy of the given stored value.
+     */
+    @Nullable
+    private static Object copy(@Nullable Object value) {
+        if (!(value instanceof Map)) {
+            return value;
+        }
+        Map<String, Object> copy = new LinkedHashMap<>();
+        ((Map<?, ?>) value).forEach((key, child) -> copy.put((String) key, copy(child)));
+        return copy;
+    }
+
+    private static List<String> segments(String path) {
+        return ImmutableList.copyOf(PATH_SPLITTER.split(path));
+    }
+
+    private static String path(String parent, String child) {
+        return parent.isEmpty()
+               ? child
+               : parent + '/' + child;
+    }
+
+    /**
+     * Creates a new instance of {@code Builder} for {@code InMemoryRealtimeStorage} instances.
+     *
+     * @return new instance of {@code Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * The operations of the storage.
+     */
+    public enum Operation {
+        PUSH,
+        SET,
+        UPDATE,
+        REMOVE,
+        TRANSACTION,
+        SELECT
+    }
+
+    /**
+     * The failure of an operation caused by the {@linkplain Builder#setFailureRate configured}
+     * failure rate.
+     */
+    public static final class InjectedFailure extends RuntimeException {
+
+        private static final long serialVersionUID = 0L;
+
+        private InjectedFailure(Operation operation) {
+            super(format("The %s operation failed on purpose.", operation));
+        }
+    }
+
+    /**
+     * A modification of the root node.
+     */
+    @FunctionalInterface
+    private interface WriteOperation {
+
+        void apply(Map<String, Object> root);
+    }
+
+    /**
+     * An operation awaiting its latency to elapse.
+     */
+    private static final class PendingOperation {
+
+        private final long dueNanos;
+        private final Runnable action;
+
+        private PendingOperation(long dueNanos, Runnable action) {
+            this.dueNanos = dueNanos;
+            this.action = action;
+        }
+    }
+
+    /**
+     * The latency and the failure rate of an operation.
+     */
+    private static final class OperationProfile {
+
+        private static final OperationProfile IMMEDIATE = new OperationProfile(0L, 0L, 0.0);
+
+        private final long latencyNanos;
+        private final long jitterNanos;
+        private final double failureRate;
+
+        private OperationProfile(long latencyNanos, long jitterNanos, double failureRate) {
+            this.latencyNanos = latencyNanos;
+            this.jitterNanos = jitterNanos;
+            this.failureRate = failureRate;
+        }
+
+        private OperationProfile withLatency(long latencyNanos, long jitterNanos) {
+            return new OperationProfile(latencyNanos, jitterNanos, failureRate);
+        }
+
+        private OperationProfile withFailureRate(double failureRate) {
+            return new OperationProfile(latencyNanos, jitterNanos, failureRate);
+        }
+
+        private long delayNanos(Random random) {
+            if (jitterNanos == 0) {
+                return latencyNanos;
+            }
+            return latencyNanos + (long) (random.nextDouble() * jitterNanos);
+        }
+
+        private boolean fails(Random random) {
+            return failureRate > 0 && random.nextDouble() < failureRate;
+        }
+    }
+
+    /**
+     * A registered {@link ChildListener}.
+     */
+    private final class ListenerRegistration implements Registration {
+
+        private final List<String> path;
+        private final ChildListener listener;
+        private volatile boolean cancelled;
+
+        private ListenerRegistration(List<String> path, ChildListener listener) {
+            this.path = path;
+            this.listener = listener;
+        }
+
+        /**
+         * Checks if a write to the given path may change the children of the listened node.
+         */
+        private boolean affectedBy(List<String> written) {
+            int common = Math.min(path.size(), written.size());
+            return path.subList(0, common)
+                       .equals(written.subList(0, common));
+        }
+
+        /**
+         * Notifies the listener of the children existing at the moment of the registration.
+         */
+        private void sync(Map<String, Object> existing) {
+            if (cancelled) {
+                return;
+            }
+            existing.forEach(listener::onChildAdded);
+            listener.onSynced();
+        }
+
+        /**
+         * Notifies the listener of the difference between the given states of the children.
+         */
+        private void notify(Map<String, Object> previous, Map<String, Object> current) {
+            if (cancelled) {
+                return;
+            }
+            previous.forEach((key, value) -> {
+                if (!current.containsKey(key)) {
+                    listener.onChildRemoved(key);
+                }
+            });
+            current.forEach((key, value) -> {
+                Object previousValue = previous.get(key);
+                if (previousValue == null) {
+                    listener.onChildAdded(key, value);
+                } else if (!previousValue.equals(value)) {
+                    listener.onChildChanged(key, value);
+                }
+            });
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            listeners.remove(this);
+        }
+    }
+
+    /**
+     * A builder for the {@code InMemoryRealtimeStorage} instances.
+     */
+    public static final class Builder {
+
+        private final Map<Operation, OperationProfile> profiles = new EnumMap<>(Operation.class);
+        private Random random = new Random();
+
+        /**
+         * Prevents local instantiation.
+         */
+        private Builder() {
+            for (Operation operation : Operation.values()) {
+                profiles.put(operation, OperationProfile.IMMEDIATE);
+            }
+        }
+
+        /**
+         * Sets the latency of all the operations.
+         *
+         * @see #setLatency(Operation, long, long, TimeUnit)
+         */
+        public Builder setLatency(long latency, long jitter, TimeUnit unit) {
+            for (Operation operation : Operation.values()) {
+                setLatency(operation, latency, jitter, unit);
+            }
+            return this;
+        }
+
+        /**
+         * Sets the latency of the given operation.
+         *
+         * <p>The operation is applied after the latency plus a random delay uniformly
+         * distributed between zero and the jitter. By default, the operations are applied
+         * without a delay.
+         *
+         * @param operation the operation to configure
+         * @param latency   the non-negative minimum delay of the operation
+         * @param jitter    the non-negative maximum random addition to the delay
+         * @param unit      the unit of the latency and the jitter
+         */
+        public Builder setLatency(Operation operation, long latency, long jitter, TimeUnit unit) {
+            checkNotNull(operation);
+            checkNotNull(unit);
+            checkArgument(latency >= 0, "Latency must not be negative.");
+            checkArgument(jitter >= 0, "Jitter must not be negative.");
+            profiles.put(operation, profiles.get(operation)
+                                            .withLatency(unit.toNanos(latency),
+                                                         unit.toNanos(jitter)));
+            return this;
+        }
+
+        /**
+         * Sets the probability of the given operation to fail.
+         *
+         * <p>A failed operation is not applied. Its future fails with
+         * the {@link InjectedFailure}. By default, the operations never fail.
+         *
+         * @param operation   the operation to configure
+         * @param failureRate the probability of a failure from {@code 0} to {@code 1}
+         */
+        public Builder setFailureRate(Operation operation, double failureRate) {
+            checkNotNull(operation);
+            checkArgument(failureRate >= 0.0 && failureRate <= 1.0,
+                          "Failure rate must be in range [0, 1].");
+            profiles.put(operation, profiles.get(operation)
+                                            .withFailureRate(failureRate));
+            return this;
+        }
+
+        /**
+         * Sets the source of the random jitter and failures.
+         *
+         * <p>Use a seeded {@link Random} to reproduce the same sequence of the delays and
+         * the failures.
+         */
+        public Builder setRandom(Random random) {
+            this.random = checkNotNull(random);
+            return this;
+        }
+
+        /**
+         * Creates a new instance of {@code InMemoryRealtimeStorage}.
+         *
+         * @return new instance of {@code InMemoryRealtimeStorage}
+         */
+        public InMemoryRealtimeStorage build() {
+            return new InMemoryRealtimeStorage(this);
+        }
+    }
+}
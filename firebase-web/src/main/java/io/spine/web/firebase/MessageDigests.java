@@ -0,0 +1,77 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Message;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static io.spine.util.Exceptions.illegalStateWithCauseOf;
+
+/**
+ * Utilities for computing compact digests of Protobuf messages.
+ */
+final class MessageDigests {
+
+    private static final HashFunction DIGEST_HASH = Hashing.murmur3_128();
+    private static final BaseEncoding DIGEST_ENCODING = BaseEncoding.base64()
+                                                                    .omitPadding();
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private MessageDigests() {
+    }
+
+    /**
+     * Computes a digest of the deterministically serialized message.
+     *
+     * <p>The digest is a 128-bit non-cryptographic hash encoded as a 22-character string.
+     * Equal messages have equal digests.
+     */
+    static String digest(Message message) {
+        byte[] bytes = serializeDeterministically(message);
+        byte[] hash = DIGEST_HASH.hashBytes(bytes)
+                                 .asBytes();
+        return DIGEST_ENCODING.encode(hash);
+    }
+
+    /**
+     * Serializes the given message so that equal messages produce equal bytes.
+     */
+    static byte[] serializeDeterministically(Message message) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(message.getSerializedSize());
+        CodedOutputStream output = CodedOutputStream.newInstance(bytes);
+        output.useDeterministicSerialization();
+        try {
+            message.writeTo(output);
+            output.flush();
+        } catch (IOException e) {
+            throw illegalStateWithCauseOf(e);
+        }
+        return bytes.toByteArray();
+    }
+}
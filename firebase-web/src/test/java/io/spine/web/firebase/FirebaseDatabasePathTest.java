@@ -25,15 +25,23 @@ import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.protobuf.Any;
 import com.google.protobuf.Empty;
+import com.google.protobuf.StringValue;
 import com.google.protobuf.Timestamp;
+import io.spine.client.EntityFilters;
+import io.spine.client.EntityId;
+import io.spine.client.EntityIdFilter;
 import io.spine.client.Query;
 import io.spine.client.QueryFactory;
+import io.spine.client.Target;
+import io.spine.client.Topic;
+import io.spine.client.TopicFactory;
 import io.spine.core.TenantId;
 import io.spine.core.TenantIdVBuilder;
 import io.spine.net.EmailAddress;
 import io.spine.net.EmailAddressVBuilder;
 import io.spine.net.InternetDomain;
 import io.spine.net.InternetDomainVBuilder;
+import io.spine.protobuf.AnyPacker;
 import io.spine.testing.client.TestActorRequestFactory;
 import io.spine.time.ZoneOffsets;
 import org.junit.jupiter.api.DisplayName;
@@ -44,6 +52,7 @@ import java.util.stream.Stream;
 
 import static io.spine.time.ZoneIds.systemDefault;
 import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -76,6 +85,61 @@ class FirebaseDatabasePathTest {
         assertNotEquals(firstPath.toString(), secondPath.toString());
     }
 
+    @Test
+    @DisplayName("construct same self for identical Topics")
+    void testConstructForTopic() {
+        TopicFactory topicFactory =
+                TestActorRequestFactory.newInstance(FirebaseDatabasePathTest.class)
+                                       .topic();
+        Topic firstTopic = topicFactory.allOf(Empty.class);
+        Topic identicalTopic = topicFactory.allOf(Empty.class);
+        Topic otherTopic = topicFactory.allOf(Timestamp.class);
+
+        FirebaseDatabasePath firstPath = FirebaseDatabasePath.allocateForTopic(firstTopic);
+        FirebaseDatabasePath identicalPath = FirebaseDatabasePath.allocateForTopic(identicalTopic);
+        FirebaseDatabasePath otherPath = FirebaseDatabasePath.allocateForTopic(otherTopic);
+
+        assertNotEquals(firstTopic.getId(), identicalTopic.getId());
+        assertEquals(firstPath, identicalPath);
+        assertNotEquals(firstPath, otherPath);
+    }
+
+    @Test
+    @DisplayName("construct same self for Topics with differently ordered IDs")
+    void testConstructForReorderedIds() {
+        TopicFactory topicFactory =
+                TestActorRequestFactory.newInstance(FirebaseDatabasePathTest.class)
+                                       .topic();
+        Topic topic = topicFactory.allOf(Empty.class);
+        Topic firstTopic = withIds(topic, "a", "b");
+        Topic reorderedTopic = withIds(topic, "b", "a");
+        Topic otherTopic = withIds(topic, "a", "c");
+
+        FirebaseDatabasePath firstPath = FirebaseDatabasePath.allocateForTopic(firstTopic);
+        assertEquals(firstPath, FirebaseDatabasePath.allocateForTopic(reorderedTopic));
+        assertNotEquals(firstPath, FirebaseDatabasePath.allocateForTopic(otherTopic));
+    }
+
+    @Test
+    @DisplayName("tell if it is allocated for an actor")
+    void testAllocatedForActor() {
+        Query query = queryFactory.all(Empty.class);
+        Query foreignQuery = TestActorRequestFactory.newInstance("another-actor",
+                                                                 ZoneOffsets.getDefault(),
+                                                                 systemDefault())
+                                                    .query()
+                                                    .all(Empty.class);
+        FirebaseDatabasePath path = FirebaseDatabasePath.allocateForQuery(query);
+        FirebaseDatabasePath foreignPath = FirebaseDatabasePath.allocateForQuery(foreignQuery);
+        FirebaseDatabasePath nestedPath = FirebaseDatabasePath.fromString(path + "/nested");
+
+        assertTrue(path.isAllocatedFor(query.getContext()));
+        assertFalse(foreignPath.isAllocatedFor(query.getContext()));
+        assertFalse(nestedPath.isAllocatedFor(query.getContext()));
+        assertFalse(FirebaseDatabasePath.fromString("")
+                                        .isAllocatedFor(query.getContext()));
+    }
+
     @Test
     @DisplayName("be tenant-aware")
     void testTenantAware() {
@@ -142,6 +206,27 @@ class FirebaseDatabasePathTest {
         verify(database).getReference(eq(path.toString()));
     }
 
+    private static Topic withIds(Topic topic, String... ids) {
+        EntityIdFilter.Builder idFilter = EntityIdFilter.newBuilder();
+        for (String id : ids) {
+            StringValue value = StringValue.newBuilder()
+                                           .setValue(id)
+                                           .build();
+            idFilter.addIds(EntityId.newBuilder()
+                                    .setId(AnyPacker.pack(value)));
+        }
+        EntityFilters filters = EntityFilters.newBuilder()
+                                             .setIdFilter(idFilter)
+                                             .build();
+        Target target = topic.getTarget()
+                             .toBuilder()
+                             .setFilters(filters)
+                             .build();
+        return topic.toBuilder()
+                    .setTarget(target)
+                    .build();
+    }
+
     private static Query tenantAwareQuery(TenantId tenantId) {
         TestActorRequestFactory requestFactory =
                 TestActorRequestFactory.newInstance(FirebaseDatabasePathTest.class, tenantId);
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.protobuf.Any;
+import io.spine.protobuf.AnyPacker;
+import io.spine.web.firebase.FirebaseSubscriptionEntries.UpToDateEntry;
+import io.spine.web.firebase.given.Book;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Authors.gangOfFour;
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Books.designPatterns;
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.updateAuthors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("FirebaseEntryCache should")
+class FirebaseEntryCacheTest {
+
+    @Test
+    @DisplayName("not allow non-positive data length")
+    void rejectInvalidLength() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> FirebaseEntryCache.withMaximumDataLength(0));
+    }
+
+    @Test
+    @DisplayName("reuse the entry of the same state")
+    void reuseEntry() {
+        FirebaseEntryCache cache = FirebaseEntryCache.withMaximumDataLength(10_000);
+        Book book = designPatterns();
+        UpToDateEntry first = cache.entryOf(AnyPacker.pack(book));
+        UpToDateEntry second = cache.entryOf(AnyPacker.pack(book));
+
+        assertSame(first, second);
+        assertEquals(UpToDateEntry.fromMessage(book)
+                                  .data(), first.data());
+    }
+
+    @Test
+    @DisplayName("create a new entry for a changed state")
+    void serializeChangedState() {
+        FirebaseEntryCache cache = FirebaseEntryCache.withMaximumDataLength(10_000);
+        Book book = designPatterns();
+        UpToDateEntry initial = cache.entryOf(AnyPacker.pack(book));
+        Book changedBook = updateAuthors(book, gangOfFour());
+        UpToDateEntry changed = cache.entryOf(AnyPacker.pack(changedBook));
+
+        assertNotEquals(initial.hash(), changed.hash());
+        assertEquals(initial.idHash(), changed.idHash());
+        assertEquals(UpToDateEntry.fromMessage(changedBook)
+                                  .data(), changed.data());
+    }
+
+    @Test
+    @DisplayName("not keep the entries exceeding the maximum data length")
+    void evictLongEntries() {
+        FirebaseEntryCache cache = FirebaseEntryCache.withMaximumDataLength(1);
+        Any packed = AnyPacker.pack(designPatterns());
+        UpToDateEntry first = cache.entryOf(packed);
+        UpToDateEntry second = cache.entryOf(packed);
+
+        assertNotSame(first, second);
+    }
+
+    @Test
+    @DisplayName("not keep the parsed JSON of the cached entries")
+    void notKeepParsedJson() {
+        FirebaseEntryCache cache = FirebaseEntryCache.withMaximumDataLength(10_000);
+        UpToDateEntry entry = cache.entryOf(AnyPacker.pack(designPatterns()));
+
+        assertNotSame(entry.json(), entry.json());
+        assertEquals(entry.json(), entry.json());
+    }
+
+    @Test
+    @DisplayName("serialize each state anew if disabled")
+    void notCacheIfDisabled() {
+        FirebaseEntryCache cache = FirebaseEntryCache.disabled();
+        Any packed = AnyPacker.pack(designPatterns());
+
+        UpToDateEntry first = cache.entryOf(packed);
+        UpToDateEntry second = cache.entryOf(packed);
+        assertNotSame(first, second);
+        assertEquals(first.data(), second.data());
+    }
+}
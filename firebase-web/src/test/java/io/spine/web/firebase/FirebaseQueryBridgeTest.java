@@ -36,9 +36,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 
+import static io.spine.json.Json.fromJson;
 import static io.spine.json.Json.toCompactJson;
 import static io.spine.web.firebase.given.FirebaseQueryBridgeTestEnv.ONE_SECOND;
 import static io.spine.web.firebase.given.FirebaseQueryBridgeTestEnv.SECONDS;
@@ -46,9 +52,15 @@ import static io.spine.web.firebase.given.FirebaseQueryBridgeTestEnv.nonTransact
 import static io.spine.web.firebase.given.FirebaseQueryBridgeTestEnv.transactionalQuery;
 import static io.spine.web.firebase.given.FirebaseQueryMediatorTestEnv.timeoutFuture;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.any;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -144,7 +156,7 @@ class FirebaseQueryBridgeTest {
                                                         .build();
         bridge.send(transactionalQuery(queryFactory.all(Empty.class)));
 
-        verify(pathReference).setValueAsync(eq(singletonList("{}")));
+        verify(pathReference, timeout(ONE_SECOND)).setValueAsync(eq(singletonList("{}")));
         verify(childReference, never()).setValueAsync(any(Object.class));
     }
 
@@ -163,6 +175,165 @@ class FirebaseQueryBridgeTest {
         verify(pathReference, never()).setValueAsync(any(Object.class));
     }
 
+    @Test
+    @DisplayName("write query results to the given storage")
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    void testCustomStorage() throws InterruptedException {
+        InMemoryRealtimeStorage storage = InMemoryRealtimeStorage.newBuilder()
+                                                                 .build();
+        Timestamp dataElement = timestamp(42);
+        TestQueryService queryService = new TestQueryService(dataElement);
+        FirebaseQueryBridge bridge = FirebaseQueryBridge.newBuilder()
+                                                        .setQueryService(queryService)
+                                                        .setStorage(storage)
+                                                        .build();
+        Query query = queryFactory.all(Timestamp.class);
+        bridge.send(transactionalQuery(query));
+
+        String itemPath = FirebaseDatabasePath.allocateForQuery(query) + "/0";
+        for (int i = 0; i < 50 && !storage.read(itemPath)
+                                          .isPresent(); i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(Optional.of(toCompactJson(dataElement)), storage.read(itemPath));
+        storage.shutdown();
+    }
+
+    @Test
+    @DisplayName("write query results in batches")
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    void testBatchedWrite() {
+        @SuppressWarnings("unchecked") ApiFuture<Void> future = mock(ApiFuture.class);
+        when(pathReference.updateChildrenAsync(anyMap())).thenReturn(future);
+
+        TestQueryService queryService = new TestQueryService(timestamp(1), timestamp(2),
+                                                             timestamp(3));
+        FirebaseQueryBridge bridge = FirebaseQueryBridge.newBuilder()
+                                                        .setQueryService(queryService)
+                                                        .setDatabase(firebaseDatabase)
+                                                        .setWriteBatchSize(2)
+                                                        .build();
+        bridge.send(nonTransactionalQuery(queryFactory.all(Timestamp.class)));
+
+        verify(pathReference, timeout(5 * SECONDS).times(2)).updateChildrenAsync(anyMap());
+        verify(pathReference, never()).push();
+    }
+
+    @Test
+    @DisplayName("inline small query results")
+    void testInline() throws IOException {
+        Timestamp dataElement = timestamp(42);
+        TestQueryService queryService = new TestQueryService(dataElement);
+        FirebaseQueryBridge bridge = FirebaseQueryBridge.newBuilder()
+                                                        .setQueryService(queryService)
+                                                        .setDatabase(firebaseDatabase)
+                                                        .setInlineThreshold(1)
+                                                        .build();
+        QueryProcessingResult result =
+                bridge.send(nonTransactionalQuery(queryFactory.all(Timestamp.class)));
+
+        FirebaseQueryResponse response = writtenResponse(result);
+        assertTrue(response.getInlined());
+        assertEquals(singletonList(toCompactJson(dataElement)),
+                     response.getInlinedMessagesList());
+        verify(firebaseDatabase, never()).getReference(anyString());
+    }
+
+    @Test
+    @DisplayName("store query results exceeding inline threshold")
+    void testNotInline() throws IOException {
+        futureWillComeFromChild();
+
+        TestQueryService queryService = new TestQueryService(timestamp(1), timestamp(2));
+        FirebaseQueryBridge bridge = FirebaseQueryBridge.newBuilder()
+                                                        .setQueryService(queryService)
+                                                        .setDatabase(firebaseDatabase)
+                                                        .setInlineThreshold(1)
+                                                        .build();
+        QueryProcessingResult result =
+                bridge.send(nonTransactionalQuery(queryFactory.all(Timestamp.class)));
+
+        FirebaseQueryResponse response = writtenResponse(result);
+        assertFalse(response.getInlined());
+        assertEquals(2, response.getCount());
+        verify(childReference, timeout(5 * SECONDS).times(2)).setValueAsync(anyString());
+    }
+
+    @Test
+    @DisplayName("store query results exceeding inline max length")
+    void testNotInlineLong() throws IOException {
+        futureWillComeFromChild();
+
+        TestQueryService queryService = new TestQueryService(timestamp(1));
+        FirebaseQueryBridge bridge = FirebaseQueryBridge.newBuilder()
+                                                        .setQueryService(queryService)
+                                                        .setDatabase(firebaseDatabase)
+                                                        .setInlineThreshold(1)
+                                                        .setInlineMaxLength(1)
+                                                        .build();
+        QueryProcessingResult result =
+                bridge.send(nonTransactionalQuery(queryFactory.all(Timestamp.class)));
+
+        assertFalse(writtenResponse(result).getInlined());
+        verify(childReference, timeout(5 * SECONDS)).setValueAsync(anyString());
+    }
+
+    @Test
+    @DisplayName("instruct the client to remove the read results")
+    void testRemoveOnRead() throws IOException {
+        futureWillComeFromChild();
+
+        TestQueryService queryService = new TestQueryService(timestamp(1));
+        FirebaseQueryBridge bridge = FirebaseQueryBridge.newBuilder()
+                                                        .setQueryService(queryService)
+                                                        .setDatabase(firebaseDatabase)
+                                                        .setRemoveOnRead(true)
+                                                        .build();
+        QueryProcessingResult result =
+                bridge.send(nonTransactionalQuery(queryFactory.all(Timestamp.class)));
+
+        assertTrue(writtenResponse(result).getRemoveOnRead());
+    }
+
+    @Test
+    @DisplayName("not accept non-positive result retention")
+    void testInvalidRetention() {
+        FirebaseQueryBridge.Builder builder = FirebaseQueryBridge.newBuilder();
+        assertThrows(IllegalArgumentException.class,
+                     () -> builder.setResultRetention(0, MINUTES));
+        assertThrows(IllegalArgumentException.class, () -> builder.setSweepBatchSize(0));
+    }
+
+    @Test
+    @DisplayName("not accept invalid inline limits")
+    void testInvalidInlineLimits() {
+        FirebaseQueryBridge.Builder builder = FirebaseQueryBridge.newBuilder();
+        assertThrows(IllegalArgumentException.class, () -> builder.setInlineThreshold(-1));
+        assertThrows(IllegalArgumentException.class, () -> builder.setInlineMaxLength(0));
+    }
+
+    @Test
+    @DisplayName("not accept non-positive write batch size")
+    void testInvalidBatchSize() {
+        FirebaseQueryBridge.Builder builder = FirebaseQueryBridge.newBuilder();
+        assertThrows(IllegalArgumentException.class, () -> builder.setWriteBatchSize(0));
+    }
+
+    private static FirebaseQueryResponse writtenResponse(QueryProcessingResult result)
+            throws IOException {
+        ServletResponse response = mock(ServletResponse.class);
+        StringWriter stringWriter = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(stringWriter));
+        result.writeTo(response);
+        return fromJson(stringWriter.toString(), FirebaseQueryResponse.class);
+    }
+
+    private static Timestamp timestamp(long seconds) {
+        return Timestamp.newBuilder()
+                        .setSeconds(seconds)
+                        .build();
+    }
+
     private void futureWillComeFromChild() {
         @SuppressWarnings("unchecked") ApiFuture<Void> future = mock(ApiFuture.class);
         when(childReference.setValueAsync(anyString())).thenReturn(future);
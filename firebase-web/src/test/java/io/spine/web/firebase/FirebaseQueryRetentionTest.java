@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.api.core.ApiFutures;
+import com.google.common.collect.ImmutableMap;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+
+import static io.spine.web.firebase.FirebaseQueryRetention.CREATED_PROPERTY;
+import static io.spine.web.firebase.FirebaseQueryRetention.INDEX_NODE;
+import static io.spine.web.firebase.FirebaseQueryRetention.PATH_PROPERTY;
+import static java.time.ZoneOffset.UTC;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("FirebaseQueryRetention should")
+class FirebaseQueryRetentionTest {
+
+    private static final long NOW = 1_000_000L;
+    private static final long RETENTION_MILLIS = MINUTES.toMillis(1);
+
+    private final Clock clock = Clock.fixed(Instant.ofEpochMilli(NOW), UTC);
+
+    private FirebaseDatabase database;
+    private DatabaseReference root;
+    private DatabaseReference index;
+    private Query expiredQuery;
+
+    @BeforeEach
+    void setUp() {
+        database = mock(FirebaseDatabase.class);
+        root = mock(DatabaseReference.class);
+        index = mock(DatabaseReference.class);
+        expiredQuery = mock(Query.class);
+        when(database.getReference()).thenReturn(root);
+        when(database.getReference(INDEX_NODE)).thenReturn(index);
+        when(index.orderByChild(CREATED_PROPERTY)).thenReturn(expiredQuery);
+        when(expiredQuery.endAt(anyDouble())).thenReturn(expiredQuery);
+        when(expiredQuery.limitToFirst(anyInt())).thenReturn(expiredQuery);
+        when(root.updateChildrenAsync(anyMap())).thenReturn(ApiFutures.immediateFuture(null));
+    }
+
+    @Test
+    @DisplayName("not allow non-positive retention")
+    void rejectInvalidRetention() {
+        assertThrows(IllegalArgumentException.class, () -> retention(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> retention(1, 0));
+    }
+
+    @Test
+    @DisplayName("record the creation time of a query result")
+    void registerResult() {
+        DatabaseReference record = mock(DatabaseReference.class);
+        when(index.push()).thenReturn(record);
+
+        retention(1, 10).register(FirebaseDatabasePath.fromString("tenant/actor/query"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> value = ArgumentCaptor.forClass(Map.class);
+        verify(record).setValueAsync(value.capture());
+        assertEquals("tenant/actor/query", value.getValue()
+                                                .get(PATH_PROPERTY));
+        assertEquals(NOW, value.getValue()
+                               .get(CREATED_PROPERTY));
+    }
+
+    @Test
+    @DisplayName("select the results created before the retention period")
+    void selectExpired() {
+        retention(1, 10).sweepExpired();
+
+        verify(expiredQuery).endAt((double) (NOW - RETENTION_MILLIS));
+        verify(expiredQuery).limitToFirst(10);
+        verify(expiredQuery).addListenerForSingleValueEvent(any(ValueEventListener.class));
+    }
+
+    @Test
+    @DisplayName("remove the expired results along with their index records")
+    void removeExpired() {
+        DataSnapshot expired = indexSnapshot("first", "second");
+        doAnswer(respondWith(expired))
+                .when(expiredQuery)
+                .addListenerForSingleValueEvent(any(ValueEventListener.class));
+
+        retention(1, 10).sweepExpired();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> removals = ArgumentCaptor.forClass(Map.class);
+        verify(root).updateChildrenAsync(removals.capture());
+        Map<String, Object> removed = removals.getValue();
+        assertEquals(4, removed.size());
+        assertTrue(removed.containsKey("first"));
+        assertTrue(removed.containsKey(INDEX_NODE + "/first-key"));
+        assertTrue(removed.containsKey("second"));
+        assertTrue(removed.containsKey(INDEX_NODE + "/second-key"));
+        assertNull(removed.get("first"));
+    }
+
+    @Test
+    @DisplayName("not write anything if no results have expired")
+    void ignoreEmpty() {
+        DataSnapshot empty = indexSnapshot();
+        doAnswer(respondWith(empty))
+                .when(expiredQuery)
+                .addListenerForSingleValueEvent(any(ValueEventListener.class));
+
+        retention(1, 10).sweepExpired();
+
+        verify(root, never()).updateChildrenAsync(anyMap());
+    }
+
+    @Test
+    @DisplayName("sweep the next batch if a batch is full")
+    void sweepInBatches() {
+        DataSnapshot first = indexSnapshot("first");
+        DataSnapshot second = indexSnapshot("second");
+        DataSnapshot empty = indexSnapshot();
+        doAnswer(respondWith(first))
+                .doAnswer(respondWith(second))
+                .doAnswer(respondWith(empty))
+                .when(expiredQuery)
+                .addListenerForSingleValueEvent(any(ValueEventListener.class));
+
+        retention(1, 1).sweepExpired();
+
+        verify(root, timeout(1000).times(2)).updateChildrenAsync(anyMap());
+        verify(expiredQuery, timeout(1000).times(3))
+                .addListenerForSingleValueEvent(any(ValueEventListener.class));
+    }
+
+    private FirebaseQueryRetention retention(long minutes, int batchSize) {
+        return new FirebaseQueryRetention(FirebaseRealtimeStorage.newInstance(database),
+                                          FirebaseWriteScheduler.defaultInstance(),
+                                          minutes, MINUTES, batchSize, clock);
+    }
+
+    /**
+     * Creates a snapshot of the index node with the records of the given result paths.
+     *
+     * <p>The key of each record is the result path followed by the {@code -key} suffix.
+     */
+    private static DataSnapshot indexSnapshot(String... paths) {
+        DataSnapshot[] records = new DataSnapshot[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            DataSnapshot record = mock(DataSnapshot.class);
+            when(record.getKey()).thenReturn(paths[i] + "-key");
+            when(record.getValue()).thenReturn(ImmutableMap.of(PATH_PROPERTY, paths[i],
+                                                               CREATED_PROPERTY, NOW));
+            records[i] = record;
+        }
+        DataSnapshot snapshot = mock(DataSnapshot.class);
+        when(snapshot.getChildren()).thenReturn(asList(records));
+        return snapshot;
+    }
+
+    private static Answer<Void> respondWith(DataSnapshot snapshot) {
+        return invocation -> {
+            ValueEventListener listener = invocation.getArgument(0);
+            listener.onDataChange(snapshot);
+            return null;
+        };
+    }
+}
@@ -20,36 +20,65 @@
 
 package io.spine.web.firebase;
 
+import com.google.common.testing.FakeTicker;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import io.spine.client.Subscription;
+import io.spine.client.SubscriptionId;
 import io.spine.client.Topic;
 import io.spine.client.TopicFactory;
 import io.spine.client.grpc.QueryServiceGrpc.QueryServiceImplBase;
+import io.spine.client.grpc.SubscriptionServiceGrpc.SubscriptionServiceImplBase;
 import io.spine.core.Response;
+import io.spine.web.storage.RealtimeStorage;
 import io.spine.web.subscription.result.SubscribeResult;
 import io.spine.web.subscription.result.SubscriptionCancelResult;
 import io.spine.web.subscription.result.SubscriptionKeepUpResult;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import javax.servlet.ServletResponse;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.Map;
 
+import static io.spine.core.Status.StatusCase.ERROR;
 import static io.spine.json.Json.fromJson;
 import static io.spine.json.Json.toCompactJson;
 import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.assertSubscriptionPointsToFirebase;
+import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.delegatingStorage;
 import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.mockWriter;
 import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.newBridge;
+import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.newPushingBridge;
+import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.newSharingBridge;
 import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.newResponse;
 import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.newSubscription;
 import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.newTarget;
+import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.respondWithEmptyResults;
+import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.respondWithSubscriptions;
 import static io.spine.web.firebase.given.FirebaseSubscriptionBridgeTestEnv.topicFactory;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -58,14 +87,17 @@ import static org.mockito.Mockito.when;
 @DisplayName("FirebaseSubscriptionBridge should")
 class FirebaseSubscriptionBridgeTest {
 
+    private static final long TIMEOUT_MILLIS = 5_000;
+
     private FirebaseSubscriptionBridge bridge;
     private TopicFactory topicFactory;
     private FirebaseDatabase firebaseDatabase;
+    private QueryServiceImplBase queryService;
 
     @BeforeEach
     void setUp() {
         this.firebaseDatabase = mock(FirebaseDatabase.class);
-        QueryServiceImplBase queryService = mock(QueryServiceImplBase.class);
+        this.queryService = mock(QueryServiceImplBase.class);
         bridge = newBridge(firebaseDatabase, queryService);
         topicFactory = topicFactory();
     }
@@ -89,6 +121,40 @@ class FirebaseSubscriptionBridgeTest {
         assertEquals(toCompactJson(responseMessage), writer.toString());
     }
 
+    @Test
+    @DisplayName("keep up many subscriptions at once")
+    void keepUpAll() throws IOException {
+        Subscription first = newSubscription(topicFactory.forTarget(newTarget()));
+        Subscription second = newSubscription(topicFactory.forTarget(newTarget()));
+
+        DatabaseReference reference = mock(DatabaseReference.class);
+        when(firebaseDatabase.getReference(anyString())).thenReturn(reference);
+
+        SubscriptionKeepUpResult result = bridge.keepUpAll(asList(first, second));
+
+        ServletResponse response = mock(ServletResponse.class);
+        StringWriter writer = mockWriter(response);
+        result.writeTo(response);
+        assertEquals(toCompactJson(newResponse()), writer.toString());
+        verify(queryService, times(2)).read(any(), any());
+    }
+
+    @Test
+    @DisplayName("report the failure of any of the subscriptions kept up at once")
+    void keepUpAllWithFailure() throws IOException {
+        Topic topic = topicFactory.forTarget(newTarget());
+        Subscription foreign = newSubscription(topic, "common/another-user/subscription");
+        Subscription own = newSubscription(topic);
+
+        DatabaseReference reference = mock(DatabaseReference.class);
+        when(firebaseDatabase.getReference(anyString())).thenReturn(reference);
+
+        SubscriptionKeepUpResult result = bridge.keepUpAll(asList(foreign, own));
+
+        assertFalse(result.isSuccessful());
+        verify(queryService, times(1)).read(any(), any());
+    }
+
     @Test
     @DisplayName("write OK response upon cancelling subscription")
     void cancelSubscription() throws IOException {
@@ -105,6 +171,58 @@ class FirebaseSubscriptionBridgeTest {
         assertEquals(toCompactJson(responseMessage), writer.toString());
     }
 
+    @Test
+    @DisplayName("remove the subscription node upon cancelling subscription")
+    void removeNodeUponCancel() {
+        Topic topic = topicFactory.forTarget(newTarget());
+        Subscription subscription = newSubscription(topic);
+        DatabaseReference reference = mock(DatabaseReference.class);
+        when(firebaseDatabase.getReference(subscription.getId()
+                                                       .getValue())).thenReturn(reference);
+
+        bridge.cancel(subscription);
+
+        verify(reference).removeValueAsync();
+    }
+
+    @Test
+    @DisplayName("not keep up a subscription with an empty ID")
+    void rejectEmptyId() throws IOException {
+        Topic topic = topicFactory.forTarget(newTarget());
+        Subscription subscription = newSubscription(topic)
+                .toBuilder()
+                .setId(SubscriptionId.getDefaultInstance())
+                .build();
+
+        SubscriptionKeepUpResult result = bridge.keepUp(subscription);
+
+        ServletResponse response = mock(ServletResponse.class);
+        StringWriter writer = mockWriter(response);
+        result.writeTo(response);
+        assertEquals(ERROR, fromJson(writer.toString(), Response.class).getStatus()
+                                                                        .getStatusCase());
+        verify(queryService, never()).read(any(), any());
+        verify(firebaseDatabase, never()).getReference(anyString());
+    }
+
+    @Test
+    @DisplayName("not cancel a subscription of another actor")
+    void rejectForeignId() throws IOException {
+        Topic topic = topicFactory.forTarget(newTarget());
+        Subscription subscription = newSubscription(topic, "common/another-user/subscription");
+        DatabaseReference reference = mock(DatabaseReference.class);
+        when(firebaseDatabase.getReference(anyString())).thenReturn(reference);
+
+        SubscriptionCancelResult result = bridge.cancel(subscription);
+
+        ServletResponse response = mock(ServletResponse.class);
+        StringWriter writer = mockWriter(response);
+        result.writeTo(response);
+        assertEquals(ERROR, fromJson(writer.toString(), Response.class).getStatus()
+                                                                        .getStatusCase());
+        verify(reference, never()).removeValueAsync();
+    }
+
     @Test
     @DisplayName("set firebase path to Subscription ID upon subscribe")
     void subscribe() throws IOException {
@@ -120,4 +238,335 @@ class FirebaseSubscriptionBridgeTest {
         assertEquals(topic, subscription.getTopic());
         assertSubscriptionPointsToFirebase(subscription.getId(), topic);
     }
+
+    @Nested
+    @DisplayName("in the push mode")
+    class PushMode {
+
+        private SubscriptionServiceImplBase subscriptionService;
+
+        @BeforeEach
+        void setUp() {
+            subscriptionService = mock(SubscriptionServiceImplBase.class);
+            respondWithSubscriptions(subscriptionService);
+            bridge = newPushingBridge(firebaseDatabase, queryService, subscriptionService);
+            DatabaseReference reference = mock(DatabaseReference.class);
+            when(firebaseDatabase.getReference(anyString())).thenReturn(reference);
+        }
+
+        @Test
+        @DisplayName("activate a Spine subscription upon subscribe")
+        void activate() {
+            Topic topic = topicFactory.forTarget(newTarget());
+
+            bridge.subscribe(topic);
+
+            verify(subscriptionService).subscribe(any(Topic.class), any());
+            verify(subscriptionService).activate(any(Subscription.class), any());
+        }
+
+        @Test
+        @DisplayName("not query entities upon subscription keep up")
+        void keepUpWithoutQuery() throws IOException {
+            Topic topic = topicFactory.forTarget(newTarget());
+            Subscription subscription = subscribe(topic);
+
+            SubscriptionKeepUpResult result = bridge.keepUp(subscription);
+
+            verify(queryService, times(1)).read(any(), any());
+            ServletResponse response = mock(ServletResponse.class);
+            StringWriter writer = mockWriter(response);
+            result.writeTo(response);
+            assertEquals(toCompactJson(newResponse()), writer.toString());
+        }
+
+        @Test
+        @DisplayName("refresh the whole subscription state periodically")
+        void refreshPeriodically() {
+            respondWithEmptyResults(queryService);
+            InMemoryRealtimeStorage storage = InMemoryRealtimeStorage.newBuilder()
+                                                                     .build();
+            bridge = FirebaseSubscriptionBridge.newBuilder()
+                                               .setStorage(storage)
+                                               .setQueryService(queryService)
+                                               .setSubscriptionService(subscriptionService)
+                                               .setRefreshInterval(10, MILLISECONDS)
+                                               .build();
+            try {
+                bridge.subscribe(topicFactory.forTarget(newTarget()));
+
+                verify(queryService, timeout(TIMEOUT_MILLIS).atLeast(3)).read(any(), any());
+            } finally {
+                bridge.shutdown();
+                storage.shutdown();
+            }
+        }
+
+        @Test
+        @DisplayName("cancel the Spine subscription upon cancelling subscription")
+        void cancelSpineSubscription() throws IOException {
+            Topic topic = topicFactory.forTarget(newTarget());
+            Subscription subscription = subscribe(topic);
+
+            bridge.cancel(subscription);
+
+            verify(subscriptionService).cancel(any(Subscription.class), any());
+        }
+
+        @Test
+        @DisplayName("not cancel anything for an unknown subscription")
+        void cancelUnknown() {
+            Topic topic = topicFactory.forTarget(newTarget());
+
+            bridge.cancel(newSubscription(topic));
+
+            verify(subscriptionService, never()).cancel(any(), any());
+        }
+
+        private Subscription subscribe(Topic topic) throws IOException {
+            SubscribeResult result = bridge.subscribe(topic);
+            ServletResponse response = mock(ServletResponse.class);
+            StringWriter writer = mockWriter(response);
+            result.writeTo(response);
+            return fromJson(writer.toString(), Subscription.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("with shared subscriptions")
+    class SharedSubscriptions {
+
+        private RealtimeStorage storage;
+
+        @BeforeEach
+        void setUp() {
+            respondWithEmptyResults(queryService);
+            storage = delegatingStorage();
+            bridge = newSharingBridge(storage, queryService);
+        }
+
+        @AfterEach
+        void tearDown() {
+            bridge.shutdown();
+        }
+
+        @Test
+        @DisplayName("share a node between identical topics")
+        void shareNode() throws IOException {
+            Topic topic = topicFactory.forTarget(newTarget());
+            Topic identicalTopic = topicFactory.forTarget(newTarget());
+
+            Subscription first = subscribe(topic);
+            Subscription second = subscribe(identicalTopic);
+
+            assertNotEquals(topic.getId(), identicalTopic.getId());
+            assertEquals(first.getId(), second.getId());
+            verify(queryService, times(1)).read(any(), any());
+        }
+
+        @Test
+        @DisplayName("remove the shared node after the last subscriber cancels")
+        void releaseNode() throws IOException {
+            Subscription first = subscribe(topicFactory.forTarget(newTarget()));
+            Subscription second = subscribe(topicFactory.forTarget(newTarget()));
+
+            bridge.cancel(first);
+            bridge.cancel(second);
+
+            String path = second.getId()
+                                .getValue();
+            verify(storage, timeout(TIMEOUT_MILLIS)).remove(path);
+            verify(storage, times(1)).remove(path);
+        }
+
+        @Test
+        @DisplayName("not re-read the shared node upon keep up")
+        void notRefreshUponKeepUp() throws IOException {
+            Subscription first = subscribe(topicFactory.forTarget(newTarget()));
+            Subscription second = subscribe(topicFactory.forTarget(newTarget()));
+
+            bridge.keepUp(first);
+            bridge.keepUp(second);
+
+            verify(queryService, times(1)).read(any(), any());
+        }
+
+        @Test
+        @DisplayName("refresh the shared node periodically")
+        void refreshPeriodically() throws IOException {
+            bridge.shutdown();
+            bridge = FirebaseSubscriptionBridge.newBuilder()
+                                               .setStorage(storage)
+                                               .setQueryService(queryService)
+                                               .setShareSubscriptions(true)
+                                               .setRefreshInterval(10, MILLISECONDS)
+                                               .build();
+            subscribe(topicFactory.forTarget(newTarget()));
+            subscribe(topicFactory.forTarget(newTarget()));
+
+            verify(queryService, timeout(TIMEOUT_MILLIS).atLeast(3)).read(any(), any());
+        }
+
+        @Test
+        @DisplayName("keep the shared node upon a repeated cancellation")
+        void cancelOnce() throws IOException {
+            Subscription first = subscribe(topicFactory.forTarget(newTarget()));
+            subscribe(topicFactory.forTarget(newTarget()));
+
+            bridge.cancel(first);
+            bridge.cancel(first);
+
+            verify(storage, never()).remove(anyString());
+        }
+
+        private Subscription subscribe(Topic topic) throws IOException {
+            SubscribeResult result = bridge.subscribe(topic);
+            ServletResponse response = mock(ServletResponse.class);
+            StringWriter writer = mockWriter(response);
+            result.writeTo(response);
+            return fromJson(writer.toString(), Subscription.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("with subscription leases")
+    class Leases {
+
+        private static final long LEASE_MINUTES = 1;
+
+        private FakeTicker ticker;
+        private RealtimeStorage storage;
+
+        @BeforeEach
+        void setUp() {
+            respondWithEmptyResults(queryService);
+            ticker = new FakeTicker();
+            storage = delegatingStorage();
+            bridge = newLeasingBridge(Integer.MAX_VALUE);
+        }
+
+        @AfterEach
+        void tearDown() {
+            bridge.shutdown();
+        }
+
+        @Test
+        @DisplayName("remove the nodes of the expired subscriptions")
+        void removeExpired() throws IOException {
+            Subscription subscription = subscribe(topicFactory.forTarget(newTarget()));
+            ticker.advance(2 * LEASE_MINUTES, MINUTES);
+
+            bridge.sweepExpired();
+
+            @SuppressWarnings("unchecked")
+            ArgumentCaptor<Map<String, Object>> removals = ArgumentCaptor.forClass(Map.class);
+            verify(storage, timeout(TIMEOUT_MILLIS)).update(eq(""), removals.capture());
+            String path = subscription.getId()
+                                      .getValue();
+            assertTrue(removals.getValue()
+                               .containsKey(path));
+            assertNull(removals.getValue()
+                               .get(path));
+        }
+
+        @Test
+        @DisplayName("not remove the nodes of the subscriptions which are kept up")
+        void keepRenewed() throws IOException {
+            Subscription subscription = subscribe(topicFactory.forTarget(newTarget()));
+            ticker.advance(50, SECONDS);
+            bridge.keepUp(subscription);
+            ticker.advance(50, SECONDS);
+
+            bridge.sweepExpired();
+
+            verify(storage, never()).update(eq(""), anyMap());
+        }
+
+        @Test
+        @DisplayName("restore the expired subscription upon keep up")
+        void restoreExpired() throws IOException {
+            Subscription subscription = subscribe(topicFactory.forTarget(newTarget()));
+            ticker.advance(2 * LEASE_MINUTES, MINUTES);
+            bridge.sweepExpired();
+
+            bridge.keepUp(subscription);
+            ticker.advance(2 * LEASE_MINUTES, MINUTES);
+            bridge.sweepExpired();
+
+            verify(storage, timeout(TIMEOUT_MILLIS).times(2)).update(eq(""), anyMap());
+        }
+
+        @Test
+        @DisplayName("report only the leased subscriptions as active")
+        void reportActive() throws IOException {
+            Subscription active = subscribe(topicFactory.forTarget(newTarget()));
+            Subscription cancelled = subscribe(topicFactory.forTarget(newTarget()));
+            bridge.cancel(cancelled);
+
+            assertTrue(bridge.isActive(active.getId()));
+            assertFalse(bridge.isActive(cancelled.getId()));
+
+            ticker.advance(2 * LEASE_MINUTES, MINUTES);
+            bridge.sweepExpired();
+            assertFalse(bridge.isActive(active.getId()));
+        }
+
+        @Test
+        @DisplayName("remove the expired nodes in batches")
+        void removeInBatches() throws IOException {
+            bridge.shutdown();
+            bridge = newLeasingBridge(1);
+            subscribe(topicFactory.forTarget(newTarget()));
+            subscribe(topicFactory.forTarget(newTarget()));
+            ticker.advance(2 * LEASE_MINUTES, MINUTES);
+
+            bridge.sweepExpired();
+
+            verify(storage, timeout(TIMEOUT_MILLIS).times(2)).update(eq(""), anyMap());
+        }
+
+        @Test
+        @DisplayName("restore the expired shared node for all its subscribers")
+        void restoreShared() throws IOException {
+            bridge.shutdown();
+            bridge = FirebaseSubscriptionBridge.newBuilder()
+                                               .setStorage(storage)
+                                               .setQueryService(queryService)
+                                               .setShareSubscriptions(true)
+                                               .setSubscriptionLease(LEASE_MINUTES, MINUTES)
+                                               .setTicker(ticker)
+                                               .build();
+            Subscription first = subscribe(topicFactory.forTarget(newTarget()));
+            Subscription second = subscribe(topicFactory.forTarget(newTarget()));
+            ticker.advance(2 * LEASE_MINUTES, MINUTES);
+            bridge.sweepExpired();
+
+            bridge.keepUp(first);
+            bridge.keepUp(second);
+            bridge.cancel(first);
+
+            verify(storage, never()).remove(anyString());
+            bridge.cancel(second);
+            verify(storage, timeout(TIMEOUT_MILLIS)).remove(second.getId()
+                                                                  .getValue());
+        }
+
+        private FirebaseSubscriptionBridge newLeasingBridge(int sweepBatchSize) {
+            return FirebaseSubscriptionBridge.newBuilder()
+                                             .setStorage(storage)
+                                             .setQueryService(queryService)
+                                             .setSubscriptionLease(LEASE_MINUTES, MINUTES)
+                                             .setSweepBatchSize(sweepBatchSize)
+                                             .setTicker(ticker)
+                                             .build();
+        }
+
+        private Subscription subscribe(Topic topic) throws IOException {
+            SubscribeResult result = bridge.subscribe(topic);
+            ServletResponse response = mock(ServletResponse.class);
+            StringWriter writer = mockWriter(response);
+            result.writeTo(response);
+            return fromJson(writer.toString(), Subscription.class);
+        }
+    }
 }
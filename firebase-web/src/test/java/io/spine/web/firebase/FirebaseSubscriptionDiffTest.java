@@ -25,6 +25,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static io.spine.web.firebase.FirebaseSubscriptionDiff.computeChanges;
 import static io.spine.web.firebase.FirebaseSubscriptionDiff.computeDiff;
 import static io.spine.web.firebase.given.FirebaseSubscriptionDiffTestEnv.dataReturning;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -100,4 +101,20 @@ class FirebaseSubscriptionDiffTest {
         assertEquals(1, diff.removed().size());
     }
 
+    @Test
+    @DisplayName("not acknowledge unmatched objects as removed when computing changes")
+    void createChangesDiff() {
+        MutableData changedMock = dataReturning("{\"id\":\"1\",\"a\":1,\"b\":3}");
+        MutableData untouchedMock = dataReturning("{\"id\":\"3\",\"a\":1}");
+
+        FirebaseSubscriptionDiff diff = computeChanges(
+                newArrayList("{\"id\":\"1\",\"a\":2,\"b\":4}", // changed
+                             "{\"id\":\"2\",\"added\":1}"), // added
+                newArrayList(changedMock, untouchedMock)
+        );
+
+        assertEquals(1, diff.changed().size());
+        assertEquals(1, diff.added().size());
+        assertEquals(0, diff.removed().size());
+    }
 }
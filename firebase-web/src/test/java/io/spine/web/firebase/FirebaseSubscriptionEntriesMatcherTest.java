@@ -0,0 +1,269 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.firebase.database.MutableData;
+import io.spine.web.firebase.given.Book;
+import io.spine.web.firebase.FirebaseSubscriptionEntries.Entry;
+import io.spine.web.firebase.FirebaseSubscriptionEntries.ExistingEntry;
+import io.spine.web.firebase.FirebaseSubscriptionEntries.UpToDateEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static io.spine.web.firebase.FirebaseSubscriptionEntries.Entry.Operation.ADD;
+import static io.spine.web.firebase.FirebaseSubscriptionEntries.Entry.Operation.CHANGE;
+import static io.spine.web.firebase.FirebaseSubscriptionEntries.Entry.Operation.PASS;
+import static io.spine.web.firebase.FirebaseSubscriptionEntries.DATA_PROPERTY;
+import static io.spine.web.firebase.FirebaseSubscriptionEntries.Entry.Operation.REMOVE;
+import static io.spine.web.firebase.given.FirebaseSubscriptionEntriesMatcherTestEnv.existingData;
+import static io.spine.web.firebase.given.FirebaseSubscriptionEntriesMatcherTestEnv.randomExistingData;
+import static io.spine.web.firebase.given.FirebaseSubscriptionEntriesMatcherTestEnv.randomUpToDateEntries;
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Authors.gangOfFour;
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Books.aliceInWonderland;
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Books.designPatterns;
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Books.donQuixote;
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Books.guideToTheGalaxy;
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.updateAuthors;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Stream.concat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@DisplayName("FirebaseSubscriptionEntriesMatcher should")
+class FirebaseSubscriptionEntriesMatcherTest {
+
+    private static final long SEED = 42L;
+
+    @Test
+    @DisplayName("match entries by ID and by content")
+    void matchEntries() {
+        List<MutableData> firebaseData = newArrayList(
+                existingData("changed", "{\"id\":\"1\",\"a\":1,\"b\":3}"),
+                existingData("removed", "{\"x\":\"asd\",\"y\":3}"),
+                existingData("passed", "{\"pass\":true}"),
+                existingData("passedById", "{\"id\":{\"value\": \"passed\"}}")
+        );
+        List<String> newEntries = newArrayList("{\"id\":\"1\",\"a\":2,\"b\":4}",
+                                               "{\"a\":1,\"b\":3}",
+                                               "{\"id\":{\"value\": \"passed\"}}",
+                                               "{\"id\":\"2\",\"added\":1}",
+                                               "{\"pass\": true}");
+
+        List<String> matched = describe(matchIndexed(firebaseData, newEntries));
+
+        List<String> expected = newArrayList(
+                CHANGE + ":changed:{\"id\":\"1\",\"a\":2,\"b\":4}",
+                ADD + ":null:{\"a\":1,\"b\":3}",
+                PASS + ":passedById:{\"id\":{\"value\": \"passed\"}}",
+                ADD + ":null:{\"id\":\"2\",\"added\":1}",
+                PASS + ":passed:{\"pass\": true}",
+                REMOVE + ":removed:{\"x\":\"asd\",\"y\":3}"
+        );
+        assertEquals(expected, matched);
+    }
+
+    @Test
+    @DisplayName("match entries with equal content in the order of the existing entries")
+    void matchDuplicates() {
+        String duplicate = "{\"value\":1}";
+        List<MutableData> firebaseData = newArrayList(existingData("first", duplicate),
+                                                      existingData("second", duplicate),
+                                                      existingData("third", duplicate));
+        List<String> newEntries = newArrayList(duplicate, duplicate);
+
+        List<String> matched = describe(matchIndexed(firebaseData, newEntries));
+
+        List<String> expected = newArrayList(PASS + ":first:" + duplicate,
+                                             PASS + ":second:" + duplicate,
+                                             REMOVE + ":third:" + duplicate);
+        assertEquals(expected, matched);
+    }
+
+    @Test
+    @DisplayName("match entries stored with digests without parsing them")
+    void matchByDigests() {
+        Book designPatterns = designPatterns();
+        Book aliceInWonderland = aliceInWonderland();
+        List<ExistingEntry> existingEntries =
+                newArrayList(unparseableEntry("changed", designPatterns),
+                             unparseableEntry("passed", aliceInWonderland),
+                             unparseableEntry("removed", guideToTheGalaxy()));
+        List<UpToDateEntry> newEntries =
+                newArrayList(UpToDateEntry.fromMessage(updateAuthors(designPatterns,
+                                                                     gangOfFour())),
+                             UpToDateEntry.fromMessage(aliceInWonderland),
+                             UpToDateEntry.fromMessage(donQuixote()));
+
+        FirebaseSubscriptionEntriesMatcher matcher =
+                new FirebaseSubscriptionEntriesMatcher(existingEntries);
+        List<String> matched = matcher.match(newEntries)
+                                      .stream()
+                                      .map(entry -> entry.operation() + ":" + entry.key())
+                                      .collect(toList());
+
+        List<String> expected = newArrayList(CHANGE + ":changed",
+                                             PASS + ":passed",
+                                             ADD + ":null",
+                                             REMOVE + ":removed");
+        assertEquals(expected, matched);
+    }
+
+    @Test
+    @DisplayName("rewrite unchanged plain entries with digests")
+    void rewritePlainEntries() {
+        UpToDateEntry entry = UpToDateEntry.fromMessage(aliceInWonderland());
+        List<ExistingEntry> existingEntries =
+                newArrayList(ExistingEntry.of("plain", entry.data()));
+
+        FirebaseSubscriptionEntriesMatcher matcher =
+                new FirebaseSubscriptionEntriesMatcher(existingEntries);
+        List<Entry> matched = matcher.match(newArrayList(entry));
+
+        assertEquals(1, matched.size());
+        Entry rewritten = matched.get(0);
+        assertEquals(CHANGE, rewritten.operation());
+        assertEquals("plain", rewritten.key());
+        assertEquals(entry.value(), rewritten.value());
+    }
+
+    @Test
+    @DisplayName("compute equal ID digests for the states of the same entity")
+    void digestIds() {
+        Book designPatterns = designPatterns();
+        UpToDateEntry initial = UpToDateEntry.fromMessage(designPatterns);
+        UpToDateEntry updated =
+                UpToDateEntry.fromMessage(updateAuthors(designPatterns, gangOfFour()));
+
+        assertEquals(initial.idHash(), updated.idHash());
+        assertNotEquals(initial.hash(), updated.hash());
+        assertEquals(initial.hash(), UpToDateEntry.fromMessage(designPatterns)
+                                                  .hash());
+    }
+
+    @Test
+    @DisplayName("produce the same results as a linear scan")
+    void matchSameAsLinearScan() {
+        Random random = new Random(SEED);
+        for (int round = 0; round < 50; round++) {
+            int count = 1 + random.nextInt(40);
+            List<MutableData> firebaseData = randomExistingData(random, count);
+            List<String> newEntries = randomUpToDateEntries(random, count);
+
+            List<String> expected = describe(matchLinearly(firebaseData, newEntries));
+            List<String> actual = describe(matchIndexed(firebaseData, newEntries));
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * Creates an entry stored with the digests of the given book and a data which is not a JSON,
+     * so that parsing the entry fails.
+     */
+    private static ExistingEntry unparseableEntry(String key, Book book) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> storedValue = (Map<String, Object>) UpToDateEntry.fromMessage(book)
+                                                                              .value();
+        Map<String, Object> value = new HashMap<>(storedValue);
+        value.put(DATA_PROPERTY, "not a JSON");
+        return ExistingEntry.of(key, value);
+    }
+
+    private static List<Entry> matchIndexed(List<MutableData> firebaseData,
+                                            List<String> newEntries) {
+        FirebaseSubscriptionEntriesMatcher matcher =
+                new FirebaseSubscriptionEntriesMatcher(existingEntries(firebaseData));
+        return matcher.match(upToDateEntries(newEntries));
+    }
+
+    private static List<Entry> matchLinearly(List<MutableData> firebaseData,
+                                             List<String> newEntries) {
+        LinearScanMatcher matcher = new LinearScanMatcher(existingEntries(firebaseData));
+        return matcher.match(upToDateEntries(newEntries));
+    }
+
+    private static List<ExistingEntry> existingEntries(List<MutableData> firebaseData) {
+        return firebaseData.stream()
+                           .map(ExistingEntry::fromFirebaseData)
+                           .collect(toList());
+    }
+
+    private static List<UpToDateEntry> upToDateEntries(List<String> newEntries) {
+        return newEntries.stream()
+                         .map(UpToDateEntry::new)
+                         .collect(toList());
+    }
+
+    private static List<String> describe(List<Entry> entries) {
+        return entries.stream()
+                      .map(entry -> entry.operation() + ":" + entry.key() + ':' + entry.data())
+                      .collect(toList());
+    }
+
+    /**
+     * The reference implementation of the entries matching, which scans all the remaining
+     * existing entries for each up-to-date entry.
+     */
+    private static final class LinearScanMatcher {
+
+        private final List<ExistingEntry> unmatchedEntries;
+
+        private LinearScanMatcher(List<ExistingEntry> entries) {
+            this.unmatchedEntries = new ArrayList<>(entries);
+        }
+
+        private List<Entry> match(List<UpToDateEntry> entries) {
+            List<Entry> matched = entries.stream()
+                                         .map(this::match)
+                                         .collect(toList());
+            List<Entry> unmatched = unmatchedEntries
+                    .stream()
+                    .map(existing -> new Entry(existing.key(), existing.data(), REMOVE))
+                    .collect(toList());
+            return concat(matched.stream(), unmatched.stream()).collect(toList());
+        }
+
+        private Entry match(UpToDateEntry entry) {
+            Optional<ExistingEntry> matchingEntry =
+                    unmatchedEntries.stream()
+                                    .filter(existing -> entry.containsId()
+                                                        ? existing.containsId()
+                                                          && existing.id().equals(entry.id())
+                                                        : existing.json().equals(entry.json()))
+                                    .findFirst();
+            if (!matchingEntry.isPresent()) {
+                return new Entry(entry.data(), ADD);
+            }
+            ExistingEntry existing = matchingEntry.get();
+            unmatchedEntries.remove(existing);
+            boolean unchanged = existing.json().equals(entry.json());
+            return new Entry(existing.key(), entry.data(), unchanged ? PASS : CHANGE);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.testing.FakeTicker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("FirebaseSubscriptionLeases should")
+class FirebaseSubscriptionLeasesTest {
+
+    private static final FirebaseDatabasePath PATH = FirebaseDatabasePath.fromString("leased/node");
+
+    private FakeTicker ticker;
+    private FirebaseSubscriptionLeases leases;
+
+    @BeforeEach
+    void setUp() {
+        ticker = new FakeTicker();
+        leases = new FirebaseSubscriptionLeases(1, MINUTES, ticker);
+    }
+
+    @Test
+    @DisplayName("not allow non-positive lease duration")
+    void rejectInvalidDuration() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new FirebaseSubscriptionLeases(0, MINUTES, ticker));
+    }
+
+    @Test
+    @DisplayName("not take the leases which have not expired")
+    void keepActive() {
+        leases.grant(PATH);
+        ticker.advance(59, SECONDS);
+
+        assertTrue(leases.takeExpired(10)
+                         .isEmpty());
+    }
+
+    @Test
+    @DisplayName("take the expired leases only once")
+    void takeExpired() {
+        leases.grant(PATH);
+        ticker.advance(1, MINUTES);
+
+        assertEquals(newArrayList(PATH), leases.takeExpired(10));
+        assertTrue(leases.takeExpired(10)
+                         .isEmpty());
+        assertFalse(leases.renew(PATH));
+    }
+
+    @Test
+    @DisplayName("extend the lease upon renewal")
+    void renew() {
+        leases.grant(PATH);
+        ticker.advance(50, SECONDS);
+
+        assertTrue(leases.renew(PATH));
+        ticker.advance(50, SECONDS);
+        assertTrue(leases.takeExpired(10)
+                         .isEmpty());
+    }
+
+    @Test
+    @DisplayName("renew the expired lease which is not taken yet")
+    void renewExpired() {
+        leases.grant(PATH);
+        ticker.advance(2, MINUTES);
+
+        assertTrue(leases.renew(PATH));
+        assertTrue(leases.takeExpired(10)
+                         .isEmpty());
+    }
+
+    @Test
+    @DisplayName("not take the released leases")
+    void release() {
+        leases.grant(PATH);
+        leases.release(PATH);
+        ticker.advance(2, MINUTES);
+
+        assertTrue(leases.takeExpired(10)
+                         .isEmpty());
+    }
+
+    @Test
+    @DisplayName("take no more than the given number of leases")
+    void limitTaken() {
+        leases.grant(PATH);
+        leases.grant(FirebaseDatabasePath.fromString("other/node"));
+        ticker.advance(2, MINUTES);
+
+        assertEquals(1, leases.takeExpired(1)
+                              .size());
+        assertEquals(1, leases.takeExpired(1)
+                              .size());
+    }
+}
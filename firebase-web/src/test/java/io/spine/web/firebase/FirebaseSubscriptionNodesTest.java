@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("FirebaseSubscriptionNodes should")
+class FirebaseSubscriptionNodesTest {
+
+    private static final FirebaseDatabasePath PATH = FirebaseDatabasePath.fromString("shared/node");
+
+    private static final String FIRST = "first-subscriber";
+    private static final String SECOND = "second-subscriber";
+
+    private FirebaseSubscriptionNodes nodes;
+
+    @BeforeEach
+    void setUp() {
+        nodes = new FirebaseSubscriptionNodes();
+    }
+
+    @Test
+    @DisplayName("report only the first subscriber upon acquisition")
+    void acquire() {
+        assertTrue(nodes.acquire(PATH, FIRST));
+        assertFalse(nodes.acquire(PATH, SECOND));
+        assertTrue(nodes.acquire(FirebaseDatabasePath.fromString("other/node"), FIRST));
+    }
+
+    @Test
+    @DisplayName("release the node after the last subscriber")
+    void release() {
+        nodes.acquire(PATH, FIRST);
+        nodes.acquire(PATH, SECOND);
+
+        assertFalse(nodes.release(PATH, FIRST));
+        assertTrue(nodes.release(PATH, SECOND));
+        assertTrue(nodes.acquire(PATH, FIRST));
+    }
+
+    @Test
+    @DisplayName("release the node once per subscriber")
+    void releaseOnce() {
+        nodes.acquire(PATH, FIRST);
+        nodes.acquire(PATH, SECOND);
+
+        assertFalse(nodes.release(PATH, FIRST));
+        assertFalse(nodes.release(PATH, FIRST));
+        assertTrue(nodes.release(PATH, SECOND));
+    }
+
+    @Test
+    @DisplayName("count a subscriber acquiring the node twice once")
+    void acquireOnce() {
+        nodes.acquire(PATH, FIRST);
+        nodes.acquire(PATH, FIRST);
+
+        assertTrue(nodes.release(PATH, FIRST));
+    }
+
+    @Test
+    @DisplayName("not release an unknown node or subscriber")
+    void releaseUnknown() {
+        assertFalse(nodes.release(PATH, FIRST));
+        nodes.acquire(PATH, FIRST);
+        assertFalse(nodes.release(PATH, SECOND));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("FirebaseSubscriptionQueues should")
+class FirebaseSubscriptionQueuesTest {
+
+    private static final FirebaseDatabasePath PATH = FirebaseDatabasePath.fromString("queued/a");
+    private static final FirebaseDatabasePath OTHER_PATH =
+            FirebaseDatabasePath.fromString("queued/b");
+
+    private FirebaseSubscriptionQueues queues;
+
+    @BeforeEach
+    void setUp() {
+        queues = new FirebaseSubscriptionQueues();
+    }
+
+    @Test
+    @DisplayName("start a write to a node after the previous write is completed")
+    void orderWrites() {
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        queues.enqueue(PATH, () -> first);
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<Void> second = queues.enqueue(PATH, () -> start(started));
+
+        assertFalse(started.get());
+        first.complete(null);
+        assertTrue(started.get());
+        assertTrue(second.isDone());
+    }
+
+    @Test
+    @DisplayName("start a write after the previous write fails")
+    void continueAfterFailure() {
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        queues.enqueue(PATH, () -> first);
+        AtomicBoolean started = new AtomicBoolean();
+        queues.enqueue(PATH, () -> start(started));
+
+        first.completeExceptionally(new IllegalStateException("Write failed."));
+        assertTrue(started.get());
+    }
+
+    @Test
+    @DisplayName("start the writes to different nodes independently")
+    void notOrderDifferentNodes() {
+        queues.enqueue(PATH, CompletableFuture::new);
+        AtomicBoolean started = new AtomicBoolean();
+        queues.enqueue(OTHER_PATH, () -> start(started));
+
+        assertTrue(started.get());
+    }
+
+    @Test
+    @DisplayName("start a write to several nodes after the previous writes to all of them")
+    void orderMultiNodeWrites() {
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        CompletableFuture<Void> second = new CompletableFuture<>();
+        queues.enqueue(PATH, () -> first);
+        queues.enqueue(OTHER_PATH, () -> second);
+        AtomicBoolean started = new AtomicBoolean();
+        queues.enqueue(ImmutableList.of(PATH, OTHER_PATH), () -> start(started));
+
+        first.complete(null);
+        assertFalse(started.get());
+        second.complete(null);
+        assertTrue(started.get());
+    }
+
+    private static CompletableFuture<Void> start(AtomicBoolean started) {
+        started.set(true);
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -20,29 +20,40 @@
 
 package io.spine.web.firebase;
 
+import com.google.api.core.ApiFutures;
+import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.MutableData;
+import com.google.protobuf.Message;
 import io.spine.client.QueryResponse;
+import io.spine.web.firebase.FirebaseSubscriptionEntries.UpToDateEntry;
 import io.spine.web.firebase.given.Book;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import java.util.Map;
 import java.util.concurrent.CompletionStage;
 
 import static com.google.common.collect.Lists.newArrayList;
-import static io.spine.json.Json.toCompactJson;
 import static io.spine.web.firebase.FirebaseDatabasePath.fromString;
 import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Authors.gangOfFour;
 import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Books.aliceInWonderland;
 import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Books.designPatterns;
 import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Books.donQuixote;
 import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.Books.guideToTheGalaxy;
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.bookSnapshot;
 import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.mockQueryResponse;
 import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.mockTransactionalWrite;
 import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.mutableBookData;
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.nodeSnapshot;
 import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.updateAuthors;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -55,6 +66,8 @@ import static org.mockito.Mockito.when;
 @DisplayName("FirebaseSubscriptionRecord should")
 class FirebaseSubscriptionRecordTest {
 
+    private final FirebaseWriteScheduler scheduler = FirebaseWriteScheduler.defaultInstance();
+
     @Test
     @DisplayName("store an initial subscription adding new entries")
     void storeInitial() {
@@ -71,16 +84,18 @@ class FirebaseSubscriptionRecordTest {
 
         MutableData mutableData = mock(MutableData.class);
         MutableData mutableItem = mock(MutableData.class);
+        when(mutableData.getChildren()).thenReturn(newArrayList());
         when(mutableData.child(anyString())).thenReturn(mutableItem);
         mockTransactionalWrite(ref, mutableData);
 
         FirebaseSubscriptionRecord record = new FirebaseSubscriptionRecord(fromString(dbPath),
-                                                                           queryResponse);
-        record.storeAsInitial(db);
+                                                                           queryResponse,
+                                                                           scheduler);
+        record.storeAsInitial(FirebaseRealtimeStorage.newInstance(db));
 
         verify(mutableItem, times(2)).setValue(any());
-        verify(mutableItem).setValue(toCompactJson(aliceInWonderland));
-        verify(mutableItem).setValue(toCompactJson(donQuixote));
+        verify(mutableItem).setValue(storedValue(aliceInWonderland));
+        verify(mutableItem).setValue(storedValue(donQuixote));
     }
 
     @Test
@@ -122,18 +137,74 @@ class FirebaseSubscriptionRecordTest {
         mockTransactionalWrite(ref, mutableData);
 
         FirebaseSubscriptionRecord record = new FirebaseSubscriptionRecord(fromString(dbPath),
-                                                                           queryResponse);
-        record.storeAsUpdate(db);
+                                                                           queryResponse,
+                                                                           scheduler);
+        record.storeAsUpdate(FirebaseRealtimeStorage.newInstance(db));
 
         verify(mutableItem, times(3)).setValue(any());
         verify(mutableData, times(3)).child(anyString());
 
-        verify(mutableItem).setValue(toCompactJson(donQuixote));
+        verify(mutableItem).setValue(storedValue(donQuixote));
 
         verify(mutableData).child(patternsKey);
-        verify(mutableItem).setValue(toCompactJson(designPatternsWithAuthors));
+        verify(mutableItem).setValue(storedValue(designPatternsWithAuthors));
 
         verify(mutableData).child(guideToTheGalaxyKey);
         verify(mutableItem).setValue(null);
     }
+
+    @Test
+    @DisplayName("diff a subscription update against the shadow of the stored data")
+    void storeUpdateAgainstShadow() {
+        Book aliceInWonderland = aliceInWonderland();
+        Book guideToTheGalaxy = guideToTheGalaxy();
+        Book donQuixote = donQuixote();
+        String aliceKey = "alice";
+        String guideToTheGalaxyKey = "guide";
+
+        String dbPath = "subscription-shadow-db-path";
+        FirebaseDatabase db = mock(FirebaseDatabase.class);
+        DatabaseReference ref = mock(DatabaseReference.class);
+        when(db.getReference(dbPath)).thenReturn(ref);
+        when(ref.updateChildrenAsync(anyMap())).thenReturn(ApiFutures.immediateFuture(null));
+
+        MutableData mutableData = mock(MutableData.class);
+        when(mutableData.getChildren()).thenReturn(newArrayList());
+        when(mutableData.child(anyString())).thenReturn(mock(MutableData.class));
+        DataSnapshot committedData =
+                nodeSnapshot(bookSnapshot(aliceKey, aliceInWonderland),
+                             bookSnapshot(guideToTheGalaxyKey, guideToTheGalaxy));
+        mockTransactionalWrite(ref, mutableData, committedData);
+
+        FirebaseSubscriptionShadows shadows = FirebaseSubscriptionShadows.withMaximumSize(10);
+
+        // The first update has no shadow to diff against and is written in a transaction.
+        @SuppressWarnings("unchecked")
+        CompletionStage<QueryResponse> initialResponse = mock(CompletionStage.class);
+        mockQueryResponse(initialResponse, aliceInWonderland, guideToTheGalaxy);
+        new FirebaseSubscriptionRecord(fromString(dbPath), initialResponse, scheduler, shadows)
+                .storeAsUpdate(FirebaseRealtimeStorage.newInstance(db));
+        verify(ref).runTransaction(any());
+
+        @SuppressWarnings("unchecked")
+        CompletionStage<QueryResponse> updatedResponse = mock(CompletionStage.class);
+        mockQueryResponse(updatedResponse, aliceInWonderland, donQuixote);
+        new FirebaseSubscriptionRecord(fromString(dbPath), updatedResponse, scheduler, shadows)
+                .storeAsUpdate(FirebaseRealtimeStorage.newInstance(db));
+
+        verify(ref).runTransaction(any());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> updateCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(ref).updateChildrenAsync(updateCaptor.capture());
+        Map<String, Object> update = updateCaptor.getValue();
+        assertEquals(2, update.size());
+        assertTrue(update.containsKey(guideToTheGalaxyKey));
+        assertNull(update.get(guideToTheGalaxyKey));
+        assertTrue(update.containsValue(storedValue(donQuixote)));
+    }
+
+    private static Object storedValue(Message message) {
+        return UpToDateEntry.fromMessage(message)
+                            .value();
+    }
 }
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.collect.ImmutableMap;
+import io.spine.web.firebase.FirebaseSubscriptionShadows.Shadow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.spine.web.firebase.given.FirebaseSubscriptionRecordTestEnv.nodeSnapshot;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("FirebaseSubscriptionShadows should")
+class FirebaseSubscriptionShadowsTest {
+
+    private static final FirebaseDatabasePath PATH =
+            FirebaseDatabasePath.fromString("shadowed/node");
+
+    private FirebaseSubscriptionShadows shadows;
+
+    @BeforeEach
+    void setUp() {
+        shadows = FirebaseSubscriptionShadows.withMaximumSize(10);
+    }
+
+    @Test
+    @DisplayName("not allow non-positive size")
+    void rejectInvalidSize() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> FirebaseSubscriptionShadows.withMaximumSize(0));
+    }
+
+    @Test
+    @DisplayName("keep no shadows if disabled")
+    void disabled() {
+        FirebaseSubscriptionShadows disabled = FirebaseSubscriptionShadows.disabled();
+        disabled.transactionStarted(PATH);
+        disabled.transactionCompleted(PATH, emptyShadow());
+
+        assertFalse(disabled.enabled());
+        assertFalse(disabled.get(PATH)
+                            .isPresent());
+    }
+
+    @Test
+    @DisplayName("create a shadow from a committed transaction")
+    void seedFromTransaction() {
+        Shadow committed = emptyShadow();
+        shadows.transactionStarted(PATH);
+        assertFalse(shadows.get(PATH)
+                           .isPresent());
+
+        shadows.transactionCompleted(PATH, committed);
+        assertSame(committed, shadows.get(PATH)
+                                     .orElse(null));
+    }
+
+    @Test
+    @DisplayName("hide the shadow until all transactions complete")
+    void awaitTransactions() {
+        shadows.transactionStarted(PATH);
+        shadows.transactionStarted(PATH);
+
+        shadows.transactionCompleted(PATH, emptyShadow());
+        assertFalse(shadows.get(PATH)
+                           .isPresent());
+
+        shadows.transactionCompleted(PATH, emptyShadow());
+        assertTrue(shadows.get(PATH)
+                          .isPresent());
+    }
+
+    @Test
+    @DisplayName("not create a shadow from a failed transaction")
+    void ignoreFailedTransaction() {
+        shadows.transactionStarted(PATH);
+        shadows.transactionCompleted(PATH, null);
+
+        assertFalse(shadows.get(PATH)
+                           .isPresent());
+    }
+
+    @Test
+    @DisplayName("advance the shadow and start the write")
+    void advance() {
+        Shadow base = seed();
+        Shadow next = base.apply(ImmutableMap.of("key", "{\"id\":\"1\"}"));
+        AtomicBoolean written = new AtomicBoolean();
+
+        assertTrue(shadows.advance(PATH, base, next, () -> written.set(true)));
+        assertTrue(written.get());
+        assertSame(next, shadows.get(PATH)
+                                .orElse(null));
+    }
+
+    @Test
+    @DisplayName("not advance an outdated shadow")
+    void rejectOutdated() {
+        Shadow base = seed();
+        shadows.advance(PATH, base, emptyShadow(), () -> {});
+        AtomicBoolean written = new AtomicBoolean();
+
+        assertFalse(shadows.advance(PATH, base, emptyShadow(), () -> written.set(true)));
+        assertFalse(written.get());
+    }
+
+    @Test
+    @DisplayName("drop an invalidated shadow")
+    void invalidate() {
+        seed();
+        shadows.invalidate(PATH);
+
+        assertFalse(shadows.get(PATH)
+                           .isPresent());
+    }
+
+    @Test
+    @DisplayName("apply the children update to the shadow")
+    void applyUpdate() {
+        Shadow base = emptyShadow().apply(ImmutableMap.of("first", "{\"id\":\"1\"}",
+                                                          "second", "{\"id\":\"2\"}"));
+        Map<String, Object> update = new HashMap<>();
+        update.put("first", null);
+        update.put("second", "{\"id\":\"2\",\"name\":\"updated\"}");
+        update.put("third", "{\"id\":\"3\"}");
+
+        Shadow next = base.apply(update);
+
+        assertEquals(2, base.entries()
+                            .size());
+        assertEquals(2, next.entries()
+                            .size());
+        assertEquals("updated", next.entries()
+                                    .get(0)
+                                    .json()
+                                    .get("name")
+                                    .asText());
+        assertEquals("third", next.entries()
+                                  .get(1)
+                                  .key());
+    }
+
+    private static Shadow emptyShadow() {
+        return Shadow.of(nodeSnapshot());
+    }
+
+    private Shadow seed() {
+        Shadow shadow = emptyShadow();
+        shadows.transactionStarted(PATH);
+        shadows.transactionCompleted(PATH, shadow);
+        return shadow;
+    }
+}
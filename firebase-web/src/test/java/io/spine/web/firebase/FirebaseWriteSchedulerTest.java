@@ -0,0 +1,195 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import io.spine.web.metrics.InMemoryWebMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.util.concurrent.Uninterruptibles.awaitUninterruptibly;
+import static io.spine.web.firebase.FirebaseMetricNames.IN_FLIGHT_WRITES;
+import static io.spine.web.firebase.FirebaseMetricNames.PENDING_WRITES;
+import static io.spine.web.firebase.FirebaseMetricNames.SERIALIZATION_REJECTED;
+import static io.spine.web.firebase.FirebaseMetricNames.WRITE;
+import static io.spine.web.firebase.FirebaseMetricNames.WRITE_REJECTED;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("FirebaseWriteScheduler should")
+class FirebaseWriteSchedulerTest {
+
+    private FirebaseWriteScheduler scheduler;
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    @DisplayName("limit the number of writes in flight")
+    void limitInFlightWrites() throws Exception {
+        scheduler = FirebaseWriteScheduler.newBuilder()
+                                          .setMaxInFlightWrites(1)
+                                          .build();
+        CompletableFuture<Void> firstWrite = new CompletableFuture<>();
+        AtomicBoolean secondStarted = new AtomicBoolean();
+
+        scheduler.write(() -> firstWrite);
+        scheduler.write(() -> {
+            secondStarted.set(true);
+            return new CompletableFuture<Void>();
+        });
+        assertFalse(secondStarted.get());
+
+        firstWrite.complete(null);
+        waitUntil(secondStarted);
+        assertTrue(secondStarted.get());
+    }
+
+    @Test
+    @DisplayName("reject writes exceeding the pending writes limit")
+    void rejectPendingWrites() {
+        scheduler = FirebaseWriteScheduler.newBuilder()
+                                          .setMaxInFlightWrites(1)
+                                          .setMaxPendingWrites(1)
+                                          .build();
+        scheduler.write(CompletableFuture::new);
+        scheduler.write(CompletableFuture::new);
+
+        CompletableFuture<Void> rejected = scheduler.write(CompletableFuture::new);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertTrue(exception.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    @DisplayName("report saturation when the pending writes limit is reached")
+    void reportSaturation() {
+        scheduler = FirebaseWriteScheduler.newBuilder()
+                                          .setMaxInFlightWrites(1)
+                                          .setMaxPendingWrites(1)
+                                          .build();
+        scheduler.write(CompletableFuture::new);
+        assertFalse(scheduler.isSaturated());
+
+        scheduler.write(CompletableFuture::new);
+        assertTrue(scheduler.isSaturated());
+    }
+
+    @Test
+    @DisplayName("fail writes which do not complete in time")
+    void timeOutWrites() {
+        scheduler = FirebaseWriteScheduler.newBuilder()
+                                          .build();
+        CompletableFuture<Void> result = scheduler.write(CompletableFuture::new, 1L);
+
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                                                     () -> result.get(5, SECONDS));
+        assertTrue(exception.getCause() instanceof TimeoutException);
+    }
+
+    @Test
+    @DisplayName("keep a timed out write in flight until it completes")
+    void holdTimedOutWrites() throws Exception {
+        scheduler = FirebaseWriteScheduler.newBuilder()
+                                          .setMaxInFlightWrites(1)
+                                          .build();
+        CompletableFuture<Void> firstWrite = new CompletableFuture<>();
+        AtomicBoolean secondStarted = new AtomicBoolean();
+        CompletableFuture<Void> first = scheduler.write(() -> firstWrite, 1L);
+        scheduler.write(() -> {
+            secondStarted.set(true);
+            return new CompletableFuture<Void>();
+        });
+
+        assertThrows(ExecutionException.class, () -> first.get(5, SECONDS));
+        assertFalse(secondStarted.get());
+
+        firstWrite.complete(null);
+        waitUntil(secondStarted);
+        assertTrue(secondStarted.get());
+    }
+
+    @Test
+    @DisplayName("reject serialization tasks exceeding the queue limit")
+    void rejectSerializations() {
+        InMemoryWebMetrics metrics = new InMemoryWebMetrics();
+        scheduler = FirebaseWriteScheduler.newBuilder()
+                                          .setSerializationThreads(1)
+                                          .setMaxQueuedSerializations(1)
+                                          .setMetrics(metrics)
+                                          .build();
+        CountDownLatch blocked = new CountDownLatch(1);
+        Executor executor = scheduler.serializationExecutor();
+        executor.execute(() -> awaitUninterruptibly(blocked));
+        executor.execute(() -> { });
+        try {
+            assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+            assertEquals(1, metrics.counter(SERIALIZATION_REJECTED));
+        } finally {
+            blocked.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("report the write metrics")
+    void reportMetrics() throws Exception {
+        InMemoryWebMetrics metrics = new InMemoryWebMetrics();
+        scheduler = FirebaseWriteScheduler.newBuilder()
+                                          .setMaxInFlightWrites(1)
+                                          .setMaxPendingWrites(1)
+                                          .setMetrics(metrics)
+                                          .build();
+        CompletableFuture<Void> firstWrite = new CompletableFuture<>();
+        CompletableFuture<Void> first = scheduler.write(() -> firstWrite);
+        scheduler.write(CompletableFuture::new);
+        scheduler.write(CompletableFuture::new);
+
+        assertEquals(1, metrics.gauge(IN_FLIGHT_WRITES)
+                               .getAsLong());
+        assertEquals(1, metrics.gauge(PENDING_WRITES)
+                               .getAsLong());
+        assertEquals(1, metrics.counter(WRITE_REJECTED));
+
+        firstWrite.complete(null);
+        first.get(5, SECONDS);
+        assertTrue(metrics.histogram(WRITE)
+                          .isPresent());
+    }
+
+    private static void waitUntil(AtomicBoolean flag) throws InterruptedException {
+        for (int attempt = 0; attempt < 50 && !flag.get(); attempt++) {
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase;
+
+import com.google.common.collect.ImmutableMap;
+import io.spine.web.firebase.InMemoryRealtimeStorage.InjectedFailure;
+import io.spine.web.storage.RealtimeStorage.ChildListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static io.spine.web.firebase.InMemoryRealtimeStorage.Operation.SET;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("InMemoryRealtimeStorage should")
+class InMemoryRealtimeStorageTest {
+
+    private InMemoryRealtimeStorage storage;
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    @DisplayName("store values in the Firebase representation")
+    void storeValues() throws Exception {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .build();
+        storage.set("node", ImmutableMap.of("list", newArrayList("a", "b"),
+                                            "number", 42,
+                                            "empty", new HashMap<>()))
+               .get(1, SECONDS);
+
+        assertEquals(Optional.of("b"), storage.read("node/list/1"));
+        assertEquals(Optional.of(42L), storage.read("node/number"));
+        assertFalse(storage.read("node/empty")
+                           .isPresent());
+    }
+
+    @Test
+    @DisplayName("update and remove the nodes by the relative paths")
+    void updateChildren() throws Exception {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .build();
+        storage.set("root", ImmutableMap.of("first", "1", "second", "2"))
+               .get(1, SECONDS);
+        Map<String, Object> update = new HashMap<>();
+        update.put("first", null);
+        update.put("third/nested", "3");
+        storage.update("root", update)
+               .get(1, SECONDS);
+
+        assertFalse(storage.read("root/first")
+                           .isPresent());
+        assertEquals(Optional.of("2"), storage.read("root/second"));
+        assertEquals(Optional.of("3"), storage.read("root/third/nested"));
+
+        storage.remove("root/second")
+               .get(1, SECONDS);
+        storage.remove("root/third")
+               .get(1, SECONDS);
+        assertFalse(storage.read("root")
+                           .isPresent());
+    }
+
+    @Test
+    @DisplayName("delay the operations by the configured latency")
+    void delayOperations() throws Exception {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .setLatency(SET, 100, 0, MILLISECONDS)
+                                         .build();
+        long start = System.nanoTime();
+        storage.set("node", "value")
+               .get(1, SECONDS);
+        long elapsedMillis = NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis >= 100);
+    }
+
+    @Test
+    @DisplayName("apply the operations in the order they are issued")
+    void preserveOrder() throws Exception {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .setLatency(0, 20, MILLISECONDS)
+                                         .setRandom(new Random(42))
+                                         .build();
+        for (int i = 0; i < 50; i++) {
+            storage.set("counter", i);
+        }
+        storage.set("last", true)
+               .get(1, SECONDS);
+
+        assertEquals(Optional.of(49L), storage.read("counter"));
+    }
+
+    @Test
+    @DisplayName("fail the operations by the configured failure rate")
+    void injectFailures() {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .setFailureRate(SET, 1.0)
+                                         .build();
+        ExecutionException exception =
+                assertThrows(ExecutionException.class,
+                             () -> storage.set("node", "value")
+                                          .get(1, SECONDS));
+
+        assertTrue(exception.getCause() instanceof InjectedFailure);
+        assertFalse(storage.read("node")
+                           .isPresent());
+    }
+
+    @Test
+    @DisplayName("update the children based on their current values in a transaction")
+    void runTransaction() throws Exception {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .build();
+        storage.set("node", ImmutableMap.of("first", "1", "second", "2"));
+        Map<String, Object> committed = storage.transaction("node", children -> {
+            Map<String, Object> update = new HashMap<>();
+            update.put("first", null);
+            update.put("third", children.get("second") + "3");
+            return update;
+        }).get(1, SECONDS);
+
+        assertEquals(ImmutableMap.of("second", "2", "third", "23"), committed);
+    }
+
+    @Test
+    @DisplayName("retry the transaction computed against the outdated children")
+    void retryTransaction() throws Exception {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .setLatency(SET, 100, 0, MILLISECONDS)
+                                         .build();
+        storage.set("node/first", "1");
+        List<Map<String, Object>> seen = new CopyOnWriteArrayList<>();
+        Map<String, Object> committed = storage.transaction("node", children -> {
+            seen.add(children);
+            return ImmutableMap.of("count", children.size());
+        }).get(1, SECONDS);
+
+        assertEquals(2, seen.size());
+        assertEquals(ImmutableMap.of("first", "1", "count", 1L), committed);
+    }
+
+    @Test
+    @DisplayName("select the children ordered by a property")
+    void selectOrdered() throws Exception {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .build();
+        storage.set("index", ImmutableMap.of("late", ImmutableMap.of("created", 30),
+                                             "early", ImmutableMap.of("created", 10),
+                                             "unknown", ImmutableMap.of("path", "p"),
+                                             "middle", ImmutableMap.of("created", 20)));
+        Map<String, Object> selected = storage.selectOrderedBy("index", "created", 25, 3)
+                                              .get(1, SECONDS);
+
+        assertEquals(newArrayList("unknown", "early", "middle"),
+                     newArrayList(selected.keySet()));
+    }
+
+    @Test
+    @DisplayName("notify the listeners of the children changes")
+    void notifyListeners() throws Exception {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .build();
+        storage.set("node/existing", "1")
+               .get(1, SECONDS);
+        RecordingListener listener = new RecordingListener();
+        storage.addChildListener("node", listener);
+
+        storage.set("node/existing", "2");
+        storage.push("node", "3");
+        storage.remove("node/existing")
+               .get(1, SECONDS);
+        storage.set("other", "4")
+               .get(1, SECONDS);
+
+        waitForEvents(listener, 5);
+        List<String> events = listener.events;
+        assertEquals(5, events.size());
+        assertEquals("added existing 1", events.get(0));
+        assertEquals("synced", events.get(1));
+        assertEquals("changed existing 2", events.get(2));
+        assertTrue(events.get(3)
+                         .startsWith("added "));
+        assertEquals("removed existing", events.get(4));
+    }
+
+    private static void waitForEvents(RecordingListener listener, int count)
+            throws InterruptedException {
+        for (int i = 0; i < 100 && listener.events.size() < count; i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A listener which records the received notifications.
+     */
+    private static final class RecordingListener implements ChildListener {
+
+        private final List<String> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onChildAdded(String key, Object value) {
+            events.add("added " + key + ' ' + value);
+        }
+
+        @Override
+        public void onChildChanged(String key, Object value) {
+            events.add("changed " + key + ' ' + value);
+        }
+
+        @Override
+        public void onChildRemoved(String key) {
+            events.add("removed " + key);
+        }
+
+        @Override
+        public void onSynced() {
+            events.add("synced");
+        }
+    }
+}
@@ -22,6 +22,9 @@ package io.spine.web.firebase.given;
 
 import com.google.common.base.Joiner;
 import com.google.firebase.database.FirebaseDatabase;
+import io.grpc.stub.StreamObserver;
+import io.spine.client.Query;
+import io.spine.client.QueryResponse;
 import io.spine.client.Subscription;
 import io.spine.client.SubscriptionId;
 import io.spine.client.SubscriptionIdVBuilder;
@@ -31,12 +34,15 @@ import io.spine.client.TargetVBuilder;
 import io.spine.client.Topic;
 import io.spine.client.TopicFactory;
 import io.spine.client.grpc.QueryServiceGrpc.QueryServiceImplBase;
+import io.spine.client.grpc.SubscriptionServiceGrpc.SubscriptionServiceImplBase;
 import io.spine.core.Response;
 import io.spine.core.ResponseVBuilder;
 import io.spine.core.UserId;
 import io.spine.core.UserIdVBuilder;
 import io.spine.testing.client.TestActorRequestFactory;
 import io.spine.web.firebase.FirebaseSubscriptionBridge;
+import io.spine.web.firebase.InMemoryRealtimeStorage;
+import io.spine.web.storage.RealtimeStorage;
 
 import javax.servlet.ServletResponse;
 import java.io.IOException;
@@ -48,6 +54,10 @@ import java.util.regex.Pattern;
 import static com.google.common.collect.Lists.newArrayList;
 import static io.spine.core.Responses.statusOk;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 /**
@@ -101,9 +111,19 @@ public final class FirebaseSubscriptionBridgeTestEnv {
         return stringWriter;
     }
 
+    /**
+     * Creates a subscription to the given topic with an ID pointing to a node of the actor of
+     * the topic.
+     */
     public static Subscription newSubscription(Topic topic) {
+        String path = PATH_JOINER.join(DEFAULT_TENANT, escaped(actorAsString(topic)),
+                                       "test-subscription");
+        return newSubscription(topic, path);
+    }
+
+    public static Subscription newSubscription(Topic topic, String id) {
         return SubscriptionVBuilder.newBuilder()
-                                   .setId(subscriptionId())
+                                   .setId(subscriptionId(id))
                                    .setTopic(topic)
                                    .build();
     }
@@ -123,6 +143,69 @@ public final class FirebaseSubscriptionBridgeTestEnv {
                                          .build();
     }
 
+    public static FirebaseSubscriptionBridge
+    newPushingBridge(FirebaseDatabase firebaseDatabase,
+                     QueryServiceImplBase queryService,
+                     SubscriptionServiceImplBase subscriptionService) {
+        return FirebaseSubscriptionBridge.newBuilder()
+                                         .setDatabase(firebaseDatabase)
+                                         .setQueryService(queryService)
+                                         .setSubscriptionService(subscriptionService)
+                                         .build();
+    }
+
+    public static FirebaseSubscriptionBridge newSharingBridge(RealtimeStorage storage,
+                                                              QueryServiceImplBase queryService) {
+        return FirebaseSubscriptionBridge.newBuilder()
+                                         .setStorage(storage)
+                                         .setQueryService(queryService)
+                                         .setShareSubscriptions(true)
+                                         .build();
+    }
+
+    /**
+     * Creates a mock storage delegating all the operations to a new in-memory storage.
+     *
+     * <p>The mock allows to verify the operations which are performed asynchronously.
+     */
+    public static RealtimeStorage delegatingStorage() {
+        RealtimeStorage storage = InMemoryRealtimeStorage.newBuilder()
+                                                         .build();
+        return mock(RealtimeStorage.class, delegatesTo(storage));
+    }
+
+    /**
+     * Makes the given mock respond to each subscription request with a new subscription
+     * to the requested topic.
+     */
+    @SuppressWarnings("unchecked") // Type of the mocked method argument is known.
+    public static void respondWithSubscriptions(SubscriptionServiceImplBase service) {
+        doAnswer(invocation -> {
+            Topic topic = invocation.getArgument(0);
+            StreamObserver<Subscription> observer = invocation.getArgument(1);
+            observer.onNext(newSubscription(topic));
+            observer.onCompleted();
+            return null;
+        }).when(service)
+          .subscribe(any(Topic.class), any(StreamObserver.class));
+    }
+
+    /**
+     * Makes the given mock respond to each query with an empty result.
+     */
+    @SuppressWarnings("unchecked") // Type of the mocked method argument is known.
+    public static void respondWithEmptyResults(QueryServiceImplBase service) {
+        doAnswer(invocation -> {
+            StreamObserver<QueryResponse> observer = invocation.getArgument(1);
+            observer.onNext(QueryResponse.newBuilder()
+                                         .setResponse(statusOk())
+                                         .build());
+            observer.onCompleted();
+            return null;
+        }).when(service)
+          .read(any(Query.class), any(StreamObserver.class));
+    }
+
     public static TopicFactory topicFactory() {
         UserId userId = UserIdVBuilder.newBuilder()
                                       .setValue("test-user")
@@ -131,9 +214,9 @@ public final class FirebaseSubscriptionBridgeTestEnv {
                                       .topic();
     }
 
-    private static SubscriptionId subscriptionId() {
+    private static SubscriptionId subscriptionId(String value) {
         return SubscriptionIdVBuilder.newBuilder()
-                                     .setValue("test-subscription")
+                                     .setValue(value)
                                      .build();
     }
 }
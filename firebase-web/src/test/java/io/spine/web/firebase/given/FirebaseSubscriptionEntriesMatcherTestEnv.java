@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.firebase.given;
+
+import com.google.firebase.database.MutableData;
+
+import java.util.List;
+import java.util.Random;
+
+import static com.google.common.collect.Lists.newArrayList;
+import static java.lang.String.format;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @see io.spine.web.firebase.FirebaseSubscriptionEntriesMatcherTest
+ */
+public final class FirebaseSubscriptionEntriesMatcherTestEnv {
+
+    /**
+     * Prevents instantiation of this test environment.
+     */
+    private FirebaseSubscriptionEntriesMatcherTestEnv() {
+    }
+
+    public static MutableData existingData(String key, String json) {
+        MutableData mock = mock(MutableData.class);
+        when(mock.getValue()).thenReturn(json);
+        when(mock.getKey()).thenReturn(key);
+        return mock;
+    }
+
+    /**
+     * Generates a list of Firebase entries.
+     *
+     * <p>Roughly a half of the entries contain an ID. Some of the entries without an ID are
+     * duplicated, as is possible for entities which do not expose their ID.
+     */
+    public static List<MutableData> randomExistingData(Random random, int count) {
+        List<MutableData> result = newArrayList();
+        for (int i = 0; i < count; i++) {
+            String key = "key-" + i;
+            String json = random.nextBoolean()
+                          ? entityWithId(random.nextInt(count), random.nextInt(3))
+                          : entityWithoutId(random.nextInt(count / 2 + 1));
+            result.add(existingData(key, json));
+        }
+        return result;
+    }
+
+    /**
+     * Generates a list of up-to-date entries.
+     *
+     * <p>The entries overlap with the ones generated by {@link #randomExistingData} for the same
+     * {@code count}, so that all of the add, change, pass and remove operations are produced.
+     */
+    public static List<String> randomUpToDateEntries(Random random, int count) {
+        List<String> result = newArrayList();
+        for (int i = 0; i < count; i++) {
+            String json = random.nextBoolean()
+                          ? entityWithId(random.nextInt(count * 2), random.nextInt(3))
+                          : entityWithoutId(random.nextInt(count));
+            result.add(json);
+        }
+        return result;
+    }
+
+    private static String entityWithId(int id, int version) {
+        return format("{\"id\":{\"value\":\"%d\"},\"version\":%d}", id, version);
+    }
+
+    private static String entityWithoutId(int value) {
+        return format("{\"value\":%d}", value);
+    }
+}
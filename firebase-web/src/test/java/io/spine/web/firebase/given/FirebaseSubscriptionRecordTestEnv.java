@@ -72,12 +72,31 @@ public final class FirebaseSubscriptionRecordTestEnv {
         return mutableGuide;
     }
 
+    public static DataSnapshot bookSnapshot(String key, Book book) {
+        DataSnapshot snapshot = mock(DataSnapshot.class);
+        when(snapshot.getValue()).thenReturn(toCompactJson(book));
+        when(snapshot.getKey()).thenReturn(key);
+        return snapshot;
+    }
+
+    public static DataSnapshot nodeSnapshot(DataSnapshot... children) {
+        DataSnapshot snapshot = mock(DataSnapshot.class);
+        when(snapshot.getChildren()).thenReturn(newArrayList(children));
+        return snapshot;
+    }
+
     public static void mockTransactionalWrite(DatabaseReference ref, MutableData mutableData) {
+        mockTransactionalWrite(ref, mutableData, nodeSnapshot());
+    }
+
+    public static void mockTransactionalWrite(DatabaseReference ref,
+                                              MutableData mutableData,
+                                              DataSnapshot committedData) {
         doAnswer(invocation -> {
             Object[] arguments = invocation.getArguments();
             Transaction.Handler handler = (Transaction.Handler) arguments[0];
             handler.doTransaction(mutableData);
-            handler.onComplete(null, true, mock(DataSnapshot.class));
+            handler.onComplete(null, true, committedData);
             //noinspection ReturnOfNull returned by a void invokation
             return null;
         }).when(ref)
@@ -98,7 +117,7 @@ public final class FirebaseSubscriptionRecordTestEnv {
             consumer.accept(responseBuilder.build());
             return mock(CompletionStage.class);
         }).when(queryResponse)
-          .thenAcceptAsync(any());
+          .thenAcceptAsync(any(), any());
     }
 
     public static final class Books {
@@ -23,6 +23,7 @@ package io.spine.web.test.given;
 import io.spine.server.BoundedContext;
 import io.spine.server.CommandService;
 import io.spine.server.QueryService;
+import io.spine.server.SubscriptionService;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -35,10 +36,14 @@ final class Application {
 
     private final CommandService commandService;
     private final QueryService queryService;
+    private final SubscriptionService subscriptionService;
 
-    private Application(CommandService commandService, QueryService queryService) {
+    private Application(CommandService commandService,
+                        QueryService queryService,
+                        SubscriptionService subscriptionService) {
         this.commandService = commandService;
         this.queryService = queryService;
+        this.subscriptionService = subscriptionService;
     }
 
     static Application create(BoundedContext boundedContext) {
@@ -49,7 +54,10 @@ final class Application {
         QueryService queryService = QueryService.newBuilder()
                                                 .add(boundedContext)
                                                 .build();
-        return new Application(commandService, queryService);
+        SubscriptionService subscriptionService = SubscriptionService.newBuilder()
+                                                                     .add(boundedContext)
+                                                                     .build();
+        return new Application(commandService, queryService, subscriptionService);
     }
 
     CommandService getCommandService() {
@@ -59,4 +67,8 @@ final class Application {
     QueryService getQueryService() {
         return queryService;
     }
+
+    SubscriptionService getSubscriptionService() {
+        return subscriptionService;
+    }
 }
@@ -22,9 +22,11 @@ package io.spine.web.test.given;
 
 import io.spine.server.BoundedContext;
 import io.spine.server.storage.StorageFactory;
+import io.spine.web.firebase.FirebaseSubscriptionBridge;
 
 import static io.spine.core.BoundedContextNames.newName;
 import static io.spine.server.storage.memory.InMemoryStorageFactory.newInstance;
+import static io.spine.web.test.given.FirebaseClient.database;
 
 /**
  * The test application server.
@@ -34,6 +36,8 @@ import static io.spine.server.storage.memory.InMemoryStorageFactory.newInstance;
 final class Server {
 
     private static final Application app = createApplication();
+    private static final FirebaseSubscriptionBridge subscriptionBridge =
+            createSubscriptionBridge();
 
     /**
      * Prevents the utility class instantiation.
@@ -48,6 +52,25 @@ final class Server {
         return app;
     }
 
+    /**
+     * Retrieves the {@link FirebaseSubscriptionBridge} shared by all the subscription endpoints.
+     *
+     * <p>The bridge pushes the entity changes to the database, thus the subscriptions created via
+     * one endpoint should be kept up and cancelled via the same bridge instance.
+     */
+    static FirebaseSubscriptionBridge subscriptionBridge() {
+        return subscriptionBridge;
+    }
+
+    private static FirebaseSubscriptionBridge createSubscriptionBridge() {
+        return FirebaseSubscriptionBridge.newBuilder()
+                                         .setQueryService(app.getQueryService())
+                                         .setSubscriptionService(app.getSubscriptionService())
+                                         .setShareSubscriptions(true)
+                                         .setDatabase(database())
+                                         .build();
+    }
+
     private static Application createApplication() {
         String name = "Test Bounded Context";
         StorageFactory storageFactory = newInstance(newName(name), false);
@@ -29,7 +29,7 @@ import javax.servlet.annotation.WebServlet;
  *
  * @author Dmytro Dashenkov
  */
-@WebServlet("/command")
+@WebServlet(value = "/command", asyncSupported = true)
 @SuppressWarnings("serial")
 public final class TestCommandServlet extends CommandServlet {
 
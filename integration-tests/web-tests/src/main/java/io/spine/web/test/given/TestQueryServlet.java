@@ -30,7 +30,7 @@ import javax.servlet.annotation.WebServlet;
  *
  * @author Dmytro Dashenkov
  */
-@WebServlet("/query")
+@WebServlet(value = "/query", asyncSupported = true)
 @SuppressWarnings("serial")
 public class TestQueryServlet extends FirebaseQueryServlet {
 
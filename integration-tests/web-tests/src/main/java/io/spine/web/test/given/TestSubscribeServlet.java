@@ -21,26 +21,21 @@
 package io.spine.web.test.given;
 
 import io.spine.web.firebase.FirebaseSubscribeServlet;
-import io.spine.web.firebase.FirebaseSubscriptionBridge;
 
 import javax.servlet.annotation.WebServlet;
 
-import static io.spine.web.test.given.FirebaseClient.database;
-import static io.spine.web.test.given.Server.application;
+import static io.spine.web.test.given.Server.subscriptionBridge;
 
 /**
  * An endpoint creating new client subscriptions to entity changes.
  *
  * @author Mykhailo Drachuk
  */
-@WebServlet("/subscription/create")
+@WebServlet(value = "/subscription/create", asyncSupported = true)
 @SuppressWarnings("serial")
 public class TestSubscribeServlet extends FirebaseSubscribeServlet {
 
     public TestSubscribeServlet() {
-        super(FirebaseSubscriptionBridge.newBuilder()
-                                        .setQueryService(application().getQueryService())
-                                        .setDatabase(database())
-                                        .build());
+        super(subscriptionBridge());
     }
 }
@@ -20,27 +20,22 @@
 
 package io.spine.web.test.given;
 
-import io.spine.web.firebase.FirebaseSubscriptionBridge;
 import io.spine.web.firebase.FirebaseSubscriptionCancelServlet;
 
 import javax.servlet.annotation.WebServlet;
 
-import static io.spine.web.test.given.FirebaseClient.database;
-import static io.spine.web.test.given.Server.application;
+import static io.spine.web.test.given.Server.subscriptionBridge;
 
 /**
  * An endpoint canceling the client entity change subscriptions.
  *
  * @author Mykhailo Drachuk
  */
-@WebServlet("/subscription/cancel")
+@WebServlet(value = "/subscription/cancel", asyncSupported = true)
 @SuppressWarnings("serial")
 public class TestSubscriptionCancelServlet extends FirebaseSubscriptionCancelServlet {
 
     public TestSubscriptionCancelServlet() {
-        super(FirebaseSubscriptionBridge.newBuilder()
-                                        .setQueryService(application().getQueryService())
-                                        .setDatabase(database())
-                                        .build());
+        super(subscriptionBridge());
     }
 }
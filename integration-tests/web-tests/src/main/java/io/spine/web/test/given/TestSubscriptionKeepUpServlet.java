@@ -20,27 +20,22 @@
 
 package io.spine.web.test.given;
 
-import io.spine.web.firebase.FirebaseSubscriptionBridge;
 import io.spine.web.firebase.FirebaseSubscriptionKeepUpServlet;
 
 import javax.servlet.annotation.WebServlet;
 
-import static io.spine.web.test.given.FirebaseClient.database;
-import static io.spine.web.test.given.Server.application;
+import static io.spine.web.test.given.Server.subscriptionBridge;
 
 /**
  * An endpoint for client requests to keep subscription running.
  *
  * @author Mykhailo Drachuk
  */
-@WebServlet("/subscription/keep-up")
+@WebServlet(value = "/subscription/keep-up", asyncSupported = true)
 @SuppressWarnings("serial")
 public class TestSubscriptionKeepUpServlet extends FirebaseSubscriptionKeepUpServlet {
 
     public TestSubscriptionKeepUpServlet() {
-        super(FirebaseSubscriptionBridge.newBuilder()
-                                        .setQueryService(application().getQueryService())
-                                        .setDatabase(database())
-                                        .build());
+        super(subscriptionBridge());
     }
 }
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.sse;
+
+import io.spine.web.storage.RealtimeStorage;
+import io.spine.web.storage.RealtimeStorage.ChildListener;
+import io.spine.web.storage.RealtimeStorage.Registration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A Server-Sent Events stream of the changes of a single subscription node.
+ *
+ * <p>The connection listens to the children of the subscription node and writes each change as
+ * an event:
+ * <ul>
+ *     <li>{@code added} and {@code changed} events carry the key and the JSON of the entity
+ *         state, e.g. {@code {"key":"-LF3x","data":{...}}};
+ *     <li>{@code removed} event carries the key of the removed entry;
+ *     <li>{@code synced} event marks the end of the entries which existed at the moment
+ *         the connection was opened.
+ * </ul>
+ *
+ * <p>The response is written with the non-blocking I/O. The events which cannot be written
+ * right away are buffered. If the buffer overflows, i.e. the client does not keep up with
+ * the updates, the connection is closed. The client then reconnects and receives the current
+ * state of the subscription from scratch, which is cheaper than queueing the intermediate states
+ * of the entities.
+ */
+final class SseConnection implements ChildListener, WriteListener, AsyncListener {
+
+    private static final byte[] HEARTBEAT = ": heartbeat\n\n".getBytes(UTF_8);
+
+    private final AsyncContext context;
+    private final ServletOutputStream output;
+    private final String path;
+    private final int capacity;
+    private final Queue<byte[]> buffer = new ArrayDeque<>();
+
+    @Nullable
+    private Registration registration;
+    @Nullable
+    private Runnable closeCallback;
+    private boolean closed;
+
+    /**
+     * Creates a new connection.
+     *
+     * @param context  the asynchronous context of the event stream response
+     * @param path     the path of the subscription node
+     * @param capacity the maximum number of the events waiting to be written
+     */
+    SseConnection(AsyncContext context, String path, int capacity) throws IOException {
+        checkArgument(capacity > 0, "Buffer capacity must be positive.");
+        this.context = checkNotNull(context);
+        this.output = context.getResponse()
+                             .getOutputStream();
+        this.path = checkNotNull(path);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Starts streaming the changes of the subscription node.
+     *
+     * @param storage         the storage holding the subscription node
+     * @param reconnectMillis the delay before the client reconnects after the connection is lost
+     * @param onClose         the callback invoked once the connection is closed
+     */
+    void open(RealtimeStorage storage, long reconnectMillis, Runnable onClose) {
+        synchronized (this) {
+            this.closeCallback = checkNotNull(onClose);
+            buffer.add(("retry: " + reconnectMillis + "\n\n").getBytes(UTF_8));
+        }
+        context.addListener(this);
+        output.setWriteListener(this);
+        Registration registration = storage.addChildListener(path, this);
+        boolean closedMeanwhile;
+        synchronized (this) {
+            closedMeanwhile = closed;
+            if (!closedMeanwhile) {
+                this.registration = registration;
+            }
+        }
+        if (closedMeanwhile) {
+            registration.cancel();
+        }
+    }
+
+    @Override
+    public void onChildAdded(String key, Object value) {
+        entryData(value).ifPresent(data -> enqueue(event("added", key, data)));
+    }
+
+    @Override
+    public void onChildChanged(String key, Object value) {
+        entryData(value).ifPresent(data -> enqueue(event("changed", key, data)));
+    }
+
+    @Override
+    public void onChildRemoved(String key) {
+        enqueue(event("removed", key, null));
+    }
+
+    @Override
+    public void onSynced() {
+        enqueue(event("synced", null, null));
+    }
+
+    /**
+     * Writes a comment to the stream if there are no events to write.
+     *
+     * <p>The comments keep the idle connection from being closed by the proxies and reveal
+     * the clients which are gone.
+     */
+    void heartbeat() {
+        boolean idle;
+        synchronized (this) {
+            idle = buffer.isEmpty();
+        }
+        if (idle) {
+            enqueue(HEARTBEAT);
+        }
+    }
+
+    /**
+     * Obtains the JSON of the entity state from the value of a subscription entry.
+     *
+     * <p>An entry is either a JSON string or a map holding such a string under the {@code data}
+     * key. Any other value does not denote an entry, e.g. if the listened node is not
+     * a subscription node, and is not streamed.
+     */
+    private static Optional<String> entryData(Object value) {
+        if (value instanceof String) {
+            return Optional.of((String) value);
+        }
+        if (value instanceof Map) {
+            Object data = ((Map<?, ?>) value).get("data");
+            if (data instanceof String) {
+                return Optional.of((String) data);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Formats an event of the stream.
+     *
+     * <p>The multi-line data is split into several {@code data} fields, which the client joins
+     * back with the line breaks.
+     */
+    private static byte[] event(String type, @Nullable String key, @Nullable String data) {
+        StringBuilder payload = new StringBuilder("{");
+        if (key != null) {
+            payload.append("\"key\":\"")
+                   .append(escaped(key))
+                   .append('"');
+        }
+        if (data != null) {
+            payload.append(",\"data\":")
+                   .append(data);
+        }
+        payload.append('}');
+        StringBuilder event = new StringBuilder("event: ").append(type)
+                                                          .append('\n');
+        for (String line : payload.toString()
+                                  .split("\n")) {
+            event.append("data: ")
+                 .append(line)
+                 .append('\n');
+        }
+        event.append('\n');
+        return event.toString()
+                    .getBytes(UTF_8);
+    }
+
+    private static String escaped(String key) {
+        return key.replace("\\", "\\\\")
+                  .replace("\"", "\\\"");
+    }
+
+    private void enqueue(byte[] chunk) {
+        boolean overflown;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            overflown = buffer.size() >= capacity;
+            if (!overflown) {
+                buffer.add(chunk);
+                if (drainBuffer()) {
+                    return;
+                }
+            }
+        }
+        if (overflown) {
+            log().warn("The client of {} does not keep up with the updates. " +
+                       "Closing the stream.", path);
+        }
+        close();
+    }
+
+    /**
+     * Writes the buffered events while the response can accept the data without blocking.
+     *
+     * <p>Once the response cannot accept more data, the container calls
+     * {@link #onWritePossible()} as soon as it can.
+     */
+    private void drain() {
+        boolean written;
+        synchronized (this) {
+            written = drainBuffer();
+        }
+        if (!written) {
+            close();
+        }
+    }
+
+    /**
+     * Writes the buffered events under the lock held by the caller.
+     *
+     * @return {@code false} if the events cannot be written, thus the connection should be
+     *         closed once the lock is released, {@code true} otherwise
+     */
+    private boolean drainBuffer() {
+        if (closed) {
+            return true;
+        }
+        try {
+            while (!buffer.isEmpty() && output.isReady()) {
+                output.write(buffer.poll());
+            }
+            if (buffer.isEmpty() && output.isReady()) {
+                output.flush();
+            }
+            return true;
+        } catch (IOException e) {
+            log().debug("Failed to write to the stream of {}.", path, e);
+            return false;
+        }
+    }
+
+    /**
+     * Stops listening to the subscription node and completes the response.
+     *
+     * <p>Only the state of the connection is changed under the lock. The registration, the
+     * callback and the container are called outside of it, since they may take their own locks
+     * and call this connection back.
+     */
+    void close() {
+        Registration registration;
+        Runnable closeCallback;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            buffer.clear();
+            registration = this.registration;
+            closeCallback = this.closeCallback;
+        }
+        if (registration != null) {
+            registration.cancel();
+        }
+        if (closeCallback != null) {
+            closeCallback.run();
+        }
+        try {
+            context.complete();
+        } catch (IllegalStateException ignored) {
+            // The response is already completed by the container.
+        }
+    }
+
+    // WriteListener
+    // ---------------------
+
+    @Override
+    public void onWritePossible() {
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        log().debug("The stream of {} failed.", path, t);
+        close();
+    }
+
+    // AsyncListener
+    // ---------------------
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // Do nothing.
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(SseConnection.class);
+    }
+}
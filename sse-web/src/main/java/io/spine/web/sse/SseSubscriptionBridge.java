@@ -0,0 +1,383 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.sse;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.spine.client.Subscription;
+import io.spine.client.SubscriptionId;
+import io.spine.client.Topic;
+import io.spine.client.grpc.QueryServiceGrpc.QueryServiceImplBase;
+import io.spine.client.grpc.SubscriptionServiceGrpc.SubscriptionServiceImplBase;
+import io.spine.web.firebase.FirebaseSubscriptionBridge;
+import io.spine.web.firebase.InMemoryRealtimeStorage;
+import io.spine.web.query.service.AsyncQueryService;
+import io.spine.web.subscription.SubscriptionBridge;
+import io.spine.web.subscription.result.SubscribeResult;
+import io.spine.web.subscription.result.SubscriptionCancelResult;
+import io.spine.web.subscription.result.SubscriptionKeepUpResult;
+
+import javax.annotation.Nullable;
+import javax.servlet.AsyncContext;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * An implementation of {@link SubscriptionBridge} which streams the subscription updates to
+ * the clients over Server-Sent Events.
+ *
+ * <p>The bridge maintains the subscription states the same way as
+ * the {@link FirebaseSubscriptionBridge} does, but keeps them in
+ * an {@link InMemoryRealtimeStorage} instead of the Firebase Realtime Database. The clients
+ * receive the changes of the states through the {@link SubscriptionStreamServlet} as soon as
+ * they are written, without an extra network hop and the database quota.
+ *
+ * <p>The subscriptions are created, kept up and cancelled via the usual subscription servlets.
+ * The ID of a created subscription identifies its event stream.
+ *
+ * <p>Since the subscription states are held in memory, all the requests for a subscription,
+ * including the event stream, should be processed by the same bridge instance. For the same
+ * reason, the subscriptions are released once their {@linkplain Builder#setSubscriptionLease
+ * leases} expire, and the number of the open event streams is
+ * {@linkplain Builder#setMaxConnections(int) limited}.
+ *
+ * <p>Call {@link #shutdown()} to close the event streams and stop the background tasks.
+ */
+public final class SseSubscriptionBridge implements SubscriptionBridge {
+
+    private final InMemoryRealtimeStorage storage;
+    private final FirebaseSubscriptionBridge delegate;
+    private final int bufferSize;
+    private final long reconnectMillis;
+    private final Set<SseConnection> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger openConnections = new AtomicInteger();
+    private final int maxConnections;
+    private final ScheduledExecutorService heartbeats;
+
+    private SseSubscriptionBridge(Builder builder) {
+        this.storage = InMemoryRealtimeStorage.newBuilder()
+                                              .build();
+        FirebaseSubscriptionBridge.Builder delegateBuilder =
+                FirebaseSubscriptionBridge.newBuilder()
+                                          .setQueryService(builder.queryService)
+                                          .setStorage(storage)
+                                          .setShareSubscriptions(builder.shareSubscriptions)
+                                          .setSubscriptionLease(builder.leaseDurationNanos,
+                                                                NANOSECONDS);
+        if (builder.subscriptionService != null) {
+            delegateBuilder.setSubscriptionService(builder.subscriptionService);
+        }
+        this.delegate = delegateBuilder.build();
+        this.maxConnections = builder.maxConnections;
+        this.bufferSize = builder.bufferSize;
+        this.reconnectMillis = builder.reconnectMillis;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("sse-heartbeat-%d")
+                                          .setDaemon(true)
+                                          .build()
+        );
+        heartbeats.scheduleWithFixedDelay(this::sendHeartbeats,
+                                          builder.heartbeatMillis,
+                                          builder.heartbeatMillis,
+                                          MILLISECONDS);
+    }
+
+    @Override
+    public SubscribeResult subscribe(Topic topic) {
+        return delegate.subscribe(topic);
+    }
+
+    @Override
+    public SubscriptionKeepUpResult keepUp(Subscription subscription) {
+        return delegate.keepUp(subscription);
+    }
+
+    @Override
+    public SubscriptionKeepUpResult keepUpAll(List<Subscription> subscriptions) {
+        return delegate.keepUpAll(subscriptions);
+    }
+
+    @Override
+    public SubscriptionCancelResult cancel(Subscription subscription) {
+        return delegate.cancel(subscription);
+    }
+
+    @Override
+    public CompletableFuture<SubscribeResult> subscribeAsync(Topic topic) {
+        return delegate.subscribeAsync(topic);
+    }
+
+    @Override
+    public CompletableFuture<SubscriptionKeepUpResult> keepUpAsync(Subscription subscription) {
+        return delegate.keepUpAsync(subscription);
+    }
+
+    @Override
+    public CompletableFuture<SubscriptionKeepUpResult>
+    keepUpAllAsync(List<Subscription> subscriptions) {
+        return delegate.keepUpAllAsync(subscriptions);
+    }
+
+    @Override
+    public CompletableFuture<SubscriptionCancelResult> cancelAsync(Subscription subscription) {
+        return delegate.cancelAsync(subscription);
+    }
+
+    /**
+     * Checks if the subscription with the given ID is active, thus may be streamed.
+     *
+     * @see FirebaseSubscriptionBridge#isActive(SubscriptionId)
+     */
+    boolean isActive(SubscriptionId subscription) {
+        return delegate.isActive(subscription);
+    }
+
+    /**
+     * Reserves an event stream if the limit of the open streams allows.
+     *
+     * <p>A reserved stream is either {@linkplain #stream opened} or
+     * {@linkplain #releaseConnection() released}.
+     *
+     * @return {@code true} if the stream is reserved, {@code false} otherwise
+     */
+    boolean reserveConnection() {
+        if (openConnections.incrementAndGet() > maxConnections) {
+            openConnections.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases an event stream {@linkplain #reserveConnection() reserved} earlier.
+     */
+    void releaseConnection() {
+        openConnections.decrementAndGet();
+    }
+
+    /**
+     * Streams the changes of the given subscription to the given asynchronous response.
+     *
+     * <p>The response headers are expected to be set and the stream is expected to be
+     * {@linkplain #reserveConnection() reserved}. The reservation is released once the stream
+     * is closed.
+     *
+     * @param subscription the ID of the streamed subscription
+     * @param context      the asynchronous context of the event stream response
+     * @throws IOException if the response cannot be written
+     */
+    void stream(SubscriptionId subscription, AsyncContext context) throws IOException {
+        String path = subscription.getValue();
+        checkArgument(!path.isEmpty(), "Subscription ID must not be empty.");
+        SseConnection connection = new SseConnection(context, path, bufferSize);
+        connections.add(connection);
+        connection.open(storage, reconnectMillis, () -> {
+            connections.remove(connection);
+            releaseConnection();
+        });
+    }
+
+    private void sendHeartbeats() {
+        connections.forEach(SseConnection::heartbeat);
+    }
+
+    /**
+     * Closes the open event streams and stops the background tasks of the bridge.
+     */
+    public void shutdown() {
+        heartbeats.shutdown();
+        connections.forEach(SseConnection::close);
+        delegate.shutdown();
+        storage.shutdown();
+    }
+
+    /**
+     * Creates a new instance of {@code Builder} for {@code SseSubscriptionBridge} instances.
+     *
+     * @return new instance of {@code Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * A builder for the {@code SseSubscriptionBridge} instances.
+     */
+    public static final class Builder {
+
+        private static final int DEFAULT_BUFFER_SIZE = 1_000;
+        private static final int DEFAULT_MAX_CONNECTIONS = 10_000;
+        private static final long DEFAULT_LEASE_NANOS = MINUTES.toNanos(1);
+        private static final long DEFAULT_HEARTBEAT_MILLIS = SECONDS.toMillis(15);
+        private static final long DEFAULT_RECONNECT_MILLIS = SECONDS.toMillis(3);
+
+        private AsyncQueryService queryService;
+        @Nullable
+        private SubscriptionServiceImplBase subscriptionService;
+        private boolean shareSubscriptions;
+        private long leaseDurationNanos = DEFAULT_LEASE_NANOS;
+        private int bufferSize = DEFAULT_BUFFER_SIZE;
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+        private long heartbeatMillis = DEFAULT_HEARTBEAT_MILLIS;
+        private long reconnectMillis = DEFAULT_RECONNECT_MILLIS;
+
+        /**
+         * Prevents local instantiation.
+         */
+        private Builder() {
+        }
+
+        public Builder setQueryService(QueryServiceImplBase service) {
+            checkNotNull(service);
+            this.queryService = AsyncQueryService.local(service);
+            return this;
+        }
+
+        /**
+         * Sets the {@code QueryService} to read the entity states from.
+         *
+         * @see FirebaseSubscriptionBridge.Builder#setQueryService(AsyncQueryService)
+         */
+        public Builder setQueryService(AsyncQueryService service) {
+            this.queryService = checkNotNull(service);
+            return this;
+        }
+
+        /**
+         * Sets the {@code SubscriptionService} to receive the entity changes from.
+         *
+         * @see FirebaseSubscriptionBridge.Builder#setSubscriptionService(
+         *      SubscriptionServiceImplBase)
+         */
+        public Builder setSubscriptionService(SubscriptionServiceImplBase service) {
+            this.subscriptionService = checkNotNull(service);
+            return this;
+        }
+
+        /**
+         * Sets whether the subscriptions to identical topics should share a subscription node.
+         *
+         * @see FirebaseSubscriptionBridge.Builder#setShareSubscriptions(boolean)
+         */
+        public Builder setShareSubscriptions(boolean shareSubscriptions) {
+            this.shareSubscriptions = shareSubscriptions;
+            return this;
+        }
+
+        /**
+         * Sets the duration of a subscription lease.
+         *
+         * <p>Since the subscription states are held in memory, the subscriptions are always
+         * leased, so that the states of the abandoned subscriptions are released. Only
+         * the subscriptions which hold a lease may be streamed.
+         *
+         * <p>The default value is {@code 1} minute.
+         *
+         * @see FirebaseSubscriptionBridge.Builder#setSubscriptionLease(long, TimeUnit)
+         */
+        public Builder setSubscriptionLease(long duration, TimeUnit unit) {
+            checkArgument(duration > 0, "Subscription lease duration must be positive.");
+            checkNotNull(unit);
+            this.leaseDurationNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of events waiting to be sent to a single client.
+         *
+         * <p>If a client does not keep up with the updates and the buffer overflows, its event
+         * stream is closed. The client then reconnects and receives the current state of
+         * the subscription.
+         *
+         * <p>The default value is {@code 1000}.
+         */
+        public Builder setBufferSize(int bufferSize) {
+            checkArgument(bufferSize > 0, "Buffer size must be positive.");
+            this.bufferSize = bufferSize;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of the event streams open simultaneously.
+         *
+         * <p>The requests for the streams exceeding the limit are responded with
+         * the {@code 503} status code.
+         *
+         * <p>The default value is {@code 10000}.
+         */
+        public Builder setMaxConnections(int maxConnections) {
+            checkArgument(maxConnections > 0, "Max connections must be positive.");
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * Sets the interval between the heartbeat comments sent over the idle event streams.
+         *
+         * <p>The interval should be shorter than the idle timeout of the proxies between
+         * the server and the clients. The default value is {@code 15} seconds.
+         */
+        public Builder setHeartbeatInterval(long interval, TimeUnit unit) {
+            checkArgument(interval > 0, "Heartbeat interval must be positive.");
+            checkNotNull(unit);
+            this.heartbeatMillis = unit.toMillis(interval);
+            return this;
+        }
+
+        /**
+         * Sets the delay before a client reconnects after its event stream is lost.
+         *
+         * <p>The default value is {@code 3} seconds.
+         */
+        public Builder setReconnectDelay(long delay, TimeUnit unit) {
+            checkArgument(delay >= 0, "Reconnect delay must not be negative.");
+            checkNotNull(unit);
+            this.reconnectMillis = unit.toMillis(delay);
+            return this;
+        }
+
+        /**
+         * Creates a new instance of {@code SseSubscriptionBridge}.
+         *
+         * @return new instance of {@code SseSubscriptionBridge}
+         */
+        public SseSubscriptionBridge build() {
+            checkState(queryService != null,
+                       "Query Service is not set to SseSubscriptionBridge.");
+            checkState(heartbeatMillis > 0, "Heartbeat interval is too short.");
+            return new SseSubscriptionBridge(this);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.sse;
+
+import io.spine.client.SubscriptionId;
+import io.spine.client.SubscriptionIdVBuilder;
+import io.spine.web.NonSerializableServlet;
+
+import javax.annotation.OverridingMethodsMustInvokeSuper;
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_FORBIDDEN;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+
+/**
+ * An abstract servlet streaming the updates of a subscription to the client over
+ * Server-Sent Events.
+ *
+ * <p>The servlet handles the {@code GET} requests with the {@value #SUBSCRIPTION_PARAMETER}
+ * parameter holding the value of the subscription ID, as obtained from
+ * the {@link io.spine.web.subscription.servlet.SubscribeServlet SubscribeServlet}. The response
+ * is a {@code text/event-stream} which lasts until the client disconnects.
+ *
+ * <p>The stream starts with the {@code added} events for the entities which are already in
+ * the subscription state, followed by a {@code synced} event. Then, the {@code added},
+ * {@code changed}, and {@code removed} events are sent as the state changes. The data of
+ * an event is a JSON object holding the key of the subscription entry and, unless the entry is
+ * removed, the JSON of the entity state, e.g. {@code {"key":"-LF3x","data":{...}}}. When
+ * reconnected, the client receives the whole state again.
+ *
+ * <p>Only an {@linkplain SseSubscriptionBridge#isActive active} subscription may be streamed.
+ * A request for an unknown, expired or cancelled subscription is responded with
+ * the {@link HttpServletResponse#SC_NOT_FOUND 404} status code.
+ *
+ * <p>The ID of a subscription is not a secret. The IDs of the shared subscriptions are derived
+ * from the tenant, the actor and the topic, thus may be guessed. Therefore, an implementation
+ * must {@linkplain #mayStream authorize} the caller to read the subscription, e.g. by checking
+ * that the authenticated user is the actor of the subscription. The requests which are not
+ * authorized are responded with the {@link HttpServletResponse#SC_FORBIDDEN 403} status code.
+ *
+ * <p>The servlet requires the asynchronous processing to be
+ * {@linkplain HttpServletRequest#isAsyncSupported() supported}. Unlike the request servlets,
+ * the streams are not {@linkplain #isAdmissionControlled() subject} to
+ * the {@link io.spine.web.AdmissionController AdmissionController}, since a stream lasts for
+ * the whole session of the client. Instead, the number of the open
+ * streams is {@linkplain SseSubscriptionBridge.Builder#setMaxConnections(int) limited} by
+ * the bridge. The requests exceeding the limit are responded with
+ * the {@link HttpServletResponse#SC_SERVICE_UNAVAILABLE 503} status code.
+ */
+@SuppressWarnings("serial") // Java serialization is not supported.
+public abstract class SubscriptionStreamServlet extends NonSerializableServlet {
+
+    /**
+     * The name of the request parameter holding the value of the streamed subscription ID.
+     */
+    public static final String SUBSCRIPTION_PARAMETER = "subscription";
+
+    private static final String EVENT_STREAM_CONTENT_TYPE = "text/event-stream";
+
+    private final SseSubscriptionBridge bridge;
+
+    protected SubscriptionStreamServlet(SseSubscriptionBridge bridge) {
+        super();
+        this.bridge = checkNotNull(bridge);
+    }
+
+    /**
+     * Checks if the given request may read the subscription with the given ID.
+     *
+     * <p>The check is performed before the subscription is looked up, so that the response
+     * does not disclose whether the subscription exists.
+     *
+     * @param request      the request for the event stream
+     * @param subscription the ID of the requested subscription
+     * @return {@code true} if the caller is authorized to read the subscription,
+     *         {@code false} otherwise
+     */
+    protected abstract boolean mayStream(HttpServletRequest request, SubscriptionId subscription);
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Returns {@code false}.
+     */
+    @Override
+    protected final boolean isAdmissionControlled() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Starts streaming the updates of the requested subscription.
+     */
+    @OverridingMethodsMustInvokeSuper
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String subscription = req.getParameter(SUBSCRIPTION_PARAMETER);
+        if (subscription == null || subscription.isEmpty()) {
+            resp.sendError(SC_BAD_REQUEST);
+            return;
+        }
+        if (!req.isAsyncSupported()) {
+            resp.sendError(SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+        SubscriptionId id = SubscriptionIdVBuilder.newBuilder()
+                                                  .setValue(subscription)
+                                                  .build();
+        if (!mayStream(req, id)) {
+            resp.sendError(SC_FORBIDDEN);
+            return;
+        }
+        if (!bridge.isActive(id)) {
+            resp.sendError(SC_NOT_FOUND);
+            return;
+        }
+        if (!bridge.reserveConnection()) {
+            resp.sendError(SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        boolean streamed = false;
+        try {
+            resp.setContentType(EVENT_STREAM_CONTENT_TYPE);
+            resp.setCharacterEncoding("UTF-8");
+            resp.setHeader("Cache-Control", "no-cache");
+            // Prevents the reverse proxies from buffering the stream.
+            resp.setHeader("X-Accel-Buffering", "no");
+            AsyncContext context = req.startAsync(req, resp);
+            context.setTimeout(0L);
+            bridge.stream(id, context);
+            streamed = true;
+        } finally {
+            if (!streamed) {
+                bridge.releaseConnection();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.sse;
+
+import com.google.common.collect.ImmutableMap;
+import io.spine.web.firebase.InMemoryRealtimeStorage;
+import io.spine.web.sse.given.SseConnectionTestEnv.RecordingOutputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.AsyncContext;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.spine.web.sse.given.SseConnectionTestEnv.mockContext;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("SseConnection should")
+class SseConnectionTest {
+
+    private static final String PATH = "tenant/actor/subscription";
+
+    private InMemoryRealtimeStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = InMemoryRealtimeStorage.newBuilder()
+                                         .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        storage.shutdown();
+    }
+
+    @Test
+    @DisplayName("stream the existing and the changed entries")
+    void streamEntries() throws Exception {
+        storage.set(PATH + "/first", "{\"name\":\"a\"}")
+               .get(1, SECONDS);
+        RecordingOutputStream output = new RecordingOutputStream(true);
+        SseConnection connection = new SseConnection(mockContext(output), PATH, 10);
+        connection.open(storage, 3000, () -> {});
+        waitForOutput(output, "event: synced");
+
+        storage.set(PATH + "/first", ImmutableMap.of("data", "{\"name\":\"b\"}"));
+        storage.remove(PATH + "/first")
+               .get(1, SECONDS);
+        waitForOutput(output, "event: removed");
+
+        String written = output.written();
+        assertTrue(written.startsWith("retry: 3000\n\n"));
+        assertTrue(written.contains(
+                "event: added\ndata: {\"key\":\"first\",\"data\":{\"name\":\"a\"}}\n\n"));
+        assertTrue(written.contains("event: synced\ndata: {}\n\n"));
+        assertTrue(written.contains(
+                "event: changed\ndata: {\"key\":\"first\",\"data\":{\"name\":\"b\"}}\n\n"));
+        assertTrue(written.contains("event: removed\ndata: {\"key\":\"first\"}\n\n"));
+    }
+
+    @Test
+    @DisplayName("close the stream once the buffer overflows")
+    void closeOnOverflow() throws Exception {
+        RecordingOutputStream output = new RecordingOutputStream(false);
+        AsyncContext context = mockContext(output);
+        SseConnection connection = new SseConnection(context, PATH, 2);
+        AtomicBoolean closed = new AtomicBoolean();
+        connection.open(storage, 3000, () -> closed.set(true));
+
+        storage.push(PATH, "{}");
+        storage.push(PATH, "{}")
+               .get(1, SECONDS);
+        waitForClose(closed);
+
+        assertTrue(closed.get());
+        verify(context).complete();
+        assertTrue(output.written()
+                         .isEmpty());
+    }
+
+    @Test
+    @DisplayName("not stream the values which are not entries")
+    void skipNonEntries() throws Exception {
+        storage.set(PATH + "/first", "{}")
+               .get(1, SECONDS);
+        RecordingOutputStream output = new RecordingOutputStream(true);
+        SseConnection connection = new SseConnection(mockContext(output), "tenant/actor", 10);
+        connection.open(storage, 3000, () -> {});
+        waitForOutput(output, "event: synced");
+
+        assertFalse(output.written()
+                          .contains("event: added"));
+    }
+
+    private static void waitForOutput(RecordingOutputStream output, String expected)
+            throws InterruptedException {
+        for (int i = 0; i < 100 && !output.written()
+                                          .contains(expected); i++) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static void waitForClose(AtomicBoolean closed) throws InterruptedException {
+        for (int i = 0; i < 100 && !closed.get(); i++) {
+            Thread.sleep(10);
+        }
+    }
+}
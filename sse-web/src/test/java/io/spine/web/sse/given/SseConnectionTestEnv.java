@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.sse.given;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import javax.servlet.WriteListener;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class SseConnectionTestEnv {
+
+    /**
+     * Prevents instantiation of this test environment.
+     */
+    private SseConnectionTestEnv() {
+    }
+
+    public static AsyncContext mockContext(ServletOutputStream output) throws IOException {
+        ServletResponse response = mock(ServletResponse.class);
+        when(response.getOutputStream()).thenReturn(output);
+        AsyncContext context = mock(AsyncContext.class);
+        when(context.getResponse()).thenReturn(response);
+        return context;
+    }
+
+    /**
+     * A {@link ServletOutputStream} which records the written data.
+     */
+    public static final class RecordingOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private final boolean ready;
+
+        /**
+         * Creates a stream which accepts the data if {@code ready} and blocks the writes
+         * otherwise.
+         */
+        public RecordingOutputStream(boolean ready) {
+            super();
+            this.ready = ready;
+        }
+
+        @Override
+        public boolean isReady() {
+            return ready;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            // Writes are always attempted by the connection itself.
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            written.write(b);
+        }
+
+        public synchronized String written() {
+            return new String(written.toByteArray(), UTF_8);
+        }
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web;
+
+import com.google.common.collect.ImmutableList;
+import com.google.protobuf.Message;
+import io.spine.core.TenantId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A controller of the admission of the web requests.
+ *
+ * <p>The controller limits the number of the requests which are processed simultaneously, both
+ * in total and per {@linkplain TenantId tenant}. Also, the controller rejects all the requests
+ * while any of its {@linkplain Builder#addSaturationCheck(BooleanSupplier) saturation checks}
+ * reports that the downstream resources, e.g. the database writes, are saturated.
+ *
+ * <p>A single controller is meant to be {@linkplain NonSerializableServlet#setAdmissionController
+ * shared} by all the servlets of an application. The rejected requests are responded with
+ * the {@code 503} or {@code 429} status codes and the {@code Retry-After} header before they
+ * are dispatched to the application.
+ *
+ * <p>The transports which do not use the servlets, e.g. the WebSocket endpoints, {@linkplain
+ * #admit() admit} their requests through the same controller, so that the limits apply to all
+ * the requests of the application.
+ *
+ * <p>Note that the saturation checks are not tenant-aware. For instance, the check of
+ * the pending Firebase writes counts the writes of all the tenants together. The per-tenant
+ * limit bounds the number of the requests of a tenant, but not the number of the writes these
+ * requests cause, e.g. by the subscriptions updated in background. Thus, a single tenant
+ * producing many writes may saturate the check and get the requests of all the tenants
+ * rejected. There is no per-tenant cap on the pending writes.
+ */
+public final class AdmissionController {
+
+    private static final AdmissionController UNLIMITED = newBuilder().build();
+
+    private final int maxInFlightRequests;
+    private final int maxInFlightRequestsPerTenant;
+    private final long retryAfterSeconds;
+    private final ImmutableList<BooleanSupplier> saturationChecks;
+
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    private final Map<TenantId, Integer> inFlightRequestsByTenant = new ConcurrentHashMap<>();
+
+    private AdmissionController(Builder builder) {
+        this.maxInFlightRequests = builder.maxInFlightRequests;
+        this.maxInFlightRequestsPerTenant = builder.maxInFlightRequestsPerTenant;
+        this.retryAfterSeconds = builder.retryAfterSeconds;
+        this.saturationChecks = ImmutableList.copyOf(builder.saturationChecks);
+    }
+
+    /**
+     * Obtains the controller which admits all the requests.
+     *
+     * <p>This controller is used by the servlets which are not given a controller explicitly.
+     */
+    public static AdmissionController unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * Admits a new request if the limits allow.
+     *
+     * <p>The returned admission must be {@linkplain Admission#release() released} once
+     * the request is processed.
+     *
+     * @return the admission of the request or {@code Optional.empty()} if the request is rejected
+     */
+    public Optional<Admission> admit() {
+        for (BooleanSupplier check : saturationChecks) {
+            if (check.getAsBoolean()) {
+                return Optional.empty();
+            }
+        }
+        if (inFlightRequests.incrementAndGet() > maxInFlightRequests) {
+            inFlightRequests.decrementAndGet();
+            return Optional.empty();
+        }
+        return Optional.of(new Admission());
+    }
+
+    /**
+     * Obtains the number of seconds after which a rejected client may retry the request.
+     */
+    long retryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * Counts a request on behalf of the given tenant if the tenant limit allows.
+     */
+    private boolean acquire(TenantId tenant) {
+        AtomicBoolean acquired = new AtomicBoolean();
+        inFlightRequestsByTenant.compute(tenant, (key, count) -> {
+            int current = count == null ? 0 : count;
+            if (current >= maxInFlightRequestsPerTenant) {
+                return count;
+            }
+            acquired.set(true);
+            return current + 1;
+        });
+        return acquired.get();
+    }
+
+    private void release(TenantId tenant) {
+        inFlightRequestsByTenant.computeIfPresent(tenant, (key, count) -> count > 1
+                                                                          ? count - 1
+                                                                          : null);
+    }
+
+    /**
+     * An admission of a single request.
+     *
+     * <p>The admission is {@linkplain #release() released} once the request is processed. If
+     * the request is processed asynchronously, the admission is released upon the completion of
+     * the asynchronous processing.
+     */
+    public final class Admission implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Nullable
+        private volatile TenantId tenant;
+
+        private Admission() {
+        }
+
+        /**
+         * Admits the request on behalf of the given tenant if the tenant limit allows.
+         *
+         * <p>A request is admitted on behalf of a single tenant only. Subsequent calls have
+         * no effect.
+         *
+         * @return {@code true} if the request is admitted, {@code false} otherwise
+         */
+        boolean admitFor(TenantId tenant) {
+            checkNotNull(tenant);
+            if (this.tenant != null) {
+                return true;
+            }
+            if (!acquire(tenant)) {
+                return false;
+            }
+            this.tenant = tenant;
+            return true;
+        }
+
+        /**
+         * Admits the given request on behalf of its tenant if the tenant limit allows.
+         *
+         * <p>A request which does not define a tenant is admitted. A request made on behalf of
+         * several tenants, e.g. a batch of requests of different tenants, is not admitted.
+         *
+         * @param request the parsed request
+         * @return {@code true} if the request is admitted, {@code false} otherwise
+         * @see #admitFor(TenantId)
+         */
+        public boolean admitFor(Message request) {
+            Set<TenantId> tenants = RequestTenants.tenantsOf(request);
+            if (tenants.size() > 1) {
+                return false;
+            }
+            for (TenantId tenant : tenants) {
+                if (!admitFor(tenant)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Releases the admission.
+         *
+         * <p>Has no effect if the admission is already released.
+         */
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            inFlightRequests.decrementAndGet();
+            TenantId admittedTenant = tenant;
+            if (admittedTenant != null) {
+                AdmissionController.this.release(admittedTenant);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Do nothing. The timed out request is completed with an error.
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            log().warn("Releasing the admission of a failed request.");
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Do nothing.
+        }
+    }
+
+    /**
+     * Creates a new instance of {@code Builder} for {@code AdmissionController} instances.
+     *
+     * @return new instance of {@code Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * A builder for the {@code AdmissionController} instances.
+     */
+    public static final class Builder {
+
+        /**
+         * The default number of seconds after which a rejected client may retry the request.
+         */
+        private static final long DEFAULT_RETRY_AFTER_SECONDS = 1L;
+
+        private int maxInFlightRequests = Integer.MAX_VALUE;
+        private int maxInFlightRequestsPerTenant = Integer.MAX_VALUE;
+        private long retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+        private final List<BooleanSupplier> saturationChecks = new ArrayList<>();
+
+        /**
+         * Prevents local instantiation.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Sets the maximum number of the requests processed simultaneously.
+         *
+         * <p>The requests exceeding the limit are responded with the {@code 503} status code.
+         *
+         * <p>By default, the number of the requests is not limited.
+         *
+         * @param maxInFlightRequests the positive maximum number of the requests
+         */
+        public Builder setMaxInFlightRequests(int maxInFlightRequests) {
+            checkArgument(maxInFlightRequests > 0, "Max in-flight requests must be positive.");
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of the requests processed simultaneously on behalf of
+         * a single tenant.
+         *
+         * <p>The tenant is derived from the actor context of the request. The requests exceeding
+         * the limit are responded with the {@code 429} status code.
+         *
+         * <p>By default, the number of the requests is not limited.
+         *
+         * @param maxInFlightRequestsPerTenant the positive maximum number of the requests
+         */
+        public Builder setMaxInFlightRequestsPerTenant(int maxInFlightRequestsPerTenant) {
+            checkArgument(maxInFlightRequestsPerTenant > 0,
+                          "Max in-flight requests per tenant must be positive.");
+            this.maxInFlightRequestsPerTenant = maxInFlightRequestsPerTenant;
+            return this;
+        }
+
+        /**
+         * Sets the number of seconds after which a rejected client may retry the request.
+         *
+         * <p>The value is sent to the client in the {@code Retry-After} header.
+         *
+         * <p>The default value is {@code 1} second.
+         *
+         * @param retryAfterSeconds the non-negative number of seconds
+         */
+        public Builder setRetryAfterSeconds(long retryAfterSeconds) {
+            checkArgument(retryAfterSeconds >= 0, "Retry after seconds must not be negative.");
+            this.retryAfterSeconds = retryAfterSeconds;
+            return this;
+        }
+
+        /**
+         * Adds a check of the downstream resources saturation.
+         *
+         * <p>While any of the checks returns {@code true}, all the new requests are responded with
+         * the {@code 503} status code. For example, a check may report that the database writes
+         * are queued up to their limit, so that the new requests would only be able to enqueue
+         * writes which are going to be rejected.
+         *
+         * @param saturationCheck the check returning {@code true} if the resource is saturated
+         */
+        public Builder addSaturationCheck(BooleanSupplier saturationCheck) {
+            saturationChecks.add(checkNotNull(saturationCheck));
+            return this;
+        }
+
+        /**
+         * Creates a new instance of {@code AdmissionController}.
+         *
+         * @return new instance of {@code AdmissionController}
+         */
+        public AdmissionController build() {
+            return new AdmissionController(this);
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(AdmissionController.class);
+    }
+}
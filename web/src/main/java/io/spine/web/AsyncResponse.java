@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_GATEWAY_TIMEOUT;
+
+/**
+ * A response to an asynchronously processed request.
+ *
+ * <p>The response is completed exactly once: either with a {@linkplain #complete result of
+ * the processing}, or with an error upon the {@linkplain #onTimeout(AsyncEvent) timeout}.
+ */
+final class AsyncResponse implements AsyncListener {
+
+    private final AsyncContext context;
+    private final HttpServletResponse response;
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    AsyncResponse(AsyncContext context, HttpServletResponse response) {
+        this.context = context;
+        this.response = response;
+    }
+
+    /**
+     * Writes the given result to the response and completes the asynchronous processing.
+     *
+     * <p>If the result could not be obtained, responds with
+     * the {@link HttpServletResponse#SC_INTERNAL_SERVER_ERROR 500} status code.
+     *
+     * <p>Has no effect if the response is already completed.
+     *
+     * @param result the result of the request processing or {@code null} in case of an error
+     * @param error  the processing error or {@code null} if the processing succeeded
+     */
+    void complete(@Nullable RequestsResult result, @Nullable Throwable error) {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (error != null || result == null) {
+                log().error("Request processing failed.", error);
+                response.sendError(SC_INTERNAL_SERVER_ERROR);
+            } else {
+                result.writeTo(response);
+            }
+        } catch (IOException e) {
+            log().error("Failed to write the response.", e);
+        } finally {
+            context.complete();
+        }
+    }
+
+    /**
+     * Responds with the {@link HttpServletResponse#SC_GATEWAY_TIMEOUT 504} status code
+     * if the request processing has not completed in time.
+     *
+     * <p>Unlike a request rejected as overloading the server, a timed out request has been
+     * admitted and may still be processed. Thus, the response status differs from
+     * the {@code 503} status code, which the clients retry, so that a command is not posted
+     * twice.
+     */
+    @Override
+    public void onTimeout(AsyncEvent event) throws IOException {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            response.sendError(SC_GATEWAY_TIMEOUT);
+        } finally {
+            context.complete();
+        }
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        // Do nothing.
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        completed.set(true);
+        log().error("Asynchronous request processing failed.", event.getThrowable());
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+        // Do nothing.
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(AsyncResponse.class);
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web;
+
+import javax.annotation.Nullable;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.ServletResponse;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+
+import static io.spine.util.Exceptions.unsupported;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A {@link ServletResponse} which buffers the written characters instead of sending them.
+ *
+ * <p>Allows a {@link RequestsResult} to be embedded into another response, e.g. into
+ * the response to a whole batch of requests or into a WebSocket frame. Only the character
+ * content is supported; the rest of the response properties, such as the content type, are
+ * ignored, since the embedding response has its own.
+ */
+public final class BufferedResponse implements ServletResponse {
+
+    private final StringWriter buffer = new StringWriter();
+    private final PrintWriter writer = new PrintWriter(buffer);
+
+    @Nullable
+    private String contentType;
+
+    /**
+     * Obtains the characters written to this response.
+     */
+    public String content() {
+        writer.flush();
+        return buffer.toString();
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        return writer;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        throw unsupported("Buffered results may only be written as characters.");
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+        return UTF_8.name();
+    }
+
+    @Override
+    public void setCharacterEncoding(String charset) {
+        // The content is always encoded in UTF-8.
+    }
+
+    @Override
+    @Nullable
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public void setContentType(String type) {
+        this.contentType = type;
+    }
+
+    @Override
+    public void setContentLength(int len) {
+        // The length is defined by the embedding response.
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+        // The length is defined by the embedding response.
+    }
+
+    @Override
+    public void setBufferSize(int size) {
+        // The content is always buffered in full.
+    }
+
+    @Override
+    public int getBufferSize() {
+        return 0;
+    }
+
+    @Override
+    public void flushBuffer() {
+        writer.flush();
+    }
+
+    @Override
+    public void resetBuffer() {
+        writer.flush();
+        buffer.getBuffer()
+              .setLength(0);
+    }
+
+    @Override
+    public boolean isCommitted() {
+        return false;
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        contentType = null;
+    }
+
+    @Override
+    public void setLocale(Locale loc) {
+        // The locale of the content is not tracked.
+    }
+
+    @Override
+    public Locale getLocale() {
+        return Locale.getDefault();
+    }
+}
@@ -20,21 +20,355 @@
 
 package io.spine.web;
 
-import javax.servlet.http.HttpServlet;
+import com.google.protobuf.Message;
+import io.spine.web.AdmissionController.Admission;
+import io.spine.web.metrics.WebMetrics;
+import io.spine.web.parser.HttpMessages;
 
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static io.spine.util.Exceptions.unsupported;
+import static io.spine.web.metrics.MetricNames.REQUEST_PARSE;
+import static io.spine.web.metrics.MetricNames.REQUEST_PROCESSING;
+import static io.spine.web.metrics.MetricNames.REQUEST_REJECTED;
+import static io.spine.web.metrics.MetricNames.REQUEST_REJECTED_TENANT;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
 
 /**
  * An {@link HttpServlet} which cannot be serialized.
  *
+ * <p>The servlet is able to {@linkplain #respond respond} to the requests asynchronously.
+ * If the request {@linkplain HttpServletRequest#isAsyncSupported() supports} the asynchronous
+ * processing, the container thread is released while the request is being processed.
+ *
+ * <p>The asynchronous processing timeout can be configured with
+ * the {@value #ASYNC_TIMEOUT_PARAMETER} servlet init parameter or
+ * the {@link #setAsyncTimeoutMillis(long)} method. The requests which are not processed in time
+ * are responded with the {@link HttpServletResponse#SC_GATEWAY_TIMEOUT 504} status code,
+ * which the clients do not retry.
+ *
+ * <p>The servlet {@linkplain #parse parses} the request bodies with the size limit, which can be
+ * configured with the {@value #MAX_BODY_SIZE_PARAMETER} servlet init parameter or
+ * the {@link #setMaxBodySize(int)} method.
+ *
+ * <p>The requests are admitted by an {@link AdmissionController}, which may be
+ * {@linkplain #setAdmissionController(AdmissionController) shared} by several servlets.
+ * The requests exceeding the total capacity are responded with
+ * the {@link HttpServletResponse#SC_SERVICE_UNAVAILABLE 503} status code. The requests exceeding
+ * the capacity of their tenant are responded with the {@value #SC_TOO_MANY_REQUESTS} status code
+ * as soon as their bodies are {@linkplain #parse parsed}. Both responses carry
+ * the {@value #RETRY_AFTER_HEADER} header. A batch of requests made on behalf of several tenants
+ * is not parsed, so that each request is charged to its own tenant. A servlet which must stay
+ * available under load may be {@linkplain #isAdmissionControlled() exempted} from
+ * the admission control.
+ *
+ * <p>The servlet reports the request parsing and processing times and the rejected requests to
+ * the {@linkplain #setMetrics(WebMetrics) configured} {@link WebMetrics}. The processing time
+ * is measured from the moment the servlet receives the request until its result is available.
+ *
  * @author Dmytro Dashenkov
  */
 @SuppressWarnings("serial")
 public abstract class NonSerializableServlet extends HttpServlet {
 
+    /**
+     * The name of the servlet init parameter specifying the asynchronous processing timeout
+     * in milliseconds.
+     */
+    public static final String ASYNC_TIMEOUT_PARAMETER = "asyncTimeoutMillis";
+
+    /**
+     * The default asynchronous processing timeout in milliseconds.
+     */
+    private static final long DEFAULT_ASYNC_TIMEOUT_MILLIS = 30_000L;
+
+    /**
+     * The name of the servlet init parameter specifying the maximum size of a request body.
+     *
+     * @see HttpMessages#parse(HttpServletRequest, Class, int)
+     */
+    public static final String MAX_BODY_SIZE_PARAMETER = "maxBodySize";
+
+    /**
+     * The status code of a response to a request exceeding the capacity of its tenant.
+     */
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    /**
+     * The name of the request attribute holding the {@link Admission} of the request.
+     */
+    private static final String ADMISSION_ATTRIBUTE = Admission.class.getName();
+
+    /**
+     * The name of the request attribute holding the {@link System#nanoTime()} value obtained
+     * when the request is received.
+     */
+    private static final String START_NANOS_ATTRIBUTE =
+            NonSerializableServlet.class.getName() + ".startNanos";
+
+    private long asyncTimeoutMillis = DEFAULT_ASYNC_TIMEOUT_MILLIS;
+    private int maxBodySize = HttpMessages.DEFAULT_MAX_BODY_SIZE;
+    private AdmissionController admissionController = AdmissionController.unlimited();
+    private WebMetrics metrics = WebMetrics.noOp();
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Reads the {@value #ASYNC_TIMEOUT_PARAMETER} and {@value #MAX_BODY_SIZE_PARAMETER} init
+     * parameters, if they are set.
+     */
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        String timeout = getInitParameter(ASYNC_TIMEOUT_PARAMETER);
+        if (timeout != null) {
+            setAsyncTimeoutMillis(Long.parseLong(timeout.trim()));
+        }
+        String bodySize = getInitParameter(MAX_BODY_SIZE_PARAMETER);
+        if (bodySize != null) {
+            setMaxBodySize(Integer.parseInt(bodySize.trim()));
+        }
+    }
+
+    /**
+     * Sets the asynchronous processing timeout.
+     *
+     * <p>The default value is {@code 30} seconds.
+     *
+     * @param asyncTimeoutMillis the positive timeout in milliseconds
+     */
+    protected final void setAsyncTimeoutMillis(long asyncTimeoutMillis) {
+        checkArgument(asyncTimeoutMillis > 0, "Async timeout must be positive.");
+        this.asyncTimeoutMillis = asyncTimeoutMillis;
+    }
+
+    /**
+     * Sets the maximum size of a request body.
+     *
+     * <p>The default value is {@value HttpMessages#DEFAULT_MAX_BODY_SIZE}.
+     *
+     * @param maxBodySize the positive maximum size of a request body
+     * @see HttpMessages#parse(HttpServletRequest, Class, int)
+     */
+    protected final void setMaxBodySize(int maxBodySize) {
+        checkArgument(maxBodySize > 0, "Max body size must be positive.");
+        this.maxBodySize = maxBodySize;
+    }
+
+    /**
+     * Sets the controller of the admission of the requests to this servlet.
+     *
+     * <p>By default, all the requests are {@linkplain AdmissionController#unlimited() admitted}.
+     *
+     * @param admissionController the admission controller, typically shared by all
+     *                            the servlets of the application
+     */
+    protected final void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = checkNotNull(admissionController);
+    }
+
+    /**
+     * Sets the metrics to report the request processing to.
+     *
+     * <p>By default, the metrics are {@linkplain WebMetrics#noOp() discarded}.
+     *
+     * @param metrics the metrics, typically shared by all the servlets of the application
+     */
+    protected final void setMetrics(WebMetrics metrics) {
+        this.metrics = checkNotNull(metrics);
+    }
+
+    /**
+     * Obtains the metrics to report the request processing to.
+     */
+    protected final WebMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Checks if the requests to this servlet are admitted by
+     * the {@linkplain #setAdmissionController(AdmissionController) admission controller}.
+     *
+     * <p>Returns {@code true} by default. A servlet which must respond regardless of the load,
+     * e.g. the one reporting the load itself, may override this method to return {@code false}.
+     */
+    protected boolean isAdmissionControlled() {
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Admits the request through the {@link AdmissionController} before processing it.
+     * The admission is released once the request is processed, including the asynchronous
+     * processing.
+     */
+    @Override
+    protected void service(HttpServletRequest req, HttpServletResponse resp)
+            throws ServletException, IOException {
+        req.setAttribute(START_NANOS_ATTRIBUTE, System.nanoTime());
+        if (!isAdmissionControlled()) {
+            super.service(req, resp);
+            return;
+        }
+        Optional<Admission> admission = admissionController.admit();
+        if (!admission.isPresent()) {
+            metrics.increment(REQUEST_REJECTED);
+            reject(resp, SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        Admission admitted = admission.get();
+        req.setAttribute(ADMISSION_ATTRIBUTE, admitted);
+        boolean processedAsync = false;
+        try {
+            super.service(req, resp);
+            processedAsync = req.isAsyncStarted();
+        } catch (TenantOverCapacity e) {
+            metrics.increment(REQUEST_REJECTED_TENANT);
+            reject(resp, SC_TOO_MANY_REQUESTS);
+        } finally {
+            if (!processedAsync) {
+                admitted.release();
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, int status) throws IOException {
+        response.setHeader(RETRY_AFTER_HEADER,
+                           String.valueOf(admissionController.retryAfterSeconds()));
+        response.sendError(status);
+    }
+
+    /**
+     * Parses the body of the given request into a message of the given type.
+     *
+     * <p>Once the message is parsed, the request is admitted on behalf of the tenant of
+     * the message. If the tenant is over its capacity, the request processing is interrupted
+     * and the request is rejected.
+     *
+     * <p>A message made on behalf of several tenants, e.g. a batch of requests of different
+     * tenants, is not accepted.
+     *
+     * @param request
+     *         the request with a message in its body
+     * @param type
+     *         the class of the message contained in the request
+     * @param <M>
+     *         the type of the message to parse
+     * @return parsed message or {@code Optional.empty()} if the message cannot be parsed,
+     *         the request body is too big or the message is made on behalf of several tenants
+     * @throws IOException
+     *         if the {@code request} throws the exception
+     * @see HttpMessages
+     */
+    protected final <M extends Message> Optional<M> parse(HttpServletRequest request,
+                                                          Class<M> type) throws IOException {
+        long start = System.nanoTime();
+        Optional<M> message = HttpMessages.parse(request, type, maxBodySize);
+        metrics.recordSince(REQUEST_PARSE, start);
+        if (!message.isPresent()) {
+            return message;
+        }
+        if (RequestTenants.tenantsOf(message.get())
+                          .size() > 1) {
+            return Optional.empty();
+        }
+        admitForTenant(request, message.get());
+        return message;
+    }
+
+    private static void admitForTenant(HttpServletRequest request, Message message) {
+        Object admission = request.getAttribute(ADMISSION_ATTRIBUTE);
+        if (admission instanceof Admission && !((Admission) admission).admitFor(message)) {
+            throw new TenantOverCapacity();
+        }
+    }
+
+    /**
+     * Writes the given result to the response once it is available.
+     *
+     * <p>If the request supports the asynchronous processing, the processing is continued
+     * asynchronously and this method returns immediately. Otherwise, this method blocks until
+     * the result is available.
+     *
+     * <p>If the result cannot be obtained, the response is sent with
+     * the {@link HttpServletResponse#SC_INTERNAL_SERVER_ERROR 500} status code.
+     *
+     * @param request  the request being processed
+     * @param response the response to write the result to
+     * @param result   the future result of the request processing
+     * @throws IOException if the result cannot be written to the response synchronously
+     */
+    protected final void respond(HttpServletRequest request,
+                                 HttpServletResponse response,
+                                 CompletionStage<? extends RequestsResult> result)
+            throws IOException {
+        long start = startNanos(request);
+        result.whenComplete((value, error) -> metrics.recordSince(REQUEST_PROCESSING, start));
+        if (request.isAsyncSupported()) {
+            AsyncContext context = request.startAsync(request, response);
+            context.setTimeout(asyncTimeoutMillis);
+            AsyncResponse asyncResponse = new AsyncResponse(context, response);
+            context.addListener(asyncResponse);
+            Object admission = request.getAttribute(ADMISSION_ATTRIBUTE);
+            if (admission instanceof Admission) {
+                context.addListener((Admission) admission);
+            }
+            result.whenComplete(asyncResponse::complete);
+        } else {
+            RequestsResult value;
+            try {
+                value = result.toCompletableFuture()
+                              .join();
+            } catch (CompletionException e) {
+                response.sendError(SC_INTERNAL_SERVER_ERROR);
+                return;
+            }
+            value.writeTo(response);
+        }
+    }
+
+    /**
+     * Obtains the {@link System#nanoTime()} value obtained when the given request is received.
+     *
+     * <p>If the request did not pass through the {@link #service service} method, returns
+     * the current value.
+     */
+    private static long startNanos(HttpServletRequest request) {
+        Object start = request.getAttribute(START_NANOS_ATTRIBUTE);
+        return start instanceof Long
+               ? (Long) start
+               : System.nanoTime();
+    }
+
+    /**
+     * An exception interrupting the processing of a request which exceeds the capacity of
+     * its tenant.
+     */
+    private static final class TenantOverCapacity extends RuntimeException {
+
+        private static final long serialVersionUID = 0L;
+
+        private TenantOverCapacity() {
+            super("The tenant of the request is over its capacity.", null, false, false);
+        }
+    }
+
     // Disabled serialization.
     // ---------------------
 
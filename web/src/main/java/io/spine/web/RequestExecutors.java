@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.AbortPolicy;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A utility for creating the executors which dispatch the web requests.
+ *
+ * <p>The executors are bounded both in the number of threads and in the number of the queued
+ * requests. A request which does not fit the queue is rejected with
+ * a {@link RejectedExecutionException}, so that the caller may respond with an error instead of
+ * queueing the requests without a limit.
+ */
+public final class RequestExecutors {
+
+    /**
+     * The default maximum number of the requests waiting for a dispatching thread.
+     */
+    private static final int DEFAULT_MAX_QUEUED_REQUESTS = 1024;
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private RequestExecutors() {
+    }
+
+    /**
+     * Creates a new bounded executor.
+     *
+     * @param threads           the positive number of the dispatching threads
+     * @param maxQueuedRequests the positive maximum number of the requests waiting for a thread
+     * @return new executor
+     */
+    public static Executor newBounded(int threads, int maxQueuedRequests) {
+        checkArgument(threads > 0, "Number of threads must be positive.");
+        checkArgument(maxQueuedRequests > 0, "Max queued requests must be positive.");
+        return new ThreadPoolExecutor(
+                threads, threads,
+                0L, SECONDS,
+                new ArrayBlockingQueue<>(maxQueuedRequests),
+                new ThreadFactoryBuilder().setNameFormat("web-request-%d")
+                                          .setDaemon(true)
+                                          .build(),
+                new AbortPolicy()
+        );
+    }
+
+    /**
+     * Obtains the executor used by the components which are not given an executor explicitly.
+     *
+     * <p>The executor is shared across all such components. It has a thread per available
+     * processor and queues up to {@value #DEFAULT_MAX_QUEUED_REQUESTS} requests.
+     */
+    public static Executor defaultExecutor() {
+        return DefaultInstance.INSTANCE.value;
+    }
+
+    private enum DefaultInstance {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Executor value = newBounded(Runtime.getRuntime()
+                                                         .availableProcessors(),
+                                                  DEFAULT_MAX_QUEUED_REQUESTS);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web;
+
+import com.google.protobuf.Message;
+import io.spine.client.Query;
+import io.spine.client.Subscription;
+import io.spine.client.Topic;
+import io.spine.core.ActorContext;
+import io.spine.core.Command;
+import io.spine.core.TenantId;
+
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toSet;
+
+/**
+ * A utility for obtaining the tenant on behalf of which a web request is made.
+ */
+final class RequestTenants {
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private RequestTenants() {
+    }
+
+    /**
+     * Obtains the tenants of the given request message.
+     *
+     * <p>The tenant is taken from the {@link ActorContext} of the request. A batch of requests
+     * is made on behalf of the tenants of all its requests.
+     *
+     * @param request the parsed request body
+     * @return the tenants of the request; empty if the request does not define one, e.g. if
+     *         the request is an empty batch
+     */
+    static Set<TenantId> tenantsOf(Message request) {
+        return actorContextsOf(request).map(ActorContext::getTenantId)
+                                       .collect(toSet());
+    }
+
+    @SuppressWarnings("ChainOfInstanceofChecks") // The request types have no common interface.
+    private static Stream<ActorContext> actorContextsOf(Message request) {
+        if (request instanceof Command) {
+            return Stream.of(((Command) request).getContext()
+                                                .getActorContext());
+        }
+        if (request instanceof Query) {
+            return Stream.of(((Query) request).getContext());
+        }
+        if (request instanceof WebQuery) {
+            return actorContextsOf(((WebQuery) request).getQuery());
+        }
+        if (request instanceof Topic) {
+            return Stream.of(((Topic) request).getContext());
+        }
+        if (request instanceof Subscription) {
+            return actorContextsOf(((Subscription) request).getTopic());
+        }
+        if (request instanceof SubscriptionBatch) {
+            return ((SubscriptionBatch) request).getSubscriptionList()
+                                                .stream()
+                                                .flatMap(RequestTenants::actorContextsOf);
+        }
+        if (request instanceof WebRequestBatch) {
+            return ((WebRequestBatch) request).getRequestList()
+                                              .stream()
+                                              .flatMap(RequestTenants::actorContextsOf);
+        }
+        if (request instanceof WebRequest) {
+            return actorContextsOfRequest((WebRequest) request);
+        }
+        return Stream.empty();
+    }
+
+    private static Stream<ActorContext> actorContextsOfRequest(WebRequest request) {
+        switch (request.getKindCase()) {
+            case COMMAND:
+                return actorContextsOf(request.getCommand());
+            case QUERY:
+                return actorContextsOf(request.getQuery());
+            case SUBSCRIBE:
+                return actorContextsOf(request.getSubscribe());
+            case KEEP_UP:
+                return actorContextsOf(request.getKeepUp());
+            case CANCEL:
+                return actorContextsOf(request.getCancel());
+            case KIND_NOT_SET: // Fallthrough intended.
+            default:
+                return Stream.empty();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web;
+
+import io.spine.core.Ack;
+import io.spine.core.Command;
+import io.spine.server.CommandService;
+import io.spine.web.command.CommandResult;
+import io.spine.web.command.FutureObserver;
+import io.spine.web.metrics.WebMetrics;
+import io.spine.web.query.QueryBridge;
+import io.spine.web.subscription.SubscriptionBridge;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.spine.util.Exceptions.newIllegalArgumentException;
+import static io.spine.web.metrics.MetricNames.COMMAND_ACK;
+
+/**
+ * A dispatcher of the {@link WebRequest}s of different kinds.
+ *
+ * <p>Each request is dispatched to the {@link CommandService}, the {@link QueryBridge} or
+ * the {@link SubscriptionBridge} in the same way as the dedicated servlet would do.
+ *
+ * <p>As the {@link io.spine.web.command.CommandServlet CommandServlet} does, the dispatcher
+ * reports the time of obtaining the {@link Ack} of a command to the metrics of its owner.
+ */
+public final class WebRequestDispatcher {
+
+    private final CommandService commandService;
+    private final QueryBridge queryBridge;
+    private final SubscriptionBridge subscriptionBridge;
+    private final Supplier<WebMetrics> metrics;
+
+    /**
+     * Creates a new dispatcher.
+     *
+     * @param commandService     the service to post the commands to
+     * @param queryBridge        the bridge to send the queries to
+     * @param subscriptionBridge the bridge to send the subscription requests to
+     * @param metrics            the supplier of the metrics to report to; the metrics are
+     *                           obtained upon each request, since the owner of the dispatcher
+     *                           may be configured after the dispatcher is created
+     */
+    public WebRequestDispatcher(CommandService commandService,
+                                QueryBridge queryBridge,
+                                SubscriptionBridge subscriptionBridge,
+                                Supplier<WebMetrics> metrics) {
+        this.commandService = checkNotNull(commandService);
+        this.queryBridge = checkNotNull(queryBridge);
+        this.subscriptionBridge = checkNotNull(subscriptionBridge);
+        this.metrics = checkNotNull(metrics);
+    }
+
+    /**
+     * Dispatches the given request.
+     *
+     * @param request the request with its kind set
+     * @return the future result of the request processing
+     * @throws IllegalArgumentException if the kind of the request is not set
+     */
+    public CompletionStage<RequestsResult> dispatch(WebRequest request) {
+        WebRequest.KindCase kind = request.getKindCase();
+        switch (kind) {
+            case COMMAND:
+                return widen(post(request.getCommand()));
+            case QUERY:
+                return widen(queryBridge.sendAsync(request.getQuery()));
+            case SUBSCRIBE:
+                return widen(subscriptionBridge.subscribeAsync(request.getSubscribe()));
+            case KEEP_UP:
+                return widen(subscriptionBridge.keepUpAsync(request.getKeepUp()));
+            case CANCEL:
+                return widen(subscriptionBridge.cancelAsync(request.getCancel()));
+            case KIND_NOT_SET: // Fallthrough intended.
+            default:
+                throw newIllegalArgumentException("Unexpected web request kind %s.", kind);
+        }
+    }
+
+    private CompletionStage<CommandResult> post(Command command) {
+        FutureObserver<Ack> ack = FutureObserver.withDefault(Ack.getDefaultInstance());
+        CompletionStage<Ack> acknowledged = metrics.get()
+                                                   .timed(COMMAND_ACK, ack.toFuture());
+        commandService.post(command, ack);
+        return acknowledged.thenApply(CommandResult::new);
+    }
+
+    private static CompletionStage<RequestsResult>
+    widen(CompletionStage<? extends RequestsResult> result) {
+        return result.thenApply(value -> value);
+    }
+}
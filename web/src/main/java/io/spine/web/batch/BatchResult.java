@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.batch;
+
+import com.google.common.collect.ImmutableList;
+import io.spine.web.BufferedResponse;
+import io.spine.web.RequestsResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.List;
+
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+
+/**
+ * A result of a {@link io.spine.web.WebRequestBatch WebRequestBatch} processing.
+ *
+ * <p>The result is written as a JSON object with the {@code results} array, which contains
+ * the outcomes of the requests in the order of the requests.
+ *
+ * @see BatchServlet
+ */
+final class BatchResult implements RequestsResult {
+
+    private static final String JSON_MIME_TYPE = JSON_UTF_8.toString();
+
+    private final ImmutableList<Outcome> outcomes;
+
+    BatchResult(List<Outcome> outcomes) {
+        this.outcomes = ImmutableList.copyOf(outcomes);
+    }
+
+    @Override
+    public void writeTo(ServletResponse response) throws IOException {
+        StringBuilder json = new StringBuilder("{\"results\":[");
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            outcomes.get(i)
+                    .appendTo(json);
+        }
+        json.append("]}");
+        response.getWriter()
+                .append(json);
+        response.setContentType(JSON_MIME_TYPE);
+    }
+
+    /**
+     * An outcome of a single request of a batch.
+     */
+    static final class Outcome {
+
+        private final int status;
+
+        @Nullable
+        private final RequestsResult result;
+
+        private Outcome(int status, @Nullable RequestsResult result) {
+            this.status = status;
+            this.result = result;
+        }
+
+        /**
+         * Creates an outcome of a request which is processed either successfully or with
+         * the given error.
+         */
+        static Outcome of(@Nullable RequestsResult result, @Nullable Throwable error) {
+            if (error != null) {
+                log().error("Batched request processing failed.", error);
+                return new Outcome(SC_INTERNAL_SERVER_ERROR, null);
+            }
+            if (result == null) {
+                return new Outcome(SC_INTERNAL_SERVER_ERROR, null);
+            }
+            return new Outcome(SC_OK, result);
+        }
+
+        /**
+         * Creates an outcome of a request which cannot be processed.
+         */
+        static Outcome invalid() {
+            return new Outcome(SC_BAD_REQUEST, null);
+        }
+
+        /**
+         * Creates an outcome of a request which is rejected by the overloaded server.
+         */
+        static Outcome rejected() {
+            return new Outcome(SC_SERVICE_UNAVAILABLE, null);
+        }
+
+        /**
+         * Appends the JSON representation of this outcome to the given builder.
+         *
+         * @param json the builder of the batch JSON
+         */
+        private void appendTo(StringBuilder json) throws IOException {
+            json.append("{\"status\":")
+                .append(status);
+            if (result != null) {
+                BufferedResponse buffered = new BufferedResponse();
+                result.writeTo(buffered);
+                String body = buffered.content();
+                if (!body.isEmpty()) {
+                    json.append(",\"body\":")
+                        .append(body);
+                }
+            }
+            json.append('}');
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(BatchResult.class);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.batch;
+
+import io.spine.server.CommandService;
+import io.spine.web.NonSerializableServlet;
+import io.spine.web.RequestExecutors;
+import io.spine.web.WebRequest;
+import io.spine.web.WebRequestBatch;
+import io.spine.web.WebRequestDispatcher;
+import io.spine.web.batch.BatchResult.Outcome;
+import io.spine.web.query.QueryBridge;
+import io.spine.web.subscription.SubscriptionBridge;
+
+import javax.annotation.OverridingMethodsMustInvokeSuper;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.toList;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE;
+
+/**
+ * An {@link HttpServlet} which processes several web requests of different kinds at once.
+ *
+ * <p>Handles {@code POST} requests with a {@link WebRequestBatch} in their bodies. Each
+ * {@link WebRequest} of the batch is {@linkplain WebRequestDispatcher dispatched} to
+ * the {@link CommandService}, the {@link QueryBridge} or the {@link SubscriptionBridge} in
+ * the same way as the dedicated servlet would do. The requests are processed concurrently.
+ *
+ * <p>The response is a JSON object with the {@code results} array. The array contains a result
+ * for each request in the order of the requests. A result consists of the HTTP {@code status}
+ * code the dedicated servlet would respond with and the response {@code body}, if any.
+ *
+ * <p>The number of the requests in a batch is limited. The limit can be configured with
+ * the {@value #MAX_BATCH_SIZE_PARAMETER} servlet init parameter or
+ * the {@link #setMaxBatchSize(int)} method. A batch exceeding the limit is responded with
+ * the {@link HttpServletResponse#SC_REQUEST_ENTITY_TOO_LARGE 413} status code.
+ *
+ * <p>The requests are dispatched by a {@linkplain #setExecutor(Executor) bounded executor}.
+ * The requests rejected by the executor are responded with the {@code 503} status code within
+ * the batch response.
+ *
+ * <p>The time of obtaining the acknowledgement of each batched command is reported to
+ * the servlet {@linkplain #metrics() metrics}.
+ *
+ * <p>The batch is written to the response {@linkplain #respond asynchronously} if the servlet
+ * container allows it.
+ */
+@SuppressWarnings("serial") // Java serialization is not supported.
+public abstract class BatchServlet extends NonSerializableServlet {
+
+    /**
+     * The name of the servlet init parameter specifying the maximum number of the requests in
+     * a batch.
+     */
+    public static final String MAX_BATCH_SIZE_PARAMETER = "maxBatchSize";
+
+    /**
+     * The default maximum number of the requests in a batch.
+     */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    private final WebRequestDispatcher dispatcher;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+    private Executor executor = RequestExecutors.defaultExecutor();
+
+    protected BatchServlet(CommandService commandService,
+                           QueryBridge queryBridge,
+                           SubscriptionBridge subscriptionBridge) {
+        super();
+        this.dispatcher = new WebRequestDispatcher(commandService,
+                                                   queryBridge,
+                                                   subscriptionBridge,
+                                                   this::metrics);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Reads the {@value #MAX_BATCH_SIZE_PARAMETER} init parameter, if it is set.
+     */
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        String batchSize = getInitParameter(MAX_BATCH_SIZE_PARAMETER);
+        if (batchSize != null) {
+            setMaxBatchSize(Integer.parseInt(batchSize.trim()));
+        }
+    }
+
+    /**
+     * Sets the maximum number of the requests in a batch.
+     *
+     * <p>The default value is {@value #DEFAULT_MAX_BATCH_SIZE}.
+     *
+     * @param maxBatchSize the positive maximum number of the requests
+     */
+    protected final void setMaxBatchSize(int maxBatchSize) {
+        checkArgument(maxBatchSize > 0, "Max batch size must be positive.");
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Sets the executor which dispatches the batched requests.
+     *
+     * <p>The executor should be {@linkplain RequestExecutors#newBounded(int, int) bounded}, so
+     * that the requests are rejected instead of being queued without a limit.
+     *
+     * <p>By default, the {@linkplain RequestExecutors#defaultExecutor() shared} executor is used.
+     *
+     * @param executor the executor to dispatch the requests with
+     */
+    protected final void setExecutor(Executor executor) {
+        this.executor = checkNotNull(executor);
+    }
+
+    @OverridingMethodsMustInvokeSuper
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+        Optional<WebRequestBatch> parsed = parse(req, WebRequestBatch.class);
+        if (!parsed.isPresent()) {
+            resp.sendError(SC_BAD_REQUEST);
+        } else if (parsed.get()
+                         .getRequestCount() > maxBatchSize) {
+            resp.sendError(SC_REQUEST_ENTITY_TOO_LARGE);
+        } else {
+            WebRequestBatch batch = parsed.get();
+            List<CompletableFuture<Outcome>> outcomes = batch.getRequestList()
+                                                             .stream()
+                                                             .map(this::process)
+                                                             .collect(toList());
+            CompletableFuture<BatchResult> result =
+                    allOf(outcomes.toArray(new CompletableFuture<?>[0]))
+                            .thenApply(allProcessed -> new BatchResult(joined(outcomes)));
+            respond(req, resp, result);
+        }
+    }
+
+    /**
+     * Processes the given request by the {@linkplain #setExecutor(Executor) executor}.
+     *
+     * @return the future outcome of the request, which is never completed exceptionally
+     */
+    private CompletableFuture<Outcome> process(WebRequest request) {
+        if (request.getKindCase() == WebRequest.KindCase.KIND_NOT_SET) {
+            return completedFuture(Outcome.invalid());
+        }
+        CompletableFuture<Outcome> outcome;
+        try {
+            outcome = supplyAsync(() -> dispatcher.dispatch(request), executor)
+                    .thenCompose(result -> result)
+                    .handle(Outcome::of);
+        } catch (RejectedExecutionException e) {
+            outcome = completedFuture(Outcome.rejected());
+        }
+        return outcome;
+    }
+
+    private static List<Outcome> joined(List<CompletableFuture<Outcome>> outcomes) {
+        return outcomes.stream()
+                       .map(CompletableFuture::join)
+                       .collect(toList());
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.command;
+
+import com.google.common.net.MediaType;
+import io.spine.core.Ack;
+import io.spine.web.RequestsResult;
+
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static io.spine.json.Json.toCompactJson;
+
+/**
+ * A result of a command processing, which is the {@link Ack} of the command.
+ */
+public final class CommandResult implements RequestsResult {
+
+    private static final MediaType MIME_TYPE = JSON_UTF_8;
+
+    private final Ack ack;
+
+    public CommandResult(Ack ack) {
+        this.ack = ack;
+    }
+
+    @Override
+    public void writeTo(ServletResponse response) throws IOException {
+        String json = toCompactJson(ack);
+        response.getWriter().append(json);
+        response.setContentType(MIME_TYPE.toString());
+    }
+}
@@ -20,12 +20,10 @@
 
 package io.spine.web.command;
 
-import com.google.common.net.MediaType;
 import io.spine.core.Ack;
 import io.spine.core.Command;
 import io.spine.server.CommandService;
 import io.spine.web.NonSerializableServlet;
-import io.spine.web.parser.HttpMessages;
 
 import javax.annotation.OverridingMethodsMustInvokeSuper;
 import javax.servlet.http.HttpServlet;
@@ -33,10 +31,10 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.CompletionStage;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.net.MediaType.JSON_UTF_8;
-import static io.spine.json.Json.toCompactJson;
+import static io.spine.web.metrics.MetricNames.COMMAND_ACK;
 import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
 
 /**
@@ -44,13 +42,15 @@ import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
  *
  * <p>Handles {@code POST} requests with {@linkplain Command commands} in their bodies.
  *
+ * <p>The command {@link Ack} is written to the response {@linkplain #respond asynchronously}
+ * if the servlet container allows it. The time of obtaining the {@link Ack} is reported to
+ * the servlet {@linkplain #metrics() metrics}.
+ *
  * @author Dmytro Dashenkov
  */
 @SuppressWarnings("serial") // Java serialization is not supported.
 public abstract class CommandServlet extends NonSerializableServlet {
 
-    private static final MediaType MIME_TYPE = JSON_UTF_8;
-
     private final CommandService commandService;
 
     protected CommandServlet(CommandService commandService) {
@@ -62,23 +62,15 @@ public abstract class CommandServlet extends NonSerializableServlet {
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws IOException {
-        Optional<Command> parsed = HttpMessages.parse(req, Command.class);
+        Optional<Command> parsed = parse(req, Command.class);
         if (!parsed.isPresent()) {
             resp.sendError(SC_BAD_REQUEST);
         } else {
             Command command = parsed.get();
             FutureObserver<Ack> ack = FutureObserver.withDefault(Ack.getDefaultInstance());
+            CompletionStage<Ack> acknowledged = metrics().timed(COMMAND_ACK, ack.toFuture());
             commandService.post(command, ack);
-            Ack result = ack.toFuture()
-                            .join();
-            writeToResponse(result, resp);
+            respond(req, resp, acknowledged.thenApply(CommandResult::new));
         }
     }
-
-    private static void writeToResponse(Ack ack, HttpServletResponse response)
-            throws IOException {
-        String json = toCompactJson(ack);
-        response.getWriter().append(json);
-        response.setContentType(MIME_TYPE.toString());
-    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A lock-free histogram of durations.
+ *
+ * <p>The recorded values are counted in buckets of exponentially growing width. Each power of
+ * two is divided into {@value #SUB_BUCKETS} buckets of equal width, so that a percentile is
+ * reported with a relative error not exceeding {@code 12.5%}. The exact count, total and
+ * maximum are tracked as well.
+ *
+ * <p>The histogram occupies a fixed amount of memory regardless of the number of
+ * the recorded values.
+ */
+public final class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records the given duration.
+     *
+     * <p>Negative durations are recorded as zero.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        buckets.incrementAndGet(bucketOf(value));
+        count.increment();
+        total.add(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Obtains the number of the recorded values.
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Obtains the mean of the recorded values in nanoseconds.
+     *
+     * @return the mean value or zero if no value is recorded
+     */
+    public double meanNanos() {
+        long count = count();
+        return count == 0 ? 0.0 : (double) total.sum() / count;
+    }
+
+    /**
+     * Obtains the maximum of the recorded values in nanoseconds.
+     */
+    public long maxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Obtains the value below which the given share of the recorded values falls.
+     *
+     * <p>The value is the upper bound of the bucket containing the percentile, but never
+     * exceeds the {@linkplain #maxNanos() maximum}.
+     *
+     * @param percentile the percentile in the range from {@code 0} to {@code 100}
+     * @return the percentile value in nanoseconds or zero if no value is recorded
+     */
+    public long percentileNanos(double percentile) {
+        checkArgument(percentile >= 0.0 && percentile <= 100.0,
+                      "Percentile must be in range [0, 100].");
+        long count = count();
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = Math.max((long) Math.ceil(count * percentile / 100.0), 1L);
+        long seen = 0L;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(bucket), maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+}
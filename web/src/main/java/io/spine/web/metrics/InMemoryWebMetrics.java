@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.metrics;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The {@link WebMetrics} which keep the metrics in memory.
+ *
+ * <p>The timers are kept in {@linkplain Histogram histograms}. The metrics are kept since
+ * the registry creation and are never reset.
+ *
+ * <p>The metrics can be reported through a {@link MetricsServlet}.
+ */
+public final class InMemoryWebMetrics implements WebMetrics {
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordNanos(String name, long nanos) {
+        checkNotNull(name);
+        histograms.computeIfAbsent(name, key -> new Histogram())
+                  .record(nanos);
+    }
+
+    @Override
+    public void add(String name, long delta) {
+        checkNotNull(name);
+        counters.computeIfAbsent(name, key -> new LongAdder())
+                .add(delta);
+    }
+
+    @Override
+    public void registerGauge(String name, LongSupplier gauge) {
+        checkNotNull(name);
+        checkNotNull(gauge);
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * Obtains the histogram of the timer with the given name.
+     *
+     * @return the histogram or {@code Optional.empty()} if nothing is recorded to the timer
+     */
+    public Optional<Histogram> histogram(String name) {
+        return Optional.ofNullable(histograms.get(name));
+    }
+
+    /**
+     * Obtains the value of the counter with the given name.
+     *
+     * @return the counter value or zero if the counter has never been incremented
+     */
+    public long counter(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0L : counter.sum();
+    }
+
+    /**
+     * Obtains the current value of the gauge with the given name.
+     *
+     * @return the gauge value or {@code OptionalLong.empty()} if the gauge is not registered
+     */
+    public OptionalLong gauge(String name) {
+        LongSupplier gauge = gauges.get(name);
+        return gauge == null ? OptionalLong.empty() : OptionalLong.of(gauge.getAsLong());
+    }
+
+    /**
+     * Creates a report of the current state of the metrics.
+     */
+    MetricsReport report() {
+        return new MetricsReport(histograms, counters, gauges);
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.metrics;
+
+/**
+ * The names of the metrics reported by the web components.
+ */
+public final class MetricNames {
+
+    /**
+     * The timer of parsing a request body into a message.
+     */
+    public static final String REQUEST_PARSE = "web.request.parse";
+
+    /**
+     * The timer of processing a request, from parsing its body to obtaining its result.
+     */
+    public static final String REQUEST_PROCESSING = "web.request.processing";
+
+    /**
+     * The counter of the requests rejected as exceeding the total capacity or arriving while
+     * the downstream resources are saturated.
+     */
+    public static final String REQUEST_REJECTED = "web.request.rejected";
+
+    /**
+     * The counter of the requests rejected as exceeding the capacity of their tenant.
+     */
+    public static final String REQUEST_REJECTED_TENANT = "web.request.rejected.tenant";
+
+    /**
+     * The timer of obtaining an acknowledgement of a command from the {@code CommandService}.
+     */
+    public static final String COMMAND_ACK = "web.command.ack";
+
+    /**
+     * The timer of executing a query on an
+     * {@link io.spine.web.query.service.AsyncQueryService AsyncQueryService}.
+     */
+    public static final String QUERY_EXECUTE = "web.query.execute";
+
+    /**
+     * The counter of the queries which failed to execute.
+     */
+    public static final String QUERY_FAILED = "web.query.failed";
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private MetricNames() {
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.metrics;
+
+import io.spine.web.RequestsResult;
+
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static java.lang.String.format;
+import static java.util.Locale.ROOT;
+
+/**
+ * A report of the {@link InMemoryWebMetrics} state.
+ *
+ * <p>The report is written as a JSON object of the following structure:
+ * <pre>
+ *     {@code
+ *     {
+ *         "timers": {
+ *             "web.request.parse": {
+ *                 "count": 42,
+ *                 "meanMillis": 0.125,
+ *                 "p50Millis": 0.1,
+ *                 "p90Millis": 0.2,
+ *                 "p99Millis": 0.5,
+ *                 "p999Millis": 0.9,
+ *                 "maxMillis": 1.2
+ *             }
+ *         },
+ *         "counters": {
+ *             "web.request.rejected": 3
+ *         },
+ *         "gauges": {
+ *             "firebase.write.pending": 0
+ *         }
+ *     }
+ *     }
+ * </pre>
+ *
+ * <p>The metrics are ordered by their names. The values are captured when the report is
+ * created.
+ */
+final class MetricsReport implements RequestsResult {
+
+    private static final String JSON_MIME_TYPE = JSON_UTF_8.toString();
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String json;
+
+    MetricsReport(Map<String, Histogram> histograms,
+                  Map<String, LongAdder> counters,
+                  Map<String, LongSupplier> gauges) {
+        StringBuilder json = new StringBuilder("{\"timers\":{");
+        appendEntries(json, histograms, MetricsReport::appendHistogram);
+        json.append("},\"counters\":{");
+        appendEntries(json, counters, (builder, counter) -> builder.append(counter.sum()));
+        json.append("},\"gauges\":{");
+        appendEntries(json, gauges, (builder, gauge) -> builder.append(gauge.getAsLong()));
+        json.append("}}");
+        this.json = json.toString();
+    }
+
+    @Override
+    public void writeTo(ServletResponse response) throws IOException {
+        response.getWriter()
+                .append(json);
+        response.setContentType(JSON_MIME_TYPE);
+    }
+
+    @Override
+    public String toString() {
+        return json;
+    }
+
+    private static <V> void appendEntries(StringBuilder json,
+                                          Map<String, V> metrics,
+                                          ValueWriter<V> writer) {
+        SortedMap<String, V> sorted = new TreeMap<>(metrics);
+        boolean first = true;
+        for (Map.Entry<String, V> metric : sorted.entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            appendString(json, metric.getKey());
+            json.append(':');
+            writer.append(json, metric.getValue());
+        }
+    }
+
+    private static void appendHistogram(StringBuilder json, Histogram histogram) {
+        json.append("{\"count\":")
+            .append(histogram.count())
+            .append(",\"meanMillis\":")
+            .append(millis(histogram.meanNanos()))
+            .append(",\"p50Millis\":")
+            .append(millis(histogram.percentileNanos(50.0)))
+            .append(",\"p90Millis\":")
+            .append(millis(histogram.percentileNanos(90.0)))
+            .append(",\"p99Millis\":")
+            .append(millis(histogram.percentileNanos(99.0)))
+            .append(",\"p999Millis\":")
+            .append(millis(histogram.percentileNanos(99.9)))
+            .append(",\"maxMillis\":")
+            .append(millis(histogram.maxNanos()))
+            .append('}');
+    }
+
+    private static String millis(double nanos) {
+        return format(ROOT, "%.3f", nanos / NANOS_PER_MILLI);
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                json.append('\\');
+            }
+            json.append(c);
+        }
+        json.append('"');
+    }
+
+    /**
+     * A function appending a metric value to the JSON.
+     */
+    @FunctionalInterface
+    private interface ValueWriter<V> {
+
+        void append(StringBuilder json, V value);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.metrics;
+
+import io.spine.web.NonSerializableServlet;
+
+import javax.annotation.OverridingMethodsMustInvokeSuper;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An {@link HttpServlet} reporting the {@link InMemoryWebMetrics}.
+ *
+ * <p>Handles {@code GET} requests. The response contains the JSON report of the metrics, which
+ * includes the percentiles of the timers and the values of the counters and the gauges.
+ *
+ * <p>A typical implementation would extend this class and provide the metrics shared with
+ * the other servlets in the constructor. Consider restricting the access to the servlet, since
+ * the metrics may disclose the application load.
+ *
+ * <p>The servlet is not subject to the admission control, so that the metrics can be read while
+ * the application is overloaded.
+ */
+@SuppressWarnings("serial") // Java serialization is not supported.
+public abstract class MetricsServlet extends NonSerializableServlet {
+
+    private final InMemoryWebMetrics metrics;
+
+    protected MetricsServlet(InMemoryWebMetrics metrics) {
+        super();
+        this.metrics = checkNotNull(metrics);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Returns {@code false}.
+     */
+    @Override
+    protected final boolean isAdmissionControlled() {
+        return false;
+    }
+
+    @OverridingMethodsMustInvokeSuper
+    @Override
+    protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        metrics.report()
+               .writeTo(resp);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.metrics;
+
+import java.util.concurrent.CompletionStage;
+import java.util.function.LongSupplier;
+
+/**
+ * A receiver of the metrics of the web requests processing.
+ *
+ * <p>The metrics are of three kinds:
+ * <ul>
+ *     <li>timers, which record the durations of the operations into a histogram;
+ *     <li>counters, which count the events;
+ *     <li>gauges, which report the current value of a quantity on demand.
+ * </ul>
+ *
+ * <p>The metrics are identified by their names. The names reported by the web components are
+ * listed in {@link MetricNames}.
+ *
+ * <p>Implement this interface to report the metrics to a monitoring system of choice.
+ * The implementations must be thread-safe and should not block the callers, since the metrics
+ * are recorded on the request processing path.
+ *
+ * @see InMemoryWebMetrics
+ */
+public interface WebMetrics {
+
+    /**
+     * Records the duration of an operation.
+     *
+     * @param name  the name of the timer
+     * @param nanos the duration in nanoseconds
+     */
+    void recordNanos(String name, long nanos);
+
+    /**
+     * Increments the counter by the given amount.
+     *
+     * @param name  the name of the counter
+     * @param delta the amount to add to the counter
+     */
+    void add(String name, long delta);
+
+    /**
+     * Registers a gauge.
+     *
+     * <p>If a gauge with the same name is already registered, it is replaced.
+     *
+     * @param name  the name of the gauge
+     * @param gauge the supplier of the current gauge value; must be cheap and thread-safe
+     */
+    void registerGauge(String name, LongSupplier gauge);
+
+    /**
+     * Increments the counter by one.
+     *
+     * @param name the name of the counter
+     */
+    default void increment(String name) {
+        add(name, 1L);
+    }
+
+    /**
+     * Records the duration of an operation started at the given moment.
+     *
+     * @param name       the name of the timer
+     * @param startNanos the {@link System#nanoTime()} value obtained when the operation started
+     */
+    default void recordSince(String name, long startNanos) {
+        recordNanos(name, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Records the time until the given stage is completed, successfully or not.
+     *
+     * @param name  the name of the timer
+     * @param stage the stage of the operation which has just started
+     * @param <T>   the type of the operation result
+     * @return the given stage
+     */
+    default <T> CompletionStage<T> timed(String name, CompletionStage<T> stage) {
+        long start = System.nanoTime();
+        stage.whenComplete((result, error) -> recordSince(name, start));
+        return stage;
+    }
+
+    /**
+     * Obtains the metrics which discard all the records.
+     *
+     * <p>Used by the web components by default.
+     */
+    static WebMetrics noOp() {
+        return NoOpMetrics.INSTANCE;
+    }
+}
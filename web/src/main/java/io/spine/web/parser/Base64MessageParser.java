@@ -22,7 +22,7 @@ package io.spine.web.parser;
 
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.Message;
-import io.spine.protobuf.Messages;
+import com.google.protobuf.Parser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,9 +43,11 @@ import static com.google.common.base.Throwables.getRootCause;
 final class Base64MessageParser<M extends Message> implements MessageParser<M> {
 
     private final Class<M> type;
+    private final Parser<M> parser;
 
     Base64MessageParser(Class<M> type) {
         this.type = type;
+        this.parser = MessageParsers.protobufParser(type);
     }
 
     /**
@@ -54,13 +56,10 @@ final class Base64MessageParser<M extends Message> implements MessageParser<M> {
     @Override
     public Optional<M> parse(String raw) {
         byte[] bytes = Base64.getDecoder().decode(raw);
-        Message.Builder builder = Messages.builderFor(type);
         try {
-            @SuppressWarnings("unchecked") // Logically checked.
-            M message = (M) builder.mergeFrom(bytes)
-                                   .build();
+            M message = parser.parseFrom(bytes);
             return Optional.of(message);
-        } catch (InvalidProtocolBufferException | ClassCastException e) {
+        } catch (InvalidProtocolBufferException e) {
             log().error("Unable to parse message of type {} from a Base64 string: `{}`",
                         type.getName(), raw, System.lineSeparator(), getRootCause(e).getMessage());
             return Optional.empty();
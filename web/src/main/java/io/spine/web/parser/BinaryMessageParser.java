@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.parser;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+import static com.google.common.base.Throwables.getRootCause;
+
+/**
+ * A parser of messages from a stream of the raw message bytes.
+ *
+ * <p>Unlike the {@linkplain MessageParser string parsers}, this parser reads the message directly
+ * from the stream, with no intermediate copies of the message bytes.
+ *
+ * @param <M> the type of messages to parse
+ */
+final class BinaryMessageParser<M extends Message> {
+
+    private final Class<M> type;
+    private final Parser<M> parser;
+
+    BinaryMessageParser(Class<M> type) {
+        this.type = type;
+        this.parser = MessageParsers.protobufParser(type);
+    }
+
+    /**
+     * Parses the message from the given stream.
+     *
+     * @param stream  the stream of the message bytes
+     * @param maxSize the maximum number of bytes to read from the stream
+     * @return parsed message or {@code Optional.empty()} if the stream does not contain
+     *         a valid message of type {@code M} or the message is too big
+     * @throws IOException if the stream cannot be read
+     */
+    Optional<M> parse(InputStream stream, int maxSize) throws IOException {
+        CodedInputStream input = CodedInputStream.newInstance(stream);
+        input.setSizeLimit(maxSize);
+        try {
+            M message = parser.parseFrom(input);
+            return Optional.of(message);
+        } catch (InvalidProtocolBufferException e) {
+            log().error("Unable to parse message of type {} from bytes: {}",
+                        type.getName(), getRootCause(e).getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(BinaryMessageParser.class);
+    }
+}
@@ -22,28 +22,37 @@ package io.spine.web.parser;
 
 import com.google.protobuf.Message;
 
-import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static java.util.stream.Collectors.joining;
 
 /**
  * A HTTP request to message parser.
  *
- * <p>The parser supports two string representation formats:
+ * <p>The parser supports three message representation formats:
  * <ul>
  *     <li>JSON - <a href="https://developers.google.com/protocol-buffers/docs/proto3#json">
  *         the Protobuf JSON format</a>;
- *     <li>Base64 - the message bytes encoded in Base64.
+ *     <li>Base64 - the message bytes encoded in Base64;
+ *     <li>Binary - the raw message bytes.
  * </ul>
  *
- * <p>In order to specify either format, add the {@code Content-Type} header. The accepted values
- * are {@code application/json} and {@code application/x-protobuf}, case insensitive. If the header
- * is absent, the JSON format is expected. If the header value is not recognized, the parsing fails,
- * returning an empty {@link java.util.Optional Optional}.
+ * <p>In order to specify the format, add the {@code Content-Type} header. The accepted values
+ * are {@code application/json}, {@code application/x-protobuf} (Base64), and
+ * {@code application/protobuf} (binary), case insensitive. If the header is absent, the JSON
+ * format is expected. If the header value is not recognized, the parsing fails, returning
+ * an empty {@link java.util.Optional Optional}.
+ *
+ * <p>The binary format is the most efficient one, since the message is parsed directly from
+ * the request input stream, with no intermediate string representation.
+ *
+ * <p>The size of the request body is limited. The requests with a bigger body are not parsed.
+ * The limit is measured in bytes. The text formats are measured in the bytes of their UTF-8
+ * representation as they are read, so that a body with no declared length is not read past
+ * the limit.
  *
  * <p>No parameters are accepted in {@code Content-Type}, except for type, subtype and charset. Any
  * unhandled {@code Content-Type} attributes will result in failed parsing returning an empty
@@ -66,13 +75,20 @@ public final class HttpMessages {
     private HttpMessages() {
     }
 
+    /**
+     * The default maximum size of a request body.
+     */
+    public static final int DEFAULT_MAX_BODY_SIZE = 4 * 1024 * 1024;
+
     /**
      * Parses the body of the given request into a message of the given type.
      *
+     * <p>The request body size is limited to {@link #DEFAULT_MAX_BODY_SIZE}.
+     *
      * @param request
-     *         the request with a JSON in its body
+     *         the request with a message in its body
      * @param type
-     *         the class of message contained in the JSON
+     *         the class of the message contained in the request
      * @param <M>
      *         the type of the message to parse
      * @return parsed message or {@code Optional.empty()} if the message cannot be parsed
@@ -81,18 +97,38 @@ public final class HttpMessages {
      */
     public static <M extends Message> Optional<M> parse(HttpServletRequest request, Class<M> type)
             throws IOException {
-        checkNotNull(request, type);
-        Optional<MessageFormat> format = MessageFormat.formatOf(request);
-        String requestBody = body(request);
-        Optional<M> message = format.map(messageFormat -> messageFormat.parserFor(type))
-                                    .flatMap(parser -> parser.parse(requestBody));
-        return message;
+        return parse(request, type, DEFAULT_MAX_BODY_SIZE);
     }
 
-    private static String body(ServletRequest request) throws IOException {
-        String result = request.getReader()
-                               .lines()
-                               .collect(joining(" "));
-        return result;
+    /**
+     * Parses the body of the given request into a message of the given type.
+     *
+     * @param request
+     *         the request with a message in its body
+     * @param type
+     *         the class of the message contained in the request
+     * @param maxBodySize
+     *         the maximum size of the request body
+     * @param <M>
+     *         the type of the message to parse
+     * @return parsed message or {@code Optional.empty()} if the message cannot be parsed or
+     *         the request body is too big
+     * @throws IOException
+     *         if the {@code request} throws the exception
+     */
+    public static <M extends Message> Optional<M> parse(HttpServletRequest request,
+                                                        Class<M> type,
+                                                        int maxBodySize)
+            throws IOException {
+        checkNotNull(request);
+        checkNotNull(type);
+        checkArgument(maxBodySize > 0, "Max body size must be positive.");
+        Optional<MessageFormat> format = MessageFormat.formatOf(request);
+        if (!format.isPresent() || request.getContentLengthLong() > maxBodySize) {
+            return Optional.empty();
+        }
+        Optional<M> message = format.get()
+                                    .parse(request, type, maxBodySize);
+        return message;
     }
 }
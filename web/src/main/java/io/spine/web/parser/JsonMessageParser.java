@@ -20,19 +20,16 @@
 
 package io.spine.web.parser;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.Message;
 import io.spine.json.Json;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static com.google.common.base.Throwables.getRootCause;
 import static io.spine.json.Json.fromJson;
-import static java.util.regex.Pattern.LITERAL;
-import static java.util.regex.Pattern.compile;
 
 /**
  * An implementation of {@link MessageParser} which parses messages from their JSON representations.
@@ -46,6 +43,11 @@ import static java.util.regex.Pattern.compile;
  */
 final class JsonMessageParser<M extends Message> implements MessageParser<M> {
 
+    private static final char ESCAPE = '\\';
+    private static final char QUOTATION_MARK = '"';
+    @SuppressWarnings("HardcodedLineSeparator") // Work only with literal "\n"s
+    private static final char LINE_FEED = '\n';
+
     private final Class<M> type;
 
     JsonMessageParser(Class<M> type) {
@@ -65,61 +67,62 @@ final class JsonMessageParser<M extends Message> implements MessageParser<M> {
         }
     }
 
-    private static String cleanUp(String jsonFromRequest) {
-        String json = EscapeSymbol.unEscapeAll(jsonFromRequest);
+    /**
+     * Un-escapes the line feeds and the quotation marks in the given JSON and removes
+     * the enclosing quotation marks, if any.
+     *
+     * <p>The JSON is processed in a single pass. If the JSON contains no escaped characters,
+     * no intermediate copies are created.
+     */
+    @VisibleForTesting
+    static String cleanUp(String jsonFromRequest) {
+        String json = jsonFromRequest.indexOf(ESCAPE) < 0
+                      ? jsonFromRequest
+                      : unEscape(jsonFromRequest);
         String unQuoted = unQuote(json);
         return unQuoted;
     }
 
+    /**
+     * Replaces the escaped line feeds ({@code \n}) and quotation marks ({@code \"}) with
+     * the respective characters.
+     *
+     * <p>Any other escape sequences are left intact.
+     */
+    private static String unEscape(String escaped) {
+        int length = escaped.length();
+        StringBuilder result = new StringBuilder(length);
+        int i = 0;
+        while (i < length) {
+            char current = escaped.charAt(i);
+            char next = i + 1 < length ? escaped.charAt(i + 1) : 0;
+            if (current == ESCAPE && next == 'n') {
+                result.append(LINE_FEED);
+                i += 2;
+            } else if (current == ESCAPE && next == QUOTATION_MARK) {
+                result.append(QUOTATION_MARK);
+                i += 2;
+            } else {
+                result.append(current);
+                i++;
+            }
+        }
+        return result.toString();
+    }
+
     private static String unQuote(String json) {
         int beginIndex = 0;
         int endIndex = json.length();
         if (json.startsWith("\"")) {
             beginIndex = 1;
         }
-        if (json.endsWith("\"")) {
+        if (json.endsWith("\"") && endIndex > beginIndex) {
             endIndex = json.length() - 1;
         }
         String result = json.substring(beginIndex, endIndex);
         return result;
     }
 
-    /**
-     * An enumeration of special characters that may be escaped when sending a string over HTTP.
-     */
-    private enum EscapeSymbol {
-
-        @SuppressWarnings({
-                "HardcodedLineSeparator", // Work only with literal "\n"s
-                "unused"                  // Used via `values()`.
-        })
-        LINE_FEED("\\n", "\n"),
-        @SuppressWarnings("unused") // Used via `values()`.
-        QUOTATION_MARK("\\\"", "\"");
-
-        private final Pattern escapedPattern;
-        private final String raw;
-
-        EscapeSymbol(String escaped, String raw) {
-            this.escapedPattern = compile(escaped, LITERAL);
-            this.raw = raw;
-        }
-
-        private String unEscape(String escaped) {
-            Matcher matcher = escapedPattern.matcher(escaped);
-            String unescaped = matcher.replaceAll(raw);
-            return unescaped;
-        }
-
-        private static String unEscapeAll(String escaped) {
-            String json = escaped;
-            for (EscapeSymbol symbol : EscapeSymbol.values()) {
-                json = symbol.unEscape(json);
-            }
-            return json;
-        }
-    }
-
     private static Logger log() {
         return LogSingleton.INSTANCE.value;
     }
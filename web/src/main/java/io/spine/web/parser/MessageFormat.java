@@ -23,14 +23,19 @@ package io.spine.web.parser;
 import com.google.common.net.MediaType;
 import com.google.protobuf.Message;
 
+import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.Optional;
+import java.util.StringJoiner;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.net.MediaType.JSON_UTF_8;
 import static com.google.common.net.MediaType.create;
-import static com.google.common.net.MediaType.parse;
 import static java.util.Optional.empty;
 
 /**
@@ -46,24 +51,52 @@ enum MessageFormat {
      */
     JSON(Constants.PROTOBUF_JSON) {
         @Override
-        <M extends Message> MessageParser<M> parserFor(Class<M> type) {
-            return new JsonMessageParser<>(type);
+        <M extends Message> Optional<M> parse(HttpServletRequest request,
+                                              Class<M> type,
+                                              int maxBodySize) throws IOException {
+            MessageParser<M> parser = MessageParsers.parserFor(this, type, JsonMessageParser::new);
+            return parseText(request, maxBodySize, parser);
         }
     },
 
     /**
      * The Base64 bytes message stringification format.
      */
-    BASE64(Constants.PROTOBUF_BINARY) {
+    BASE64(Constants.PROTOBUF_BASE64) {
         @Override
-        <M extends Message> MessageParser<M> parserFor(Class<M> type) {
-            return new Base64MessageParser<>(type);
+        <M extends Message> Optional<M> parse(HttpServletRequest request,
+                                              Class<M> type,
+                                              int maxBodySize) throws IOException {
+            MessageParser<M> parser =
+                    MessageParsers.parserFor(this, type, Base64MessageParser::new);
+            return parseText(request, maxBodySize, parser);
+        }
+    },
+
+    /**
+     * The raw message bytes format.
+     *
+     * <p>The message is parsed directly from the request input stream.
+     */
+    BINARY(Constants.PROTOBUF_BINARY) {
+        @Override
+        <M extends Message> Optional<M> parse(HttpServletRequest request,
+                                              Class<M> type,
+                                              int maxBodySize) throws IOException {
+            BinaryMessageParser<M> parser =
+                    MessageParsers.parserFor(this, type, BinaryMessageParser::new);
+            return parser.parse(request.getInputStream(), maxBodySize);
         }
     };
 
     @SuppressWarnings("DuplicateStringLiteralInspection") // A duplicate is in tests.
     private static final String CONTENT_TYPE = "Content-Type";
 
+    /**
+     * The number of characters read from a text body at once.
+     */
+    private static final int READ_BUFFER_SIZE = 8 * 1024;
+
     private final MediaType contentType;
 
     MessageFormat(MediaType contentType) {
@@ -76,7 +109,8 @@ enum MessageFormat {
      * <p>The format is determined by the value of the {@code Content-Type} header.
      * If the value is equal to {@code application/json} (case insensitive), returns {@link #JSON}.
      * If the value is equal to {@code application/x-protobuf} (case insensitive), returns
-     * {@link #BASE64}. If the header is not set, returns {@link #JSON}.
+     * {@link #BASE64}. If the value is equal to {@code application/protobuf} (case insensitive),
+     * returns {@link #BINARY}. If the header is not set, returns {@link #JSON}.
      *
      * @param request
      *         the request to get the format for
@@ -91,7 +125,7 @@ enum MessageFormat {
         }
 
         try {
-            MediaType type = parse(contentTypeHeader);
+            MediaType type = MediaType.parse(contentTypeHeader);
             Optional<MessageFormat> format = formatOf(type);
             return format;
         } catch (IllegalArgumentException ignored) {
@@ -110,21 +144,106 @@ enum MessageFormat {
     }
 
     /**
-     * Creates a {@link MessageParser} for the given {@code type}.
+     * Parses the body of the given request into a message of the given type.
      *
-     * <p>The parser works with {@code this} message format.
+     * <p>The request body is expected to be in {@code this} message format.
      *
+     * @param request
+     *         the request to parse
      * @param type
      *         the class of the message to parse
+     * @param maxBodySize
+     *         the maximum size of the request body in bytes; the text formats are measured
+     *         in the bytes of their UTF-8 representation
      * @param <M>
      *         the type of the message to parse
-     * @return a message parses instance
+     * @return parsed message or {@code Optional.empty()} if the body cannot be parsed or
+     *         exceeds the maximum size
+     * @throws IOException
+     *         if the {@code request} throws the exception
+     */
+    abstract <M extends Message> Optional<M> parse(HttpServletRequest request,
+                                                   Class<M> type,
+                                                   int maxBodySize) throws IOException;
+
+    private static <M extends Message> Optional<M>
+    parseText(ServletRequest request, int maxBodySize, MessageParser<M> parser)
+            throws IOException {
+        Optional<String> body = textBody(request, maxBodySize);
+        Optional<M> message = body.flatMap(parser::parse);
+        return message;
+    }
+
+    /**
+     * Reads the body of the given request as a string.
+     *
+     * <p>The body is read in chunks, counting the bytes the read characters take in UTF-8.
+     * The reading stops as soon as the count exceeds the maximum size. Thus, a body with no
+     * declared length, e.g. a chunked one, is never read into memory in whole if it is too big.
+     *
+     * <p>The lines of the body are joined with spaces.
+     *
+     * @return the request body or {@code Optional.empty()} if the body exceeds the maximum size
+     */
+    private static Optional<String> textBody(ServletRequest request, int maxBodySize)
+            throws IOException {
+        Reader reader = request.getReader();
+        StringBuilder body = new StringBuilder();
+        char[] buffer = new char[READ_BUFFER_SIZE];
+        long size = 0;
+        int read = reader.read(buffer);
+        while (read != -1) {
+            size += utf8Length(buffer, read);
+            if (size > maxBodySize) {
+                return empty();
+            }
+            body.append(buffer, 0, read);
+            read = reader.read(buffer);
+        }
+        return Optional.of(joinLines(body.toString()));
+    }
+
+    /**
+     * Counts the bytes the given characters take in UTF-8.
+     *
+     * <p>Each char of a surrogate pair is counted as two bytes, which makes four bytes per pair.
      */
-    abstract <M extends Message> MessageParser<M> parserFor(Class<M> type);
+    private static long utf8Length(char[] chars, int count) {
+        long length = 0;
+        for (int i = 0; i < count; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                length += 2;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Joins the lines of the given text with spaces, dropping the line terminators.
+     */
+    private static String joinLines(String text) throws IOException {
+        if (text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        BufferedReader lines = new BufferedReader(new StringReader(text));
+        StringJoiner joined = new StringJoiner(" ");
+        String line = lines.readLine();
+        while (line != null) {
+            joined.add(line);
+            line = lines.readLine();
+        }
+        return joined.toString();
+    }
 
     private static class Constants {
 
         private static final MediaType PROTOBUF_JSON = JSON_UTF_8;
-        private static final MediaType PROTOBUF_BINARY = create("application", "x-protobuf");
+        private static final MediaType PROTOBUF_BASE64 = create("application", "x-protobuf");
+        private static final MediaType PROTOBUF_BINARY = create("application", "protobuf");
     }
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.parser;
+
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import io.spine.protobuf.Messages;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * A registry of the message parsers.
+ *
+ * <p>A parser is created once per a {@linkplain MessageFormat format} and a message type and is
+ * reused for all the subsequent requests. Thus, the reflective lookup of the message type
+ * metadata is performed only once per type.
+ */
+final class MessageParsers {
+
+    private static final ConcurrentMap<ParserKey, Object> parsers = new ConcurrentHashMap<>();
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private MessageParsers() {
+    }
+
+    /**
+     * Obtains the parser of the messages of the given type in the given format.
+     *
+     * <p>If there is no such parser yet, creates it with the given function.
+     *
+     * @param format    the format of the parsed messages
+     * @param type      the class of the parsed messages
+     * @param newParser the function creating a parser for the given class
+     * @param <M>       the type of the parsed messages
+     * @param <P>       the type of the parser
+     * @return the cached parser
+     */
+    @SuppressWarnings("unchecked") // Ensured by the key: a format creates a parser of one type.
+    static <M extends Message, P> P parserFor(MessageFormat format,
+                                              Class<M> type,
+                                              Function<Class<M>, P> newParser) {
+        ParserKey key = new ParserKey(format, type);
+        Object parser = parsers.computeIfAbsent(key, k -> newParser.apply(type));
+        return (P) parser;
+    }
+
+    /**
+     * Obtains the Protobuf parser of the messages of the given type.
+     *
+     * <p>This method uses reflection and thus should only be called upon a parser creation.
+     */
+    @SuppressWarnings("unchecked") // Logically checked.
+    static <M extends Message> Parser<M> protobufParser(Class<M> type) {
+        M defaultInstance = (M) Messages.builderFor(type)
+                                        .getDefaultInstanceForType();
+        Parser<M> parser = (Parser<M>) defaultInstance.getParserForType();
+        return parser;
+    }
+
+    /**
+     * A key of a parser in the registry.
+     */
+    private static final class ParserKey {
+
+        private final MessageFormat format;
+        private final Class<? extends Message> type;
+
+        private ParserKey(MessageFormat format, Class<? extends Message> type) {
+            this.format = format;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ParserKey other = (ParserKey) o;
+            return format == other.format && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(format, type);
+        }
+    }
+}
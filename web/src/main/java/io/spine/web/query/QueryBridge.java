@@ -23,6 +23,10 @@ package io.spine.web.query;
 import io.spine.client.Query;
 import io.spine.web.WebQuery;
 
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
 /**
  * An {@linkplain io.spine.client.Query entity query} bridge.
  *
@@ -48,4 +52,19 @@ public interface QueryBridge {
      * @return the query result
      */
     QueryProcessingResult send(WebQuery query);
+
+    /**
+     * Sends the given {@link Query} to the {@link io.spine.server.QueryService QueryService}
+     * without waiting for the query to be processed.
+     *
+     * <p>The default implementation performs the {@linkplain #send(WebQuery) synchronous call}.
+     * The implementations are encouraged to override this method in order to free the calling
+     * thread as soon as possible.
+     *
+     * @param query the query to send
+     * @return the future query result
+     */
+    default CompletableFuture<QueryProcessingResult> sendAsync(WebQuery query) {
+        return completedFuture(send(query));
+    }
 }
@@ -22,7 +22,6 @@ package io.spine.web.query;
 
 import io.spine.web.NonSerializableServlet;
 import io.spine.web.WebQuery;
-import io.spine.web.parser.HttpMessages;
 
 import javax.annotation.OverridingMethodsMustInvokeSuper;
 import javax.servlet.http.HttpServlet;
@@ -53,6 +52,9 @@ import java.util.Optional;
  * Otherwise, the response will be empty with the response code 
  * {@link HttpServletResponse#SC_BAD_REQUEST 400}.
  *
+ * <p>The query is processed {@linkplain #respond asynchronously} if the servlet container
+ * allows it.
+ *
  * <p>A typical implementation would extend this class and provide a {@link QueryBridge} in
  * the constructor. No additional config is required in order for this servlet to handle
  * the {@linkplain io.spine.client.Query entity queries}.
@@ -87,13 +89,12 @@ public abstract class QueryServlet extends NonSerializableServlet {
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws IOException {
-        Optional<WebQuery> optionalQuery = HttpMessages.parse(req, WebQuery.class);
+        Optional<WebQuery> optionalQuery = parse(req, WebQuery.class);
         if (!optionalQuery.isPresent()) {
             resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
         } else {
             WebQuery query = optionalQuery.get();
-            QueryProcessingResult result = bridge.send(query);
-            result.writeTo(resp);
+            respond(req, resp, bridge.sendAsync(query));
         }
     }
 }
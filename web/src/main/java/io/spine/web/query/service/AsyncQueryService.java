@@ -20,13 +20,20 @@
 
 package io.spine.web.query.service;
 
+import io.grpc.Channel;
 import io.spine.client.Query;
 import io.spine.client.QueryResponse;
+import io.spine.client.grpc.QueryServiceGrpc;
 import io.spine.client.grpc.QueryServiceGrpc.QueryServiceBlockingStub;
+import io.spine.client.grpc.QueryServiceGrpc.QueryServiceFutureStub;
 import io.spine.client.grpc.QueryServiceGrpc.QueryServiceImplBase;
+import io.spine.client.grpc.QueryServiceGrpc.QueryServiceStub;
+import io.spine.web.metrics.WebMetrics;
 
 import java.util.concurrent.CompletableFuture;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * An async proxy for a {@code QueryService}.
  *
@@ -63,10 +70,126 @@ public interface AsyncQueryService {
      *
      * <p>The resulting instance performs gRPC calls to connect to the query service.
      *
+     * <p>Each query blocks a thread of the {@linkplain java.util.concurrent.ForkJoinPool#commonPool()
+     * common pool} until the response arrives. Consider using a non-blocking stub or
+     * a {@link Channel} instead.
+     *
      * @param serviceStub the gRPC stub for a {@code QueryService}
      * @return new {@code AsyncQueryService}
      */
     static AsyncQueryService remote(QueryServiceBlockingStub serviceStub) {
-        return new Remote(serviceStub);
+        return remote(serviceStub, RemoteCallOptions.defaults());
+    }
+
+    /**
+     * Creates a proxy for a remote instance of {@code QueryService} with the given call options.
+     *
+     * <p>Each query blocks a thread of the {@linkplain RemoteCallOptions.Builder#setExecutor
+     * call executor} until the response arrives.
+     *
+     * @param serviceStub the gRPC stub for a {@code QueryService}
+     * @param options     the options of the gRPC calls
+     * @return new {@code AsyncQueryService}
+     */
+    static AsyncQueryService remote(QueryServiceBlockingStub serviceStub,
+                                    RemoteCallOptions options) {
+        checkNotNull(serviceStub);
+        checkNotNull(options);
+        return new Remote(serviceStub, options);
+    }
+
+    /**
+     * Creates a non-blocking proxy for a remote instance of {@code QueryService}.
+     *
+     * @param serviceStub the async gRPC stub for a {@code QueryService}
+     * @return new {@code AsyncQueryService}
+     */
+    static AsyncQueryService remote(QueryServiceStub serviceStub) {
+        return remote(serviceStub, RemoteCallOptions.defaults());
+    }
+
+    /**
+     * Creates a non-blocking proxy for a remote instance of {@code QueryService} with the given
+     * call options.
+     *
+     * @param serviceStub the async gRPC stub for a {@code QueryService}
+     * @param options     the options of the gRPC calls
+     * @return new {@code AsyncQueryService}
+     */
+    static AsyncQueryService remote(QueryServiceStub serviceStub, RemoteCallOptions options) {
+        checkNotNull(serviceStub);
+        checkNotNull(options);
+        return new AsyncRemote(serviceStub, options);
+    }
+
+    /**
+     * Creates a non-blocking proxy for a remote instance of {@code QueryService}.
+     *
+     * <p>Cancelling a future returned by the proxy cancels the respective gRPC call.
+     *
+     * @param serviceStub the future gRPC stub for a {@code QueryService}
+     * @return new {@code AsyncQueryService}
+     */
+    static AsyncQueryService remote(QueryServiceFutureStub serviceStub) {
+        return remote(serviceStub, RemoteCallOptions.defaults());
+    }
+
+    /**
+     * Creates a non-blocking proxy for a remote instance of {@code QueryService} with the given
+     * call options.
+     *
+     * <p>Cancelling a future returned by the proxy cancels the respective gRPC call.
+     *
+     * @param serviceStub the future gRPC stub for a {@code QueryService}
+     * @param options     the options of the gRPC calls
+     * @return new {@code AsyncQueryService}
+     */
+    static AsyncQueryService remote(QueryServiceFutureStub serviceStub,
+                                    RemoteCallOptions options) {
+        checkNotNull(serviceStub);
+        checkNotNull(options);
+        return new FutureRemote(serviceStub, options);
+    }
+
+    /**
+     * Creates a non-blocking proxy for a {@code QueryService} available through
+     * the given channel.
+     *
+     * @param channel the gRPC channel to the server hosting the {@code QueryService}
+     * @return new {@code AsyncQueryService}
+     */
+    static AsyncQueryService remote(Channel channel) {
+        return remote(channel, RemoteCallOptions.defaults());
+    }
+
+    /**
+     * Creates a non-blocking proxy for a {@code QueryService} available through
+     * the given channel with the given call options.
+     *
+     * @param channel the gRPC channel to the server hosting the {@code QueryService}
+     * @param options the options of the gRPC calls
+     * @return new {@code AsyncQueryService}
+     */
+    static AsyncQueryService remote(Channel channel, RemoteCallOptions options) {
+        checkNotNull(channel);
+        return remote(QueryServiceGrpc.newStub(channel), options);
+    }
+
+    /**
+     * Creates a proxy reporting the query execution to the given metrics.
+     *
+     * <p>The execution time of each query is recorded to
+     * the {@link io.spine.web.metrics.MetricNames#QUERY_EXECUTE QUERY_EXECUTE} timer. The failed
+     * queries are counted by the {@link io.spine.web.metrics.MetricNames#QUERY_FAILED
+     * QUERY_FAILED} counter.
+     *
+     * @param delegate the service executing the queries
+     * @param metrics  the metrics to report to
+     * @return new {@code AsyncQueryService}
+     */
+    static AsyncQueryService measured(AsyncQueryService delegate, WebMetrics metrics) {
+        checkNotNull(delegate);
+        checkNotNull(metrics);
+        return new Measured(delegate, metrics);
     }
 }
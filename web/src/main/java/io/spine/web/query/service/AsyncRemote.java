@@ -0,0 +1,61 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.query.service;
+
+import io.spine.client.Query;
+import io.spine.client.QueryResponse;
+import io.spine.client.grpc.QueryServiceGrpc.QueryServiceStub;
+import io.spine.web.command.FutureObserver;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An {@link AsyncQueryService} which dispatches calls to a remote
+ * {@link QueryServiceStub QueryService} via the non-blocking gRPC stub.
+ *
+ * <p>No thread is occupied while the query is being processed by the remote service.
+ *
+ * @see AsyncQueryService#remote(QueryServiceStub, RemoteCallOptions) AsyncQueryService.remote(...)
+ */
+final class AsyncRemote implements AsyncQueryService {
+
+    private final QueryServiceStub service;
+    private final RemoteCallOptions options;
+
+    AsyncRemote(QueryServiceStub service, RemoteCallOptions options) {
+        this.service = service;
+        this.options = options;
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> execute(Query query) {
+        FutureObserver<QueryResponse> observer =
+                FutureObserver.withDefault(QueryResponse.getDefaultInstance());
+        options.applyTo(service)
+               .read(query, observer);
+        return observer.toFuture();
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncQueryService.remote(...)";
+    }
+}
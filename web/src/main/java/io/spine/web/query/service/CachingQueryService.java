@@ -0,0 +1,257 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.query.service;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.spine.client.Query;
+import io.spine.client.QueryResponse;
+import io.spine.core.ActorContext;
+import io.spine.core.Status.StatusCase;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static io.spine.core.Status.StatusCase.ERROR;
+import static io.spine.core.Status.StatusCase.REJECTION;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * An {@link AsyncQueryService} which caches the responses of another {@code AsyncQueryService}.
+ *
+ * <p>The queries are cached by their target, field mask, and tenant. The query ID and the rest
+ * of the query context are not taken into account. Thus, the identical queries issued by
+ * different clients of the same tenant share the cached response, while the responses are never
+ * shared across tenants.
+ *
+ * <p>The concurrent identical queries are coalesced: while the response to a query is being
+ * obtained, the same query is not sent to the delegate service again, but receives the pending
+ * response instead.
+ *
+ * <p>A cached response expires after the {@linkplain Builder#setExpireAfter configured time},
+ * counted from the moment the query was sent to the delegate. The cache is also
+ * {@linkplain Builder#setMaximumSize bounded} in the number of the cached queries. The failed
+ * queries and the queries responded with an error status are not cached.
+ *
+ * <p>Note that the cached responses may be stale within the expiration time. Configure
+ * the expiration according to the tolerance of the clients to the stale data.
+ */
+public final class CachingQueryService implements AsyncQueryService {
+
+    private final AsyncQueryService delegate;
+    private final Cache<Query, CompletableFuture<QueryResponse>> cache;
+
+    private CachingQueryService(Builder builder) {
+        this.delegate = builder.delegate;
+        CacheBuilder<Object, Object> cacheBuilder =
+                CacheBuilder.newBuilder()
+                            .maximumSize(builder.maximumSize)
+                            .expireAfterWrite(builder.expireAfterMillis, TimeUnit.MILLISECONDS)
+                            .recordStats();
+        if (builder.ticker != null) {
+            cacheBuilder.ticker(builder.ticker);
+        }
+        this.cache = cacheBuilder.build();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Obtains the response from the cache if an identical query has been executed recently.
+     * Otherwise, executes the query on the delegate service.
+     */
+    @Override
+    public CompletableFuture<QueryResponse> execute(Query query) {
+        checkNotNull(query);
+        Query key = cacheKey(query);
+        CompletableFuture<QueryResponse> response;
+        try {
+            response = cache.get(key, () -> delegate.execute(query));
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            CompletableFuture<QueryResponse> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e.getCause());
+            return failed;
+        }
+        response.whenComplete((value, error) -> {
+            if (error != null || isError(value)) {
+                cache.asMap()
+                     .remove(key, response);
+            }
+        });
+        // Prevents the callers from completing the shared future.
+        return response.thenApply(Function.identity());
+    }
+
+    /**
+     * Discards all the cached responses.
+     *
+     * <p>The queries which are being executed at the moment are not affected.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Obtains the statistics of the cache.
+     *
+     * <p>A query which has been coalesced with a concurrent identical query is counted as a hit.
+     *
+     * @return the hit and miss statistics of the cache
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Creates the key of the given query in the cache.
+     *
+     * <p>The key retains only the parts of the query which affect its response.
+     */
+    private static Query cacheKey(Query query) {
+        ActorContext context = ActorContext.newBuilder()
+                                           .setTenantId(query.getContext()
+                                                             .getTenantId())
+                                           .build();
+        Query result = Query.newBuilder()
+                            .setTarget(query.getTarget())
+                            .setFieldMask(query.getFieldMask())
+                            .setContext(context)
+                            .build();
+        return result;
+    }
+
+    private static boolean isError(QueryResponse response) {
+        StatusCase status = response.getResponse()
+                                    .getStatus()
+                                    .getStatusCase();
+        boolean result = status == ERROR || status == REJECTION;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CachingQueryService(" + delegate + ')';
+    }
+
+    /**
+     * Creates a new instance of {@code Builder} for {@code CachingQueryService} instances.
+     *
+     * @return new instance of {@code Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * A builder for the {@code CachingQueryService} instances.
+     */
+    public static final class Builder {
+
+        /**
+         * The default time after which a cached response expires, in milliseconds.
+         */
+        private static final long DEFAULT_EXPIRE_AFTER_MILLIS = SECONDS.toMillis(5);
+
+        /**
+         * The default maximum number of cached queries.
+         */
+        private static final long DEFAULT_MAXIMUM_SIZE = 1_000;
+
+        private AsyncQueryService delegate;
+        private long expireAfterMillis = DEFAULT_EXPIRE_AFTER_MILLIS;
+        private long maximumSize = DEFAULT_MAXIMUM_SIZE;
+        @Nullable
+        private Ticker ticker;
+
+        /**
+         * Prevents local instantiation.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Sets the service which executes the queries missing in the cache.
+         */
+        public Builder setDelegate(AsyncQueryService delegate) {
+            this.delegate = checkNotNull(delegate);
+            return this;
+        }
+
+        /**
+         * Sets the time after which a cached response expires.
+         *
+         * <p>The default value is {@code 5} seconds.
+         *
+         * @param duration the expiration time, at least one millisecond
+         * @param unit     the unit of the {@code duration}
+         */
+        public Builder setExpireAfter(long duration, TimeUnit unit) {
+            checkNotNull(unit);
+            long expireAfterMillis = unit.toMillis(duration);
+            checkArgument(expireAfterMillis > 0,
+                          "Cache expiration time must be at least 1 millisecond.");
+            this.expireAfterMillis = expireAfterMillis;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of the cached queries.
+         *
+         * <p>The least recently used responses are evicted when the limit is exceeded.
+         *
+         * <p>The default value is {@code 1000}.
+         *
+         * @param maximumSize the positive maximum number of the cached queries
+         */
+        public Builder setMaximumSize(long maximumSize) {
+            checkArgument(maximumSize > 0, "Cache size must be positive.");
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        @VisibleForTesting
+        Builder setTicker(Ticker ticker) {
+            this.ticker = checkNotNull(ticker);
+            return this;
+        }
+
+        /**
+         * Creates a new instance of {@code CachingQueryService}.
+         *
+         * @return new instance of {@code CachingQueryService}
+         */
+        public CachingQueryService build() {
+            checkState(delegate != null, "Delegate AsyncQueryService is not set.");
+            return new CachingQueryService(this);
+        }
+    }
+}
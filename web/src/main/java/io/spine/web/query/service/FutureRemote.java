@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.query.service;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.spine.client.Query;
+import io.spine.client.QueryResponse;
+import io.spine.client.grpc.QueryServiceGrpc.QueryServiceFutureStub;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+
+/**
+ * An {@link AsyncQueryService} which dispatches calls to a remote
+ * {@link QueryServiceFutureStub QueryService} via the future gRPC stub.
+ *
+ * <p>No thread is occupied while the query is being processed by the remote service.
+ * Cancelling the resulting future cancels the gRPC call.
+ *
+ * @see AsyncQueryService#remote(QueryServiceFutureStub, RemoteCallOptions)
+ *      AsyncQueryService.remote(...)
+ */
+final class FutureRemote implements AsyncQueryService {
+
+    private final QueryServiceFutureStub service;
+    private final RemoteCallOptions options;
+
+    FutureRemote(QueryServiceFutureStub service, RemoteCallOptions options) {
+        this.service = service;
+        this.options = options;
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> execute(Query query) {
+        ListenableFuture<QueryResponse> call = options.applyTo(service)
+                                                      .read(query);
+        CompletableFuture<QueryResponse> result = new CompletableFuture<>();
+        Executor executor = options.executor()
+                                   .orElse(directExecutor());
+        addCallback(call, new FutureCallback<QueryResponse>() {
+            @Override
+            public void onSuccess(QueryResponse response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }, executor);
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                call.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncQueryService.remote(...)";
+    }
+}
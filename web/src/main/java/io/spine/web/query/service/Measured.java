@@ -0,0 +1,66 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.query.service;
+
+import io.spine.client.Query;
+import io.spine.client.QueryResponse;
+import io.spine.web.metrics.WebMetrics;
+
+import java.util.concurrent.CompletableFuture;
+
+import static io.spine.web.metrics.MetricNames.QUERY_EXECUTE;
+import static io.spine.web.metrics.MetricNames.QUERY_FAILED;
+
+/**
+ * An {@link AsyncQueryService} which reports the query execution of another
+ * {@code AsyncQueryService} to the {@link WebMetrics}.
+ *
+ * @see AsyncQueryService#measured(AsyncQueryService, WebMetrics)
+ *      AsyncQueryService.measured(...)
+ */
+final class Measured implements AsyncQueryService {
+
+    private final AsyncQueryService delegate;
+    private final WebMetrics metrics;
+
+    Measured(AsyncQueryService delegate, WebMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public CompletableFuture<QueryResponse> execute(Query query) {
+        long start = System.nanoTime();
+        CompletableFuture<QueryResponse> response = delegate.execute(query);
+        response.whenComplete((result, error) -> {
+            metrics.recordSince(QUERY_EXECUTE, start);
+            if (error != null) {
+                metrics.increment(QUERY_FAILED);
+            }
+        });
+        return response;
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncQueryService.measured(" + delegate + ')';
+    }
+}
@@ -25,6 +25,8 @@ import io.spine.client.QueryResponse;
 import io.spine.client.grpc.QueryServiceGrpc.QueryServiceBlockingStub;
 
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.util.concurrent.CompletableFuture.supplyAsync;
 
@@ -32,20 +34,31 @@ import static java.util.concurrent.CompletableFuture.supplyAsync;
  * A {@link AsyncQueryService} which dispatches calls to a remote
  * {@link QueryServiceBlockingStub QueryService} via gRPC.
  *
+ * <p>Each query occupies a thread of the {@linkplain RemoteCallOptions#executor() executor} until
+ * the response arrives. Prefer the {@linkplain AsyncRemote non-blocking} implementation when
+ * the query throughput matters.
+ *
  * @author Dmytro Dashenkov
  * @see AsyncQueryService#remote(QueryServiceBlockingStub) AsyncQueryService.remote(...)
  */
 final class Remote implements AsyncQueryService {
 
     private final QueryServiceBlockingStub service;
+    private final RemoteCallOptions options;
+    private final Executor executor;
 
-    Remote(QueryServiceBlockingStub service) {
+    Remote(QueryServiceBlockingStub service, RemoteCallOptions options) {
         this.service = service;
+        this.options = options;
+        this.executor = options.executor()
+                               .orElse(ForkJoinPool.commonPool());
     }
 
     @Override
     public CompletableFuture<QueryResponse> execute(Query query) {
-        CompletableFuture<QueryResponse> result = supplyAsync(() -> service.read(query));
+        CompletableFuture<QueryResponse> result =
+                supplyAsync(() -> options.applyTo(service)
+                                         .read(query), executor);
         return result;
     }
 
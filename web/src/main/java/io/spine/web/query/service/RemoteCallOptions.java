@@ -0,0 +1,160 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.query.service;
+
+import io.grpc.stub.AbstractStub;
+
+import javax.annotation.Nullable;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * The options of the gRPC calls performed by a remote {@link AsyncQueryService}.
+ *
+ * <p>The options are applied to each call separately. For example, the deadline of a query is
+ * counted from the moment the query is {@linkplain AsyncQueryService#execute executed}, not from
+ * the moment the {@code AsyncQueryService} is created.
+ *
+ * @see AsyncQueryService#remote(io.grpc.Channel, RemoteCallOptions)
+ */
+public final class RemoteCallOptions {
+
+    private static final RemoteCallOptions DEFAULTS = newBuilder().build();
+
+    private final long deadlineMillis;
+    @Nullable
+    private final Executor executor;
+
+    private RemoteCallOptions(Builder builder) {
+        this.deadlineMillis = builder.deadlineMillis;
+        this.executor = builder.executor;
+    }
+
+    /**
+     * Obtains the options with no call deadline and the default executor.
+     */
+    public static RemoteCallOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Obtains the executor to complete the calls with, if it is set.
+     */
+    Optional<Executor> executor() {
+        return Optional.ofNullable(executor);
+    }
+
+    /**
+     * Applies these options to the given stub.
+     *
+     * <p>Since the call deadline is absolute, the method should be called for each call.
+     *
+     * @param stub the stub to configure
+     * @param <S>  the type of the stub
+     * @return the configured stub
+     */
+    <S extends AbstractStub<S>> S applyTo(S stub) {
+        S result = stub;
+        if (deadlineMillis > 0) {
+            result = result.withDeadlineAfter(deadlineMillis, MILLISECONDS);
+        }
+        if (executor != null) {
+            result = result.withExecutor(executor);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a new instance of {@code Builder} for {@code RemoteCallOptions} instances.
+     *
+     * @return new instance of {@code Builder}
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * A builder for the {@code RemoteCallOptions} instances.
+     */
+    public static final class Builder {
+
+        private long deadlineMillis;
+        @Nullable
+        private Executor executor;
+
+        /**
+         * Prevents local instantiation.
+         */
+        private Builder() {
+        }
+
+        /**
+         * Sets the deadline of each query call.
+         *
+         * <p>A query which is not responded in time fails with
+         * the {@code DEADLINE_EXCEEDED} status.
+         *
+         * <p>By default, the calls have no deadline.
+         *
+         * @param duration the maximum duration of a call, at least one millisecond
+         * @param unit     the unit of the {@code duration}
+         */
+        public Builder setDeadline(long duration, TimeUnit unit) {
+            checkNotNull(unit);
+            long deadlineMillis = unit.toMillis(duration);
+            checkArgument(deadlineMillis > 0, "Call deadline must be at least 1 millisecond.");
+            this.deadlineMillis = deadlineMillis;
+            return this;
+        }
+
+        /**
+         * Sets the executor which completes the query calls.
+         *
+         * <p>The executor runs the gRPC callbacks and, thus, the dependent stages of the futures
+         * returned by the {@link AsyncQueryService}. For the blocking stub, the executor runs
+         * the blocking calls themselves.
+         *
+         * <p>By default, the gRPC channel executor is used for the non-blocking stubs and
+         * the {@linkplain java.util.concurrent.ForkJoinPool#commonPool() common pool} is used
+         * for the blocking stub.
+         *
+         * @param executor the executor to complete the calls with
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = checkNotNull(executor);
+            return this;
+        }
+
+        /**
+         * Creates a new instance of {@code RemoteCallOptions}.
+         *
+         * @return new instance of {@code RemoteCallOptions}
+         */
+        public RemoteCallOptions build() {
+            return new RemoteCallOptions(this);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.storage;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * A storage of the realtime database nodes written by the bridges.
+ *
+ * <p>This is the SPI which the realtime bridges, such as the Firebase query and subscription
+ * bridges, are built upon. The bridges store the query results and the subscription states into
+ * the storage, and the clients listen to the changes of the respective nodes. By default,
+ * the bridges use the Firebase Realtime Database. An in-memory storage allows to run the bridges
+ * in process. Implement this interface to run the bridges on another backend.
+ *
+ * <p>The storage mirrors the operations of a Firebase Realtime Database reference which are used
+ * by the bridges. The nodes are addressed by the slash-separated paths relative to the database
+ * root. The empty path denotes the root itself.
+ *
+ * <p>The stored values are strings, numbers, booleans, and maps of such values. The lists are
+ * stored as maps by the indices of the elements. Storing {@code null} or an empty map removes
+ * the node.
+ *
+ * <p>All the operations are asynchronous. An implementation must apply the writes in the order
+ * they are issued and must make each write atomic, i.e. a listener must never observe a partially
+ * applied multi-path {@linkplain #update update}.
+ */
+public interface RealtimeStorage {
+
+    /**
+     * Stores the given value as a new child of the node at the given path.
+     *
+     * <p>The key of the child is generated so that the children are ordered by the time of
+     * their creation.
+     *
+     * @param path  the path of the parent node
+     * @param value the value of the new child
+     * @return a future which is completed once the value is stored
+     */
+    CompletableFuture<Void> push(String path, Object value);
+
+    /**
+     * Replaces the value of the node at the given path.
+     *
+     * @param path  the path of the node
+     * @param value the new value or {@code null} to remove the node
+     * @return a future which is completed once the value is stored
+     */
+    CompletableFuture<Void> set(String path, @Nullable Object value);
+
+    /**
+     * Atomically updates several descendants of the node at the given path.
+     *
+     * <p>The keys of the given map are the paths relative to the updated node. The other
+     * descendants of the node are left intact.
+     *
+     * @param path     the path of the updated node
+     * @param children the new values by the relative paths; the {@code null} values remove
+     *                 the respective nodes
+     * @return a future which is completed once the update is stored
+     */
+    CompletableFuture<Void> update(String path, Map<String, Object> children);
+
+    /**
+     * Removes the node at the given path along with all its descendants.
+     *
+     * @param path the path of the node
+     * @return a future which is completed once the node is removed
+     */
+    CompletableFuture<Void> remove(String path);
+
+    /**
+     * Atomically updates the children of the node at the given path based on their
+     * current values.
+     *
+     * <p>This is the conditional update of the node: the changes computed by the function are
+     * only applied if the node has not been modified since its children were read. Otherwise,
+     * the function is called again with the new values. Thus, the function may be called several
+     * times and should have no side effects.
+     *
+     * @param path   the path of the node
+     * @param update the function which receives the current values of the children by their
+     *               keys and returns the new values by the keys of the changed children;
+     *               the {@code null} values remove the respective children
+     * @return a future which produces the values of the children as committed by
+     *         the transaction, or fails if the transaction is not committed
+     */
+    CompletableFuture<Map<String, Object>>
+    transaction(String path, Function<Map<String, Object>, Map<String, Object>> update);
+
+    /**
+     * Reads the children of the node at the given path ordered by the value of their property.
+     *
+     * <p>The children which have no such property go first.
+     *
+     * @param path     the path of the node
+     * @param property the name of the property of the children to order by
+     * @param maxValue the maximum value of the property of the selected children
+     * @param limit    the maximum number of the selected children
+     * @return a future which produces the values of the selected children by their keys in
+     *         the order of the property values
+     */
+    CompletableFuture<Map<String, Object>> selectOrderedBy(String path,
+                                                           String property,
+                                                           double maxValue,
+                                                           int limit);
+
+    /**
+     * Starts listening to the changes of the children of the node at the given path.
+     *
+     * <p>The listener is notified of the children existing at the moment of the registration
+     * as of the added ones, and then {@linkplain ChildListener#onSynced() synced}.
+     *
+     * <p>The bridges themselves do not listen to the changes. The listeners are the way for
+     * a server-side transport to deliver the stored data to the clients.
+     *
+     * @param path     the path of the node
+     * @param listener the listener of the children changes
+     * @return the registration which stops the listening once cancelled
+     */
+    Registration addChildListener(String path, ChildListener listener);
+
+    /**
+     * A listener of the changes of the children of a node.
+     *
+     * <p>The callbacks are invoked sequentially in the order of the changes.
+     */
+    interface ChildListener {
+
+        /**
+         * Called when a child is added to the node.
+         */
+        void onChildAdded(String key, Object value);
+
+        /**
+         * Called when the value of a child changes.
+         */
+        void onChildChanged(String key, Object value);
+
+        /**
+         * Called when a child is removed from the node.
+         */
+        void onChildRemoved(String key);
+
+        /**
+         * Called once the listener is notified of all the children existing at the moment of
+         * the registration.
+         *
+         * <p>A transport may use this callback to tell the initial state of the node from
+         * the subsequent changes. Does nothing by default.
+         */
+        default void onSynced() {
+            // Do nothing by default.
+        }
+    }
+
+    /**
+     * A registration of a {@link ChildListener}.
+     */
+    interface Registration {
+
+        /**
+         * Stops notifying the listener.
+         */
+        void cancel();
+    }
+}
@@ -26,11 +26,18 @@ import io.spine.web.subscription.result.SubscribeResult;
 import io.spine.web.subscription.result.SubscriptionCancelResult;
 import io.spine.web.subscription.result.SubscriptionKeepUpResult;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
 /**
  * A bridge for requests to a subscription {@link io.spine.server.SubscriptionService}.
  *
  * <p>Defines an interface for {@link #subscribe(Topic) subscribing} to a {@link Topic},
- * {@link #keepUp(Subscription) keeping up} an existing {@link Subscription}
+ * {@link #keepUp(Subscription) keeping up} an existing {@link Subscription}, keeping up
+ * {@linkplain #keepUpAll(List) many subscriptions at once}
  * and {@link #cancel(Subscription) canceling} an existing {@code Subscription}.
  *
  * @author Mykhailo Drachuk
@@ -58,6 +65,47 @@ public interface SubscriptionBridge {
      */
     SubscriptionKeepUpResult keepUp(Subscription subscription);
 
+    /**
+     * Keeps up all the given subscriptions.
+     *
+     * <p>This operation allows a client to keep up all of its subscriptions in a single request.
+     *
+     * <p>The default implementation {@linkplain #keepUp(Subscription) keeps up}
+     * the subscriptions one by one. A subscription is kept up even if keeping up the previous
+     * ones has failed. If any of the subscriptions has failed to be kept up, the failure is
+     * reported: either the first exception is thrown, or the first
+     * {@linkplain SubscriptionKeepUpResult#isSuccessful() unsuccessful} result is returned.
+     * Otherwise, the result of the last subscription is returned.
+     *
+     * @param subscriptions the subscriptions that should stay open, must not be empty
+     * @return a {@link SubscriptionKeepUpResult} which can be written to a {@link javax.servlet.ServletResponse}
+     * @see #keepUp(Subscription)
+     */
+    default SubscriptionKeepUpResult keepUpAll(List<Subscription> subscriptions) {
+        checkArgument(!subscriptions.isEmpty(), "No subscriptions to keep up.");
+        SubscriptionKeepUpResult result = null;
+        SubscriptionKeepUpResult failure = null;
+        RuntimeException error = null;
+        for (Subscription subscription : subscriptions) {
+            try {
+                result = keepUp(subscription);
+                if (failure == null && !result.isSuccessful()) {
+                    failure = result;
+                }
+            } catch (RuntimeException e) {
+                if (error == null) {
+                    error = e;
+                } else {
+                    error.addSuppressed(e);
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return failure != null ? failure : result;
+    }
+
     /**
      * Cancel the existing subscription, which stopping sending new data updates to the client.
      *
@@ -65,4 +113,56 @@ public interface SubscriptionBridge {
      * @return a {@link SubscriptionCancelResult} which can be written to a {@link javax.servlet.ServletResponse}
      */
     SubscriptionCancelResult cancel(Subscription subscription);
+
+    /**
+     * Creates a new {@link Subscription} to a provided topic without blocking the calling thread.
+     *
+     * <p>The default implementation performs the {@linkplain #subscribe(Topic) synchronous call}.
+     *
+     * @param topic a topic to subscribe the client to
+     * @return the future {@link SubscribeResult}
+     */
+    default CompletableFuture<SubscribeResult> subscribeAsync(Topic topic) {
+        return completedFuture(subscribe(topic));
+    }
+
+    /**
+     * Keeps up the subscription without blocking the calling thread.
+     *
+     * <p>The default implementation performs the
+     * {@linkplain #keepUp(Subscription) synchronous call}.
+     *
+     * @param subscription a subscription that should stay open
+     * @return the future {@link SubscriptionKeepUpResult}
+     */
+    default CompletableFuture<SubscriptionKeepUpResult> keepUpAsync(Subscription subscription) {
+        return completedFuture(keepUp(subscription));
+    }
+
+    /**
+     * Keeps up all the given subscriptions without blocking the calling thread.
+     *
+     * <p>The default implementation performs the
+     * {@linkplain #keepUpAll(List) synchronous call}.
+     *
+     * @param subscriptions the subscriptions that should stay open
+     * @return the future {@link SubscriptionKeepUpResult}
+     */
+    default CompletableFuture<SubscriptionKeepUpResult>
+    keepUpAllAsync(List<Subscription> subscriptions) {
+        return completedFuture(keepUpAll(subscriptions));
+    }
+
+    /**
+     * Cancels the existing subscription without blocking the calling thread.
+     *
+     * <p>The default implementation performs the
+     * {@linkplain #cancel(Subscription) synchronous call}.
+     *
+     * @param subscription a subscription that should be stopped from receiving updates
+     * @return the future {@link SubscriptionCancelResult}
+     */
+    default CompletableFuture<SubscriptionCancelResult> cancelAsync(Subscription subscription) {
+        return completedFuture(cancel(subscription));
+    }
 }
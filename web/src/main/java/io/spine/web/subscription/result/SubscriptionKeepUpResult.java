@@ -29,4 +29,16 @@ import io.spine.web.RequestsResult;
  */
 public interface SubscriptionKeepUpResult extends RequestsResult {
 
+    /**
+     * Checks if the subscription has been kept up successfully.
+     *
+     * <p>The default implementation returns {@code true}. A result which may report an error
+     * should override this method, so that the error is not lost when many subscriptions are
+     * {@linkplain io.spine.web.subscription.SubscriptionBridge#keepUpAll kept up} at once.
+     *
+     * @return {@code true} if the subscription has been kept up, {@code false} otherwise
+     */
+    default boolean isSuccessful() {
+        return true;
+    }
 }
@@ -22,7 +22,6 @@ package io.spine.web.subscription.servlet;
 
 import io.spine.client.Topic;
 import io.spine.web.NonSerializableServlet;
-import io.spine.web.parser.HttpMessages;
 import io.spine.web.subscription.SubscriptionBridge;
 import io.spine.web.subscription.result.SubscribeResult;
 
@@ -63,13 +62,12 @@ public abstract class SubscribeServlet extends NonSerializableServlet {
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws IOException {
-        Optional<Topic> optionalTopic = HttpMessages.parse(req, Topic.class);
+        Optional<Topic> optionalTopic = parse(req, Topic.class);
         if (!optionalTopic.isPresent()) {
             resp.sendError(SC_BAD_REQUEST);
         } else {
             Topic topic = optionalTopic.get();
-            SubscribeResult result = bridge.subscribe(topic);
-            result.writeTo(resp);
+            respond(req, resp, bridge.subscribeAsync(topic));
         }
     }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.subscription.servlet;
+
+import io.spine.client.Subscription;
+import io.spine.web.NonSerializableServlet;
+import io.spine.web.SubscriptionBatch;
+import io.spine.web.subscription.SubscriptionBridge;
+import io.spine.web.subscription.result.SubscriptionKeepUpResult;
+
+import javax.annotation.OverridingMethodsMustInvokeSuper;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE;
+
+/**
+ * An abstract servlet for a client request to keep up many existing {@link Subscription}s
+ * at once.
+ *
+ * <p>This servlet parses the {@link SubscriptionBatch} from the client request and passes
+ * the subscriptions to the {@link SubscriptionBridge} to process. After,
+ * {@link SubscriptionKeepUpResult the processing result} is written to the servlet response.
+ *
+ * <p>A client which keeps up all of its subscriptions with a single request to this servlet
+ * saves a round trip per subscription in comparison to the {@link SubscriptionKeepUpServlet}.
+ *
+ * <p>The number of the subscriptions in a batch is limited. The limit can be configured with
+ * the {@value #MAX_BATCH_SIZE_PARAMETER} servlet init parameter or
+ * the {@link #setMaxBatchSize(int)} method. A batch exceeding the limit is responded with
+ * the {@link HttpServletResponse#SC_REQUEST_ENTITY_TOO_LARGE 413} status code.
+ */
+@SuppressWarnings("serial") // Java serialization is not supported.
+public abstract class SubscriptionBatchKeepUpServlet extends NonSerializableServlet {
+
+    /**
+     * The name of the servlet init parameter specifying the maximum number of the subscriptions
+     * in a batch.
+     */
+    public static final String MAX_BATCH_SIZE_PARAMETER = "maxBatchSize";
+
+    /**
+     * The default maximum number of the subscriptions in a batch.
+     */
+    private static final int DEFAULT_MAX_BATCH_SIZE = 100;
+
+    private final SubscriptionBridge bridge;
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    /**
+     * Creates a new instance of {@link SubscriptionBatchKeepUpServlet} with the given
+     * {@link SubscriptionBridge}.
+     *
+     * @param bridge
+     *         the subscription bridge to be used in this servlet
+     */
+    protected SubscriptionBatchKeepUpServlet(SubscriptionBridge bridge) {
+        super();
+        this.bridge = bridge;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Reads the {@value #MAX_BATCH_SIZE_PARAMETER} init parameter, if it is set.
+     */
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        String batchSize = getInitParameter(MAX_BATCH_SIZE_PARAMETER);
+        if (batchSize != null) {
+            setMaxBatchSize(Integer.parseInt(batchSize.trim()));
+        }
+    }
+
+    /**
+     * Sets the maximum number of the subscriptions in a batch.
+     *
+     * <p>The default value is {@value #DEFAULT_MAX_BATCH_SIZE}.
+     *
+     * @param maxBatchSize the positive maximum number of the subscriptions
+     */
+    protected final void setMaxBatchSize(int maxBatchSize) {
+        checkArgument(maxBatchSize > 0, "Max batch size must be positive.");
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Handles the {@code POST} request through the {@link SubscriptionBridge}.
+     *
+     * <p>An empty batch is rejected as a bad request.
+     */
+    @OverridingMethodsMustInvokeSuper
+    @Override
+    protected void doPost(HttpServletRequest req, HttpServletResponse resp)
+            throws IOException {
+        Optional<SubscriptionBatch> optionalBatch =
+                parse(req, SubscriptionBatch.class)
+                        .filter(batch -> batch.getSubscriptionCount() > 0);
+        if (!optionalBatch.isPresent()) {
+            resp.sendError(SC_BAD_REQUEST);
+        } else if (optionalBatch.get()
+                                .getSubscriptionCount() > maxBatchSize) {
+            resp.sendError(SC_REQUEST_ENTITY_TOO_LARGE);
+        } else {
+            SubscriptionBatch batch = optionalBatch.get();
+            respond(req, resp, bridge.keepUpAllAsync(batch.getSubscriptionList()));
+        }
+    }
+}
@@ -22,7 +22,6 @@ package io.spine.web.subscription.servlet;
 
 import io.spine.client.Subscription;
 import io.spine.web.NonSerializableServlet;
-import io.spine.web.parser.HttpMessages;
 import io.spine.web.query.QueryBridge;
 import io.spine.web.subscription.SubscriptionBridge;
 import io.spine.web.subscription.result.SubscriptionCancelResult;
@@ -68,13 +67,12 @@ public abstract class SubscriptionCancelServlet extends NonSerializableServlet {
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws IOException {
-        Optional<Subscription> optionalSubscription = HttpMessages.parse(req, Subscription.class);
+        Optional<Subscription> optionalSubscription = parse(req, Subscription.class);
         if (!optionalSubscription.isPresent()) {
             resp.sendError(SC_BAD_REQUEST);
         } else {
             Subscription subscription = optionalSubscription.get();
-            SubscriptionCancelResult result = bridge.cancel(subscription);
-            result.writeTo(resp);
+            respond(req, resp, bridge.cancelAsync(subscription));
         }
     }
 }
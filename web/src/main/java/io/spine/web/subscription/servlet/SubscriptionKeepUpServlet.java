@@ -22,7 +22,6 @@ package io.spine.web.subscription.servlet;
 
 import io.spine.client.Subscription;
 import io.spine.web.NonSerializableServlet;
-import io.spine.web.parser.HttpMessages;
 import io.spine.web.query.QueryBridge;
 import io.spine.web.subscription.SubscriptionBridge;
 import io.spine.web.subscription.result.SubscriptionKeepUpResult;
@@ -70,13 +69,12 @@ public abstract class SubscriptionKeepUpServlet extends NonSerializableServlet {
     @Override
     protected void doPost(HttpServletRequest req, HttpServletResponse resp)
             throws IOException {
-        Optional<Subscription> optionalSubscription = HttpMessages.parse(req, Subscription.class);
+        Optional<Subscription> optionalSubscription = parse(req, Subscription.class);
         if (!optionalSubscription.isPresent()) {
             resp.sendError(SC_BAD_REQUEST);
         } else {
             Subscription subscription = optionalSubscription.get();
-            SubscriptionKeepUpResult result = bridge.keepUp(subscription);
-            result.writeTo(resp);
+            respond(req, resp, bridge.keepUpAsync(subscription));
         }
     }
 }
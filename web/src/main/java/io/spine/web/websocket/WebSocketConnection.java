@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.websocket;
+
+import io.spine.web.WebSocketResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.websocket.CloseReason;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+import static javax.websocket.CloseReason.CloseCodes.TRY_AGAIN_LATER;
+
+/**
+ * A WebSocket connection which is used by a {@link WebSocketEndpoint}.
+ *
+ * <p>The connection limits the number of the requests processed simultaneously on its behalf.
+ * A request is counted until it is processed and its response is sent, so that the responses
+ * which the client does not consume hold up the new requests.
+ *
+ * <p>The responses are sent through the {@linkplain Session#getAsyncRemote() asynchronous}
+ * remote endpoint, thus no thread is blocked until the client receives a response. Since
+ * a remote endpoint does not allow concurrent messages, the responses are queued and each of
+ * them is sent once the previous one is sent. The queue holds up to twice the maximum number
+ * of the requests in flight, i.e. the responses to all of them and as many rejections. If
+ * the queue overflows, i.e. the client does not keep up with the responses, the connection is
+ * closed.
+ */
+final class WebSocketConnection {
+
+    private final Session session;
+    private final Semaphore inFlightRequests;
+    private final int maxPendingFrames;
+
+    private final Object sendLock = new Object();
+    private final Queue<PendingFrame> pendingFrames = new ArrayDeque<>();
+    private boolean sending;
+
+    WebSocketConnection(Session session, int maxInFlightRequests) {
+        this.session = session;
+        this.inFlightRequests = new Semaphore(maxInFlightRequests);
+        this.maxPendingFrames = 2 * maxInFlightRequests;
+    }
+
+    /**
+     * Obtains the ID of the underlying session.
+     */
+    String id() {
+        return session.getId();
+    }
+
+    /**
+     * Counts a new request processed on behalf of this connection if the limit allows.
+     *
+     * @return {@code true} if the request may be processed, {@code false} otherwise
+     */
+    boolean startRequest() {
+        return inFlightRequests.tryAcquire();
+    }
+
+    /**
+     * Marks a request {@linkplain #startRequest() started} earlier as processed and responded.
+     */
+    void finishRequest() {
+        inFlightRequests.release();
+    }
+
+    /**
+     * Sends the given response once all the previously queued responses are sent.
+     *
+     * <p>The response is discarded if the connection is closed. If the queue of the responses
+     * overflows, the connection is closed.
+     *
+     * @return a future completed once the response is sent or discarded
+     */
+    CompletableFuture<Void> send(WebSocketResponse response) {
+        PendingFrame frame = new PendingFrame(ByteBuffer.wrap(response.toByteArray()));
+        boolean overflown;
+        synchronized (sendLock) {
+            if (!sending) {
+                sending = true;
+                overflown = false;
+            } else {
+                overflown = pendingFrames.size() >= maxPendingFrames;
+                if (!overflown) {
+                    pendingFrames.add(frame);
+                    return frame.sent;
+                }
+            }
+        }
+        if (overflown) {
+            log().warn("WebSocket connection {} does not consume the responses, closing.", id());
+            frame.complete();
+            close();
+        } else {
+            sendAsync(frame);
+        }
+        return frame.sent;
+    }
+
+    private void sendAsync(PendingFrame frame) {
+        if (!session.isOpen()) {
+            frame.complete();
+            discardPending();
+            return;
+        }
+        try {
+            session.getAsyncRemote()
+                   .sendBinary(frame.content, result -> onSent(frame, result));
+        } catch (RuntimeException e) {
+            log().debug("Failed to respond over WebSocket connection {}.", id(), e);
+            frame.complete();
+            sendNext();
+        }
+    }
+
+    private void onSent(PendingFrame frame, SendResult result) {
+        if (!result.isOK()) {
+            log().debug("Failed to respond over WebSocket connection {}.",
+                        id(), result.getException());
+        }
+        frame.complete();
+        sendNext();
+    }
+
+    private void sendNext() {
+        PendingFrame next;
+        synchronized (sendLock) {
+            next = pendingFrames.poll();
+            if (next == null) {
+                sending = false;
+                return;
+            }
+        }
+        sendAsync(next);
+    }
+
+    private void discardPending() {
+        List<PendingFrame> discarded;
+        synchronized (sendLock) {
+            discarded = new ArrayList<>(pendingFrames);
+            pendingFrames.clear();
+            sending = false;
+        }
+        discarded.forEach(PendingFrame::complete);
+    }
+
+    private void close() {
+        try {
+            session.close(new CloseReason(TRY_AGAIN_LATER, "Responses are not consumed."));
+        } catch (IOException e) {
+            log().debug("Failed to close WebSocket connection {}.", id(), e);
+        }
+    }
+
+    /**
+     * A response frame waiting to be sent.
+     */
+    private static final class PendingFrame {
+
+        private final ByteBuffer content;
+        private final CompletableFuture<Void> sent = new CompletableFuture<>();
+
+        private PendingFrame(ByteBuffer content) {
+            this.content = content;
+        }
+
+        /**
+         * Marks the frame as no longer pending, whether it has been sent or not.
+         */
+        private void complete() {
+            sent.complete(null);
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(WebSocketConnection.class);
+    }
+}
@@ -0,0 +1,379 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.websocket;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.spine.server.CommandService;
+import io.spine.web.AdmissionController;
+import io.spine.web.AdmissionController.Admission;
+import io.spine.web.BufferedResponse;
+import io.spine.web.RequestExecutors;
+import io.spine.web.RequestsResult;
+import io.spine.web.WebRequest;
+import io.spine.web.WebRequestDispatcher;
+import io.spine.web.WebSocketRequest;
+import io.spine.web.WebSocketResponse;
+import io.spine.web.metrics.WebMetrics;
+import io.spine.web.parser.HttpMessages;
+import io.spine.web.query.QueryBridge;
+import io.spine.web.subscription.SubscriptionBridge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.websocket.CloseReason;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.Session;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static io.spine.web.WebRequest.KindCase.KIND_NOT_SET;
+import static io.spine.web.metrics.MetricNames.REQUEST_PARSE;
+import static io.spine.web.metrics.MetricNames.REQUEST_PROCESSING;
+import static io.spine.web.metrics.MetricNames.REQUEST_REJECTED;
+import static io.spine.web.metrics.MetricNames.REQUEST_REJECTED_TENANT;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static javax.servlet.http.HttpServletResponse.SC_BAD_REQUEST;
+import static javax.servlet.http.HttpServletResponse.SC_GATEWAY_TIMEOUT;
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+import static javax.websocket.CloseReason.CloseCodes.CANNOT_ACCEPT;
+
+/**
+ * A WebSocket {@link Endpoint} which processes the web requests of different kinds over
+ * a single connection.
+ *
+ * <p>The client sends each request as a binary {@link WebSocketRequest} frame. The request is
+ * {@linkplain WebRequestDispatcher dispatched} in the same way as the dedicated servlet would
+ * do. Once processed, the request is responded with a binary {@link WebSocketResponse} frame
+ * with the same correlation ID, the HTTP status code and the body the dedicated servlet would
+ * respond with. The requests are processed concurrently, thus the responses may be sent in
+ * any order.
+ *
+ * <p>Each request is admitted in the same way as a request to a servlet. The requests are
+ * {@linkplain #setAdmissionController(AdmissionController) admitted} by
+ * an {@link AdmissionController}, which may be shared with the servlets of the application.
+ * The requests exceeding the total capacity are responded with the {@code 503} status code and
+ * the requests exceeding the capacity of their tenant are responded with
+ * the {@value #SC_TOO_MANY_REQUESTS} status code. Also, the number of the requests processed
+ * simultaneously on behalf of a single connection is
+ * {@linkplain #setMaxInFlightRequestsPerSession(int) limited}. The requests exceeding the limit
+ * are responded with the {@value #SC_TOO_MANY_REQUESTS} status code. A request is counted
+ * against the limit until its response is sent. The connection of a client which does not
+ * consume the responses is closed.
+ *
+ * <p>The requests which are not processed {@linkplain #setRequestTimeoutMillis(long) in time}
+ * are responded with the {@code 504} status code, as a servlet would respond. Such a request
+ * may still be processed, thus it is counted against the limit of its connection until
+ * the processing completes.
+ *
+ * <p>The requests are dispatched by a {@linkplain #setExecutor(Executor) bounded executor}.
+ * The requests rejected by the executor are responded with the {@code 503} status code.
+ *
+ * <p>The endpoint reports the frame parsing and the request processing times, the times of
+ * obtaining the command acknowledgements and the rejected requests to
+ * the {@linkplain #setMetrics(WebMetrics) configured} {@link WebMetrics}.
+ *
+ * <p>A frame which cannot be parsed closes the connection.
+ *
+ * <p>Subtype this class with a public no-argument constructor and register the subtype in
+ * the {@link javax.websocket.server.ServerContainer ServerContainer}.
+ */
+public abstract class WebSocketEndpoint extends Endpoint {
+
+    /**
+     * The status code of a response to a request exceeding the capacity of its tenant or of
+     * its connection.
+     */
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    /**
+     * The default maximum number of the requests processed simultaneously on behalf of
+     * a single connection.
+     */
+    private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_SESSION = 64;
+
+    /**
+     * The default request processing timeout in milliseconds.
+     */
+    private static final long DEFAULT_REQUEST_TIMEOUT_MILLIS = 30_000L;
+
+    private final WebRequestDispatcher dispatcher;
+    private int maxFrameSize = HttpMessages.DEFAULT_MAX_BODY_SIZE;
+    private int maxInFlightRequestsPerSession = DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_SESSION;
+    private long requestTimeoutMillis = DEFAULT_REQUEST_TIMEOUT_MILLIS;
+    private Executor executor = RequestExecutors.defaultExecutor();
+    private AdmissionController admissionController = AdmissionController.unlimited();
+    private WebMetrics metrics = WebMetrics.noOp();
+
+    protected WebSocketEndpoint(CommandService commandService,
+                                QueryBridge queryBridge,
+                                SubscriptionBridge subscriptionBridge) {
+        super();
+        this.dispatcher = new WebRequestDispatcher(commandService,
+                                                   queryBridge,
+                                                   subscriptionBridge,
+                                                   () -> metrics);
+    }
+
+    /**
+     * Sets the maximum size of a request frame.
+     *
+     * <p>The default value is {@value HttpMessages#DEFAULT_MAX_BODY_SIZE}, i.e. the same as
+     * the maximum size of a request body.
+     *
+     * @param maxFrameSize the positive maximum size of a request frame in bytes
+     */
+    protected final void setMaxFrameSize(int maxFrameSize) {
+        checkArgument(maxFrameSize > 0, "Max frame size must be positive.");
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Sets the maximum number of the requests processed simultaneously on behalf of a single
+     * connection.
+     *
+     * <p>The default value is {@value #DEFAULT_MAX_IN_FLIGHT_REQUESTS_PER_SESSION}.
+     *
+     * @param maxInFlightRequestsPerSession the positive maximum number of the requests
+     */
+    protected final void setMaxInFlightRequestsPerSession(int maxInFlightRequestsPerSession) {
+        checkArgument(maxInFlightRequestsPerSession > 0,
+                      "Max in-flight requests per session must be positive.");
+        this.maxInFlightRequestsPerSession = maxInFlightRequestsPerSession;
+    }
+
+    /**
+     * Sets the request processing timeout.
+     *
+     * <p>The default value is {@code 30} seconds, i.e. the same as the asynchronous processing
+     * timeout of a servlet.
+     *
+     * @param requestTimeoutMillis the positive timeout in milliseconds
+     */
+    protected final void setRequestTimeoutMillis(long requestTimeoutMillis) {
+        checkArgument(requestTimeoutMillis > 0, "Request timeout must be positive.");
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    /**
+     * Sets the executor which dispatches the requests.
+     *
+     * <p>The executor should be {@linkplain RequestExecutors#newBounded(int, int) bounded}, so
+     * that the requests are rejected instead of being queued without a limit.
+     *
+     * <p>By default, the {@linkplain RequestExecutors#defaultExecutor() shared} executor is used.
+     *
+     * @param executor the executor to dispatch the requests with
+     */
+    protected final void setExecutor(Executor executor) {
+        this.executor = checkNotNull(executor);
+    }
+
+    /**
+     * Sets the controller of the admission of the requests to this endpoint.
+     *
+     * <p>By default, all the requests are {@linkplain AdmissionController#unlimited() admitted}.
+     *
+     * @param admissionController the admission controller, typically shared by the endpoint and
+     *                            all the servlets of the application
+     */
+    protected final void setAdmissionController(AdmissionController admissionController) {
+        this.admissionController = checkNotNull(admissionController);
+    }
+
+    /**
+     * Sets the metrics to report the request processing to.
+     *
+     * <p>By default, the metrics are {@linkplain WebMetrics#noOp() discarded}.
+     *
+     * @param metrics the metrics, typically shared by all the components of the application
+     */
+    protected final void setMetrics(WebMetrics metrics) {
+        this.metrics = checkNotNull(metrics);
+    }
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+        session.setMaxBinaryMessageBufferSize(maxFrameSize);
+        WebSocketConnection connection =
+                new WebSocketConnection(session, maxInFlightRequestsPerSession);
+        session.addMessageHandler(ByteBuffer.class, frame -> receive(connection, session, frame));
+    }
+
+    @Override
+    public void onError(Session session, Throwable error) {
+        log().debug("WebSocket connection {} failed.", session.getId(), error);
+    }
+
+    private void receive(WebSocketConnection connection, Session session, ByteBuffer frame) {
+        long start = System.nanoTime();
+        WebSocketRequest request;
+        try {
+            request = WebSocketRequest.parseFrom(frame);
+        } catch (InvalidProtocolBufferException e) {
+            log().warn("Received a malformed frame over WebSocket connection {}.",
+                       session.getId(), e);
+            close(session);
+            return;
+        }
+        metrics.recordSince(REQUEST_PARSE, start);
+        String correlationId = request.getCorrelationId();
+        WebRequest webRequest = request.getRequest();
+        if (webRequest.getKindCase() == KIND_NOT_SET) {
+            connection.send(response(correlationId, SC_BAD_REQUEST, ""));
+            return;
+        }
+        if (!connection.startRequest()) {
+            reject(connection, correlationId, SC_TOO_MANY_REQUESTS, REQUEST_REJECTED);
+            return;
+        }
+        Optional<Admission> admission = admissionController.admit();
+        if (!admission.isPresent()) {
+            connection.finishRequest();
+            reject(connection, correlationId, SC_SERVICE_UNAVAILABLE, REQUEST_REJECTED);
+            return;
+        }
+        Admission admitted = admission.get();
+        if (!admitted.admitFor(webRequest)) {
+            admitted.release();
+            connection.finishRequest();
+            reject(connection, correlationId, SC_TOO_MANY_REQUESTS, REQUEST_REJECTED_TENANT);
+            return;
+        }
+        CompletableFuture<RequestsResult> result;
+        try {
+            result = supplyAsync(() -> dispatcher.dispatch(webRequest), executor)
+                    .thenCompose(stage -> stage);
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            connection.finishRequest();
+            reject(connection, correlationId, SC_SERVICE_UNAVAILABLE, REQUEST_REJECTED);
+            return;
+        }
+        CompletableFuture<WebSocketResponse> response = new CompletableFuture<>();
+        ScheduledFuture<?> timeout = timer().schedule(
+                () -> response.complete(response(correlationId, SC_GATEWAY_TIMEOUT, "")),
+                requestTimeoutMillis, MILLISECONDS
+        );
+        CompletableFuture<RequestsResult> processed = result.whenComplete((value, error) -> {
+            timeout.cancel(false);
+            admitted.release();
+            metrics.recordSince(REQUEST_PROCESSING, start);
+        });
+        processed.handle((value, error) -> toResponse(correlationId, value, error))
+                 .thenAccept(response::complete);
+        CompletableFuture<Void> sent = response.thenCompose(connection::send);
+        allOf(processed, sent).whenComplete((value, error) -> connection.finishRequest());
+    }
+
+    private void reject(WebSocketConnection connection,
+                        String correlationId,
+                        int status,
+                        String metricName) {
+        metrics.increment(metricName);
+        connection.send(response(correlationId, status, ""));
+    }
+
+    private static WebSocketResponse toResponse(String correlationId,
+                                                @Nullable RequestsResult result,
+                                                @Nullable Throwable error) {
+        if (error != null || result == null) {
+            log().error("WebSocket request processing failed.", error);
+            return response(correlationId, SC_INTERNAL_SERVER_ERROR, "");
+        }
+        BufferedResponse frame = new BufferedResponse();
+        try {
+            result.writeTo(frame);
+        } catch (IOException e) {
+            log().error("Failed to write the result of a WebSocket request.", e);
+            return response(correlationId, SC_INTERNAL_SERVER_ERROR, "");
+        }
+        return response(correlationId, SC_OK, frame.content());
+    }
+
+    private static WebSocketResponse response(String correlationId, int status, String body) {
+        return WebSocketResponse.newBuilder()
+                                .setCorrelationId(correlationId)
+                                .setStatus(status)
+                                .setBody(body)
+                                .build();
+    }
+
+    private static void close(Session session) {
+        try {
+            session.close(new CloseReason(CANNOT_ACCEPT, "Malformed frame."));
+        } catch (IOException e) {
+            log().debug("Failed to close WebSocket connection {}.", session.getId(), e);
+        }
+    }
+
+    private static ScheduledExecutorService timer() {
+        return Timer.INSTANCE.value;
+    }
+
+    /**
+     * The timer of the request processing timeouts shared by all the endpoints.
+     *
+     * <p>The timeouts of the processed requests are cancelled, thus removed from the timer
+     * right away.
+     */
+    private enum Timer {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final ScheduledExecutorService value = newTimer();
+
+        private static ScheduledExecutorService newTimer() {
+            ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(
+                    1,
+                    new ThreadFactoryBuilder().setNameFormat("web-socket-timeout-%d")
+                                              .setDaemon(true)
+                                              .build()
+            );
+            timer.setRemoveOnCancelPolicy(true);
+            return timer;
+        }
+    }
+
+    private static Logger log() {
+        return LogSingleton.INSTANCE.value;
+    }
+
+    private enum LogSingleton {
+        INSTANCE;
+        @SuppressWarnings("NonSerializableFieldInSerializableClass")
+        private final Logger value = LoggerFactory.getLogger(WebSocketEndpoint.class);
+    }
+}
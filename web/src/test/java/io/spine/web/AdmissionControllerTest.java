@@ -0,0 +1,272 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web;
+
+import io.spine.client.CommandFactory;
+import io.spine.core.Command;
+import io.spine.core.TenantId;
+import io.spine.testing.client.TestActorRequestFactory;
+import io.spine.testing.client.c.CreateTask;
+import io.spine.testing.client.c.CreateTaskVBuilder;
+import io.spine.web.AdmissionController.Admission;
+import io.spine.web.command.given.CommandServletTestEnv.TestCommandServlet;
+import io.spine.web.metrics.InMemoryWebMetrics;
+import io.spine.web.metrics.MetricsServlet;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.spine.base.Identifier.newUuid;
+import static io.spine.web.given.Servlets.request;
+import static io.spine.web.given.Servlets.response;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("AdmissionController should")
+class AdmissionControllerTest {
+
+    private static final CommandFactory commandFactory =
+            TestActorRequestFactory.newInstance(AdmissionControllerTest.class)
+                                   .command();
+
+    @Test
+    @DisplayName("admit all requests by default")
+    void unlimited() {
+        AdmissionController controller = AdmissionController.unlimited();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(controller.admit()
+                                 .isPresent());
+        }
+    }
+
+    @Test
+    @DisplayName("limit the number of requests in flight")
+    void limitInFlight() {
+        AdmissionController controller = AdmissionController.newBuilder()
+                                                            .setMaxInFlightRequests(1)
+                                                            .build();
+        Optional<Admission> first = controller.admit();
+        assertTrue(first.isPresent());
+        assertFalse(controller.admit()
+                              .isPresent());
+
+        first.get()
+             .release();
+        assertTrue(controller.admit()
+                             .isPresent());
+    }
+
+    @Test
+    @DisplayName("release an admission only once")
+    void releaseOnce() {
+        AdmissionController controller = AdmissionController.newBuilder()
+                                                            .setMaxInFlightRequests(1)
+                                                            .build();
+        Admission first = controller.admit()
+                                    .orElseThrow(IllegalStateException::new);
+        first.release();
+        Admission second = controller.admit()
+                                     .orElseThrow(IllegalStateException::new);
+        first.release();
+
+        assertFalse(controller.admit()
+                              .isPresent());
+        second.release();
+    }
+
+    @Test
+    @DisplayName("limit the number of requests in flight per tenant")
+    void limitPerTenant() {
+        AdmissionController controller = AdmissionController.newBuilder()
+                                                            .setMaxInFlightRequestsPerTenant(1)
+                                                            .build();
+        TenantId tenant = tenant("first");
+        Admission first = controller.admit()
+                                    .orElseThrow(IllegalStateException::new);
+        Admission second = controller.admit()
+                                     .orElseThrow(IllegalStateException::new);
+        Admission other = controller.admit()
+                                    .orElseThrow(IllegalStateException::new);
+
+        assertTrue(first.admitFor(tenant));
+        assertFalse(second.admitFor(tenant));
+        assertTrue(other.admitFor(tenant("second")));
+
+        first.release();
+        assertTrue(second.admitFor(tenant));
+    }
+
+    @Test
+    @DisplayName("reject all requests while saturated")
+    void rejectSaturated() {
+        AtomicBoolean saturated = new AtomicBoolean(true);
+        AdmissionController controller = AdmissionController.newBuilder()
+                                                            .addSaturationCheck(saturated::get)
+                                                            .build();
+        assertFalse(controller.admit()
+                              .isPresent());
+
+        saturated.set(false);
+        assertTrue(controller.admit()
+                             .isPresent());
+    }
+
+    @Test
+    @DisplayName("not accept invalid limits")
+    void invalidLimits() {
+        AdmissionController.Builder builder = AdmissionController.newBuilder();
+        assertThrows(IllegalArgumentException.class, () -> builder.setMaxInFlightRequests(0));
+        assertThrows(IllegalArgumentException.class,
+                     () -> builder.setMaxInFlightRequestsPerTenant(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.setRetryAfterSeconds(-1));
+    }
+
+    @Nested
+    @DisplayName("make a servlet")
+    class Servlet {
+
+        @Test
+        @DisplayName("respond 503 to requests exceeding the total capacity")
+        void rejectOverCapacity() throws IOException, ServletException {
+            AdmissionController controller = AdmissionController.newBuilder()
+                                                                .setMaxInFlightRequests(1)
+                                                                .setRetryAfterSeconds(5)
+                                                                .build();
+            Optional<Admission> occupied = controller.admit();
+            assertTrue(occupied.isPresent());
+            TestCommandServlet servlet = new TestCommandServlet();
+            servlet.setAdmissionController(controller);
+            HttpServletResponse response = response(new StringWriter());
+
+            servlet.service(postRequest(newCommand()), response);
+
+            verify(response).setHeader("Retry-After", "5");
+            verify(response).sendError(503);
+        }
+
+        @Test
+        @DisplayName("respond 429 to requests exceeding the capacity of their tenant")
+        void rejectTenantOverCapacity() throws IOException, ServletException {
+            AdmissionController controller = AdmissionController.newBuilder()
+                                                                .setMaxInFlightRequestsPerTenant(1)
+                                                                .build();
+            Command command = newCommand();
+            TenantId tenant = command.getContext()
+                                     .getActorContext()
+                                     .getTenantId();
+            Admission occupied = controller.admit()
+                                           .orElseThrow(IllegalStateException::new);
+            assertTrue(occupied.admitFor(tenant));
+            TestCommandServlet servlet = new TestCommandServlet();
+            servlet.setAdmissionController(controller);
+            HttpServletResponse response = response(new StringWriter());
+
+            servlet.service(postRequest(command), response);
+
+            verify(response).setHeader("Retry-After", "1");
+            verify(response).sendError(429);
+        }
+
+        @Test
+        @DisplayName("release the admission once the request is processed")
+        void releaseProcessed() throws IOException, ServletException {
+            AdmissionController controller = AdmissionController.newBuilder()
+                                                                .setMaxInFlightRequests(1)
+                                                                .build();
+            TestCommandServlet servlet = new TestCommandServlet();
+            servlet.setAdmissionController(controller);
+            HttpServletResponse response = response(new StringWriter());
+
+            servlet.service(postRequest(newCommand()), response);
+
+            verify(response, never()).sendError(anyInt());
+            assertTrue(controller.admit()
+                                 .isPresent());
+        }
+
+        @Test
+        @DisplayName("not apply to the metrics servlet")
+        void admitMetrics() throws IOException, ServletException {
+            AdmissionController controller = AdmissionController.newBuilder()
+                                                                .setMaxInFlightRequests(1)
+                                                                .build();
+            Optional<Admission> occupied = controller.admit();
+            assertTrue(occupied.isPresent());
+            MetricsServlet servlet = new MetricsServlet(new InMemoryWebMetrics()) {};
+            servlet.setAdmissionController(controller);
+            HttpServletRequest request = postRequest(newCommand());
+            when(request.getMethod()).thenReturn("GET");
+            StringWriter writer = new StringWriter();
+
+            servlet.service(request, response(writer));
+
+            assertFalse(writer.toString()
+                              .isEmpty());
+        }
+    }
+
+    private static Command newCommand() {
+        CreateTask createTask = CreateTaskVBuilder.newBuilder()
+                                                  .setId(newUuid())
+                                                  .build();
+        return commandFactory.create(createTask);
+    }
+
+    private static TenantId tenant(String value) {
+        return TenantId.newBuilder()
+                       .setValue(value)
+                       .build();
+    }
+
+    /**
+     * Creates a {@code POST} request which stores its attributes.
+     */
+    private static HttpServletRequest postRequest(Command command) throws IOException {
+        HttpServletRequest request = request(command);
+        when(request.getMethod()).thenReturn("POST");
+        Map<String, Object> attributes = new HashMap<>();
+        doAnswer(invocation -> attributes.put(invocation.getArgument(0),
+                                              invocation.getArgument(1)))
+                .when(request)
+                .setAttribute(anyString(), any());
+        when(request.getAttribute(anyString()))
+                .thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+        return request;
+    }
+}
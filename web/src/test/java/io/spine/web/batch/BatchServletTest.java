@@ -0,0 +1,250 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.batch;
+
+import io.spine.base.Time;
+import io.spine.client.QueryFactory;
+import io.spine.client.Subscription;
+import io.spine.client.SubscriptionId;
+import io.spine.core.Command;
+import io.spine.core.TenantId;
+import io.spine.testing.client.TestActorRequestFactory;
+import io.spine.testing.client.c.CreateTask;
+import io.spine.testing.client.c.CreateTaskVBuilder;
+import io.spine.web.WebQuery;
+import io.spine.web.WebRequest;
+import io.spine.web.WebRequestBatch;
+import io.spine.web.batch.given.BatchServletTestEnv.TestBatchServlet;
+import io.spine.web.metrics.Histogram;
+import io.spine.web.metrics.InMemoryWebMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static io.spine.base.Identifier.newUuid;
+import static io.spine.web.batch.given.BatchServletTestEnv.KEEP_UP_RESULT;
+import static io.spine.web.batch.given.BatchServletTestEnv.QUERY_RESULT;
+import static io.spine.web.batch.given.BatchServletTestEnv.failingQueryBridge;
+import static io.spine.web.metrics.MetricNames.COMMAND_ACK;
+import static io.spine.web.given.Servlets.request;
+import static io.spine.web.given.Servlets.response;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("BatchServlet should")
+class BatchServletTest {
+
+    private static final TestActorRequestFactory requestFactory =
+            TestActorRequestFactory.newInstance(BatchServletTest.class);
+    private static final QueryFactory queryFactory = requestFactory.query();
+
+    @Test
+    @DisplayName("fail to serialize")
+    void testSerialize() throws IOException {
+        BatchServlet servlet = new TestBatchServlet();
+        ObjectOutputStream stream = new ObjectOutputStream(new ByteArrayOutputStream());
+        assertThrows(UnsupportedOperationException.class, () -> stream.writeObject(servlet));
+    }
+
+    @Test
+    @DisplayName("respond with the results of the requests in order")
+    void testHandle() throws IOException {
+        BatchServlet servlet = new TestBatchServlet();
+        StringWriter response = new StringWriter();
+        WebRequestBatch batch = WebRequestBatch.newBuilder()
+                                               .addRequest(queryRequest())
+                                               .addRequest(WebRequest.getDefaultInstance())
+                                               .addRequest(keepUpRequest())
+                                               .build();
+        servlet.doPost(request(batch), response(response));
+
+        String expected = "{\"results\":["
+                + "{\"status\":200,\"body\":" + QUERY_RESULT + "},"
+                + "{\"status\":400},"
+                + "{\"status\":200,\"body\":" + KEEP_UP_RESULT + '}'
+                + "]}";
+        assertEquals(expected, response.toString());
+    }
+
+    @Test
+    @DisplayName("post the batched commands")
+    void testCommand() throws IOException {
+        BatchServlet servlet = new TestBatchServlet();
+        StringWriter response = new StringWriter();
+        CreateTask createTask = CreateTaskVBuilder.newBuilder()
+                                                  .setId(newUuid())
+                                                  .build();
+        Command command = requestFactory.command()
+                                        .create(createTask);
+        WebRequest request = WebRequest.newBuilder()
+                                       .setCommand(command)
+                                       .build();
+        WebRequestBatch batch = WebRequestBatch.newBuilder()
+                                               .addRequest(request)
+                                               .build();
+        servlet.doPost(request(batch), response(response));
+
+        String json = response.toString();
+        assertTrue(json.startsWith("{\"results\":[{\"status\":200,\"body\":{"));
+        assertTrue(json.contains(command.getId()
+                                        .getUuid()));
+    }
+
+    @Test
+    @DisplayName("report the time of obtaining the acks of the batched commands")
+    void testCommandMetrics() throws IOException {
+        InMemoryWebMetrics metrics = new InMemoryWebMetrics();
+        BatchServlet servlet = new TestBatchServlet(metrics);
+        CreateTask createTask = CreateTaskVBuilder.newBuilder()
+                                                  .setId(newUuid())
+                                                  .build();
+        WebRequest request = WebRequest.newBuilder()
+                                       .setCommand(requestFactory.command()
+                                                                 .create(createTask))
+                                       .build();
+        WebRequestBatch batch = WebRequestBatch.newBuilder()
+                                               .addRequest(request)
+                                               .addRequest(request)
+                                               .build();
+        servlet.doPost(request(batch), response(new StringWriter()));
+
+        Optional<Histogram> histogram = metrics.histogram(COMMAND_ACK);
+        assertTrue(histogram.isPresent());
+        assertEquals(2, histogram.get()
+                                 .count());
+    }
+
+    @Test
+    @DisplayName("respond 500 for a failed request without failing the others")
+    void testFailure() throws IOException {
+        BatchServlet servlet = new TestBatchServlet(failingQueryBridge());
+        StringWriter response = new StringWriter();
+        WebRequestBatch batch = WebRequestBatch.newBuilder()
+                                               .addRequest(queryRequest())
+                                               .addRequest(keepUpRequest())
+                                               .build();
+        servlet.doPost(request(batch), response(response));
+
+        String expected = "{\"results\":["
+                + "{\"status\":500},"
+                + "{\"status\":200,\"body\":" + KEEP_UP_RESULT + '}'
+                + "]}";
+        assertEquals(expected, response.toString());
+    }
+
+    @Test
+    @DisplayName("respond 400 to an invalid batch")
+    void testInvalidBatch() throws IOException {
+        BatchServlet servlet = new TestBatchServlet();
+        HttpServletResponse response = response(new StringWriter());
+        servlet.doPost(request(Time.getCurrentTime()), response);
+        verify(response).sendError(400);
+    }
+
+    @Test
+    @DisplayName("respond 413 to a batch exceeding the max size")
+    void testBatchSize() throws IOException {
+        BatchServlet servlet = new TestBatchServlet(Runnable::run, 1);
+        HttpServletResponse response = response(new StringWriter());
+        WebRequestBatch batch = WebRequestBatch.newBuilder()
+                                               .addRequest(queryRequest())
+                                               .addRequest(keepUpRequest())
+                                               .build();
+        servlet.doPost(request(batch), response);
+        verify(response).sendError(413);
+    }
+
+    @Test
+    @DisplayName("respond 503 for a request rejected by the executor")
+    void testRejected() throws IOException {
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException();
+        };
+        BatchServlet servlet = new TestBatchServlet(rejecting, 1);
+        StringWriter response = new StringWriter();
+        WebRequestBatch batch = WebRequestBatch.newBuilder()
+                                               .addRequest(queryRequest())
+                                               .build();
+        servlet.doPost(request(batch), response(response));
+
+        assertEquals("{\"results\":[{\"status\":503}]}", response.toString());
+    }
+
+    @Test
+    @DisplayName("respond 400 to a batch of requests of different tenants")
+    void testMixedTenants() throws IOException {
+        BatchServlet servlet = new TestBatchServlet();
+        HttpServletResponse response = response(new StringWriter());
+        TenantId otherTenant = TenantId.newBuilder()
+                                       .setValue(newUuid())
+                                       .build();
+        TestActorRequestFactory otherFactory =
+                TestActorRequestFactory.newInstance(BatchServletTest.class, otherTenant);
+        WebRequestBatch batch = WebRequestBatch.newBuilder()
+                                               .addRequest(commandRequest(requestFactory))
+                                               .addRequest(commandRequest(otherFactory))
+                                               .build();
+        servlet.doPost(request(batch), response);
+        verify(response).sendError(400);
+    }
+
+    private static WebRequest commandRequest(TestActorRequestFactory factory) {
+        CreateTask createTask = CreateTaskVBuilder.newBuilder()
+                                                  .setId(newUuid())
+                                                  .build();
+        Command command = factory.command()
+                                 .create(createTask);
+        return WebRequest.newBuilder()
+                         .setCommand(command)
+                         .build();
+    }
+
+    private static WebRequest queryRequest() {
+        WebQuery query = WebQuery.newBuilder()
+                                 .setQuery(queryFactory.all(CreateTask.class))
+                                 .build();
+        return WebRequest.newBuilder()
+                         .setQuery(query)
+                         .build();
+    }
+
+    private static WebRequest keepUpRequest() {
+        SubscriptionId id = SubscriptionId.newBuilder()
+                                          .setValue(newUuid())
+                                          .build();
+        Subscription subscription = Subscription.newBuilder()
+                                                .setId(id)
+                                                .build();
+        return WebRequest.newBuilder()
+                         .setKeepUp(subscription)
+                         .build();
+    }
+}
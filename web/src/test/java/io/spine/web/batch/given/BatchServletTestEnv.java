@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.batch.given;
+
+import io.spine.web.batch.BatchServlet;
+import io.spine.web.metrics.WebMetrics;
+import io.spine.web.query.QueryBridge;
+import io.spine.web.query.QueryProcessingResult;
+import io.spine.web.subscription.SubscriptionBridge;
+import io.spine.web.subscription.result.SubscriptionKeepUpResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static io.spine.web.command.given.CommandServletTestEnv.positiveCommandService;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public final class BatchServletTestEnv {
+
+    public static final String QUERY_RESULT = "{\"path\":\"query/result\"}";
+    public static final String KEEP_UP_RESULT = "{}";
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private BatchServletTestEnv() {
+    }
+
+    /**
+     * Creates a {@link QueryBridge} which responds with the {@link #QUERY_RESULT}.
+     */
+    public static QueryBridge positiveQueryBridge() {
+        QueryProcessingResult result = response -> response.getWriter()
+                                                           .append(QUERY_RESULT);
+        return queryBridge(completedFuture(result));
+    }
+
+    /**
+     * Creates a {@link QueryBridge} which fails to process any query.
+     */
+    public static QueryBridge failingQueryBridge() {
+        CompletableFuture<QueryProcessingResult> result = new CompletableFuture<>();
+        result.completeExceptionally(new IllegalStateException("Query processing failed."));
+        return queryBridge(result);
+    }
+
+    private static QueryBridge queryBridge(CompletableFuture<QueryProcessingResult> result) {
+        QueryBridge bridge = mock(QueryBridge.class);
+        when(bridge.sendAsync(any())).thenReturn(result);
+        return bridge;
+    }
+
+    /**
+     * Creates a {@link SubscriptionBridge} which keeps up any subscription with
+     * the {@link #KEEP_UP_RESULT}.
+     */
+    public static SubscriptionBridge positiveSubscriptionBridge() {
+        SubscriptionBridge bridge = mock(SubscriptionBridge.class);
+        SubscriptionKeepUpResult result = response -> response.getWriter()
+                                                              .append(KEEP_UP_RESULT);
+        when(bridge.keepUpAsync(any())).thenReturn(completedFuture(result));
+        return bridge;
+    }
+
+    @SuppressWarnings("serial")
+    public static final class TestBatchServlet extends BatchServlet {
+
+        public TestBatchServlet() {
+            this(positiveQueryBridge());
+        }
+
+        public TestBatchServlet(QueryBridge queryBridge) {
+            super(positiveCommandService(), queryBridge, positiveSubscriptionBridge());
+        }
+
+        public TestBatchServlet(WebMetrics metrics) {
+            this();
+            setMetrics(metrics);
+        }
+
+        public TestBatchServlet(Executor executor, int maxBatchSize) {
+            this();
+            setExecutor(executor);
+            setMaxBatchSize(maxBatchSize);
+        }
+    }
+}
@@ -30,6 +30,8 @@ import io.spine.testing.client.TestActorRequestFactory;
 import io.spine.testing.client.c.CreateTask;
 import io.spine.testing.client.c.CreateTaskVBuilder;
 import io.spine.web.command.given.CommandServletTestEnv.TestCommandServlet;
+import io.spine.web.metrics.Histogram;
+import io.spine.web.metrics.InMemoryWebMetrics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
@@ -38,13 +40,18 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.StringWriter;
+import java.util.Optional;
 
 import static io.spine.base.Identifier.newUuid;
 import static io.spine.core.Status.StatusCase.OK;
+import static io.spine.web.metrics.MetricNames.COMMAND_ACK;
+import static io.spine.web.metrics.MetricNames.REQUEST_PARSE;
+import static io.spine.web.metrics.MetricNames.REQUEST_PROCESSING;
 import static io.spine.web.given.Servlets.request;
 import static io.spine.web.given.Servlets.response;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -81,6 +88,23 @@ class CommandServletTest {
         assertEquals(command.getId(), AnyPacker.unpack(ack.getMessageId()));
     }
 
+    @Test
+    @DisplayName("report the command processing metrics")
+    void testMetrics() throws IOException {
+        InMemoryWebMetrics metrics = new InMemoryWebMetrics();
+        CommandServlet servlet = new TestCommandServlet(metrics);
+        CreateTask createTask = CreateTaskVBuilder
+                .newBuilder()
+                .setId(newUuid())
+                .build();
+        Command command = commandFactory.create(createTask);
+        servlet.doPost(request(command), response(new StringWriter()));
+
+        assertRecordedOnce(metrics, REQUEST_PARSE);
+        assertRecordedOnce(metrics, COMMAND_ACK);
+        assertRecordedOnce(metrics, REQUEST_PROCESSING);
+    }
+
     @Test
     @DisplayName("respond 400 to an invalid command")
     void testInvalidCommand() throws IOException {
@@ -89,4 +113,11 @@ class CommandServletTest {
         servlet.doPost(request(Time.getCurrentTime()), response);
         verify(response).sendError(400);
     }
+
+    private static void assertRecordedOnce(InMemoryWebMetrics metrics, String timer) {
+        Optional<Histogram> histogram = metrics.histogram(timer);
+        assertTrue(histogram.isPresent());
+        assertEquals(1, histogram.get()
+                                 .count());
+    }
 }
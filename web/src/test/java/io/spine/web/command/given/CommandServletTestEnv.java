@@ -26,6 +26,7 @@ import io.spine.core.AckVBuilder;
 import io.spine.core.Command;
 import io.spine.server.CommandService;
 import io.spine.web.command.CommandServlet;
+import io.spine.web.metrics.WebMetrics;
 
 import static io.spine.core.Responses.statusOk;
 import static io.spine.protobuf.AnyPacker.pack;
@@ -67,5 +68,10 @@ public final class CommandServletTestEnv {
         public TestCommandServlet() {
             super(positiveCommandService());
         }
+
+        public TestCommandServlet(WebMetrics metrics) {
+            this();
+            setMetrics(metrics);
+        }
     }
 }
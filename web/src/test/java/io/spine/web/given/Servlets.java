@@ -23,6 +23,7 @@ package io.spine.web.given;
 import com.google.protobuf.Message;
 import io.spine.json.Json;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -32,6 +33,7 @@ import java.io.PrintWriter;
 import java.io.StringReader;
 import java.io.StringWriter;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -55,6 +57,20 @@ public final class Servlets {
         return request;
     }
 
+    /**
+     * Creates a request which supports the asynchronous processing.
+     *
+     * <p>The request {@linkplain HttpServletRequest#startAsync(javax.servlet.ServletRequest,
+     * javax.servlet.ServletResponse) starts} the asynchronous processing with the given context.
+     */
+    public static HttpServletRequest asyncRequest(Message contents, AsyncContext context)
+            throws IOException {
+        HttpServletRequest request = request(contents);
+        when(request.isAsyncSupported()).thenReturn(true);
+        when(request.startAsync(any(), any())).thenReturn(context);
+        return request;
+    }
+
     public static HttpServletResponse response(StringWriter writer) throws IOException {
         HttpServletResponse response = mock(HttpServletResponse.class);
         when(response.getWriter()).thenReturn(new PrintWriter(writer));
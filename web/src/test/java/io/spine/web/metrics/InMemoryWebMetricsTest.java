@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.spine.web.given.Servlets.response;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("InMemoryWebMetrics should")
+class InMemoryWebMetricsTest {
+
+    @Test
+    @DisplayName("record durations into histograms")
+    void recordDurations() {
+        InMemoryWebMetrics metrics = new InMemoryWebMetrics();
+        for (long millis = 1; millis <= 100; millis++) {
+            metrics.recordNanos("timer", MILLISECONDS.toNanos(millis));
+        }
+        Histogram histogram = metrics.histogram("timer")
+                                     .orElseThrow(IllegalStateException::new);
+        assertEquals(100, histogram.count());
+        assertEquals(MILLISECONDS.toNanos(100), histogram.maxNanos());
+        assertEquals(MILLISECONDS.toNanos(50) + MILLISECONDS.toNanos(1) / 2,
+                     histogram.meanNanos(), 1.0);
+        assertWithinPrecision(MILLISECONDS.toNanos(50), histogram.percentileNanos(50.0));
+        assertWithinPrecision(MILLISECONDS.toNanos(99), histogram.percentileNanos(99.0));
+        assertEquals(MILLISECONDS.toNanos(100), histogram.percentileNanos(100.0));
+    }
+
+    @Test
+    @DisplayName("time completion stages")
+    void timeStages() {
+        InMemoryWebMetrics metrics = new InMemoryWebMetrics();
+        CompletableFuture<String> stage = new CompletableFuture<>();
+        metrics.timed("timer", stage);
+        assertFalse(metrics.histogram("timer")
+                           .isPresent());
+
+        stage.completeExceptionally(new IllegalStateException());
+        assertTrue(metrics.histogram("timer")
+                          .isPresent());
+    }
+
+    @Test
+    @DisplayName("count events")
+    void countEvents() {
+        InMemoryWebMetrics metrics = new InMemoryWebMetrics();
+        assertEquals(0, metrics.counter("counter"));
+
+        metrics.increment("counter");
+        metrics.add("counter", 41);
+        assertEquals(42, metrics.counter("counter"));
+    }
+
+    @Test
+    @DisplayName("report gauge values on demand")
+    void reportGauges() {
+        InMemoryWebMetrics metrics = new InMemoryWebMetrics();
+        AtomicLong value = new AtomicLong(1);
+        metrics.registerGauge("gauge", value::get);
+        assertEquals(1, metrics.gauge("gauge")
+                               .getAsLong());
+
+        value.set(2);
+        assertEquals(2, metrics.gauge("gauge")
+                               .getAsLong());
+        assertFalse(metrics.gauge("other")
+                           .isPresent());
+    }
+
+    @Test
+    @DisplayName("not accept invalid percentiles")
+    void invalidPercentile() {
+        Histogram histogram = new Histogram();
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentileNanos(101.0));
+        assertEquals(0, histogram.percentileNanos(99.0));
+    }
+
+    @Nested
+    @DisplayName("be reported by a servlet")
+    class Report {
+
+        @Test
+        @DisplayName("as JSON")
+        void asJson() throws IOException {
+            InMemoryWebMetrics metrics = new InMemoryWebMetrics();
+            metrics.recordNanos("timer", MILLISECONDS.toNanos(2));
+            metrics.increment("counter");
+            metrics.registerGauge("gauge", () -> 3L);
+            MetricsServlet servlet = new MetricsServlet(metrics) {};
+            StringWriter content = new StringWriter();
+            HttpServletResponse response = response(content);
+
+            servlet.doGet(mock(HttpServletRequest.class), response);
+
+            String expected = "{\"timers\":{\"timer\":{\"count\":1,\"meanMillis\":2.000," +
+                    "\"p50Millis\":2.000,\"p90Millis\":2.000,\"p99Millis\":2.000," +
+                    "\"p999Millis\":2.000,\"maxMillis\":2.000}}," +
+                    "\"counters\":{\"counter\":1},\"gauges\":{\"gauge\":3}}";
+            assertEquals(expected, content.toString());
+            verify(response).setContentType("application/json; charset=utf-8");
+        }
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue(actual >= expected, () -> actual + " is below " + expected);
+        assertTrue(actual <= expected * 1.125, () -> actual + " is above " + expected);
+    }
+}
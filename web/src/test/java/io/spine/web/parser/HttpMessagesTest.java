@@ -23,6 +23,7 @@ package io.spine.web.parser;
 import com.google.protobuf.Empty;
 import com.google.protobuf.FieldMask;
 import com.google.protobuf.Message;
+import com.google.protobuf.Struct;
 import com.google.protobuf.Timestamp;
 import com.google.protobuf.UnknownFieldSet;
 import io.spine.base.Time;
@@ -30,6 +31,7 @@ import io.spine.core.Ack;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.util.Base64;
 import java.util.Optional;
@@ -42,13 +44,19 @@ import static io.spine.web.parser.given.HttpMessagesTestEnv.JSON_TYPE_CRAZY_CASE
 import static io.spine.web.parser.given.HttpMessagesTestEnv.JSON_TYPE_UTF_8;
 import static io.spine.web.parser.given.HttpMessagesTestEnv.PROTOBUF_TYPE;
 import static io.spine.web.parser.given.HttpMessagesTestEnv.base64;
+import static io.spine.web.parser.given.HttpMessagesTestEnv.binaryRequest;
 import static io.spine.web.parser.given.HttpMessagesTestEnv.newAck;
 import static io.spine.web.parser.given.HttpMessagesTestEnv.request;
 import static io.spine.web.parser.given.HttpMessagesTestEnv.requestWithoutContentType;
 import static io.spine.web.parser.given.HttpMessagesTestEnv.testJsonWithContentType;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Tests for {@link io.spine.web.parser.HttpMessages HttpMessages}.
@@ -105,6 +113,65 @@ class HttpMessagesTest {
         assertEquals(expectedMessage, actual.get());
     }
 
+    @Test
+    @DisplayName("parse message from raw bytes in HTTP request")
+    void testBinary() throws IOException {
+        Ack expectedAck = newAck(42);
+        Optional<Ack> actual = parse(binaryRequest(expectedAck), Ack.class);
+        assertTrue(actual.isPresent());
+        assertEquals(expectedAck, actual.get());
+    }
+
+    @Test
+    @DisplayName("not parse raw bytes exceeding max body size")
+    void testBinaryTooBig() throws IOException {
+        Ack ack = newAck(42);
+        int maxSize = ack.getSerializedSize() - 1;
+        Optional<Ack> actual = parse(binaryRequest(ack), Ack.class, maxSize);
+        assertFalse(actual.isPresent());
+    }
+
+    @Test
+    @DisplayName("not parse text exceeding max body size")
+    void testTextTooBig() throws IOException {
+        String content = toCompactJson(newAck(42));
+        Optional<Ack> actual = parse(request(content, JSON_TYPE), Ack.class, content.length() - 1);
+        assertFalse(actual.isPresent());
+    }
+
+    @Test
+    @DisplayName("measure text body size in bytes")
+    void testTextSizeInBytes() throws IOException {
+        String content = "{\"key\":\"\u0436\u0436\u0436\u0436\"}";
+        int sizeInBytes = content.getBytes(UTF_8).length;
+
+        Optional<Struct> tooBig =
+                parse(request(content, JSON_TYPE), Struct.class, sizeInBytes - 1);
+        Optional<Struct> fitting =
+                parse(request(content, JSON_TYPE), Struct.class, sizeInBytes);
+
+        assertFalse(tooBig.isPresent());
+        assertTrue(fitting.isPresent());
+    }
+
+    @Test
+    @DisplayName("not parse request with content length exceeding max body size")
+    void testContentLengthTooBig() throws IOException {
+        String content = toCompactJson(newAck(42));
+        HttpServletRequest request = request(content, JSON_TYPE);
+        when(request.getContentLengthLong()).thenReturn((long) content.length());
+        Optional<Ack> actual = parse(request, Ack.class, content.length() - 1);
+        assertFalse(actual.isPresent());
+        verify(request, never()).getReader();
+    }
+
+    @Test
+    @DisplayName("not accept non-positive max body size")
+    void testInvalidMaxBodySize() throws IOException {
+        HttpServletRequest request = request("{}", JSON_TYPE);
+        assertThrows(IllegalArgumentException.class, () -> parse(request, Empty.class, 0));
+    }
+
     @Test
     @DisplayName("not parse message of an unknown format")
     void testNotSupportUnknownFormat() throws IOException {
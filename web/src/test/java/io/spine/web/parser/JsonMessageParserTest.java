@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.parser;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static io.spine.web.parser.JsonMessageParser.cleanUp;
+import static java.util.regex.Matcher.quoteReplacement;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DisplayName("JsonMessageParser should")
+class JsonMessageParserTest {
+
+    private static final Pattern ESCAPED_LINE_FEED = Pattern.compile("\\n", Pattern.LITERAL);
+    private static final Pattern ESCAPED_QUOTE = Pattern.compile("\\\"", Pattern.LITERAL);
+
+    @Test
+    @DisplayName("un-escape line feeds and quotation marks")
+    void testUnEscape() {
+        assertEquals("{\"a\":\"b\nc\"}", cleanUp("{\\\"a\\\":\\\"b\\nc\\\"}"));
+    }
+
+    @Test
+    @DisplayName("remove enclosing quotation marks")
+    void testUnQuote() {
+        assertEquals("{}", cleanUp("\"{}\""));
+    }
+
+    @Test
+    @DisplayName("not copy JSON without escaped characters")
+    void testNoCopy() {
+        String json = "{\"a\":1}";
+        assertSame(json, cleanUp(json));
+    }
+
+    @Test
+    @DisplayName("clean up JSON in the same way as sequential replacements")
+    void testSequentialEquivalence() {
+        Random random = new Random(42);
+        char[] alphabet = {'\\', 'n', '"', 'x', '{', '}'};
+        for (int i = 0; i < 10_000; i++) {
+            int length = random.nextInt(12);
+            StringBuilder json = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                json.append(alphabet[random.nextInt(alphabet.length)]);
+            }
+            String input = json.toString();
+            assertEquals(sequentialCleanUp(input), cleanUp(input), input);
+        }
+    }
+
+    /**
+     * The reference implementation which replaces the escaped characters one kind at a time.
+     */
+    private static String sequentialCleanUp(String json) {
+        String result = ESCAPED_LINE_FEED.matcher(json)
+                                         .replaceAll(quoteReplacement("\n"));
+        result = ESCAPED_QUOTE.matcher(result)
+                              .replaceAll(quoteReplacement("\""));
+        int beginIndex = result.startsWith("\"") ? 1 : 0;
+        int endIndex = result.endsWith("\"") ? result.length() - 1 : result.length();
+        if (beginIndex > endIndex) {
+            return "";
+        }
+        return result.substring(beginIndex, endIndex);
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.parser;
+
+import com.google.protobuf.Timestamp;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static io.spine.testing.Tests.assertHasPrivateParameterlessCtor;
+import static io.spine.web.parser.MessageFormat.BASE64;
+import static io.spine.web.parser.MessageFormat.JSON;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@DisplayName("MessageParsers should")
+class MessageParsersTest {
+
+    @Test
+    @DisplayName("have private utility ctor")
+    void testUtilCtor() {
+        assertHasPrivateParameterlessCtor(MessageParsers.class);
+    }
+
+    @Test
+    @DisplayName("cache parsers per format and type")
+    void testCache() {
+        MessageParser<Timestamp> first =
+                MessageParsers.parserFor(JSON, Timestamp.class, JsonMessageParser::new);
+        MessageParser<Timestamp> second =
+                MessageParsers.parserFor(JSON, Timestamp.class, JsonMessageParser::new);
+        MessageParser<Timestamp> base64 =
+                MessageParsers.parserFor(BASE64, Timestamp.class, Base64MessageParser::new);
+        assertSame(first, second);
+        assertNotSame(first, base64);
+    }
+}
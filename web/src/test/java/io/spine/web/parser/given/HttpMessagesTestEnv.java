@@ -26,8 +26,11 @@ import io.spine.core.Ack;
 import io.spine.core.AckVBuilder;
 import io.spine.web.parser.HttpMessages;
 
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
 import javax.servlet.http.HttpServletRequest;
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
 import java.util.Base64;
@@ -55,6 +58,7 @@ public final class HttpMessagesTestEnv {
     public static final String JSON_TYPE_UTF_8 = "application/json; charset=utf-8";
     public static final String JSON_TYPE_CRAZY_CASE = "aPPliCatIon/JSon";
     public static final String PROTOBUF_TYPE = "application/x-protobuf";
+    public static final String BINARY_TYPE = "application/protobuf";
 
     /** Prevents the test environment class instantiation. */
     private HttpMessagesTestEnv() {
@@ -88,6 +92,13 @@ public final class HttpMessagesTestEnv {
         return request;
     }
 
+    public static HttpServletRequest binaryRequest(Message message) throws IOException {
+        HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getInputStream()).thenReturn(new BytesInputStream(message.toByteArray()));
+        when(request.getHeader(eq(CONTENT_TYPE))).thenReturn(BINARY_TYPE);
+        return request;
+    }
+
     public static HttpServletRequest request(String content, String format)
             throws IOException {
         HttpServletRequest request = mock(HttpServletRequest.class);
@@ -95,4 +106,37 @@ public final class HttpMessagesTestEnv {
         when(request.getHeader(eq(CONTENT_TYPE))).thenReturn(format);
         return request;
     }
+
+    /**
+     * A {@link ServletInputStream} reading the given bytes.
+     */
+    private static final class BytesInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream bytes;
+
+        private BytesInputStream(byte[] bytes) {
+            super();
+            this.bytes = new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return bytes.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read() {
+            return bytes.read();
+        }
+    }
 }
@@ -32,6 +32,7 @@ import io.spine.web.query.given.QueryServletTestEnv.TestQueryServlet;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import javax.servlet.AsyncContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.ByteArrayOutputStream;
@@ -39,10 +40,13 @@ import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.StringWriter;
 
+import static io.spine.web.given.Servlets.asyncRequest;
 import static io.spine.web.given.Servlets.request;
 import static io.spine.web.given.Servlets.response;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -77,6 +81,22 @@ class QueryServletTest {
         assertEquals(expectedData, actualData);
     }
 
+    @Test
+    @DisplayName("handle query POST requests asynchronously")
+    void testHandleAsync() throws IOException {
+        Timestamp expectedData = Time.getCurrentTime();
+        QueryServlet servlet = new TestQueryServlet(expectedData);
+        StringWriter response = new StringWriter();
+        Query query = queryFactory.all(Timestamp.class);
+        AsyncContext context = mock(AsyncContext.class);
+        HttpServletRequest request = asyncRequest(newTransactionalQuery(query), context);
+        servlet.doPost(request, response(response));
+        verify(context).setTimeout(anyLong());
+        verify(context).complete();
+        Timestamp actualData = Json.fromJson(response.toString(), Timestamp.class);
+        assertEquals(expectedData, actualData);
+    }
+
     private static WebQuery newTransactionalQuery(Query query) {
         return WebQueryVBuilder.newBuilder()
                                .setQuery(query)
@@ -26,6 +26,8 @@ import io.spine.client.Query;
 import io.spine.client.QueryResponse;
 import io.spine.client.grpc.QueryServiceGrpc;
 import io.spine.client.grpc.QueryServiceGrpc.QueryServiceBlockingStub;
+import io.spine.client.grpc.QueryServiceGrpc.QueryServiceFutureStub;
+import io.spine.client.grpc.QueryServiceGrpc.QueryServiceStub;
 import io.spine.server.QueryService;
 import io.spine.server.transport.GrpcContainer;
 import org.junit.jupiter.api.AfterEach;
@@ -36,17 +38,27 @@ import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
 
 import static io.grpc.ManagedChannelBuilder.forAddress;
 import static io.spine.client.ConnectionConstants.DEFAULT_CLIENT_SERVICE_PORT;
+import static io.grpc.Status.Code.DEADLINE_EXCEEDED;
+import static io.grpc.Status.fromThrowable;
 import static io.spine.testing.Tests.nullRef;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -146,13 +158,124 @@ class AsyncQueryServiceTest {
                          AsyncQueryService.remote(remoteQueryService()).toString());
         }
 
+        @Test
+        @DisplayName("execute queries via the async stub")
+        void testAsyncStub() {
+            QueryServiceStub stub = QueryServiceGrpc.newStub(channel());
+            AsyncQueryService proxy = AsyncQueryService.remote(stub);
+
+            Query query = Query.getDefaultInstance();
+            QueryResponse response = proxy.execute(query).join();
+
+            assertEquals(QueryResponse.getDefaultInstance(), response);
+            verify(queryService).read(eq(query), any());
+        }
+
+        @Test
+        @DisplayName("execute queries via the future stub")
+        void testFutureStub() {
+            QueryServiceFutureStub stub = QueryServiceGrpc.newFutureStub(channel());
+            AsyncQueryService proxy = AsyncQueryService.remote(stub);
+
+            Query query = Query.getDefaultInstance();
+            QueryResponse response = proxy.execute(query).join();
+
+            assertEquals(QueryResponse.getDefaultInstance(), response);
+            verify(queryService).read(eq(query), any());
+        }
+
+        @Test
+        @DisplayName("execute queries via a channel")
+        void testChannel() {
+            AsyncQueryService proxy = AsyncQueryService.remote(channel());
+
+            Query query = Query.getDefaultInstance();
+            QueryResponse response = proxy.execute(query).join();
+
+            assertEquals(QueryResponse.getDefaultInstance(), response);
+            verify(queryService).read(eq(query), any());
+        }
+
+        @Test
+        @DisplayName("complete calls on the given executor")
+        void testExecutor() {
+            Executor executor = spy(new DirectExecutor());
+            RemoteCallOptions options = RemoteCallOptions.newBuilder()
+                                                         .setExecutor(executor)
+                                                         .build();
+            AsyncQueryService proxy = AsyncQueryService.remote(channel(), options);
+            proxy.execute(Query.getDefaultInstance()).join();
+
+            verify(executor, atLeastOnce()).execute(any());
+        }
+
+        @Test
+        @DisplayName("fail calls which exceed the deadline")
+        void testDeadline() {
+            CountDownLatch responseAllowed = new CountDownLatch(1);
+            doAnswer(invocation -> {
+                responseAllowed.await();
+                StreamObserver<QueryResponse> observer = invocation.getArgument(1);
+                observer.onNext(QueryResponse.getDefaultInstance());
+                observer.onCompleted();
+                return nullRef();
+            }).when(queryService).read(any(), any());
+            RemoteCallOptions options = RemoteCallOptions.newBuilder()
+                                                         .setDeadline(100, MILLISECONDS)
+                                                         .build();
+            AsyncQueryService proxy = AsyncQueryService.remote(channel(), options);
+            CompletableFuture<QueryResponse> result = proxy.execute(Query.getDefaultInstance());
+
+            CompletionException exception = assertThrows(CompletionException.class, result::join);
+            responseAllowed.countDown();
+            assertEquals(DEADLINE_EXCEEDED, fromThrowable(exception.getCause()).getCode());
+        }
+
         private QueryServiceBlockingStub remoteQueryService() {
+            QueryServiceBlockingStub result = QueryServiceGrpc.newBlockingStub(channel());
+            return result;
+        }
+
+        private Channel channel() {
             Channel channel = forAddress("127.0.0.1", TEST_GRPC_PORT)
                     .usePlaintext(true)
                     .directExecutor()
                     .build();
-            QueryServiceBlockingStub result = QueryServiceGrpc.newBlockingStub(channel);
-            return result;
+            return channel;
+        }
+    }
+
+    @Nested
+    @DisplayName("provide call options that should")
+    class RemoteCallOptionsTest {
+
+        @Test
+        @DisplayName("not accept non-positive deadline")
+        void testInvalidDeadline() {
+            RemoteCallOptions.Builder builder = RemoteCallOptions.newBuilder();
+            assertThrows(IllegalArgumentException.class, () -> builder.setDeadline(0, MILLISECONDS));
+        }
+
+        @Test
+        @DisplayName("not accept deadline shorter than a millisecond")
+        void testSubMillisecondDeadline() {
+            RemoteCallOptions.Builder builder = RemoteCallOptions.newBuilder();
+            assertThrows(IllegalArgumentException.class,
+                         () -> builder.setDeadline(999, MICROSECONDS));
+        }
+    }
+
+    /**
+     * An {@link Executor} which runs the tasks in the calling thread.
+     *
+     * <p>The class is not final in order to be {@linkplain org.mockito.Mockito#spy spied} on.
+     */
+    @SuppressWarnings("WeakerAccess") // Accessed by Mockito.
+    static class DirectExecutor implements Executor {
+
+        @Override
+        public void execute(Runnable command) {
+            command.run();
         }
     }
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.query.service;
+
+import com.google.common.cache.CacheStats;
+import com.google.common.testing.FakeTicker;
+import io.spine.client.Query;
+import io.spine.client.QueryResponse;
+import io.spine.core.Response;
+import io.spine.core.Status;
+import io.spine.web.query.service.given.CachingQueryServiceTestEnv.ControlledQueryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static io.spine.core.Responses.ok;
+import static io.spine.web.query.service.given.CachingQueryServiceTestEnv.timestampsQuery;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("CachingQueryService should")
+class CachingQueryServiceTest {
+
+    private static final String TENANT = "cached tenant";
+
+    private ControlledQueryService delegate;
+    private FakeTicker ticker;
+    private CachingQueryService service;
+
+    @BeforeEach
+    void setUp() {
+        delegate = new ControlledQueryService();
+        ticker = new FakeTicker();
+        service = CachingQueryService.newBuilder()
+                                     .setDelegate(delegate)
+                                     .setExpireAfter(10, SECONDS)
+                                     .setMaximumSize(2)
+                                     .setTicker(ticker)
+                                     .build();
+    }
+
+    @Test
+    @DisplayName("coalesce concurrent identical queries")
+    void testCoalesce() {
+        CompletableFuture<QueryResponse> first = service.execute(timestampsQuery(TENANT));
+        CompletableFuture<QueryResponse> second = service.execute(timestampsQuery(TENANT));
+        assertEquals(1, delegate.callCount());
+
+        QueryResponse response = okResponse();
+        delegate.respondAll(response);
+        assertEquals(response, first.join());
+        assertEquals(response, second.join());
+    }
+
+    @Test
+    @DisplayName("serve the identical queries from cache")
+    void testCache() {
+        service.execute(timestampsQuery(TENANT));
+        delegate.respondAll(okResponse());
+        service.execute(timestampsQuery(TENANT)).join();
+
+        assertEquals(1, delegate.callCount());
+        CacheStats stats = service.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(1, stats.missCount());
+    }
+
+    @Test
+    @DisplayName("isolate tenants")
+    void testTenants() {
+        service.execute(timestampsQuery(TENANT));
+        service.execute(timestampsQuery("another tenant"));
+        assertEquals(2, delegate.callCount());
+    }
+
+    @Test
+    @DisplayName("expire cached responses")
+    void testExpire() {
+        service.execute(timestampsQuery(TENANT));
+        delegate.respondAll(okResponse());
+        ticker.advance(11, SECONDS);
+        service.execute(timestampsQuery(TENANT));
+        assertEquals(2, delegate.callCount());
+    }
+
+    @Test
+    @DisplayName("evict responses when the size limit is exceeded")
+    void testEvict() {
+        service.execute(timestampsQuery("first"));
+        service.execute(timestampsQuery("second"));
+        service.execute(timestampsQuery("third"));
+        service.execute(timestampsQuery("first"));
+        assertEquals(4, delegate.callCount());
+    }
+
+    @Test
+    @DisplayName("not cache failed queries")
+    void testFailure() {
+        CompletableFuture<QueryResponse> failed = service.execute(timestampsQuery(TENANT));
+        delegate.failAll(new IllegalStateException("Test query failure."));
+        assertThrows(CompletionException.class, failed::join);
+
+        service.execute(timestampsQuery(TENANT));
+        assertEquals(2, delegate.callCount());
+    }
+
+    @Test
+    @DisplayName("not cache error responses")
+    void testErrorResponse() {
+        Status error = Status.newBuilder()
+                             .setError(io.spine.base.Error.getDefaultInstance())
+                             .build();
+        QueryResponse errorResponse = QueryResponse.newBuilder()
+                                                   .setResponse(Response.newBuilder()
+                                                                        .setStatus(error))
+                                                   .build();
+        service.execute(timestampsQuery(TENANT));
+        delegate.respondAll(errorResponse);
+
+        service.execute(timestampsQuery(TENANT));
+        assertEquals(2, delegate.callCount());
+    }
+
+    @Test
+    @DisplayName("not let callers complete the shared response")
+    void testIsolateFutures() {
+        Query query = timestampsQuery(TENANT);
+        service.execute(query)
+               .complete(QueryResponse.getDefaultInstance());
+        CompletableFuture<QueryResponse> second = service.execute(query);
+
+        QueryResponse response = okResponse();
+        delegate.respondAll(response);
+        assertEquals(response, second.join());
+    }
+
+    @Test
+    @DisplayName("not accept non-positive limits")
+    void testInvalidLimits() {
+        CachingQueryService.Builder builder = CachingQueryService.newBuilder();
+        assertThrows(IllegalArgumentException.class, () -> builder.setMaximumSize(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.setExpireAfter(0, SECONDS));
+        assertThrows(IllegalArgumentException.class,
+                     () -> builder.setExpireAfter(999, MICROSECONDS));
+    }
+
+    private static QueryResponse okResponse() {
+        QueryResponse response = QueryResponse.newBuilder()
+                                              .setResponse(ok())
+                                              .build();
+        return response;
+    }
+}
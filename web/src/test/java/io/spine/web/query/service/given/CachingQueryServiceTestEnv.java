@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.query.service.given;
+
+import com.google.protobuf.Timestamp;
+import io.spine.client.Query;
+import io.spine.client.QueryResponse;
+import io.spine.core.TenantId;
+import io.spine.core.TenantIdVBuilder;
+import io.spine.testing.client.TestActorRequestFactory;
+import io.spine.web.query.service.AsyncQueryService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public final class CachingQueryServiceTestEnv {
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private CachingQueryServiceTestEnv() {
+    }
+
+    public static Query timestampsQuery(String tenant) {
+        TenantId tenantId = TenantIdVBuilder.newBuilder()
+                                            .setValue(tenant)
+                                            .build();
+        TestActorRequestFactory requestFactory =
+                TestActorRequestFactory.newInstance(CachingQueryServiceTestEnv.class, tenantId);
+        Query query = requestFactory.query()
+                                    .all(Timestamp.class);
+        return query;
+    }
+
+    /**
+     * An {@link AsyncQueryService} which returns the futures completed manually by the test.
+     */
+    public static final class ControlledQueryService implements AsyncQueryService {
+
+        private final List<CompletableFuture<QueryResponse>> calls = new ArrayList<>();
+
+        @Override
+        public synchronized CompletableFuture<QueryResponse> execute(Query query) {
+            CompletableFuture<QueryResponse> result = new CompletableFuture<>();
+            calls.add(result);
+            return result;
+        }
+
+        public synchronized int callCount() {
+            return calls.size();
+        }
+
+        public synchronized void respondAll(QueryResponse response) {
+            calls.forEach(call -> call.complete(response));
+        }
+
+        public synchronized void failAll(Throwable error) {
+            calls.forEach(call -> call.completeExceptionally(error));
+        }
+    }
+}
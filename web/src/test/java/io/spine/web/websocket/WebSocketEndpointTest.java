@@ -0,0 +1,212 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.websocket;
+
+import io.spine.client.QueryFactory;
+import io.spine.testing.client.TestActorRequestFactory;
+import io.spine.testing.client.c.CreateTask;
+import io.spine.web.AdmissionController;
+import io.spine.web.WebQuery;
+import io.spine.web.WebRequest;
+import io.spine.web.WebSocketRequest;
+import io.spine.web.WebSocketResponse;
+import io.spine.web.websocket.given.WebSocketEndpointTestEnv.TestWebSocketEndpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.websocket.CloseReason;
+import javax.websocket.EndpointConfig;
+import javax.websocket.MessageHandler;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.Session;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static io.spine.web.batch.given.BatchServletTestEnv.QUERY_RESULT;
+import static io.spine.web.websocket.given.WebSocketEndpointTestEnv.frameHandler;
+import static io.spine.web.websocket.given.WebSocketEndpointTestEnv.openSession;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("WebSocketEndpoint should")
+class WebSocketEndpointTest {
+
+    private static final TestActorRequestFactory requestFactory =
+            TestActorRequestFactory.newInstance(WebSocketEndpointTest.class);
+    private static final QueryFactory queryFactory = requestFactory.query();
+
+    private RemoteEndpoint.Async remote;
+    private Session session;
+    private MessageHandler.Whole<ByteBuffer> handler;
+
+    @BeforeEach
+    void setUp() {
+        open(new TestWebSocketEndpoint());
+    }
+
+    private void open(WebSocketEndpoint endpoint) {
+        remote = mock(RemoteEndpoint.Async.class);
+        session = openSession(remote);
+        endpoint.onOpen(session, mock(EndpointConfig.class));
+        handler = frameHandler(session);
+    }
+
+    @Test
+    @DisplayName("respond to a request with the same correlation ID")
+    void testRespond() throws Exception {
+        handler.onMessage(frame("query-1", queryRequest()));
+
+        WebSocketResponse response = sentResponse();
+        assertEquals("query-1", response.getCorrelationId());
+        assertEquals(200, response.getStatus());
+        assertEquals(QUERY_RESULT, response.getBody());
+    }
+
+    @Test
+    @DisplayName("respond 400 to a request of an unknown kind")
+    void testInvalidRequest() throws Exception {
+        handler.onMessage(frame("empty", WebRequest.getDefaultInstance()));
+
+        WebSocketResponse response = sentResponse();
+        assertEquals("empty", response.getCorrelationId());
+        assertEquals(400, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("close the connection upon a malformed frame")
+    void testMalformedFrame() throws Exception {
+        handler.onMessage(ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF}));
+
+        verify(session).close(any(CloseReason.class));
+    }
+
+    @Test
+    @DisplayName("respond 429 to requests exceeding the limit of the connection")
+    void testSessionLimit() throws Exception {
+        Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        open(new TestWebSocketEndpoint(tasks::add, 1, AdmissionController.unlimited()));
+
+        handler.onMessage(frame("first", queryRequest()));
+        handler.onMessage(frame("second", queryRequest()));
+
+        WebSocketResponse rejected = sentResponse();
+        assertEquals("second", rejected.getCorrelationId());
+        assertEquals(429, rejected.getStatus());
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    @DisplayName("respond 503 to requests rejected by the admission controller")
+    void testAdmission() throws Exception {
+        AdmissionController controller = AdmissionController.newBuilder()
+                                                            .addSaturationCheck(() -> true)
+                                                            .build();
+        open(new TestWebSocketEndpoint(Runnable::run, 1, controller));
+
+        handler.onMessage(frame("rejected", queryRequest()));
+
+        WebSocketResponse response = sentResponse();
+        assertEquals("rejected", response.getCorrelationId());
+        assertEquals(503, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("respond 503 to requests rejected by the executor")
+    void testRejectedExecution() throws Exception {
+        Executor rejecting = task -> {
+            throw new RejectedExecutionException();
+        };
+        open(new TestWebSocketEndpoint(rejecting, 1, AdmissionController.unlimited()));
+
+        handler.onMessage(frame("rejected", queryRequest()));
+        handler.onMessage(frame("next", queryRequest()));
+
+        ArgumentCaptor<ByteBuffer> captor = ArgumentCaptor.forClass(ByteBuffer.class);
+        verify(remote, timeout(1000).times(2)).sendBinary(captor.capture(), any());
+        for (ByteBuffer frame : captor.getAllValues()) {
+            assertEquals(503, WebSocketResponse.parseFrom(frame)
+                                               .getStatus());
+        }
+    }
+
+    @Test
+    @DisplayName("respond 504 to requests not processed in time")
+    void testTimeout() throws Exception {
+        Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        open(new TestWebSocketEndpoint(tasks::add, 1, 10L));
+
+        handler.onMessage(frame("stalled", queryRequest()));
+
+        WebSocketResponse response = sentResponse();
+        assertEquals("stalled", response.getCorrelationId());
+        assertEquals(504, response.getStatus());
+    }
+
+    @Test
+    @DisplayName("close the connection which does not consume the responses")
+    void testResponseOverflow() throws Exception {
+        open(new TestWebSocketEndpoint(Runnable::run, 1, AdmissionController.unlimited()));
+        doNothing().when(remote)
+                   .sendBinary(any(ByteBuffer.class), any(SendHandler.class));
+
+        for (int i = 0; i < 3; i++) {
+            handler.onMessage(frame("empty", WebRequest.getDefaultInstance()));
+        }
+        verify(session, never()).close(any(CloseReason.class));
+
+        handler.onMessage(frame("overflow", WebRequest.getDefaultInstance()));
+        verify(session).close(any(CloseReason.class));
+    }
+
+    private static WebRequest queryRequest() {
+        WebQuery query = WebQuery.newBuilder()
+                                 .setQuery(queryFactory.all(CreateTask.class))
+                                 .build();
+        return WebRequest.newBuilder()
+                         .setQuery(query)
+                         .build();
+    }
+
+    private static ByteBuffer frame(String correlationId, WebRequest request) {
+        WebSocketRequest frame = WebSocketRequest.newBuilder()
+                                                 .setCorrelationId(correlationId)
+                                                 .setRequest(request)
+                                                 .build();
+        return ByteBuffer.wrap(frame.toByteArray());
+    }
+
+    private WebSocketResponse sentResponse() throws Exception {
+        ArgumentCaptor<ByteBuffer> captor = ArgumentCaptor.forClass(ByteBuffer.class);
+        verify(remote, timeout(1000)).sendBinary(captor.capture(), any());
+        return WebSocketResponse.parseFrom(captor.getValue());
+    }
+}
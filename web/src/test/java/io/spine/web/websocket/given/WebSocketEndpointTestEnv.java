@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018, TeamDev. All rights reserved.
+ *
+ * Redistribution and use in source and/or binary forms, with or without
+ * modification, must retain the above copyright notice and the following
+ * disclaimer.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * OWNER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package io.spine.web.websocket.given;
+
+import io.spine.web.AdmissionController;
+import io.spine.web.websocket.WebSocketEndpoint;
+import org.mockito.ArgumentCaptor;
+
+import javax.websocket.MessageHandler;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+
+import static io.spine.web.batch.given.BatchServletTestEnv.positiveQueryBridge;
+import static io.spine.web.batch.given.BatchServletTestEnv.positiveSubscriptionBridge;
+import static io.spine.web.command.given.CommandServletTestEnv.positiveCommandService;
+import static org.mockito.ArgumentCaptor.forClass;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public final class WebSocketEndpointTestEnv {
+
+    /**
+     * Prevents the utility class instantiation.
+     */
+    private WebSocketEndpointTestEnv() {
+    }
+
+    /**
+     * Creates an open {@link Session} sending the messages to the given remote endpoint.
+     *
+     * <p>The remote endpoint is set up to report each message as sent immediately.
+     */
+    public static Session openSession(RemoteEndpoint.Async remote) {
+        Session session = mock(Session.class);
+        when(session.isOpen()).thenReturn(true);
+        when(session.getId()).thenReturn("test-session");
+        when(session.getAsyncRemote()).thenReturn(remote);
+        doAnswer(invocation -> {
+            SendHandler handler = invocation.getArgument(1);
+            handler.onResult(new SendResult());
+            return null;
+        }).when(remote)
+          .sendBinary(any(ByteBuffer.class), any(SendHandler.class));
+        return session;
+    }
+
+    /**
+     * Obtains the handler of the binary frames registered in the given session.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"}) // The handler is registered for ByteBuffers.
+    public static MessageHandler.Whole<ByteBuffer> frameHandler(Session session) {
+        ArgumentCaptor<MessageHandler.Whole> captor = forClass(MessageHandler.Whole.class);
+        verify(session).addMessageHandler(eq(ByteBuffer.class), captor.capture());
+        return captor.getValue();
+    }
+
+    public static final class TestWebSocketEndpoint extends WebSocketEndpoint {
+
+        public TestWebSocketEndpoint() {
+            super(positiveCommandService(), positiveQueryBridge(), positiveSubscriptionBridge());
+        }
+
+        public TestWebSocketEndpoint(Executor executor,
+                                     int maxInFlightRequestsPerSession,
+                                     AdmissionController admissionController) {
+            this();
+            setExecutor(executor);
+            setMaxInFlightRequestsPerSession(maxInFlightRequestsPerSession);
+            setAdmissionController(admissionController);
+        }
+
+        public TestWebSocketEndpoint(Executor executor,
+                                     int maxInFlightRequestsPerSession,
+                                     long requestTimeoutMillis) {
+            this(executor, maxInFlightRequestsPerSession, AdmissionController.unlimited());
+            setRequestTimeoutMillis(requestTimeoutMillis);
+        }
+    }
+}